@@ -0,0 +1,110 @@
+/* 
+  Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+ 
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.walkmod.javalang.ASTManager;
+import org.walkmod.javalang.actions.Action;
+import org.walkmod.javalang.actions.ActionsApplier;
+import org.walkmod.javalang.actions.AppendAction;
+import org.walkmod.javalang.actions.RemoveAction;
+import org.walkmod.javalang.actions.ReplaceAction;
+import org.walkmod.javalang.ast.Comment;
+import org.walkmod.javalang.ast.CompilationUnit;
+import org.walkmod.javalang.ast.Node;
+import org.walkmod.javalang.ast.body.BodyDeclaration;
+import org.walkmod.javalang.visitors.CloneVisitor;
+
+/**
+ * Measures the creation of an action per member of the first type of a
+ * compilation unit, and the {@link ActionsApplier} rewriting the code with
+ * them: the members are, in turns, removed, replaced by a copy, and followed
+ * by an appended copy.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ActionsApplierBenchmark extends CorpusBenchmark {
+
+	private static final int INDENTATION_SIZE = 4;
+
+	private CompilationUnit cu;
+
+	private List<BodyDeclaration> members;
+
+	private List<Node> copies;
+
+	@Override
+	protected void prepare() throws Exception {
+		cu = ASTManager.parse(code);
+		members = cu.getTypes().get(0).getMembers();
+		copies = new ArrayList<Node>();
+		if (members == null) {
+			members = new ArrayList<BodyDeclaration>();
+		}
+		CloneVisitor cloneVisitor = new CloneVisitor();
+		for (BodyDeclaration member : members) {
+			copies.add(member.accept(cloneVisitor, null));
+		}
+	}
+
+	/**
+	 * Creates and applies the actions, as a rewrite pass does.
+	 */
+	@Benchmark
+	public String execute() {
+		List<Comment> comments = new ArrayList<Comment>();
+		if (cu.getComments() != null) {
+			comments.addAll(cu.getComments());
+		}
+		List<Action> actions = new ArrayList<Action>(members.size());
+		for (int i = 0; i < members.size(); i++) {
+			BodyDeclaration member = members.get(i);
+			switch (i % 3) {
+			case 0:
+				actions.add(new RemoveAction(member.getBeginLine(), member
+						.getBeginColumn(), member.getEndLine(), member
+						.getEndColumn(), member));
+				break;
+			case 1:
+				actions.add(new ReplaceAction(member.getBeginLine(), member
+						.getBeginColumn(), member, copies.get(i), 1,
+						INDENTATION_SIZE, comments));
+				break;
+			default:
+				actions.add(new AppendAction(member.getEndLine() + 1, 1,
+						copies.get(i), 1, INDENTATION_SIZE));
+			}
+		}
+		ActionsApplier applier = new ActionsApplier();
+		applier.setText(code);
+		applier.setActionList(actions);
+		applier.execute();
+		return applier.getModifiedText();
+	}
+}
@@ -0,0 +1,84 @@
+/* 
+  Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+ 
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.walkmod.javalang.ASTManager;
+import org.walkmod.javalang.ast.CompilationUnit;
+import org.walkmod.javalang.ast.Node;
+import org.walkmod.javalang.ast.TreeSnapshot;
+import org.walkmod.javalang.ast.expr.NameExpr;
+import org.walkmod.javalang.ast.stmt.BlockStmt;
+import org.walkmod.javalang.ast.stmt.ExpressionStmt;
+import org.walkmod.javalang.ast.stmt.Statement;
+import org.walkmod.javalang.visitors.CloneVisitor;
+import org.walkmod.javalang.visitors.SelectiveVisitorAdapter;
+
+/**
+ * Measures the {@link CloneVisitor} copying a compilation unit, compared to
+ * recording a single change with a {@link TreeSnapshot} and undoing it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CloneVisitorBenchmark extends CorpusBenchmark {
+
+	private CompilationUnit cu;
+
+	private BlockStmt block;
+
+	@Override
+	protected void prepare() throws Exception {
+		cu = ASTManager.parse(code);
+		cu.accept(new SelectiveVisitorAdapter<Object>() {
+			@Override
+			protected boolean enter(Node n, Object arg) {
+				if (block == null && n instanceof BlockStmt
+						&& ((BlockStmt) n).getStmts() != null
+						&& !((BlockStmt) n).getStmts().isEmpty()) {
+					block = (BlockStmt) n;
+				}
+				return block == null;
+			}
+		}, null);
+	}
+
+	@Benchmark
+	public Node cloneCompilationUnit() {
+		return cu.accept(new CloneVisitor(), null);
+	}
+
+	@Benchmark
+	public int replaceAndRestore() {
+		TreeSnapshot snapshot = new TreeSnapshot(cu);
+		Statement stmt = block.getStmts().get(0);
+		snapshot.replaceChildNode(block, stmt, new ExpressionStmt(
+				new NameExpr("x")));
+		int modified = snapshot.size();
+		snapshot.restore();
+		return modified;
+	}
+}
@@ -0,0 +1,128 @@
+/* 
+  Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+ 
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Source code used by the benchmarks. A corpus is either a resource from
+ * <code>src/test/resources</code> or a synthetic large file, which is
+ * generated when its name is {@link #SYNTHETIC}.
+ */
+final class Corpus {
+
+	/**
+	 * Name of the synthetic corpus: a class with
+	 * {@link #SYNTHETIC_METHODS} commented methods.
+	 */
+	static final String SYNTHETIC = "synthetic";
+
+	static final int SYNTHETIC_METHODS = 2000;
+
+	private Corpus() {
+	}
+
+	/**
+	 * Returns the source code of a corpus.
+	 * 
+	 * @param name
+	 *            resource name or {@link #SYNTHETIC}
+	 * @return the source code
+	 * @throws IOException
+	 *             if the resource can not be read
+	 */
+	static String load(String name) throws IOException {
+		if (SYNTHETIC.equals(name)) {
+			return generate(SYNTHETIC_METHODS);
+		}
+		return new String(read(name), "UTF-8");
+	}
+
+	/**
+	 * Returns the contents of a resource.
+	 * 
+	 * @param name
+	 *            resource name
+	 * @return the resource bytes
+	 * @throws IOException
+	 *             if the resource does not exist or can not be read
+	 */
+	static byte[] read(String name) throws IOException {
+		InputStream in = Corpus.class.getClassLoader().getResourceAsStream(name);
+		if (in == null) {
+			throw new IOException("The resource " + name + " does not exist");
+		}
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Generates a class with the given number of methods. Each method has a
+	 * javadoc with tags, comments, parameters, annotations and a block of
+	 * statements to fill all kinds of child lists.
+	 * 
+	 * @param methods
+	 *            number of methods
+	 * @return the source code
+	 */
+	static String generate(int methods) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("package org.walkmod.generated;\n\n");
+		sb.append("import java.util.List;\nimport java.util.Map;\n\n");
+		sb.append("public class Generated {\n\n");
+		for (int i = 0; i < methods; i++) {
+			sb.append("   // field number ").append(i).append('\n');
+			sb.append("   private int field").append(i).append(" = ")
+					.append(i).append(";\n\n");
+			sb.append("   /**\n");
+			sb.append("    * Computes the value number ").append(i)
+					.append(".\n");
+			sb.append("    * @param a the initial value\n");
+			sb.append("    * @param b a text\n");
+			sb.append("    * @param c a list of maps\n");
+			sb.append("    * @return the computed value\n");
+			sb.append("    * @throws Exception if it fails\n");
+			sb.append("    */\n");
+			sb.append("   @Deprecated\n");
+			sb.append("   public int method").append(i)
+					.append("(int a, String b, List<Map<String, Integer>> c) throws Exception {\n");
+			sb.append("      int x = a + field").append(i)
+					.append("; // the initial value\n");
+			sb.append("      if (b != null && !c.isEmpty()) {\n");
+			sb.append("         /* the text and the list are used */\n");
+			sb.append("         x = x * b.length() - c.size();\n");
+			sb.append("      }\n");
+			sb.append("      for (int j = 0; j < x; j++) {\n");
+			sb.append("         System.out.println(b.substring(j, x));\n");
+			sb.append("      }\n");
+			sb.append("      return x;\n");
+			sb.append("   }\n\n");
+		}
+		sb.append("}\n");
+		return sb.toString();
+	}
+}
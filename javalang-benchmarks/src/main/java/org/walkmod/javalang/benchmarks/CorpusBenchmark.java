@@ -0,0 +1,50 @@
+/* 
+  Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+ 
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang.benchmarks;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Base class of the benchmarks that run over each {@link Corpus}. The corpus
+ * is loaded before {@link #prepare()} is called.
+ */
+@State(Scope.Benchmark)
+public abstract class CorpusBenchmark {
+
+	@Param({ "source1.8.txt", "test.txt", "licensed-sources.txt",
+			Corpus.SYNTHETIC })
+	public String source;
+
+	protected String code;
+
+	@Setup
+	public final void setUp() throws Exception {
+		code = Corpus.load(source);
+		prepare();
+	}
+
+	/**
+	 * Prepares the data that the benchmark needs from {@link #code}.
+	 * 
+	 * @throws Exception
+	 *             if the data can not be prepared
+	 */
+	protected void prepare() throws Exception {
+	}
+}
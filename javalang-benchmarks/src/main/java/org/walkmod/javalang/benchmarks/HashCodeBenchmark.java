@@ -0,0 +1,96 @@
+/* 
+  Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+ 
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.walkmod.javalang.ASTManager;
+import org.walkmod.javalang.ast.CompilationUnit;
+import org.walkmod.javalang.visitors.CloneVisitor;
+
+/**
+ * Measures {@link org.walkmod.javalang.ast.Node#hashCode()} on a compilation
+ * unit whose hash codes are cached, and on compilation units whose hash codes
+ * have never been computed. Each computed case needs its own copy of the
+ * unit, so the copies are made before each iteration and
+ * {@link #hashCodeComputed(FreshUnits)} is timed as a batch of
+ * {@link #BATCH_SIZE} single calls.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class HashCodeBenchmark extends CorpusBenchmark {
+
+	static final int BATCH_SIZE = 20;
+
+	private CompilationUnit cu;
+
+	@Override
+	protected void prepare() throws Exception {
+		cu = ASTManager.parse(code);
+		cu.hashCode();
+	}
+
+	/**
+	 * Copies of the compilation unit whose hash codes have not been computed.
+	 */
+	@State(Scope.Thread)
+	public static class FreshUnits {
+
+		private CompilationUnit[] units = new CompilationUnit[BATCH_SIZE];
+
+		private int next;
+
+		@Setup(Level.Iteration)
+		public void cloneCompilationUnits(HashCodeBenchmark benchmark) {
+			for (int i = 0; i < units.length; i++) {
+				units[i] = (CompilationUnit) benchmark.cu.accept(
+						new CloneVisitor(), null);
+			}
+			next = 0;
+		}
+
+		CompilationUnit next() {
+			return units[next++];
+		}
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Warmup(iterations = 10, batchSize = BATCH_SIZE)
+	@Measurement(iterations = 20, batchSize = BATCH_SIZE)
+	public int hashCodeComputed(FreshUnits units) {
+		return units.next().hashCode();
+	}
+
+	@Benchmark
+	public int hashCodeCached() {
+		return cu.hashCode();
+	}
+}
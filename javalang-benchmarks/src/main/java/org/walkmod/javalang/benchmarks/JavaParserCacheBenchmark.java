@@ -0,0 +1,71 @@
+/* 
+  Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+ 
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.walkmod.javalang.JavaParser;
+import org.walkmod.javalang.ParseException;
+import org.walkmod.javalang.ast.CompilationUnit;
+
+/**
+ * Compares the pooled parsers of {@link JavaParser} against creating a new
+ * parser per file (<code>JavaParser.setCacheParser(false)</code>) when 32
+ * threads parse at the same time.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class JavaParserCacheBenchmark {
+
+	@Param({ "true", "false" })
+	public boolean cacheParser;
+
+	@Param({ "source1.8.txt", "comments.txt" })
+	public String source;
+
+	private byte[] content;
+
+	@Setup
+	public void setUp() throws IOException {
+		JavaParser.setCacheParser(cacheParser);
+		JavaParser.setParserPoolSize(32);
+		content = Corpus.read(source);
+	}
+
+	@Benchmark
+	public CompilationUnit parse() throws ParseException {
+		return JavaParser.parse(new ByteArrayInputStream(content), "UTF-8");
+	}
+}
@@ -0,0 +1,131 @@
+/* 
+  Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+ 
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang.benchmarks;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.walkmod.javalang.ASTManager;
+import org.walkmod.javalang.ast.CompilationUnit;
+import org.walkmod.javalang.ast.Node;
+import org.walkmod.javalang.ast.body.MethodDeclaration;
+import org.walkmod.javalang.ast.body.MultiTypeParameter;
+import org.walkmod.javalang.ast.expr.LambdaExpr;
+import org.walkmod.javalang.ast.expr.MethodCallExpr;
+import org.walkmod.javalang.ast.expr.MethodReferenceExpr;
+import org.walkmod.javalang.ast.expr.TypeExpr;
+import org.walkmod.javalang.ast.stmt.BlockStmt;
+import org.walkmod.javalang.ast.stmt.ExpressionStmt;
+import org.walkmod.javalang.ast.stmt.Statement;
+import org.walkmod.javalang.visitors.CloneVisitor;
+import org.walkmod.javalang.visitors.ModifierVisitorAdapter;
+
+/**
+ * Measures a {@link ModifierVisitorAdapter} that removes a third of the
+ * statements of a long method and replaces another third. The time per
+ * statement must not grow with the method length.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ModifierVisitorBenchmark {
+
+	@Param({ "1000", "5000", "20000" })
+	public int statements;
+
+	@Param({ "ArrayList", "LinkedList" })
+	public String list;
+
+	private CompilationUnit original;
+
+	private CompilationUnit cu;
+
+	@Setup
+	public void prepare() throws Exception {
+		StringBuilder code = new StringBuilder("public class A {\n  void foo() {\n");
+		String[] calls = { "keep", "remove", "replace" };
+		for (int i = 0; i < statements; i++) {
+			code.append("    ").append(calls[i % 3]).append("(").append(i)
+					.append(");\n");
+		}
+		code.append("  }\n}\n");
+		original = ASTManager.parse(code.toString());
+	}
+
+	@Setup(Level.Invocation)
+	public void copy() {
+		cu = (CompilationUnit) original.accept(new CloneVisitor(), null);
+		BlockStmt body = ((MethodDeclaration) cu.getTypes().get(0)
+				.getMembers().get(0)).getBody();
+		List<Statement> stmts = body.getStmts();
+		body.setStmts("LinkedList".equals(list) ? new LinkedList<Statement>(
+				stmts) : new ArrayList<Statement>(stmts));
+	}
+
+	@Benchmark
+	public Node rewrite() {
+		return cu.accept(new Rewriter(), null);
+	}
+
+	private static class Rewriter extends ModifierVisitorAdapter<Object> {
+
+		@Override
+		public Node visit(ExpressionStmt n, Object arg) {
+			MethodCallExpr call = (MethodCallExpr) n.getExpression();
+			if (call.getName().equals("remove")) {
+				return null;
+			}
+			if (call.getName().equals("replace")) {
+				return new ExpressionStmt(new MethodCallExpr(null, "replaced",
+						call.getArgs()));
+			}
+			return n;
+		}
+
+		public Node visit(MultiTypeParameter n, Object arg) {
+			return n;
+		}
+
+		public Node visit(LambdaExpr n, Object arg) {
+			return n;
+		}
+
+		public Node visit(MethodReferenceExpr n, Object arg) {
+			return n;
+		}
+
+		public Node visit(TypeExpr n, Object arg) {
+			return n;
+		}
+	}
+}
@@ -0,0 +1,81 @@
+/* 
+  Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+ 
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.walkmod.javalang.ASTManager;
+import org.walkmod.javalang.ast.Comment;
+import org.walkmod.javalang.ast.CompilationUnit;
+import org.walkmod.javalang.ast.body.JavadocComment;
+import org.walkmod.javalang.ast.body.JavadocTag;
+import org.walkmod.javalang.tags.ParseException;
+import org.walkmod.javalang.tags.TagsParser;
+
+/**
+ * Measures the {@link TagsParser} reading the tags of all the javadoc
+ * comments of a compilation unit.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TagsParserBenchmark extends CorpusBenchmark {
+
+	private List<byte[]> javadocs;
+
+	@Override
+	protected void prepare() throws Exception {
+		CompilationUnit cu = ASTManager.parse(code);
+		javadocs = new ArrayList<byte[]>();
+		if (cu.getComments() == null) {
+			return;
+		}
+		for (Comment comment : cu.getComments()) {
+			if (comment instanceof JavadocComment) {
+				byte[] content = comment.getContent().getBytes("UTF-8");
+				try {
+					TagsParser.parse(new ByteArrayInputStream(content));
+					javadocs.add(content);
+				} catch (ParseException e) {
+					// the benchmark only measures well-formed javadocs
+				}
+			}
+		}
+	}
+
+	@Benchmark
+	public int parse() throws ParseException {
+		int tags = 0;
+		for (byte[] javadoc : javadocs) {
+			List<JavadocTag> result = TagsParser.parse(new ByteArrayInputStream(
+					javadoc));
+			tags += result.size();
+		}
+		return tags;
+	}
+}
@@ -0,0 +1,89 @@
+/* 
+  Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+ 
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.walkmod.javalang.ASTManager;
+import org.walkmod.javalang.ast.CompilationUnit;
+import org.walkmod.javalang.ast.Node;
+import org.walkmod.javalang.ast.expr.NameExpr;
+import org.walkmod.javalang.visitors.TreeWalker;
+import org.walkmod.javalang.visitors.VoidVisitorAdapter;
+
+/**
+ * Measures a full traversal of a compilation unit with a recursive
+ * {@link VoidVisitorAdapter} and with the iterative {@link TreeWalker}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class VisitorAdapterBenchmark extends CorpusBenchmark {
+
+	private CompilationUnit cu;
+
+	@Override
+	protected void prepare() throws Exception {
+		cu = ASTManager.parse(code);
+	}
+
+	@Benchmark
+	public int traverse() {
+		NodeCounter counter = new NodeCounter();
+		cu.accept(counter, null);
+		return counter.count;
+	}
+
+	@Benchmark
+	public int walk() {
+		NodeWalkCounter counter = new NodeWalkCounter();
+		counter.walk(cu, null);
+		return counter.count;
+	}
+
+	private static class NodeCounter extends VoidVisitorAdapter<Object> {
+
+		private int count = 0;
+
+		@Override
+		public void visit(NameExpr n, Object arg) {
+			count++;
+			super.visit(n, arg);
+		}
+	}
+
+	private static class NodeWalkCounter extends TreeWalker<Object> {
+
+		private int count = 0;
+
+		@Override
+		protected boolean enter(Node n, Object arg) {
+			if (n instanceof NameExpr) {
+				count++;
+			}
+			return true;
+		}
+	}
+}
@@ -17,13 +17,18 @@
 package org.walkmod.javalang;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
+import java.io.UnsupportedEncodingException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
 
 import org.walkmod.javalang.ast.CompilationUnit;
 import org.walkmod.javalang.ast.Node;
@@ -97,7 +102,8 @@ public class ASTManager {
 
 	/**
 	 * Parses a Java source file with a given encoding and store the AST into a
-	 * {@link org.walkmod.javalang.ast.CompilationUnit} object.
+	 * {@link org.walkmod.javalang.ast.CompilationUnit} object. The file is read
+	 * through a {@link MappedJavaCharStream}.
 	 * 
 	 * @param file
 	 *            source code to parse
@@ -110,9 +116,35 @@ public class ASTManager {
 	 */
 	public static CompilationUnit parse(File file, String encoding)
 			throws ParseException, IOException {
-		Reader reader = new InputStreamReader(new FileInputStream(file),
-				encoding);
-		return parse(reader);
+		return parse(file, encoding, false);
+	}
+
+	/**
+	 * Parses a Java source file with a given encoding and store the AST into a
+	 * {@link org.walkmod.javalang.ast.CompilationUnit} object with or without
+	 * its comments.
+	 * 
+	 * @param file
+	 *            source code to parse
+	 * @param encoding
+	 * @param withoutComments
+	 *            true discards the comments while reading the code, so the
+	 *            AST contains neither comments nor javadocs. Otherwise, they
+	 *            are parsed.
+	 * @return the abstract syntax tree (AST)
+	 * @throws ParseException
+	 *             when the code contains an invalid syntax
+	 * @throws IOException
+	 *             file can not be read.
+	 */
+	public static CompilationUnit parse(File file, String encoding,
+			boolean withoutComments) throws ParseException, IOException {
+		JavaCharStream stream = new MappedJavaCharStream(file, encoding);
+		stream.setTabSize(1);
+		ASTParserTokenManager tokens = new ASTParserTokenManager(stream);
+		tokens.setSkipComments(withoutComments);
+		ASTParser astParser = new ASTParser(tokens);
+		return astParser.CompilationUnit();
 	}
 
 	/**
@@ -140,6 +172,124 @@ public class ASTManager {
 		return cu;
 	}
 
+	/**
+	 * Parses in parallel all the Java source files (<code>.java</code>)
+	 * contained in a directory and its subdirectories using UTF-8 as encoding
+	 * and as many threads as available processors. The results are delivered
+	 * as soon as each file is parsed.
+	 * 
+	 * @param root
+	 *            source directory or single source file to parse
+	 * @return the iterator of results, one per Java file.
+	 * @see #parseAll(File, String, int, int, boolean, boolean)
+	 */
+	public static ParseResults parseAll(File root) {
+		int parallelism = Runtime.getRuntime().availableProcessors();
+		try {
+			return parseAll(root, "UTF-8", parallelism, parallelism * 2, false);
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Parses in parallel all the Java source files (<code>.java</code>)
+	 * contained in a directory and its subdirectories. Each file produces a
+	 * {@link ParseResult} with its
+	 * {@link org.walkmod.javalang.ast.CompilationUnit} or with the
+	 * {@link ParseException} that the file contains. The files are visited in
+	 * alphabetical order.
+	 * 
+	 * @param root
+	 *            source directory or single source file to parse
+	 * @param encoding
+	 *            encoding of the source files
+	 * @param parallelism
+	 *            number of threads that parse at the same time.
+	 * @param maxPending
+	 *            maximum number of files that can be parsed or waiting to be
+	 *            consumed at the same time. Parsing does not progress until
+	 *            the results are consumed.
+	 * @param ordered
+	 *            true to deliver the results in the order of the files.
+	 *            Otherwise, they are delivered as soon as each file is
+	 *            parsed.
+	 * @return the iterator of results, one per Java file. It must be closed if
+	 *         it is not completely consumed.
+	 * @throws UnsupportedEncodingException
+	 *             if the encoding is not supported.
+	 */
+	public static ParseResults parseAll(File root, String encoding,
+			int parallelism, int maxPending, boolean ordered)
+			throws UnsupportedEncodingException {
+		return parseAll(root, encoding, parallelism, maxPending, ordered, false);
+	}
+
+	/**
+	 * Parses in parallel all the Java source files (<code>.java</code>)
+	 * contained in a directory and its subdirectories, with or without their
+	 * comments. The symbolic links to directories are followed, but each
+	 * directory is only visited once.
+	 * 
+	 * @param root
+	 *            source directory or single source file to parse
+	 * @param encoding
+	 *            encoding of the source files
+	 * @param parallelism
+	 *            number of threads that parse at the same time.
+	 * @param maxPending
+	 *            maximum number of files that can be parsed or waiting to be
+	 *            consumed at the same time.
+	 * @param ordered
+	 *            true to deliver the results in the order of the files.
+	 * @param withoutComments
+	 *            true discards the comments while reading the code, so the
+	 *            ASTs contain neither comments nor javadocs.
+	 * @return the iterator of results, one per Java file. It must be closed if
+	 *         it is not completely consumed.
+	 * @throws UnsupportedEncodingException
+	 *             if the encoding is not supported.
+	 * @see #parseAll(File, String, int, int, boolean)
+	 */
+	public static ParseResults parseAll(File root, String encoding,
+			int parallelism, int maxPending, boolean ordered,
+			boolean withoutComments) throws UnsupportedEncodingException {
+		if (!Charset.isSupported(encoding)) {
+			throw new UnsupportedEncodingException(encoding);
+		}
+		List<File> files = new LinkedList<File>();
+		collectJavaFiles(root, files, new HashSet<String>());
+		return new ParseResults(files, encoding, parallelism, maxPending,
+				ordered, withoutComments);
+	}
+
+	private static void collectJavaFiles(File file, List<File> files,
+			Set<String> visited) {
+		if (file.isDirectory()) {
+			// a symbolic link to an ancestor would be visited forever
+			if (!visited.add(getCanonicalPath(file))) {
+				return;
+			}
+			File[] children = file.listFiles();
+			if (children != null) {
+				Arrays.sort(children);
+				for (File child : children) {
+					collectJavaFiles(child, files, visited);
+				}
+			}
+		} else if (file.getName().endsWith(".java")) {
+			files.add(file);
+		}
+	}
+
+	private static String getCanonicalPath(File file) {
+		try {
+			return file.getCanonicalPath();
+		} catch (IOException e) {
+			return file.getAbsolutePath();
+		}
+	}
+
 	/**
 	 * Parses Java code and store the AST into a
 	 * {@link org.walkmod.javalang.ast.CompilationUnit} object. All nodes has
@@ -172,18 +322,33 @@ public class ASTManager {
 	 */
 	public static CompilationUnit parse(String code, boolean withoutLocation)
 			throws ParseException {
+		return parse(code, withoutLocation, false);
+	}
 
-		ASTParser astParser = null;
-		StringReader sr = new StringReader(code);
+	/**
+	 * Parses Java code and store the AST into a
+	 * {@link org.walkmod.javalang.ast.CompilationUnit} object with or without
+	 * the nodes locations and the comments.
+	 * 
+	 * @param code
+	 *            source code to parse.
+	 * @param withoutLocation
+	 *            true does not fulfill the location information inside the AST.
+	 *            Otherwise, it is defined.
+	 * @param withoutComments
+	 *            true discards the comments while reading the code, so the
+	 *            AST contains neither comments nor javadocs. Otherwise, they
+	 *            are parsed.
+	 * @return the abstract syntax tree (AST).
+	 * @throws ParseException
+	 *             when the code contains an invalid syntax.
+	 */
+	public static CompilationUnit parse(String code, boolean withoutLocation,
+			boolean withoutComments) throws ParseException {
 
-		if (!withoutLocation) {
-			astParser = new ASTParser(sr);
-			astParser.jj_input_stream.setTabSize(1);
-		} else {
-			JavaCharStream stream = new JavaCharStream(sr, 1, 1);
-			CleanerTokenManager ctm = new CleanerTokenManager(stream);
-			astParser = new ASTParser(ctm);
-		}
+		StringReader sr = new StringReader(code);
+		ASTParser astParser = createParser(sr, code.length(), withoutLocation);
+		astParser.token_source.setSkipComments(withoutComments);
 
 		CompilationUnit cu = null;
 		try {
@@ -194,6 +359,57 @@ public class ASTManager {
 		return cu;
 	}
 
+	/**
+	 * Applies a text edit to the code of a compilation unit parsing again only
+	 * the smallest body declaration or block that encloses the edit. The new
+	 * subtree replaces the old one, and the locations of the nodes and
+	 * comments that follow the edit are shifted. When the edit can not be
+	 * isolated into a body declaration or block, or the compilation unit does
+	 * not know the offsets of its lines (see
+	 * {@link Node#getLineTable()}), the whole edited code is
+	 * parsed again.
+	 * 
+	 * @param cu
+	 *            compilation unit parsed, with locations, from
+	 *            <code>code</code>.
+	 * @param code
+	 *            source code of the compilation unit before the edit.
+	 * @param offset
+	 *            index of the first character of <code>code</code> replaced
+	 *            by the edit.
+	 * @param length
+	 *            number of characters replaced by the edit.
+	 * @param replacement
+	 *            the text inserted by the edit.
+	 * @return the same compilation unit, updated, when only the enclosing
+	 *         node has been parsed again. Otherwise, the new compilation unit
+	 *         of the edited code.
+	 * @throws ParseException
+	 *             when the edited code contains an invalid syntax.
+	 */
+	public static CompilationUnit reparse(CompilationUnit cu, String code,
+			int offset, int length, String replacement) throws ParseException {
+		return new IncrementalReparser(cu, code, offset, length, replacement)
+				.reparse();
+	}
+
+	/**
+	 * Creates a parser for a code of a known length. Without locations, the
+	 * char stream does not track lines and columns, and its buffer is sized
+	 * to the code length.
+	 */
+	private static ASTParser createParser(Reader reader, int length,
+			boolean withoutLocation) {
+		if (!withoutLocation) {
+			ASTParser astParser = new ASTParser(reader);
+			astParser.jj_input_stream.setTabSize(1);
+			return astParser;
+		}
+		JavaCharStream stream = new JavaCharStream(reader, 1, 1, Math.min(
+				length + 1, 4096), false);
+		return new ASTParser(new ASTParserTokenManager(stream));
+	}
+
 	/**
 	 * Parses any fragment of code and store the result into the subclass of
 	 * {@link org.walkmod.javalang.ast.Node} defined. For example, if you need
@@ -239,17 +455,8 @@ public class ASTManager {
 			return null;
 		}
 
-		ASTParser astParser = null;
 		StringReader sr = new StringReader(text);
-
-		if (!withoutLocation) {
-			astParser = new ASTParser(sr);
-			astParser.jj_input_stream.setTabSize(1);
-		} else {
-			JavaCharStream stream = new JavaCharStream(sr, 1, 1);
-			CleanerTokenManager ctm = new CleanerTokenManager(stream);
-			astParser = new ASTParser(ctm);
-		}
+		ASTParser astParser = createParser(sr, text.length(), withoutLocation);
 
 		Node result = null;
 		if (clazz.equals(Type.class)) {
@@ -295,6 +502,9 @@ public class ASTManager {
 				sr.close();
 			}
 		}
+		if (result != null) {
+			result.setLineTable(astParser.getLineTable());
+		}
 		return result;
 	}
 }
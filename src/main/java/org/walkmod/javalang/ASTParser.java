@@ -83,9 +83,17 @@ final class ASTParser implements ASTParserConstants {
       token_source.clearComments();
    }
 
+   /**
+    * Creates a child list. Most of the child lists contain one or two
+    * elements, so they start with a capacity of 2.
+    */
+   private static List newList() {
+      return new NodeList(2);
+   }
+
    private List add(List list, Object obj) {
       if (list == null) {
-         list = new LinkedList();
+         list = newList();
       }
       list.add(obj);
       return list;
@@ -93,7 +101,7 @@ final class ASTParser implements ASTParserConstants {
 
    private List add(int pos, List list, Object obj) {
       if (list == null) {
-         list = new LinkedList();
+         list = newList();
       }
       list.add(pos, obj);
       return list;
@@ -133,6 +141,14 @@ final class ASTParser implements ASTParserConstants {
       return token_source.getComments();
    }
 
+   /**
+    * Returns the table of the lines read so far, which the root of the parsed tree keeps to compute
+    * the offsets of its nodes, or null if the offsets of the lines are unknown.
+    */
+   LineTable getLineTable() {
+      return token_source.getLineTable();
+   }
+
    private void throwParseException(Token token, String message) throws ParseException {
       StringBuilder buf = new StringBuilder();
       buf.append(message);
@@ -243,9 +259,11 @@ final class ASTParser implements ASTParserConstants {
          throw new ParseException();
       }
       {
+         CompilationUnit cu = new CompilationUnit(line == -1 ? 0 : line, column, token.endLine, token.endColumn,
+               pakage, imports, types, getComments());
+         cu.setLineTable(getLineTable());
          if (true)
-            return new CompilationUnit(line == -1 ? 0 : line, column, token.endLine, token.endColumn, pakage, imports,
-                  types, getComments());
+            return cu;
       }
       throw new Error("Missing return statement in function");
    }
@@ -566,7 +584,7 @@ final class ASTParser implements ASTParserConstants {
 
    final public List ExtendsList(boolean isInterface) throws ParseException {
       boolean extendsMoreThanOne = false;
-      List ret = new LinkedList();
+      List ret = newList();
       ClassOrInterfaceType cit;
       AnnotationExpr ann;
       List annotations = null;
@@ -610,7 +628,7 @@ final class ASTParser implements ASTParserConstants {
    }
 
    final public List ImplementsList(boolean isInterface) throws ParseException {
-      List ret = new LinkedList();
+      List ret = newList();
       ClassOrInterfaceType cit;
       AnnotationExpr ann;
       List annotations = null;
@@ -680,7 +698,7 @@ final class ASTParser implements ASTParserConstants {
       switch ((jj_ntk == -1) ? jj_ntk() : jj_ntk) {
       case IDENTIFIER:
       case AT:
-         entries = new LinkedList();
+         entries = newList();
          entry = EnumConstantDeclaration();
          entries.add(entry);
          label_9: while (true) {
@@ -819,7 +837,7 @@ final class ASTParser implements ASTParserConstants {
    }
 
    final public List TypeParameters() throws ParseException {
-      List ret = new LinkedList();
+      List ret = newList();
       TypeParameter tp;
       List annotations = null;
       AnnotationExpr ann;
@@ -901,7 +919,7 @@ final class ASTParser implements ASTParserConstants {
    }
 
    final public List TypeBound() throws ParseException {
-      List ret = new LinkedList();
+      List ret = newList();
       ClassOrInterfaceType cit;
       AnnotationExpr ann;
       List annotations = null;
@@ -957,7 +975,7 @@ final class ASTParser implements ASTParserConstants {
    }
 
    final public List ClassOrInterfaceBody(boolean isInterface) throws ParseException {
-      List ret = new LinkedList();
+      List ret = newList();
       BodyDeclaration member;
       jj_consume_token(LBRACE);
       label_18: while (true) {
@@ -1134,7 +1152,7 @@ final class ASTParser implements ASTParserConstants {
 
    final public FieldDeclaration FieldDeclaration(Modifier modifier) throws ParseException {
       Type type;
-      List variables = new LinkedList();
+      List variables = newList();
       VariableDeclarator val;
       // Modifiers are already matched in the caller
       type = Type();
@@ -1986,7 +2004,7 @@ final class ASTParser implements ASTParserConstants {
    }
 
    final public List TypeArguments() throws ParseException {
-      List ret = new LinkedList();
+      List ret = newList();
       Type type;
       switch ((jj_ntk == -1) ? jj_ntk() : jj_ntk) {
       case LT:
@@ -2246,7 +2264,7 @@ final class ASTParser implements ASTParserConstants {
    }
 
    final public List ClassOrInterfaceTypeList() throws ParseException {
-      List ret = new LinkedList();
+      List ret = newList();
       ClassOrInterfaceType type;
       List annotations = null;
       AnnotationExpr ann;
@@ -2306,87 +2324,87 @@ final class ASTParser implements ASTParserConstants {
    final public Expression Expression() throws ParseException {
       Expression ret;
       AssignExpr.Operator op;
-      Expression value;
       Statement lambdaBody = null;
       List params = null;
       List typeArgs = null;
       VariableDeclaratorId id = null;
       Expression inner = null;
+      List targets = null;
       ret = ConditionalExpression();
+      label_72: while (true) {
+         if (jj_2_18(2)) {
+            ;
+         } else {
+            break label_72;
+         }
+         op = AssignmentOperator();
+         targets = add(add(targets, ret), op);
+         ret = ConditionalExpression();
+      }
       switch ((jj_ntk == -1) ? jj_ntk() : jj_ntk) {
-      case ASSIGN:
-      case PLUSASSIGN:
-      case MINUSASSIGN:
-      case STARASSIGN:
-      case SLASHASSIGN:
-      case ANDASSIGN:
-      case ORASSIGN:
-      case XORASSIGN:
-      case REMASSIGN:
-      case LSHIFTASSIGN:
-      case RSIGNEDSHIFTASSIGN:
-      case RUNSIGNEDSHIFTASSIGN:
       case ARROW:
       case DOUBLECOLON:
-         if (jj_2_18(2)) {
-            op = AssignmentOperator();
-            value = Expression();
-            ret = new AssignExpr(ret.getBeginLine(), ret.getBeginColumn(), token.endLine, token.endColumn, ret, value,
-                  op);
-         } else {
-            switch ((jj_ntk == -1) ? jj_ntk() : jj_ntk) {
-            case ARROW:
-               jj_consume_token(ARROW);
-               lambdaBody = LambdaBody();
-               if (ret instanceof CastExpr) {
-                  inner = generateLambda(((CastExpr) ret).getExpr(), lambdaBody);
-                  ((CastExpr) ret).setExpr(inner);
-               } else if (ret instanceof ConditionalExpr) {
-                  ConditionalExpr ce = (ConditionalExpr) ret;
-                  if (ce.getElseExpr() != null) {
-                     ce.setElseExpr(generateLambda(ce.getElseExpr(), lambdaBody));
-                  }
-               } else {
-                  ret = generateLambda(ret, lambdaBody);
+         switch ((jj_ntk == -1) ? jj_ntk() : jj_ntk) {
+         case ARROW:
+            jj_consume_token(ARROW);
+            lambdaBody = LambdaBody();
+            if (ret instanceof CastExpr) {
+               inner = generateLambda(((CastExpr) ret).getExpr(), lambdaBody);
+               ((CastExpr) ret).setExpr(inner);
+            } else if (ret instanceof ConditionalExpr) {
+               ConditionalExpr ce = (ConditionalExpr) ret;
+               if (ce.getElseExpr() != null) {
+                  ce.setElseExpr(generateLambda(ce.getElseExpr(), lambdaBody));
                }
+            } else {
+               ret = generateLambda(ret, lambdaBody);
+            }
+            break;
+         case DOUBLECOLON:
+            jj_consume_token(DOUBLECOLON);
+            switch ((jj_ntk == -1) ? jj_ntk() : jj_ntk) {
+            case LT:
+               typeArgs = TypeParameters();
+               typeArgs.remove(0);
                break;
-            case DOUBLECOLON:
-               jj_consume_token(DOUBLECOLON);
-               switch ((jj_ntk == -1) ? jj_ntk() : jj_ntk) {
-               case LT:
-                  typeArgs = TypeParameters();
-                  typeArgs.remove(0);
-                  break;
-               default:
-                  jj_la1[77] = jj_gen;
-                  ;
-               }
-               switch ((jj_ntk == -1) ? jj_ntk() : jj_ntk) {
-               case IDENTIFIER:
-                  jj_consume_token(IDENTIFIER);
-                  break;
-               case NEW:
-                  jj_consume_token(NEW);
-                  break;
-               default:
-                  jj_la1[78] = jj_gen;
-                  jj_consume_token(-1);
-                  throw new ParseException();
-               }
-               ret = new MethodReferenceExpr(ret.getBeginLine(), ret.getBeginColumn(), token.endLine, token.endColumn,
-                     ret, typeArgs, token.image);
+            default:
+               jj_la1[77] = jj_gen;
+               ;
+            }
+            switch ((jj_ntk == -1) ? jj_ntk() : jj_ntk) {
+            case IDENTIFIER:
+               jj_consume_token(IDENTIFIER);
+               break;
+            case NEW:
+               jj_consume_token(NEW);
                break;
             default:
-               jj_la1[79] = jj_gen;
+               jj_la1[78] = jj_gen;
                jj_consume_token(-1);
                throw new ParseException();
             }
+            ret = new MethodReferenceExpr(ret.getBeginLine(), ret.getBeginColumn(), token.endLine, token.endColumn,
+                  ret, typeArgs, token.image);
+            break;
+         default:
+            jj_la1[79] = jj_gen;
+            jj_consume_token(-1);
+            throw new ParseException();
          }
          break;
       default:
          jj_la1[80] = jj_gen;
          ;
       }
+      // the assignments are right associative, so they are nested from the
+      // last one instead of parsing the value of each one recursively
+      if (targets != null) {
+         for (int i = targets.size() - 2; i >= 0; i -= 2) {
+            Expression target = (Expression) targets.get(i);
+            ret = new AssignExpr(target.getBeginLine(), target.getBeginColumn(), token.endLine, token.endColumn,
+                  target, ret, (AssignExpr.Operator) targets.get(i + 1));
+         }
+      }
       {
          if (true)
             return ret;
@@ -2460,20 +2478,31 @@ final class ASTParser implements ASTParserConstants {
    final public Expression ConditionalExpression() throws ParseException {
       Expression ret;
       Expression left;
-      Expression right;
+      List branches = null;
       ret = ConditionalOrExpression();
-      switch ((jj_ntk == -1) ? jj_ntk() : jj_ntk) {
-      case HOOK:
+      label_73: while (true) {
+         switch ((jj_ntk == -1) ? jj_ntk() : jj_ntk) {
+         case HOOK:
+            ;
+            break;
+         default:
+            jj_la1[82] = jj_gen;
+            break label_73;
+         }
          jj_consume_token(HOOK);
          left = Expression();
          jj_consume_token(COLON);
-         right = ConditionalExpression();
-         ret = new ConditionalExpr(ret.getBeginLine(), ret.getBeginColumn(), token.endLine, token.endColumn, ret, left,
-               right);
-         break;
-      default:
-         jj_la1[82] = jj_gen;
-         ;
+         branches = add(add(branches, ret), left);
+         ret = ConditionalOrExpression();
+      }
+      // "a ? b : c ? d : e" is nested from the last condition instead of
+      // parsing each else branch recursively
+      if (branches != null) {
+         for (int i = branches.size() - 2; i >= 0; i -= 2) {
+            Expression condition = (Expression) branches.get(i);
+            ret = new ConditionalExpr(condition.getBeginLine(), condition.getBeginColumn(), token.endLine,
+                  token.endColumn, condition, (Expression) branches.get(i + 1), ret);
+         }
       }
       {
          if (true)
@@ -3679,7 +3708,7 @@ final class ASTParser implements ASTParserConstants {
    }
 
    final public List ArgumentList() throws ParseException {
-      List ret = new LinkedList();
+      List ret = newList();
       Expression expr;
       expr = Expression();
       ret.add(expr);
@@ -4155,7 +4184,7 @@ final class ASTParser implements ASTParserConstants {
    final public VariableDeclarationExpr VariableDeclarationExpression() throws ParseException {
       Modifier modifier;
       Type type;
-      List vars = new LinkedList();
+      List vars = newList();
       VariableDeclarator var;
       modifier = Modifiers();
       type = Type();
@@ -4733,7 +4762,7 @@ final class ASTParser implements ASTParserConstants {
       Expression expr;
       if (jj_2_41(2147483647)) {
          expr = VariableDeclarationExpression();
-         ret = new LinkedList();
+         ret = newList();
          ret.add(expr);
       } else {
          switch ((jj_ntk == -1) ? jj_ntk() : jj_ntk) {
@@ -4781,7 +4810,7 @@ final class ASTParser implements ASTParserConstants {
    }
 
    final public List ExpressionList() throws ParseException {
-      List ret = new LinkedList();
+      List ret = newList();
       Expression expr;
       expr = Expression();
       ret.add(expr);
@@ -4949,7 +4978,7 @@ final class ASTParser implements ASTParserConstants {
    }
 
    final public TryStmt TryStatement() throws ParseException {
-      List resources = new LinkedList();
+      List resources = newList();
       BlockStmt tryBlock;
       BlockStmt finallyBlock = null;
       List catchs = null;
@@ -4957,7 +4986,7 @@ final class ASTParser implements ASTParserConstants {
       BlockStmt catchBlock;
       Modifier exceptModifier;
       Type exceptType;
-      List exceptTypes = new LinkedList();
+      List exceptTypes = newList();
       VariableDeclaratorId exceptId;
       int line;
       int column;
@@ -5009,7 +5038,7 @@ final class ASTParser implements ASTParserConstants {
          catchBlock = Block();
          catchs = add(catchs, new CatchClause(cLine, cColumn, token.endLine, token.endColumn, exceptModifier.modifiers,
                exceptModifier.annotations, exceptTypes, exceptId, catchBlock));
-         exceptTypes = new LinkedList();
+         exceptTypes = newList();
       }
       switch ((jj_ntk == -1) ? jj_ntk() : jj_ntk) {
       case FINALLY:
@@ -5046,7 +5075,7 @@ final class ASTParser implements ASTParserConstants {
    }
 
    final public List Resources() throws ParseException {
-      List vars = new LinkedList();
+      List vars = newList();
       VariableDeclarationExpr var;
       /*this is a bit more lenient than we need to be, eg allowing access modifiers like private*/
       var = VariableDeclarationExpression();
@@ -5180,7 +5209,7 @@ final class ASTParser implements ASTParserConstants {
    }
 
    final public List MemberValuePairs() throws ParseException {
-      List ret = new LinkedList();
+      List ret = newList();
       MemberValuePair pair;
       pair = MemberValuePair();
       ret.add(pair);
@@ -5274,7 +5303,7 @@ final class ASTParser implements ASTParserConstants {
    }
 
    final public Expression MemberValueArrayInitializer() throws ParseException {
-      List ret = new LinkedList();
+      List ret = newList();
       Expression member;
       int line;
       int column;
@@ -7447,7 +7476,7 @@ final class ASTParser implements ASTParserConstants {
          return true;
       if (jj_scan_token(COLON))
          return true;
-      if (jj_3R_151())
+      if (jj_3R_200())
          return true;
       return false;
    }
@@ -7462,9 +7491,13 @@ final class ASTParser implements ASTParserConstants {
       if (jj_3R_200())
          return true;
       Token xsp;
-      xsp = jj_scanpos;
-      if (jj_3R_268())
-         jj_scanpos = xsp;
+      while (true) {
+         xsp = jj_scanpos;
+         if (jj_3R_268()) {
+            jj_scanpos = xsp;
+            break;
+         }
+      }
       return false;
    }
 
@@ -7824,7 +7857,7 @@ final class ASTParser implements ASTParserConstants {
    private boolean jj_3_18() {
       if (jj_3R_99())
          return true;
-      if (jj_3R_100())
+      if (jj_3R_151())
          return true;
       return false;
    }
@@ -7870,13 +7903,10 @@ final class ASTParser implements ASTParserConstants {
    private boolean jj_3R_239() {
       Token xsp;
       xsp = jj_scanpos;
-      if (jj_3_18()) {
+      if (jj_3R_269()) {
          jj_scanpos = xsp;
-         if (jj_3R_269()) {
-            jj_scanpos = xsp;
-            if (jj_3R_270())
-               return true;
-         }
+         if (jj_3R_270())
+            return true;
       }
       return false;
    }
@@ -7904,6 +7934,13 @@ final class ASTParser implements ASTParserConstants {
       if (jj_3R_151())
          return true;
       Token xsp;
+      while (true) {
+         xsp = jj_scanpos;
+         if (jj_3_18()) {
+            jj_scanpos = xsp;
+            break;
+         }
+      }
       xsp = jj_scanpos;
       if (jj_3R_239())
          jj_scanpos = xsp;
@@ -10569,7 +10606,7 @@ final class ASTParser implements ASTParserConstants {
             0x1000000, 0x10000000, 0x200000, 0x0, 0x880000, 0x1000000, 0x4004000, 0x1000000, 0x1000000, 0x0,
             0x10000000, 0x0, 0x10000000, 0x10000000, 0x10027086, 0x48a7087, 0x0, 0x0, 0x4000000, 0x4000000, 0x4000,
             0x4000000, 0x1000000, 0x10000000, 0x4000000, 0x80004000, 0x4000000, 0x4000000, 0x0, 0x0, 0x0, 0x4000,
-            0x4000000, 0x1000000, 0x4000000, 0x10000000, 0x4000, 0x0, 0x8000000, 0x8000000, 0x80000000, 0x0, 0x0, 0x0,
+            0x4000000, 0x1000000, 0x4000000, 0x10000000, 0x4000, 0x0, 0x0, 0x8000000, 0x80000000, 0x0, 0x0, 0x0,
             0x0, 0x0, 0x0, 0x0, 0x0, 0x10000000, 0x10000000, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x60027086, 0x60000000,
             0x60000000, 0x27086, 0x0, 0x4000000, 0x0, 0x4000, 0x10000000, 0x20000, 0x10000000, 0x4000, 0x2020000,
             0x1000000, 0x1000000, 0x60027086, 0x64027086, 0x10000000, 0x4000, 0x20000, 0x23086, 0x4000, 0x2000000,
@@ -10585,7 +10622,7 @@ final class ASTParser implements ASTParserConstants {
             0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x2000, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0,
             0x0, 0x780, 0x780, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x20000000, 0x0, 0x0, 0x0, 0x0, 0x0, 0x180,
             0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0,
-            0xc0000000, 0xdffc0000, 0x1ffc0000, 0x0, 0x20, 0x40, 0x4000, 0x8000, 0x2000, 0x12, 0x12, 0x0, 0xc, 0xc,
+            0xc0000000, 0xc0000000, 0x1ffc0000, 0x0, 0x20, 0x40, 0x4000, 0x8000, 0x2000, 0x12, 0x12, 0x0, 0xc, 0xc,
             0x20000, 0x600, 0x600, 0x11800, 0x11800, 0x600, 0x780, 0x0, 0x0, 0x0, 0x180, 0x0, 0x2000, 0x0, 0x0, 0x0,
             0x0, 0x0, 0x80000000, 0x0, 0x0, 0x780, 0x780, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0,
             0x780, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x0, 0x180, 0x1, 0x180, 0x0, 0x780, 0x0, 0x0,
@@ -0,0 +1,109 @@
+/* 
+  Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+ 
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang;
+
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * Bounded and thread-safe pool of {@link ASTParser} instances. A parser is
+ * borrowed with {@link #acquire(InputStream, String)}, which resets it (char
+ * stream, token manager and comments) for the new input, and must be given
+ * back with {@link #release(ASTParser)} once the parse finishes.
+ * </p>
+ * <p>
+ * The pool never blocks: when there is no idle parser, a new one is created,
+ * and when there are already <code>maxIdle</code> idle parsers, the released
+ * one is discarded.
+ * </p>
+ */
+final class ASTParserPool {
+
+	private final ConcurrentLinkedQueue<ASTParser> idle = new ConcurrentLinkedQueue<ASTParser>();
+
+	private final AtomicInteger idleCount = new AtomicInteger();
+
+	private final int maxIdle;
+
+	/**
+	 * Creates a pool that keeps, at most, <code>maxIdle</code> parsers.
+	 *
+	 * @param maxIdle
+	 *            maximum number of idle parsers retained by the pool.
+	 */
+	ASTParserPool(int maxIdle) {
+		if (maxIdle < 0) {
+			throw new IllegalArgumentException(
+					"The pool size cannot be negative: " + maxIdle);
+		}
+		this.maxIdle = maxIdle;
+	}
+
+	/**
+	 * Returns a parser ready to read the given input.
+	 *
+	 * @param in
+	 *            {@link InputStream} containing Java source code
+	 * @param encoding
+	 *            encoding of the source code
+	 * @return a parser that only can be used by the current thread until it
+	 *         is released.
+	 */
+	ASTParser acquire(InputStream in, String encoding) {
+		ASTParser parser = idle.poll();
+		if (parser == null) {
+			return new ASTParser(in, encoding);
+		}
+		idleCount.decrementAndGet();
+		parser.reset(in, encoding);
+		return parser;
+	}
+
+	/**
+	 * Gives back a parser obtained by {@link #acquire(InputStream, String)}.
+	 * The parser must not be used after being released.
+	 *
+	 * @param parser
+	 *            the parser to return to the pool.
+	 */
+	void release(ASTParser parser) {
+		if (idleCount.incrementAndGet() <= maxIdle) {
+			idle.offer(parser);
+		} else {
+			idleCount.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Returns the maximum number of idle parsers retained by this pool.
+	 *
+	 * @return the maximum number of idle parsers.
+	 */
+	int getMaxIdle() {
+		return maxIdle;
+	}
+
+	/**
+	 * Returns the number of parsers that are waiting to be reused.
+	 *
+	 * @return the number of idle parsers.
+	 */
+	int getIdleCount() {
+		return idleCount.get();
+	}
+}
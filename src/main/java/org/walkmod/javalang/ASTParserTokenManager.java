@@ -41,6 +41,16 @@ public class ASTParserTokenManager implements ASTParserConstants {
    private List<Comment> comments;
    private final Stack<JavadocComment> javadocStack = new Stack<JavadocComment>();
    private JavadocComment lastJavadoc;
+   private boolean skipComments;
+
+   /**
+    * Discards the comments: CommonTokenAction detaches the special tokens of each token before
+    * reading them, so no comment node or substring of their images is built, and the discarded
+    * tokens are not retained.
+    */
+   void setSkipComments(boolean skipComments) {
+      this.skipComments = skipComments;
+   }
 
    void pushJavadoc() {
       javadocStack.push(lastJavadoc);
@@ -54,6 +64,24 @@ public class ASTParserTokenManager implements ASTParserConstants {
       return comments;
    }
 
+   LineTable getLineTable() {
+      return input_stream.getLineTable();
+   }
+
+   /**
+    * Stores in a token the offsets of its first character and after its last character, or -1 if
+    * the offsets of the lines are unknown.
+    */
+   private void setOffsets(Token token) {
+      LineTable lineTable = input_stream.getLineTable();
+      if (lineTable == null) {
+         token.beginOffset = token.endOffset = -1;
+      } else {
+         token.beginOffset = lineTable.getOffset(token.beginLine, token.beginColumn);
+         token.endOffset = lineTable.getEndOffset(token.endLine, token.endColumn);
+      }
+   }
+
    void clearComments() {
       comments = null;
       javadocStack.clear();
@@ -66,6 +94,7 @@ public class ASTParserTokenManager implements ASTParserConstants {
          addComments(token, special.specialToken);
       }
 
+      setOffsets(special);
       if (special.kind == JAVA_DOC_COMMENT) {
          lastJavadoc = new JavadocComment(special.beginLine, special.beginColumn, special.endLine, special.endColumn,
                special.image.substring(3, special.image.length() - 2));
@@ -84,9 +113,12 @@ public class ASTParserTokenManager implements ASTParserConstants {
 
    private void CommonTokenAction(Token token) {
       lastJavadoc = null;
-      if (token.specialToken != null) {
+      setOffsets(token);
+      if (skipComments) {
+         token.specialToken = null;
+      } else if (token.specialToken != null) {
          if (comments == null) {
-            comments = new LinkedList<Comment>();
+            comments = new NodeList<Comment>();
          }
 
          Token special = token.specialToken;
@@ -2216,17 +2248,18 @@ public class ASTParserTokenManager implements ASTParserConstants {
       final int endColumn;
       String im = jjstrLiteralImages[jjmatchedKind];
       curTokenImage = (im == null) ? input_stream.GetImage() : im;
-      beginLine = input_stream.getBeginLine();
-      beginColumn = input_stream.getBeginColumn();
-      endLine = input_stream.getEndLine();
-      endColumn = input_stream.getEndColumn();
       t = ASTParser.GTToken.newToken(jjmatchedKind, curTokenImage);
-
-      t.beginLine = beginLine;
-      t.endLine = endLine;
-      t.beginColumn = beginColumn;
-      t.endColumn = endColumn;
-
+      if (input_stream.keepLineColumn) {
+         beginLine = input_stream.getBeginLine();
+         beginColumn = input_stream.getBeginColumn();
+         endLine = input_stream.getEndLine();
+         endColumn = input_stream.getEndColumn();
+
+         t.beginLine = beginLine;
+         t.endLine = endLine;
+         t.beginColumn = beginColumn;
+         t.endColumn = endColumn;
+      }
       return t;
    }
 
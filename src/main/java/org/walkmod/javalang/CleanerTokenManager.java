@@ -15,6 +15,14 @@
  along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
 package org.walkmod.javalang;
 
+/**
+ * Token manager that removes the positions of the tokens.
+ * 
+ * @deprecated build the {@link JavaCharStream} with
+ *             <code>keepLineColumn</code> set to false, which does not compute
+ *             the positions at all.
+ */
+@Deprecated
 public class CleanerTokenManager extends ASTParserTokenManager {
 
 	public CleanerTokenManager(JavaCharStream stream) {
@@ -27,6 +35,8 @@ public class CleanerTokenManager extends ASTParserTokenManager {
 		token.endLine = 0;
 		token.beginColumn = 0;
 		token.endColumn = 0;
+		token.beginOffset = 0;
+		token.endOffset = 0;
 		return token;
 	}
 }
@@ -0,0 +1,354 @@
+/* 
+  Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+ 
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.walkmod.javalang.ast.Comment;
+import org.walkmod.javalang.ast.CompilationUnit;
+import org.walkmod.javalang.ast.LineTable;
+import org.walkmod.javalang.ast.Node;
+import org.walkmod.javalang.ast.body.AnnotationMemberDeclaration;
+import org.walkmod.javalang.ast.body.BodyDeclaration;
+import org.walkmod.javalang.ast.body.ClassOrInterfaceDeclaration;
+import org.walkmod.javalang.ast.body.ConstructorDeclaration;
+import org.walkmod.javalang.ast.body.EnumConstantDeclaration;
+import org.walkmod.javalang.ast.body.EnumDeclaration;
+import org.walkmod.javalang.ast.body.MethodDeclaration;
+import org.walkmod.javalang.ast.expr.ObjectCreationExpr;
+import org.walkmod.javalang.ast.stmt.BlockStmt;
+import org.walkmod.javalang.visitors.TreeWalker;
+
+/**
+ * <p>
+ * Applies a text edit to the code of a {@link CompilationUnit} parsing again
+ * only the smallest {@link BodyDeclaration} or {@link BlockStmt} that encloses
+ * the edit. The new subtree is spliced into the compilation unit with
+ * {@link Node#replaceChildNode(Node, Node)}, the comments of the edited region
+ * are replaced, and the locations of the nodes and comments that follow the
+ * region are shifted.
+ * </p>
+ * <p>
+ * The traversals only enter the branches of the tree that contain the edit or
+ * that end after it, so the cost of an edit depends on the size of the
+ * reparsed region and not on the size of the file. When the edit is not
+ * enclosed by any of these nodes, the new text of the region is not a single
+ * node of the same kind, or the compilation unit has no {@link LineTable}
+ * with a tab size of 1, the whole code is parsed again.
+ * </p>
+ */
+final class IncrementalReparser {
+
+	private final CompilationUnit cu;
+
+	private final String code;
+
+	private final int offset;
+
+	private final int length;
+
+	private final String replacement;
+
+	/**
+	 * Table of the lines of the original code.
+	 */
+	private LineTable lineTable;
+
+	IncrementalReparser(CompilationUnit cu, String code, int offset,
+			int length, String replacement) {
+		if (offset < 0 || length < 0 || offset + length > code.length()) {
+			throw new IllegalArgumentException("Invalid edit [" + offset
+					+ ", " + (offset + length) + ") for a code of "
+					+ code.length() + " characters");
+		}
+		this.cu = cu;
+		this.code = code;
+		this.offset = offset;
+		this.length = length;
+		this.replacement = replacement == null ? "" : replacement;
+	}
+
+	/**
+	 * Applies the edit.
+	 * 
+	 * @return the same compilation unit when the edit has been spliced, or a
+	 *         new one when the whole code has been parsed again.
+	 * @throws ParseException
+	 *             when the edited code contains an invalid syntax.
+	 */
+	CompilationUnit reparse() throws ParseException {
+		String newCode = code.substring(0, offset) + replacement
+				+ code.substring(offset + length);
+		// unicode escapes can hide line terminators, and the shifted columns
+		// only match the shifted offsets when a tab takes a single column
+		lineTable = cu.getLineTable();
+		if (lineTable != null && lineTable.getTabSize() == 1
+				&& code.indexOf("\\u") < 0
+				&& replacement.indexOf("\\u") < 0) {
+			Locator locator = new Locator();
+			locator.walk(cu, null);
+			if (locator.target != null && splice(locator.target, newCode)) {
+				return cu;
+			}
+		}
+		return ASTManager.parse(newCode);
+	}
+
+	private boolean splice(Node target, String newCode) {
+		int begin = lineTable.getBeginOffset(target);
+		int end = lineTable.getOffset(target.getEndLine(), target.getEndColumn())
+				+ replacement.length() - length;
+		if (begin < 0 || end < begin || end >= newCode.length()) {
+			return false;
+		}
+		String fragment = newCode.substring(begin, end + 1);
+
+		JavaCharStream stream = new JavaCharStream(new StringReader(fragment),
+				target.getBeginLine(), target.getBeginColumn(), Math.min(
+						fragment.length() + 1, 4096));
+		stream.setTabSize(1);
+		ASTParser parser = new ASTParser(new ASTParserTokenManager(stream));
+		Node result;
+		try {
+			if (target instanceof BlockStmt) {
+				result = parser.Block();
+			} else {
+				Node parent = target.getParentNode();
+				result = parser
+						.ClassOrInterfaceBodyDeclaration(parent instanceof ClassOrInterfaceDeclaration
+								&& ((ClassOrInterfaceDeclaration) parent)
+										.isInterface());
+			}
+			if (parser.getToken(1).kind != ASTParserConstants.EOF) {
+				return false;
+			}
+		} catch (ParseException e) {
+			return false;
+		} catch (TokenMgrError e) {
+			return false;
+		}
+
+		// the region must end with the last token of the new node
+		int[] last = lastPosition(fragment, target.getBeginLine(),
+				target.getBeginColumn());
+		if (result.getEndLine() != last[0] || result.getEndColumn() != last[1]) {
+			return false;
+		}
+		if (target instanceof BodyDeclaration) {
+			BodyDeclaration declaration = (BodyDeclaration) result;
+			if (declaration.getJavaDoc() == null) {
+				declaration.setJavaDoc(((BodyDeclaration) target).getJavaDoc());
+			}
+		}
+		if (!target.getParentNode().replaceChildNode(target, result)) {
+			return false;
+		}
+
+		Shifter shifter = new Shifter(target, result);
+		shifter.walk(cu, null);
+		List<Comment> newComments = parser.token_source.getComments();
+		cu.setComments(replaceComments(target, shifter, newComments));
+		cu.setLineTable(lineTable(newCode));
+		return true;
+	}
+
+	/**
+	 * Removes the comments of the edited region, adds the new ones in the
+	 * same place and shifts the comments that follow the region.
+	 */
+	private List<Comment> replaceComments(Node target, Shifter shifter,
+			List<Comment> newComments) {
+		List<Comment> comments = cu.getComments();
+		List<Comment> result = new ArrayList<Comment>();
+		boolean added = false;
+		if (comments != null) {
+			for (Comment comment : comments) {
+				if (!added
+						&& !isBefore(comment.getBeginLine(),
+								comment.getBeginColumn(),
+								target.getBeginLine(), target.getBeginColumn())) {
+					if (newComments != null) {
+						result.addAll(newComments);
+					}
+					added = true;
+				}
+				if (!target.contains(comment)) {
+					shifter.shift(comment);
+					result.add(comment);
+				}
+			}
+		}
+		if (!added && newComments != null) {
+			result.addAll(newComments);
+		}
+		return result.isEmpty() && comments == null ? null : result;
+	}
+
+	private boolean isCandidate(Node n, int begin) {
+		if (n instanceof BlockStmt) {
+			// the braces must remain, and the body of a constructor can start
+			// with an explicit constructor invocation, which is not a statement
+			return begin < offset && n.getParentNode() != null
+					&& !(n.getParentNode() instanceof ConstructorDeclaration);
+		}
+		// the location of default methods does not include the default keyword
+		if (n instanceof BodyDeclaration
+				&& !(n instanceof EnumConstantDeclaration)
+				&& !(n instanceof AnnotationMemberDeclaration)
+				&& !(n instanceof MethodDeclaration && ((MethodDeclaration) n)
+						.isDefault())) {
+			Node parent = n.getParentNode();
+			return parent instanceof ClassOrInterfaceDeclaration
+					|| parent instanceof EnumDeclaration
+					|| parent instanceof EnumConstantDeclaration
+					|| parent instanceof ObjectCreationExpr;
+		}
+		return false;
+	}
+
+	private static boolean isBefore(int line, int column, int line2,
+			int column2) {
+		return line < line2 || (line == line2 && column < column2);
+	}
+
+	/**
+	 * Returns the table of the lines of a code without unicode escapes,
+	 * following the same line terminators than {@link JavaCharStream}.
+	 */
+	private static LineTable lineTable(String code) {
+		LineTable table = new LineTable(1);
+		int len = code.length();
+		for (int i = 0; i < len; i++) {
+			char c = code.charAt(i);
+			if (c == '\n'
+					|| (c == '\r' && (i + 1 == len || code.charAt(i + 1) != '\n'))) {
+				table.addLine(i + 1);
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * Returns the line and column of the last character of a text that
+	 * starts in the given line and column.
+	 */
+	private static int[] lastPosition(String text, int line, int column) {
+		column--;
+		boolean prevCharIsCR = false;
+		boolean prevCharIsLF = false;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			column++;
+			if (prevCharIsLF) {
+				prevCharIsLF = false;
+				line++;
+				column = 1;
+			} else if (prevCharIsCR) {
+				prevCharIsCR = false;
+				if (c != '\n') {
+					line++;
+					column = 1;
+				}
+			}
+			if (c == '\r') {
+				prevCharIsCR = true;
+			} else if (c == '\n') {
+				prevCharIsLF = true;
+			}
+		}
+		return new int[] { line, column };
+	}
+
+	/**
+	 * Finds the deepest candidate node that contains the edit.
+	 */
+	private class Locator extends TreeWalker<Object> {
+
+		private Node target;
+
+		@Override
+		protected boolean enter(Node n, Object arg) {
+			if (n instanceof Comment) {
+				return false;
+			}
+			int begin = lineTable.getBeginOffset(n);
+			int end = lineTable.getOffset(n.getEndLine(), n.getEndColumn());
+			// the last character of the node must remain
+			if (begin < 0 || begin > offset || end < offset + length) {
+				return false;
+			}
+			if (isCandidate(n, begin)) {
+				target = n;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Moves the locations that are not before the end of the replaced node
+	 * to the end of the new node.
+	 */
+	private static class Shifter extends TreeWalker<Object> {
+
+		private final Node replacement;
+
+		private final int oldEndLine;
+
+		private final int oldEndColumn;
+
+		private final int lines;
+
+		private final int columns;
+
+		Shifter(Node replaced, Node replacement) {
+			this.replacement = replacement;
+			oldEndLine = replaced.getEndLine();
+			oldEndColumn = replaced.getEndColumn();
+			lines = replacement.getEndLine() - oldEndLine;
+			columns = replacement.getEndColumn() - oldEndColumn;
+		}
+
+		@Override
+		protected boolean enter(Node n, Object arg) {
+			if (n == replacement || n instanceof Comment
+					|| isBefore(n.getEndLine(), n.getEndColumn(), oldEndLine,
+							oldEndColumn)) {
+				return false;
+			}
+			shift(n);
+			return true;
+		}
+
+		void shift(Node n) {
+			if (!isBefore(n.getBeginLine(), n.getBeginColumn(), oldEndLine,
+					oldEndColumn)) {
+				if (n.getBeginLine() == oldEndLine) {
+					n.setBeginColumn(n.getBeginColumn() + columns);
+				}
+				n.setBeginLine(n.getBeginLine() + lines);
+			}
+			if (!isBefore(n.getEndLine(), n.getEndColumn(), oldEndLine,
+					oldEndColumn)) {
+				if (n.getEndLine() == oldEndLine) {
+					n.setEndColumn(n.getEndColumn() + columns);
+				}
+				n.setEndLine(n.getEndLine() + lines);
+			}
+		}
+	}
+}
@@ -15,6 +15,8 @@
  along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
 package org.walkmod.javalang;
 
+import org.walkmod.javalang.ast.LineTable;
+
 /**
  * An implementation of interface CharStream, where the stream is assumed to
  * contain only ASCII characters (with java-like unicode escape processing).
@@ -81,6 +83,15 @@ public class JavaCharStream {
 
 	protected int bufcolumn[];
 
+	/** Number of raw characters read from the input. */
+	protected int offset = 0;
+
+	/**
+	 * Lines, tabs and unicode escapes read so far, or null if the stream does
+	 * not start at the first line and column.
+	 */
+	protected LineTable lineTable;
+
 	protected int column = 0;
 
 	protected int line = 1;
@@ -103,8 +114,22 @@ public class JavaCharStream {
 
 	protected int tabSize = 8;
 
+	/**
+	 * false to skip the line and column bookkeeping. Then, the positions of
+	 * all the tokens are 0.
+	 */
+	protected boolean keepLineColumn = true;
+
+	/**
+	 * Sets the number of columns of a tab. The table of the lines needs the
+	 * same tab size for the whole code, so it is discarded when the tab size
+	 * changes after reading.
+	 */
 	protected void setTabSize(int i) {
 		tabSize = i;
+		if (lineTable != null) {
+			lineTable = offset == 0 ? new LineTable(i) : null;
+		}
 	}
 
 	protected int getTabSize(int i) {
@@ -112,9 +137,10 @@ public class JavaCharStream {
 	}
 
 	protected void ExpandBuff(boolean wrapAround) {
-		char[] newbuffer = new char[bufsize + 2048];
-		int newbufline[] = new int[bufsize + 2048];
-		int newbufcolumn[] = new int[bufsize + 2048];
+		// the buffer doubles its size to copy long tokens (e.g comments) only
+		// a logarithmic number of times
+		int increment = Math.max(bufsize, 2048);
+		char[] newbuffer = new char[bufsize + increment];
 		try {
 			if (wrapAround) {
 				System.arraycopy(buffer, tokenBegin, newbuffer, 0, bufsize
@@ -122,36 +148,37 @@ public class JavaCharStream {
 				System.arraycopy(buffer, 0, newbuffer, bufsize - tokenBegin,
 						bufpos);
 				buffer = newbuffer;
-				System.arraycopy(bufline, tokenBegin, newbufline, 0, bufsize
-						- tokenBegin);
-				System.arraycopy(bufline, 0, newbufline, bufsize - tokenBegin,
-						bufpos);
-				bufline = newbufline;
-				System.arraycopy(bufcolumn, tokenBegin, newbufcolumn, 0,
-						bufsize - tokenBegin);
-				System.arraycopy(bufcolumn, 0, newbufcolumn, bufsize
-						- tokenBegin, bufpos);
-				bufcolumn = newbufcolumn;
+				if (keepLineColumn) {
+					bufline = expand(bufline, increment, true);
+					bufcolumn = expand(bufcolumn, increment, true);
+				}
 				bufpos += (bufsize - tokenBegin);
 			} else {
 				System.arraycopy(buffer, tokenBegin, newbuffer, 0, bufsize
 						- tokenBegin);
 				buffer = newbuffer;
-				System.arraycopy(bufline, tokenBegin, newbufline, 0, bufsize
-						- tokenBegin);
-				bufline = newbufline;
-				System.arraycopy(bufcolumn, tokenBegin, newbufcolumn, 0,
-						bufsize - tokenBegin);
-				bufcolumn = newbufcolumn;
+				if (keepLineColumn) {
+					bufline = expand(bufline, increment, false);
+					bufcolumn = expand(bufcolumn, increment, false);
+				}
 				bufpos -= tokenBegin;
 			}
 		} catch (Throwable t) {
 			throw new Error(t.getMessage());
 		}
-		available = (bufsize += 2048);
+		available = (bufsize += increment);
 		tokenBegin = 0;
 	}
 
+	private int[] expand(int[] array, int increment, boolean wrapAround) {
+		int[] newarray = new int[bufsize + increment];
+		System.arraycopy(array, tokenBegin, newarray, 0, bufsize - tokenBegin);
+		if (wrapAround) {
+			System.arraycopy(array, 0, newarray, bufsize - tokenBegin, bufpos);
+		}
+		return newarray;
+	}
+
 	protected void FillBuff() throws java.io.IOException {
 		int i;
 		if (maxNextCharInd == 4096)
@@ -168,7 +195,7 @@ public class JavaCharStream {
 			if (bufpos != 0) {
 				--bufpos;
 				backup(0);
-			} else {
+			} else if (keepLineColumn) {
 				bufline[bufpos] = line;
 				bufcolumn[bufpos] = column;
 			}
@@ -179,6 +206,7 @@ public class JavaCharStream {
 	protected char ReadByte() throws java.io.IOException {
 		if (++nextCharInd >= maxNextCharInd)
 			FillBuff();
+		offset++;
 		return nextCharBuf[nextCharInd];
 	}
 
@@ -212,6 +240,9 @@ public class JavaCharStream {
 	}
 
 	protected void UpdateLineColumn(char c) {
+		if (!keepLineColumn) {
+			return;
+		}
 		column++;
 		if (prevCharIsLF) {
 			prevCharIsLF = false;
@@ -220,8 +251,12 @@ public class JavaCharStream {
 			prevCharIsCR = false;
 			if (c == '\n') {
 				prevCharIsLF = true;
-			} else
+			} else {
 				line += (column = 1);
+				if (lineTable != null) {
+					lineTable.addLine(offset - 1);
+				}
+			}
 		}
 		switch (c) {
 		case '\r':
@@ -229,10 +264,16 @@ public class JavaCharStream {
 			break;
 		case '\n':
 			prevCharIsLF = true;
+			if (lineTable != null) {
+				lineTable.addLine(offset);
+			}
 			break;
 		case '\t':
 			column--;
 			column += (tabSize - (column % tabSize));
+			if (lineTable != null) {
+				lineTable.addTab(offset - 1);
+			}
 			break;
 		default:
 			break;
@@ -277,12 +318,17 @@ public class JavaCharStream {
 				UpdateLineColumn(c);
 				backSlashCnt++;
 			}
+			// the first 'u' has been read after the backslash
+			int escapeBegin = offset - 2;
 			try {
 				while ((c = ReadByte()) == 'u')
 					++column;
 				buffer[bufpos] = c = (char) (hexval(c) << 12
 						| hexval(ReadByte()) << 8 | hexval(ReadByte()) << 4 | hexval(ReadByte()));
 				column += 4;
+				if (lineTable != null) {
+					lineTable.addEscape(escapeBegin, offset);
+				}
 			} catch (java.io.IOException e) {
 				throw new Error("Invalid escape character at line " + line
 						+ " column " + column + ".");
@@ -301,32 +347,43 @@ public class JavaCharStream {
 
 	@Deprecated
 	public int getColumn() {
-		return bufcolumn[bufpos];
+		return keepLineColumn ? bufcolumn[bufpos] : 0;
 	}
 
 	@Deprecated
 	public int getLine() {
-		return bufline[bufpos];
+		return keepLineColumn ? bufline[bufpos] : 0;
 	}
 
 	/** Get end column. */
 	public int getEndColumn() {
-		return bufcolumn[bufpos];
+		return keepLineColumn ? bufcolumn[bufpos] : 0;
 	}
 
 	/** Get end line. */
 	public int getEndLine() {
-		return bufline[bufpos];
+		return keepLineColumn ? bufline[bufpos] : 0;
 	}
 
 	/** @return column of token start */
 	public int getBeginColumn() {
-		return bufcolumn[tokenBegin];
+		return keepLineColumn ? bufcolumn[tokenBegin] : 0;
 	}
 
 	/** @return line number of token start */
 	public int getBeginLine() {
-		return bufline[tokenBegin];
+		return keepLineColumn ? bufline[tokenBegin] : 0;
+	}
+
+	/**
+	 * Returns the table of the lines read so far, which converts the
+	 * locations of the tokens into offsets.
+	 * 
+	 * @return the table of the lines, or null if the positions are not kept
+	 *         or the stream does not start at the first line and column.
+	 */
+	public LineTable getLineTable() {
+		return lineTable;
 	}
 
 	/** Retreat. */
@@ -339,14 +396,40 @@ public class JavaCharStream {
 	/** Constructor. */
 	public JavaCharStream(java.io.Reader dstream, int startline,
 			int startcolumn, int buffersize) {
+		this(dstream, startline, startcolumn, buffersize, true);
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param keepLineColumn
+	 *            false to not track the line and column of each char. Then,
+	 *            the begin and end positions of all the tokens are 0.
+	 */
+	public JavaCharStream(java.io.Reader dstream, int startline,
+			int startcolumn, int buffersize, boolean keepLineColumn) {
 		inputStream = dstream;
 		line = startline;
 		column = startcolumn - 1;
+		this.keepLineColumn = keepLineColumn;
 		available = bufsize = buffersize;
 		buffer = new char[buffersize];
-		bufline = new int[buffersize];
-		bufcolumn = new int[buffersize];
+		if (keepLineColumn) {
+			bufline = new int[buffersize];
+			bufcolumn = new int[buffersize];
+		}
 		nextCharBuf = new char[4096];
+		initOffsets(startline, startcolumn);
+	}
+
+	private void initOffsets(int startline, int startcolumn) {
+		offset = 0;
+		// the previous table may belong to a parsed tree
+		if (keepLineColumn && startline == 1 && startcolumn == 1) {
+			lineTable = new LineTable(tabSize);
+		} else {
+			lineTable = null;
+		}
 	}
 
 	/** Constructor. */
@@ -368,10 +451,13 @@ public class JavaCharStream {
 		if (buffer == null || buffersize != buffer.length) {
 			available = bufsize = buffersize;
 			buffer = new char[buffersize];
-			bufline = new int[buffersize];
-			bufcolumn = new int[buffersize];
+			if (keepLineColumn) {
+				bufline = new int[buffersize];
+				bufcolumn = new int[buffersize];
+			}
 			nextCharBuf = new char[4096];
 		}
+		initOffsets(startline, startcolumn);
 		prevCharIsLF = prevCharIsCR = false;
 		tokenBegin = inBuf = maxNextCharInd = 0;
 		nextCharInd = bufpos = -1;
@@ -495,12 +581,16 @@ public class JavaCharStream {
 		buffer = null;
 		bufline = null;
 		bufcolumn = null;
+		lineTable = null;
 	}
 
 	/**
 	 * Method to adjust line and column numbers for the start of a token.
 	 */
 	public void adjustBeginLineColumn(int newLine, int newCol) {
+		if (!keepLineColumn) {
+			return;
+		}
 		int start = tokenBegin;
 		int len;
 		if (bufpos >= tokenBegin) {
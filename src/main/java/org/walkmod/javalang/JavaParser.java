@@ -30,27 +30,28 @@ import org.walkmod.javalang.ast.CompilationUnit;
  * Parse Java 1.5 source code and creates Abstract Syntax Tree classes.
  * </p>
  * <p>
- * <b>Note:</b> To use this parser asynchronously, disable de parser cache by
- * calling the method {@link setCacheParser} with <code>false</code> as
- * argument.
+ * <b>Note:</b> This class is thread-safe. When the parser cache is enabled,
+ * the parsers are reused through a bounded pool, so concurrent calls never
+ * share the same parser instance. The pool size can be changed with
+ * {@link #setParserPoolSize(int)}.
  * </p>
  *
  * @author Julio Vilmar Gesser
  */
 public final class JavaParser {
 
-	private static ASTParser parser;
+	private static volatile ASTParserPool pool = new ASTParserPool(Runtime
+			.getRuntime().availableProcessors());
 
-	private static boolean cacheParser = true;
+	private static volatile boolean cacheParser = true;
 
 	private JavaParser() {
 	}
 
 	/**
 	 * Changes the way that the parser acts when starts to parse. If the parser
-	 * cache is enabled, only one insance of this object will be used in every
-	 * call to parse methods. If this parser is intend to be used asynchonously,
-	 * the cache must be disabled setting this flag to <code>false</code>. By
+	 * cache is enabled, the parser instances are reset and reused between
+	 * calls to parse methods instead of being created for each one. By
 	 * default, the cache is enabled.
 	 * 
 	 * @param value
@@ -59,10 +60,24 @@ public final class JavaParser {
 	public static void setCacheParser(boolean value) {
 		cacheParser = value;
 		if (!value) {
-			parser = null;
+			pool = new ASTParserPool(pool.getMaxIdle());
 		}
 	}
 
+	/**
+	 * Sets the maximum number of idle parsers that are kept to be reused when
+	 * the parser cache is enabled. It should be close to the number of threads
+	 * that parse at the same time. By default, it is the number of available
+	 * processors.
+	 * 
+	 * @param size
+	 *            maximum number of cached parsers. <code>0</code> does not
+	 *            cache any parser.
+	 */
+	public static void setParserPoolSize(int size) {
+		pool = new ASTParserPool(size);
+	}
+
 	/**
 	 * Parses the Java code contained in the {@link InputStream} and returns a
 	 * {@link CompilationUnit} that represents it.
@@ -78,14 +93,16 @@ public final class JavaParser {
 	public static CompilationUnit parse(InputStream in, String encoding)
 			throws ParseException {
 		if (cacheParser) {
-			if (parser == null) {
-				parser = new ASTParser(in, encoding);
-			} else {
-				parser.reset(in, encoding);
+			ASTParserPool current = pool;
+			ASTParser parser = current.acquire(in, encoding);
+			try {
+				return parser.CompilationUnit();
+			} finally {
+				current.release(parser);
 			}
-			return parser.CompilationUnit();
 		}
-		return new ASTParser(in, encoding).CompilationUnit();
+		ASTParser parser = new ASTParser(in, encoding);
+		return parser.CompilationUnit();
 	}
 
 	/**
@@ -0,0 +1,176 @@
+/* 
+  Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+ 
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.IllegalCharsetNameException;
+
+/**
+ * <p>
+ * {@link JavaCharStream} that reads a whole source file through its
+ * {@link FileChannel} with a single byte buffer sized for the file. The file
+ * contents are decoded once into a single char array sized for the file, and
+ * the stream reads from that array directly. There is no
+ * {@link java.io.Reader} and no 4096-char refill buffer. The file is closed
+ * before the stream is created, so it is never left open or locked while it is
+ * parsed. The files are not memory-mapped because a mapping can not be
+ * released explicitly, and it keeps the file locked on Windows until it is
+ * garbage collected.
+ * </p>
+ * <p>
+ * Decoding has a fast path for ASCII content when the encoding is UTF-8,
+ * US-ASCII or ISO-8859-1. Malformed input is replaced by the charset's
+ * replacement character, as {@link java.io.InputStreamReader} does.
+ * </p>
+ */
+public class MappedJavaCharStream extends JavaCharStream {
+
+	/**
+	 * Creates a stream for the whole contents of a file.
+	 * 
+	 * @param file
+	 *            source file to read
+	 * @param encoding
+	 *            encoding of the source file
+	 * @throws IOException
+	 *             if the file can not be read or the encoding is not
+	 *             supported.
+	 */
+	public MappedJavaCharStream(File file, String encoding) throws IOException {
+		this(decode(file, encoding), 1, 1);
+	}
+
+	private MappedJavaCharStream(CharBuffer content, int startline,
+			int startcolumn) {
+		// the ring buffer only needs to be as long as the input to never wrap
+		super((java.io.Reader) null, startline, startcolumn, Math.min(
+				content.limit() + 1, 4096));
+		nextCharBuf = content.array();
+		maxNextCharInd = content.limit();
+	}
+
+	@Override
+	protected void FillBuff() throws IOException {
+		// all the input is already in nextCharBuf, so this is the end of file.
+		if (bufpos != 0) {
+			--bufpos;
+			backup(0);
+		} else if (keepLineColumn) {
+			bufline[bufpos] = line;
+			bufcolumn[bufpos] = column;
+		}
+		throw new IOException();
+	}
+
+	/**
+	 * Decodes the contents of a file into a char buffer whose array starts at
+	 * position 0 and ends at its limit.
+	 */
+	static CharBuffer decode(File file, String encoding) throws IOException {
+		Charset charset = toCharset(encoding);
+		FileInputStream fis = new FileInputStream(file);
+		try {
+			FileChannel channel = fis.getChannel();
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("The file " + file.getPath()
+						+ " is too large to be parsed");
+			}
+			ByteBuffer bytes = ByteBuffer.allocate((int) size);
+			while (bytes.hasRemaining() && channel.read(bytes) != -1)
+				;
+			bytes.flip();
+			return decode(bytes, charset);
+		} finally {
+			fis.close();
+		}
+	}
+
+	static CharBuffer decode(ByteBuffer bytes, Charset charset)
+			throws CharacterCodingException {
+		CharsetDecoder decoder = charset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		int length = bytes.remaining();
+		char[] chars = new char[(int) Math.ceil(length
+				* (double) decoder.maxCharsPerByte())];
+		int i = 0;
+		if (isAsciiCompatible(charset)) {
+			// every byte lower than 0x80 is a char by itself
+			int offset = bytes.position();
+			if (bytes.hasArray()) {
+				byte[] array = bytes.array();
+				int start = bytes.arrayOffset() + offset;
+				while (i < length && array[start + i] >= 0) {
+					chars[i] = (char) array[start + i];
+					i++;
+				}
+			} else {
+				while (i < length) {
+					byte b = bytes.get(offset + i);
+					if (b < 0) {
+						break;
+					}
+					chars[i] = (char) b;
+					i++;
+				}
+			}
+			bytes.position(offset + i);
+		}
+		CharBuffer out = CharBuffer.wrap(chars);
+		out.position(i);
+		if (bytes.hasRemaining()) {
+			CoderResult result = decoder.decode(bytes, out, true);
+			if (!result.isUnderflow()) {
+				result.throwException();
+			}
+			result = decoder.flush(out);
+			if (!result.isUnderflow()) {
+				result.throwException();
+			}
+		}
+		out.flip();
+		return out;
+	}
+
+	private static boolean isAsciiCompatible(Charset charset) {
+		String name = charset.name();
+		return "UTF-8".equals(name) || "US-ASCII".equals(name)
+				|| "ISO-8859-1".equals(name);
+	}
+
+	private static Charset toCharset(String encoding)
+			throws UnsupportedEncodingException {
+		try {
+			if (Charset.isSupported(encoding)) {
+				return Charset.forName(encoding);
+			}
+		} catch (IllegalCharsetNameException e) {
+		}
+		throw new UnsupportedEncodingException(encoding);
+	}
+}
@@ -0,0 +1,90 @@
+/* 
+  Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+ 
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang;
+
+import java.io.File;
+
+import org.walkmod.javalang.ast.CompilationUnit;
+
+/**
+ * <p>
+ * Outcome of parsing a single file with
+ * {@link ASTManager#parseAll(File, String, int, int, boolean)}: either the
+ * {@link CompilationUnit} of the file or the error that prevented to build
+ * it.
+ * </p>
+ */
+public final class ParseResult {
+
+	private final File file;
+
+	private final CompilationUnit compilationUnit;
+
+	private final Exception error;
+
+	ParseResult(File file, CompilationUnit compilationUnit) {
+		this.file = file;
+		this.compilationUnit = compilationUnit;
+		this.error = null;
+	}
+
+	ParseResult(File file, Exception error) {
+		this.file = file;
+		this.compilationUnit = null;
+		this.error = error;
+	}
+
+	/**
+	 * Returns the parsed file.
+	 * 
+	 * @return the parsed file.
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Returns the abstract syntax tree (AST) of the file or <code>null</code>
+	 * if the file could not be parsed.
+	 * 
+	 * @return the AST of the file or <code>null</code>.
+	 */
+	public CompilationUnit getCompilationUnit() {
+		return compilationUnit;
+	}
+
+	/**
+	 * Returns the error produced when the file was parsed: a
+	 * {@link ParseException} when the code contains an invalid syntax or is
+	 * nested too deeply, an {@link java.io.IOException} when the file can not
+	 * be read or the {@link RuntimeException} thrown by the parser.
+	 * 
+	 * @return the parsing error or <code>null</code> if the file was parsed
+	 *         successfully.
+	 */
+	public Exception getError() {
+		return error;
+	}
+
+	/**
+	 * Returns if the file has been parsed successfully.
+	 * 
+	 * @return if there is a {@link CompilationUnit} for the file.
+	 */
+	public boolean isSuccessful() {
+		return error == null;
+	}
+}
@@ -0,0 +1,252 @@
+/* 
+  Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+ 
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.walkmod.javalang.ast.CompilationUnit;
+
+/**
+ * <p>
+ * Iterator over the results of parsing a set of files in parallel. It is
+ * created by
+ * {@link ASTManager#parseAll(File, String, int, int, boolean, boolean)}.
+ * </p>
+ * <p>
+ * Each call to {@link #next()} returns the {@link ParseResult} of one file as
+ * soon as it is available. At most <code>maxPending</code> files are being
+ * parsed or waiting to be consumed at the same time, so a slow consumer
+ * stops the parsing threads instead of accumulating ASTs in memory. Results
+ * are delivered in the order of the file list when the iterator is ordered
+ * or in completion order otherwise.
+ * </p>
+ * <p>
+ * The parsing threads are released when all the results have been consumed
+ * or when {@link #close()} is called. This class is not thread-safe: it
+ * must be consumed from a single thread.
+ * </p>
+ */
+public final class ParseResults implements Iterator<ParseResult>, Closeable {
+
+	private final List<File> files;
+
+	private final String encoding;
+
+	private final int maxPending;
+
+	private final boolean ordered;
+
+	private final boolean withoutComments;
+
+	private final ExecutorService executor;
+
+	private final CompletionService<ParseResult> completionService;
+
+	private final LinkedList<Future<ParseResult>> pending = new LinkedList<Future<ParseResult>>();
+
+	private final ASTParserPool parsers;
+
+	private Iterator<File> toSubmit;
+
+	private int remaining;
+
+	ParseResults(List<File> files, String encoding, int parallelism,
+			int maxPending, boolean ordered, boolean withoutComments) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException(
+					"The parallelism must be greater than 0: " + parallelism);
+		}
+		if (maxPending < 1) {
+			throw new IllegalArgumentException(
+					"The maximum number of pending files must be greater than 0: "
+							+ maxPending);
+		}
+		this.files = files;
+		this.encoding = encoding;
+		this.maxPending = maxPending;
+		this.ordered = ordered;
+		this.withoutComments = withoutComments;
+		this.toSubmit = files.iterator();
+		this.remaining = files.size();
+		this.parsers = new ASTParserPool(parallelism);
+		this.executor = Executors.newFixedThreadPool(parallelism,
+				new ParserThreadFactory());
+		if (ordered) {
+			completionService = null;
+		} else {
+			completionService = new ExecutorCompletionService<ParseResult>(
+					executor);
+		}
+	}
+
+	/**
+	 * Returns the files that are parsed, in the order that they are
+	 * submitted.
+	 * 
+	 * @return the list of files to parse.
+	 */
+	public List<File> getFiles() {
+		return files;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return remaining > 0;
+	}
+
+	@Override
+	public ParseResult next() {
+		if (remaining == 0) {
+			throw new NoSuchElementException();
+		}
+		submitPending();
+		Future<ParseResult> future;
+		try {
+			if (ordered) {
+				future = pending.removeFirst();
+			} else {
+				future = completionService.take();
+				pending.remove(future);
+			}
+			ParseResult result = future.get();
+			remaining--;
+			if (remaining == 0) {
+				close();
+			} else {
+				submitPending();
+			}
+			return result;
+		} catch (InterruptedException e) {
+			close();
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(
+					"Interrupted while waiting for the parsing results", e);
+		} catch (ExecutionException e) {
+			close();
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Stops parsing the files that have not been consumed yet and releases
+	 * the parsing threads. The iterator has no more elements after being
+	 * closed.
+	 */
+	@Override
+	public void close() {
+		remaining = 0;
+		pending.clear();
+		executor.shutdownNow();
+	}
+
+	private void submitPending() {
+		while (pending.size() < maxPending && toSubmit.hasNext()) {
+			Callable<ParseResult> task = new ParseTask(toSubmit.next());
+			if (ordered) {
+				pending.add(executor.submit(task));
+			} else {
+				pending.add(completionService.submit(task));
+			}
+		}
+	}
+
+	private class ParseTask implements Callable<ParseResult> {
+
+		private final File file;
+
+		public ParseTask(File file) {
+			this.file = file;
+		}
+
+		@Override
+		public ParseResult call() {
+			try {
+				return new ParseResult(file, parse());
+			} catch (ParseException e) {
+				return new ParseResult(file, e);
+			} catch (TokenMgrError e) {
+				return new ParseResult(file, new ParseException(e.getMessage()));
+			} catch (IOException e) {
+				return new ParseResult(file, e);
+			} catch (RuntimeException e) {
+				return new ParseResult(file, e);
+			} catch (StackOverflowError e) {
+				ParseException error = new ParseException(
+						"The code is nested too deeply to be parsed");
+				error.initCause(e);
+				return new ParseResult(file, error);
+			}
+		}
+
+		private CompilationUnit parse() throws ParseException, IOException {
+			InputStream in = new FileInputStream(file);
+			try {
+				ASTParser parser = parsers.acquire(in, encoding);
+				try {
+					parser.jj_input_stream.setTabSize(1);
+					parser.token_source.setSkipComments(withoutComments);
+					return parser.CompilationUnit();
+				} finally {
+					parsers.release(parser);
+				}
+			} finally {
+				in.close();
+			}
+		}
+	}
+
+	private static class ParserThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "javalang-parser-"
+					+ count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -56,6 +56,10 @@ public class Token implements java.io.Serializable {
    public int endLine;
    /** The column number of the last character of this Token. */
    public int endColumn;
+   /** The offset of the first character of this Token, or -1 if the offsets of the lines are unknown. */
+   public int beginOffset;
+   /** The offset after the last character of this Token, or -1 if the offsets of the lines are unknown. */
+   public int endOffset;
 
    /**
     * The string image of the token.
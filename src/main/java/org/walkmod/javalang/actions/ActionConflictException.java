@@ -0,0 +1,54 @@
+/* 
+ Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+ 
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang.actions;
+
+/**
+ * Thrown by {@link ActionPlan#getActions()} when two actions of the plan modify the same region
+ * of the code, or when an action has an invalid position.
+ */
+public class ActionConflictException extends RuntimeException {
+
+   private static final long serialVersionUID = 1L;
+
+   private final Action action;
+
+   private final Action conflictingAction;
+
+   public ActionConflictException(String message, Action action, Action conflictingAction) {
+      super(message);
+      this.action = action;
+      this.conflictingAction = conflictingAction;
+   }
+
+   /**
+    * Returns the action that has been rejected.
+    * 
+    * @return the rejected action
+    */
+   public Action getAction() {
+      return action;
+   }
+
+   /**
+    * Returns the previous action of the plan whose region contains the rejected action, or null
+    * if the rejected action has an invalid position.
+    * 
+    * @return the action that conflicts with the rejected one, or null.
+    */
+   public Action getConflictingAction() {
+      return conflictingAction;
+   }
+}
@@ -0,0 +1,218 @@
+/* 
+ Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+ 
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang.actions;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * <p>
+ * Collects the actions to apply over the code of a file, which can be submitted in any order and
+ * from several threads, and returns them as the list that {@link ActionsApplier} expects: sorted
+ * by their begin position and without overlapping regions.
+ * </p>
+ * <p>
+ * The actions are sorted in O(n log n). An append placed at the same position than a removal or
+ * a replacement goes first, so its text is kept. Duplicated removals, removals inside a previous
+ * removal, and replacements of the same region with an equal node are coalesced into the first
+ * one. Removals that overlap or touch the previous removal are joined into a single removal of
+ * both regions. Any other action placed inside the region of a previous removal or replacement is
+ * a conflict, and it is reported with an {@link ActionConflictException} that describes both
+ * actions.
+ * </p>
+ */
+public class ActionPlan {
+
+   private static final Comparator<Action> POSITION_COMPARATOR = new Comparator<Action>() {
+
+      @Override
+      public int compare(Action a1, Action a2) {
+         int result = a1.getBeginLine() - a2.getBeginLine();
+         if (result == 0) {
+            result = a1.getBeginColumn() - a2.getBeginColumn();
+            if (result == 0) {
+               result = order(a1) - order(a2);
+               if (result == 0 && a1.getType() != ActionType.APPEND) {
+                  // the widest region goes first
+                  result = getEndLine(a2) - getEndLine(a1);
+                  if (result == 0) {
+                     result = getEndColumn(a2) - getEndColumn(a1);
+                  }
+               }
+            }
+         }
+         return result;
+      }
+
+      private int order(Action action) {
+         return action.getType() == ActionType.APPEND ? 0 : 1;
+      }
+   };
+
+   private final List<Action> actions = new ArrayList<Action>();
+
+   /**
+    * Adds an action to the plan.
+    * 
+    * @param action
+    *           the action to add
+    */
+   public synchronized void add(Action action) {
+      if (action == null) {
+         throw new IllegalArgumentException("The action cannot be null");
+      }
+      actions.add(action);
+   }
+
+   /**
+    * Adds several actions to the plan.
+    * 
+    * @param actions
+    *           the actions to add
+    */
+   public synchronized void addAll(Collection<? extends Action> actions) {
+      for (Action action : actions) {
+         add(action);
+      }
+   }
+
+   /**
+    * Returns the number of actions added to the plan.
+    * 
+    * @return the number of actions added.
+    */
+   public synchronized int size() {
+      return actions.size();
+   }
+
+   /**
+    * Returns the actions of the plan sorted by their position and coalesced.
+    * 
+    * @return the list of actions to apply.
+    * @throws ActionConflictException
+    *            if an action has an invalid position or modifies the region of a previous removal
+    *            or replacement.
+    */
+   public synchronized List<Action> getActions() {
+      List<Action> sorted = new ArrayList<Action>(actions);
+      Collections.sort(sorted, POSITION_COMPARATOR);
+
+      List<Action> result = new ArrayList<Action>(sorted.size());
+      Action region = null;
+      for (Action action : sorted) {
+         validate(action);
+         if (region != null && region == result.get(result.size() - 1) && isJoined(region, action)) {
+            region = new RemoveAction(region.getBeginLine(), region.getBeginColumn(), action.getEndLine(),
+                  action.getEndColumn(), null);
+            result.set(result.size() - 1, region);
+         } else if (region != null && !isAfter(region, action)) {
+            if (!isCoalesced(region, action)) {
+               throw new ActionConflictException(describe(action) + " overlaps " + describe(region), action,
+                     region);
+            }
+         } else {
+            result.add(action);
+            if (action.getType() != ActionType.APPEND) {
+               region = action;
+            }
+         }
+      }
+      return result;
+   }
+
+   /**
+    * The end position of a replacement is the end of its new text when it is longer than the old
+    * one, but the region that it modifies finishes with the old node.
+    */
+   private static int getEndLine(Action region) {
+      if (region.getType() == ActionType.REPLACE) {
+         return ((ReplaceAction) region).getOldEndLine();
+      }
+      return region.getEndLine();
+   }
+
+   private static int getEndColumn(Action region) {
+      if (region.getType() == ActionType.REPLACE) {
+         return ((ReplaceAction) region).getOldEndColumn();
+      }
+      return region.getEndColumn();
+   }
+
+   private static boolean isAfter(Action region, Action action) {
+      if (region.getType() == ActionType.REPLACE) {
+         int endLine = getEndLine(region);
+         return action.getBeginLine() > endLine
+               || (action.getBeginLine() == endLine && action.getBeginColumn() >= getEndColumn(region));
+      }
+      return region.isPreviousThan(action.getBeginLine(), action.getBeginColumn());
+   }
+
+   /**
+    * A removal is joined to the previous one when it starts inside it, or just after its last
+    * column, and finishes after it.
+    */
+   private static boolean isJoined(Action region, Action action) {
+      if (region.getType() != ActionType.REMOVE || action.getType() != ActionType.REMOVE
+            || region.contains(action)) {
+         return false;
+      }
+      return action.getBeginLine() < region.getEndLine()
+            || (action.getBeginLine() == region.getEndLine() && action.getBeginColumn() <= region
+                  .getEndColumn() + 1);
+   }
+
+   private static boolean isCoalesced(Action region, Action action) {
+      if (region.getType() == ActionType.REMOVE && action.getType() == ActionType.REMOVE) {
+         return region.contains(action);
+      }
+      if (region.getType() == ActionType.REPLACE && action.getType() == ActionType.REPLACE) {
+         ReplaceAction r1 = (ReplaceAction) region;
+         ReplaceAction r2 = (ReplaceAction) action;
+         return r1.getBeginLine() == r2.getBeginLine() && r1.getBeginColumn() == r2.getBeginColumn()
+               && getEndLine(r1) == getEndLine(r2) && getEndColumn(r1) == getEndColumn(r2)
+               && r1.getNewNode().equals(r2.getNewNode());
+      }
+      return false;
+   }
+
+   private static void validate(Action action) {
+      if (action.getBeginLine() < 1 || action.getBeginColumn() < 1) {
+         throw new ActionConflictException(describe(action) + " has an invalid position", action, null);
+      }
+      if (action.getType() == ActionType.REMOVE) {
+         if (action.getEndLine() < action.getBeginLine()
+               || (action.getEndLine() == action.getBeginLine() && action.getEndColumn() < action
+                     .getBeginColumn())) {
+            throw new ActionConflictException(describe(action) + " finishes before its beginning", action,
+                  null);
+         }
+      }
+   }
+
+   private static String describe(Action action) {
+      StringBuilder sb = new StringBuilder();
+      sb.append(action.getType()).append(" [").append(action.getBeginLine()).append(':')
+            .append(action.getBeginColumn());
+      if (action.getType() != ActionType.APPEND) {
+         sb.append(" - ").append(getEndLine(action)).append(':').append(getEndColumn(action));
+      }
+      sb.append(']');
+      return sb.toString();
+   }
+}
@@ -16,6 +16,8 @@
 package org.walkmod.javalang.actions;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
@@ -27,7 +29,7 @@ public class ActionsApplier {
 
    private List<Action> actions;
 
-   private StringBuffer modifiedText;
+   private StringBuilder modifiedText;
 
    private Character indentationChar = null;
 
@@ -43,10 +45,41 @@ public class ActionsApplier {
       }
    }
 
+   /**
+    * Sets the text to modify reading it from a file. Unlike {@link #setText(File)}, the contents
+    * must be valid in the given encoding, so the modified text can be written back safely.
+    * 
+    * @param file
+    *           the file to read
+    * @param encoding
+    *           the encoding of the file
+    * @throws RuntimeException
+    *            if the file can not be read or contains malformed input for the encoding
+    */
+   public void setText(File file, String encoding) {
+      try {
+         this.text = FileUtils.fileToString(file, encoding);
+      } catch (IOException e) {
+         throw new RuntimeException("Error reading the file " + file.getAbsolutePath(), e);
+      }
+   }
+
    public void setActionList(List<Action> actions) {
       this.actions = actions;
    }
 
+   /**
+    * Sets the actions of a plan, sorted and coalesced.
+    * 
+    * @param plan
+    *           the actions to apply
+    * @throws ActionConflictException
+    *            if the plan contains overlapping actions
+    */
+   public void setActionPlan(ActionPlan plan) {
+      this.actions = plan.getActions();
+   }
+
    public String getModifiedText() {
       return modifiedText.toString();
    }
@@ -96,13 +129,15 @@ public class ActionsApplier {
    }
 
    public void execute() {
-      modifiedText = new StringBuffer();
+      modifiedText = new StringBuilder(text != null ? text.length() : 16);
       if (actions != null && text != null) {
 
          Iterator<Action> it = actions.iterator();
 
          char[] contents = text.toCharArray();
 
+         int[] newLines = getNewLines(contents);
+
          int index = 0;
 
          int line = 0;
@@ -113,18 +148,21 @@ public class ActionsApplier {
             int actionLine = next.getBeginLine() - 1;
 
             // the cursor is moved to the line
-            for (int i = line; i < actionLine; i++) {
-
-               boolean endLine = false;
-               while (index < contents.length && !endLine) {
-                  endLine = contents[index] == '\n';
-                  modifiedText.append(contents[index]);
-                  index++;
-                  if (endLine) {
-                     line++;
-                     actionColumn = 0;
-                  }
-
+            if (line < actionLine && index < contents.length) {
+               int lines = actionLine - line;
+               int first = getNextNewLine(newLines, index);
+               int end;
+               if (first + lines <= newLines.length) {
+                  end = newLines[first + lines - 1] + 1;
+               } else {
+                  lines = newLines.length - first;
+                  end = contents.length;
+               }
+               modifiedText.append(contents, index, end - index);
+               index = end;
+               if (lines > 0) {
+                  line += lines;
+                  actionColumn = 0;
                }
             }
 
@@ -132,31 +170,33 @@ public class ActionsApplier {
             if (index < contents.length) {
                int incr = next.getBeginColumn() - 1 - actionColumn;
                if (incr > 0) {
-                  for (int i = index; i < index + incr; i++) {
-                     modifiedText.append(contents[i]);
-                     actionColumn++;
-
-                  }
+                  modifiedText.append(contents, index, incr);
+                  actionColumn += incr;
                   index = index + incr;
                }
 
                if (next.getType().equals(ActionType.REMOVE)) {
                   RemoveAction remove = (RemoveAction) next;
 
-                  for (; (actionLine < (remove.getEndLine() - 1) || (actionLine == (remove.getEndLine() - 1) && actionColumn < remove
-                        .getEndColumn())); index++) {
-
-                     if (contents[index] == '\r') {
-                        //modifiedText.append('\r');
-                        actionColumn++;
-                     } else if (contents[index] != '\n') {
-                        // modifiedText.append(' ');
-                        actionColumn++;
-                     } else {
-                        actionLine++;
+                  int endLine = remove.getEndLine() - 1;
+                  if (actionLine < endLine) {
+                     int lines = endLine - actionLine;
+                     index = newLines[getNextNewLine(newLines, index) + lines - 1] + 1;
+                     line += lines;
+                     actionLine = endLine;
+                     actionColumn = 0;
+                  }
+                  if (actionLine == endLine && actionColumn < remove.getEndColumn()) {
+                     // the removal finishes at the end column or at the end of the line
+                     int end = index + remove.getEndColumn() - actionColumn;
+                     int newLine = getNextNewLine(newLines, index);
+                     if (newLine < newLines.length && newLines[newLine] < end) {
+                        index = newLines[newLine] + 1;
                         line++;
                         actionColumn = 0;
-                        //modifiedText.append('\n');
+                     } else {
+                        index = end;
+                        actionColumn = remove.getEndColumn();
                      }
                   }
                } else if (next.getType().equals(ActionType.APPEND)) {
@@ -180,15 +220,9 @@ public class ActionsApplier {
                   int futureLine = replace.getOldEndLine() - 1;
                   // we need to update the index cursor according the old
                   // value
-                  for (; actionLine < futureLine; index++) {
-                     if (contents[index] == '\r') {
-                        actionColumn++;
-                     } else if (contents[index] != '\n') {
-                        actionColumn++;
-                     } else {
-                        actionLine++;
-                        actionColumn = 0;
-                     }
+                  if (actionLine < futureLine) {
+                     index = newLines[getNextNewLine(newLines, index) + futureLine - actionLine - 1] + 1;
+                     actionColumn = 0;
                   }
                   line = futureLine;
                   index += (replace.getOldEndColumn() - actionColumn);
@@ -197,9 +231,38 @@ public class ActionsApplier {
             }
          }
 
-         for (int i = index; i < contents.length; i++) {
-            modifiedText.append(contents[i]);
+         if (index < contents.length) {
+            modifiedText.append(contents, index, contents.length - index);
+         }
+      }
+   }
+
+   /**
+    * Returns the offsets of all the line feeds of the text, in ascending order.
+    */
+   private static int[] getNewLines(char[] contents) {
+      int count = 0;
+      for (int i = 0; i < contents.length; i++) {
+         if (contents[i] == '\n') {
+            count++;
+         }
+      }
+      int[] newLines = new int[count];
+      count = 0;
+      for (int i = 0; i < contents.length; i++) {
+         if (contents[i] == '\n') {
+            newLines[count++] = i;
          }
       }
+      return newLines;
+   }
+
+   /**
+    * Returns the position, in the line feeds table, of the first line feed that is not before the
+    * given offset.
+    */
+   private static int getNextNewLine(int[] newLines, int index) {
+      int pos = Arrays.binarySearch(newLines, index);
+      return pos >= 0 ? pos : -pos - 1;
    }
 }
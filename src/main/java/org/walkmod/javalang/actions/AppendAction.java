@@ -39,16 +39,6 @@ public class AppendAction extends Action {
       this.indentationLevel = level;
       this.indentationSize = indentationSize;
       this.node = node;
-
-      generateText();
-
-      String[] lines = text.split("\n");
-      endLine = getBeginLine() + lines.length - 1;
-      if (endLine == beginLine) {
-         endColumn = getBeginColumn() + lines[lines.length - 1].length();
-      } else {
-         endColumn = lines[lines.length - 1].length();
-      }
    }
 
    public String getText() {
@@ -59,8 +49,11 @@ public class AppendAction extends Action {
    }
 
    public void generateText() {
+      text = render(indentationChar);
+   }
 
-      text = node.getPrettySource(indentationChar, indentationLevel, indentationSize);
+   private String render(char indentationChar) {
+      String text = node.getPrettySource(indentationChar, indentationLevel, indentationSize);
 
       if (getBeginColumn() == 1 && getBeginLine() > 1) {
          if (!text.endsWith("\n")) {
@@ -70,18 +63,40 @@ public class AppendAction extends Action {
             text += "\n";
          }
       }
+      return text;
    }
 
    public void setIndentationChar(char indentationChar) {
-      this.indentationChar = indentationChar;
-      generateText();
+      if (this.indentationChar != indentationChar) {
+         this.indentationChar = indentationChar;
+         text = null;
+      }
+   }
+
+   /**
+    * The end position is the one of the text indented with spaces, and it is only calculated when
+    * it is requested.
+    */
+   private void calculateEnd() {
+      if (endLine == -1) {
+         String text = indentationChar == ' ' ? getText() : render(' ');
+         String[] lines = text.split("\n");
+         endLine = getBeginLine() + lines.length - 1;
+         if (endLine == getBeginLine()) {
+            endColumn = getBeginColumn() + lines[lines.length - 1].length();
+         } else {
+            endColumn = lines[lines.length - 1].length();
+         }
+      }
    }
 
    public int getEndLine() {
+      calculateEnd();
       return endLine;
    }
 
    public int getEndColumn() {
+      calculateEnd();
       return endColumn;
    }
 
@@ -25,6 +25,8 @@ public class RemoveAction extends Action {
 
    private int endColumn;
 
+   private Node node;
+
    private String text;
 
    public RemoveAction(int beginLine, int beginPosition, int endLine, int endColumn, Node node) {
@@ -39,11 +41,13 @@ public class RemoveAction extends Action {
          }
       }
 
-      this.text = node.toString();
-
+      this.node = node;
    }
 
    public String getText() {
+      if (text == null && node != null) {
+         text = node.toString();
+      }
       return text;
    }
 
@@ -28,16 +28,14 @@ public class ReplaceAction extends Action {
 
    private String newCode;
 
-   private int endLine;
+   private int endLine = -1;
 
-   private int endColumn;
+   private int endColumn = -1;
 
    private String oldCode;
 
    private char indentationChar = ' ';
 
-   private String oldCodeWithoutNonBlanks;
-
    private int indentationLevel;
 
    private int indentationSize;
@@ -66,9 +64,6 @@ public class ReplaceAction extends Action {
 
       this.oldNode = oldNode;
 
-      oldCode = oldNode.getPrettySource(indentationChar, indentation, indentationSize, acceptedComments);
-      oldCodeWithoutNonBlanks = oldCode.replaceAll("\\S", " ");
-
       if (oldNode instanceof BodyDeclaration) {
          JavadocComment jc = ((BodyDeclaration) oldNode).getJavaDoc();
          if (jc != null) {
@@ -79,37 +74,64 @@ public class ReplaceAction extends Action {
       this.indentationLevel = indentation;
       this.indentationSize = indentationSize;
       this.newNode = newNode;
+   }
 
-      updateCode();
-
-      String[] lines = newCode.split("\n");
-      endLine = getBeginLine() + lines.length - 1;
-      endColumn = lines[lines.length - 1].length();
-
-      if (oldNode.getEndLine() >= endLine) {
-         if (oldNode.getEndLine() == endLine) {
-            if (oldNode.getEndColumn() > endColumn) {
-               endLine = oldNode.getEndLine();
-               endColumn = oldNode.getEndColumn();
+   /**
+    * Prints the new node. When it is shorter than the old one, it is completed with the old code
+    * replacing the non blank characters by spaces.
+    */
+   private String render(char indentationChar) {
+      String code = newNode.getPrettySource(indentationChar, indentationLevel, indentationSize, acceptedComments);
+      String oldCode = getOldText();
+      if (code.length() < oldCode.length()) {
+         StringBuilder blanks = new StringBuilder(oldCode.length());
+         int i = 0;
+         while (i < oldCode.length()) {
+            int c = oldCode.codePointAt(i);
+            if (c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r') {
+               blanks.append((char) c);
+            } else {
+               blanks.append(' ');
             }
-         } else {
-            endLine = oldNode.getEndLine();
-            endColumn = oldNode.getEndColumn();
+            i += Character.charCount(c);
+         }
+         if (code.length() < blanks.length()) {
+            code = code + blanks.substring(code.length());
          }
       }
+      return code;
    }
 
-   private void updateCode() {
-
-      newCode = newNode.getPrettySource(indentationChar, indentationLevel, indentationSize, acceptedComments);
-      if (newCode.length() < oldCodeWithoutNonBlanks.length()) {
-         newCode = newCode + oldCodeWithoutNonBlanks.substring(newCode.length());
+   /**
+    * The end position is the one of the new code indented with spaces, and it is only calculated
+    * when it is requested.
+    */
+   private void calculateEnd() {
+      if (endLine == -1) {
+         String code = indentationChar == ' ' ? getNewText() : render(' ');
+         String[] lines = code.split("\n");
+         int endLine = getBeginLine() + lines.length - 1;
+         int endColumn = lines[lines.length - 1].length();
+
+         if (oldNode.getEndLine() >= endLine) {
+            if (oldNode.getEndLine() == endLine) {
+               if (oldNode.getEndColumn() > endColumn) {
+                  endLine = oldNode.getEndLine();
+                  endColumn = oldNode.getEndColumn();
+               }
+            } else {
+               endLine = oldNode.getEndLine();
+               endColumn = oldNode.getEndColumn();
+            }
+         }
+         this.endColumn = endColumn;
+         this.endLine = endLine;
       }
-
    }
 
    @Override
    public int getEndLine() {
+      calculateEnd();
       return endLine;
    }
 
@@ -123,19 +145,32 @@ public class ReplaceAction extends Action {
 
    @Override
    public int getEndColumn() {
+      calculateEnd();
       return endColumn;
    }
 
    public void setIndentationChar(char indentationChar) {
-      this.indentationChar = indentationChar;
-      updateCode();
+      if (this.indentationChar != indentationChar) {
+         this.indentationChar = indentationChar;
+         newCode = null;
+      }
    }
 
    public String getNewText() {
+      if (newCode == null) {
+         newCode = render(indentationChar);
+      }
       return newCode;
    }
 
+   Node getNewNode() {
+      return newNode;
+   }
+
    public String getOldText() {
+      if (oldCode == null) {
+         oldCode = oldNode.getPrettySource(' ', indentationLevel, indentationSize, acceptedComments);
+      }
       return oldCode;
    }
 
@@ -0,0 +1,367 @@
+/* 
+ Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+ 
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang.actions;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.walkmod.javalang.util.FileUtils;
+
+/**
+ * <p>
+ * Applies the actions of several files in parallel, using an {@link ActionsApplier} per file and a
+ * bounded pool of threads.
+ * </p>
+ * <p>
+ * The rewrite has two phases. First, each file is read once, decoded with its own encoding, and
+ * its new contents are written into a temporary file of the same directory. Then, only if all the
+ * files have been prepared without errors, each file is renamed into a backup and its temporary
+ * file takes its place, so readers never see a partially written file. Otherwise, the temporary
+ * files are deleted and no file is modified.
+ * </p>
+ * <p>
+ * The backups are only deleted when all the files have been moved. If any move fails, the files
+ * that have already been replaced are restored from their backups, so either all the files of a
+ * batch are rewritten or none of them.
+ * </p>
+ * <p>
+ * The actions of each file must be sorted as {@link ActionsApplier} expects. Use
+ * {@link ActionPlan#getActions()} to build them.
+ * </p>
+ */
+public class RewriteEngine {
+
+   private final int parallelism;
+
+   /**
+    * Creates an engine that rewrites, at most, <code>parallelism</code> files at the same time.
+    * 
+    * @param parallelism
+    *           number of threads
+    */
+   public RewriteEngine(int parallelism) {
+      if (parallelism < 1) {
+         throw new IllegalArgumentException("The parallelism must be greater than 0: " + parallelism);
+      }
+      this.parallelism = parallelism;
+   }
+
+   /**
+    * Rewrites a set of files that share the same encoding.
+    * 
+    * @param actions
+    *           actions to apply for each file
+    * @param encoding
+    *           encoding of the files
+    * @return the result of each file, in the iteration order of the map.
+    * @throws UnsupportedEncodingException
+    *            if the encoding is not supported
+    */
+   public List<RewriteResult> rewrite(Map<File, List<Action>> actions, String encoding)
+         throws UnsupportedEncodingException {
+      return rewrite(actions, Collections.<File, String> emptyMap(), encoding);
+   }
+
+   /**
+    * Rewrites a set of files, each one with its own encoding.
+    * 
+    * @param actions
+    *           actions to apply for each file
+    * @param encodings
+    *           encoding of each file
+    * @param defaultEncoding
+    *           encoding of the files that are not present in <code>encodings</code>
+    * @return the result of each file, in the iteration order of the map.
+    * @throws UnsupportedEncodingException
+    *            if any of the encodings is not supported
+    */
+   public List<RewriteResult> rewrite(Map<File, List<Action>> actions, Map<File, String> encodings,
+         String defaultEncoding) throws UnsupportedEncodingException {
+      List<RewriteTask> tasks = new ArrayList<RewriteTask>(actions.size());
+      for (Map.Entry<File, List<Action>> entry : actions.entrySet()) {
+         String encoding = encodings.get(entry.getKey());
+         if (encoding == null) {
+            encoding = defaultEncoding;
+         }
+         if (!Charset.isSupported(encoding)) {
+            throw new UnsupportedEncodingException(encoding);
+         }
+         tasks.add(new RewriteTask(entry.getKey(), entry.getValue(), Charset.forName(encoding)));
+      }
+      if (!tasks.isEmpty()) {
+         prepare(tasks);
+         boolean prepared = true;
+         for (RewriteTask task : tasks) {
+            prepared = prepared && task.error == null;
+         }
+         if (prepared) {
+            commit(tasks);
+         } else {
+            rollback(tasks);
+         }
+      }
+      List<RewriteResult> results = new ArrayList<RewriteResult>(tasks.size());
+      for (RewriteTask task : tasks) {
+         results.add(new RewriteResult(task.file, task.error, task.committed, task.readTime,
+               task.applyTime, task.writeTime));
+      }
+      return results;
+   }
+
+   private void prepare(List<RewriteTask> tasks) {
+      ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, tasks.size()),
+            new RewriterThreadFactory());
+      try {
+         List<Future<RewriteTask>> futures = new ArrayList<Future<RewriteTask>>(tasks.size());
+         for (RewriteTask task : tasks) {
+            futures.add(executor.submit(task, task));
+         }
+         for (Future<RewriteTask> future : futures) {
+            future.get();
+         }
+      } catch (InterruptedException e) {
+         executor.shutdownNow();
+         rollback(tasks);
+         Thread.currentThread().interrupt();
+         throw new IllegalStateException("Interrupted while rewriting the files", e);
+      } catch (ExecutionException e) {
+         executor.shutdownNow();
+         rollback(tasks);
+         Throwable cause = e.getCause();
+         if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+         }
+         if (cause instanceof Error) {
+            throw (Error) cause;
+         }
+         throw new IllegalStateException(cause);
+      } finally {
+         executor.shutdown();
+      }
+   }
+
+   private void commit(List<RewriteTask> tasks) {
+      List<RewriteTask> committed = new ArrayList<RewriteTask>(tasks.size());
+      boolean failed = false;
+      for (RewriteTask task : tasks) {
+         if (failed) {
+            task.discard();
+         } else {
+            task.commit();
+            failed = task.error != null;
+            if (!failed) {
+               committed.add(task);
+            }
+         }
+      }
+      for (int i = committed.size() - 1; i >= 0; i--) {
+         RewriteTask task = committed.get(i);
+         if (failed) {
+            task.restore();
+         } else {
+            task.release();
+         }
+      }
+   }
+
+   /**
+    * Renames a file of the batch. <code>File.renameTo</code> does not replace an existing file in
+    * all the platforms, so the target never exists when it is called by the commit, except to put a
+    * backup back.
+    * 
+    * @param source
+    *           the file to rename
+    * @param target
+    *           the new name of the file
+    * @return if the file has been renamed.
+    */
+   protected boolean rename(File source, File target) {
+      return source.renameTo(target);
+   }
+
+   private void rollback(List<RewriteTask> tasks) {
+      for (RewriteTask task : tasks) {
+         task.discard();
+      }
+   }
+
+   private class RewriteTask implements Runnable {
+
+      private final File file;
+
+      private final List<Action> actions;
+
+      private final Charset charset;
+
+      private File tmp;
+
+      private File backup;
+
+      private boolean discarded = false;
+
+      private boolean committed = false;
+
+      private Exception error;
+
+      private long readTime;
+
+      private long applyTime;
+
+      private long writeTime;
+
+      public RewriteTask(File file, List<Action> actions, Charset charset) {
+         this.file = file;
+         this.actions = actions;
+         this.charset = charset;
+      }
+
+      @Override
+      public void run() {
+         try {
+            long start = System.nanoTime();
+            String text = FileUtils.fileToString(file, charset.name());
+            long read = System.nanoTime();
+            readTime = read - start;
+
+            ActionsApplier applier = new ActionsApplier();
+            applier.setText(text);
+            applier.setActionList(actions);
+            applier.execute();
+            ByteBuffer contents = charset.newEncoder().encode(
+                  CharBuffer.wrap(applier.getModifiedText()));
+            long applied = System.nanoTime();
+            applyTime = applied - read;
+
+            write(contents);
+            writeTime = System.nanoTime() - applied;
+         } catch (Exception e) {
+            error = e;
+         }
+      }
+
+      private void write(ByteBuffer contents) throws IOException {
+         File dir = file.getAbsoluteFile().getParentFile();
+         File tmp = File.createTempFile("." + file.getName(), ".tmp", dir);
+         synchronized (this) {
+            if (discarded) {
+               tmp.delete();
+               return;
+            }
+            this.tmp = tmp;
+         }
+         FileOutputStream out = new FileOutputStream(tmp);
+         try {
+            FileChannel channel = out.getChannel();
+            while (contents.hasRemaining()) {
+               channel.write(contents);
+            }
+            channel.force(false);
+         } finally {
+            out.close();
+         }
+         if (file.canExecute()) {
+            tmp.setExecutable(true);
+         }
+      }
+
+      /**
+       * Moves the file into its backup and the temporary file into its place.
+       */
+      public synchronized void commit() {
+         long start = System.nanoTime();
+         File backup = new File(tmp.getPath() + ".bak");
+         if (!rename(file, backup)) {
+            error = new IOException("Error moving " + file.getAbsolutePath() + " to "
+                  + backup.getAbsolutePath());
+            discard();
+         } else if (!rename(tmp, file)) {
+            if (rename(backup, file)) {
+               error = new IOException("Error moving " + tmp.getAbsolutePath() + " to "
+                     + file.getAbsolutePath());
+            } else {
+               // the original contents are only in the backup, so it is kept
+               error = new IOException("Error moving " + tmp.getAbsolutePath() + " to "
+                     + file.getAbsolutePath() + ". The original file can not be restored from "
+                     + backup.getAbsolutePath());
+            }
+            discard();
+         } else {
+            this.backup = backup;
+            committed = true;
+            tmp = null;
+         }
+         writeTime += System.nanoTime() - start;
+      }
+
+      /**
+       * Puts the backup back in place of the new contents, because another file of the batch has
+       * failed.
+       */
+      public synchronized void restore() {
+         if (rename(backup, file) || (file.delete() && rename(backup, file))) {
+            committed = false;
+            backup = null;
+         } else {
+            error = new IOException("Error restoring " + file.getAbsolutePath() + " from "
+                  + backup.getAbsolutePath());
+         }
+      }
+
+      /**
+       * Deletes the backup once all the files of the batch have been committed.
+       */
+      public synchronized void release() {
+         backup.delete();
+         backup = null;
+      }
+
+      public synchronized void discard() {
+         discarded = true;
+         if (tmp != null) {
+            tmp.delete();
+            tmp = null;
+         }
+      }
+   }
+
+   private static class RewriterThreadFactory implements ThreadFactory {
+
+      private final AtomicInteger count = new AtomicInteger();
+
+      @Override
+      public Thread newThread(Runnable r) {
+         Thread thread = new Thread(r, "javalang-rewriter-" + count.incrementAndGet());
+         thread.setDaemon(true);
+         return thread;
+      }
+   }
+}
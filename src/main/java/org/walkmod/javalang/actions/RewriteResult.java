@@ -0,0 +1,125 @@
+/* 
+ Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+ 
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang.actions;
+
+import java.io.File;
+
+/**
+ * <p>
+ * Outcome of rewriting a single file with {@link RewriteEngine}: the error that prevented to
+ * rewrite it, if any, whether the new contents replaced the file, and the time spent reading,
+ * applying the actions and writing it.
+ * </p>
+ */
+public final class RewriteResult {
+
+   private final File file;
+
+   private final Exception error;
+
+   private final boolean committed;
+
+   private final long readTime;
+
+   private final long applyTime;
+
+   private final long writeTime;
+
+   RewriteResult(File file, Exception error, boolean committed, long readTime, long applyTime,
+         long writeTime) {
+      this.file = file;
+      this.error = error;
+      this.committed = committed;
+      this.readTime = readTime;
+      this.applyTime = applyTime;
+      this.writeTime = writeTime;
+   }
+
+   /**
+    * Returns the rewritten file.
+    * 
+    * @return the rewritten file.
+    */
+   public File getFile() {
+      return file;
+   }
+
+   /**
+    * Returns the error produced when the file was rewritten: an {@link java.io.IOException} when
+    * the file can not be read, decoded, encoded, written or restored from its backup, or the
+    * exception thrown applying the actions.
+    * 
+    * @return the error or <code>null</code> if the file was rewritten successfully.
+    */
+   public Exception getError() {
+      return error;
+   }
+
+   /**
+    * Returns if the actions have been applied without errors over the file.
+    * 
+    * @return if there is no error for the file.
+    */
+   public boolean isSuccessful() {
+      return error == null;
+   }
+
+   /**
+    * Returns if the file has been replaced with its new contents. A successful file is not
+    * committed when any other file of the same batch fails.
+    * 
+    * @return if the file contains the new contents.
+    */
+   public boolean isCommitted() {
+      return committed;
+   }
+
+   /**
+    * Returns the time spent reading and decoding the file.
+    * 
+    * @return the time in nanoseconds.
+    */
+   public long getReadTime() {
+      return readTime;
+   }
+
+   /**
+    * Returns the time spent applying the actions.
+    * 
+    * @return the time in nanoseconds.
+    */
+   public long getApplyTime() {
+      return applyTime;
+   }
+
+   /**
+    * Returns the time spent writing the temporary file and moving it over the file.
+    * 
+    * @return the time in nanoseconds.
+    */
+   public long getWriteTime() {
+      return writeTime;
+   }
+
+   /**
+    * Returns the total time spent rewriting the file.
+    * 
+    * @return the time in nanoseconds.
+    */
+   public long getTotalTime() {
+      return readTime + applyTime + writeTime;
+   }
+}
@@ -57,6 +57,7 @@ public abstract class Comment extends Node {
 	 */
 	public void setContent(String content) {
 		this.content = content;
+		invalidateHashCode();
 	}
 	
 	@Override
@@ -17,7 +17,6 @@ package org.walkmod.javalang.ast;
 
 import java.util.Comparator;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 
 import org.walkmod.javalang.ast.body.AnnotationDeclaration;
@@ -150,6 +149,7 @@ public final class CompilationUnit extends Node implements Mergeable<Compilation
     */
    public void setComments(List<Comment> comments) {
       this.comments = comments;
+      setAsParentNodeOf(comments);
    }
 
    /**
@@ -195,15 +195,15 @@ public final class CompilationUnit extends Node implements Mergeable<Compilation
 
    @Override
    public void merge(CompilationUnit remoteCU, MergeEngine configuration) {
-      List<ImportDeclaration> resultImports = new LinkedList<ImportDeclaration>();
+      List<ImportDeclaration> resultImports = new NodeList<ImportDeclaration>();
       configuration.apply(getImports(), remoteCU.getImports(), resultImports, ImportDeclaration.class);
       setImports(resultImports);
 
-      List<TypeDeclaration> resultTypes = new LinkedList<TypeDeclaration>();
+      List<TypeDeclaration> resultTypes = new NodeList<TypeDeclaration>();
       configuration.apply(getTypes(), remoteCU.getTypes(), resultTypes, TypeDeclaration.class);
       setTypes(resultTypes);
 
-      List<Comment> resultComments = new LinkedList<Comment>();
+      List<Comment> resultComments = new NodeList<Comment>();
       configuration.apply(getComments(), remoteCU.getComments(), resultComments, Comment.class);
       setComments(resultComments);
 
@@ -215,7 +215,9 @@ public final class CompilationUnit extends Node implements Mergeable<Compilation
          setPackage((PackageDeclaration) newChild);
          updated = true;
       }
-      updated = replaceChildNodeInList(oldChild, newChild, imports);
+      if (!updated) {
+         updated = replaceChildNodeInList(oldChild, newChild, imports);
+      }
       if (!updated) {
          updated = replaceChildNodeInList(oldChild, newChild, types);
          if(!updated){
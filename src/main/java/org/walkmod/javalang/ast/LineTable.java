@@ -0,0 +1,225 @@
+/*
+  Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang.ast;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Table of the lines of a parsed code that converts the locations of its nodes into offsets in the
+ * code. The root of a parsed tree keeps the table, so the offsets of the nodes are computed when
+ * they are requested instead of being stored in every node.
+ * </p>
+ * <p>
+ * The columns count raw characters, except the tabs, which move the column to the next tab stop.
+ * So the offsets of the tabs are kept when the tab size is not 1. A char read from a unicode escape
+ * has the column of its backslash, so the escapes are kept to find where a location that ends with
+ * one of them ends. The parser adds the lines, tabs and escapes while it reads the code, in
+ * increasing order of offsets.
+ * </p>
+ */
+public class LineTable implements Serializable {
+
+   private static final long serialVersionUID = 1L;
+
+   private final int tabSize;
+
+   private int[] lines = new int[64];
+
+   private int lineCount = 1;
+
+   private int[] tabs;
+
+   private int tabCount;
+
+   private int[] escapes;
+
+   private int[] escapeEnds;
+
+   private int escapeCount;
+
+   /**
+    * Creates a table whose first line starts at offset 0.
+    *
+    * @param tabSize
+    *           number of columns of a tab in the locations of the nodes
+    */
+   public LineTable(int tabSize) {
+      this.tabSize = tabSize;
+   }
+
+   public int getTabSize() {
+      return tabSize;
+   }
+
+   public int getLineCount() {
+      return lineCount;
+   }
+
+   /**
+    * Returns the offset where a line starts.
+    *
+    * @param line
+    *           the line, starting at 1
+    * @return the offset of the first character of the line, or -1 if the line is out of the table.
+    */
+   public int getLineOffset(int line) {
+      if (line < 1 || line > lineCount) {
+         return -1;
+      }
+      return lines[line - 1];
+   }
+
+   /**
+    * Adds the next line.
+    *
+    * @param offset
+    *           offset of the first character of the line
+    */
+   public void addLine(int offset) {
+      if (lineCount == lines.length) {
+         lines = grow(lines, lineCount);
+      }
+      lines[lineCount++] = offset;
+   }
+
+   /**
+    * Adds a tab. The tabs are not kept when the tab size is 1, because they take a single column.
+    *
+    * @param offset
+    *           offset of the tab
+    */
+   public void addTab(int offset) {
+      if (tabSize == 1) {
+         return;
+      }
+      if (tabs == null) {
+         tabs = new int[64];
+      } else if (tabCount == tabs.length) {
+         tabs = grow(tabs, tabCount);
+      }
+      tabs[tabCount++] = offset;
+   }
+
+   /**
+    * Adds a unicode escape.
+    *
+    * @param begin
+    *           offset of the backslash of the escape
+    * @param end
+    *           offset after the last character of the escape
+    */
+   public void addEscape(int begin, int end) {
+      if (escapes == null) {
+         escapes = new int[16];
+         escapeEnds = new int[16];
+      } else if (escapeCount == escapes.length) {
+         escapes = grow(escapes, escapeCount);
+         escapeEnds = grow(escapeEnds, escapeCount);
+      }
+      escapes[escapeCount] = begin;
+      escapeEnds[escapeCount++] = end;
+   }
+
+   private static int[] grow(int[] array, int count) {
+      int[] aux = new int[count * 2];
+      System.arraycopy(array, 0, aux, 0, count);
+      return aux;
+   }
+
+   /**
+    * Returns the offset of the character in a location. It takes constant time unless the tab size
+    * is not 1, when the tabs of the line before the location are also visited.
+    *
+    * @param line
+    *           line of the location
+    * @param column
+    *           column of the location
+    * @return the offset of the location or -1 if it is out of the table.
+    */
+   public int getOffset(int line, int column) {
+      if (line < 1 || line > lineCount || column < 1) {
+         return -1;
+      }
+      int offset = lines[line - 1];
+      int current = 1;
+      if (tabCount > 0) {
+         int end = line < lineCount ? lines[line] : Integer.MAX_VALUE;
+         int i = Arrays.binarySearch(tabs, 0, tabCount, offset);
+         for (i = i < 0 ? -i - 1 : i; i < tabCount && tabs[i] < end; i++) {
+            int tab = tabs[i];
+            if (column < current + tab - offset) {
+               break;
+            }
+            current += tab - offset;
+            int next = current + tabSize - ((current - 1) % tabSize);
+            if (column < next) {
+               return tab;
+            }
+            offset = tab + 1;
+            current = next;
+         }
+      }
+      return offset + column - current;
+   }
+
+   /**
+    * Returns the offset after the character in a location, which is after the whole unicode escape
+    * when the character has been read from one.
+    *
+    * @param line
+    *           line of the location
+    * @param column
+    *           column of the location
+    * @return the offset after the location or -1 if it is out of the table.
+    */
+   public int getEndOffset(int line, int column) {
+      int offset = getOffset(line, column);
+      if (offset < 0) {
+         return -1;
+      }
+      if (escapeCount > 0) {
+         int i = Arrays.binarySearch(escapes, 0, escapeCount, offset);
+         if (i >= 0) {
+            return escapeEnds[i];
+         }
+      }
+      return offset + 1;
+   }
+
+   /**
+    * Returns the offset of the first character of a node of the tree of this table.
+    *
+    * @param n
+    *           the node
+    * @return the begin offset of the node, or -1 if its location is out of the table.
+    */
+   public int getBeginOffset(Node n) {
+      return getOffset(n.getBeginLine(), n.getBeginColumn());
+   }
+
+   /**
+    * Returns the offset after the last character of a node of the tree of this table.
+    *
+    * @param n
+    *           the node
+    * @return the end offset of the node, or -1 if its location is out of the table.
+    */
+   public int getEndOffset(Node n) {
+      return getEndOffset(n.getEndLine(), n.getEndColumn());
+   }
+}
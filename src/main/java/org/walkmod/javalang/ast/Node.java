@@ -15,14 +15,15 @@
  along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
 package org.walkmod.javalang.ast;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 
 import org.walkmod.javalang.visitors.DumpVisitor;
 import org.walkmod.javalang.visitors.EqualsVisitor;
 import org.walkmod.javalang.visitors.GenericVisitor;
+import org.walkmod.javalang.visitors.HashCodeVisitor;
 import org.walkmod.javalang.visitors.VoidVisitor;
 
 /**
@@ -32,29 +33,126 @@ import org.walkmod.javalang.visitors.VoidVisitor;
  */
 public abstract class Node implements Serializable {
 
-   private int beginLine;
+   private static final int LINE_BITS = 18;
 
-   private int beginColumn;
+   private static final int COLUMN_BITS = 14;
 
-   private int endLine;
+   private static final long LINE_MASK = (1L << LINE_BITS) - 1;
 
-   private int endColumn;
+   private static final long COLUMN_MASK = (1L << COLUMN_BITS) - 1;
+
+   private static final int END_COLUMN_SHIFT = 0;
+
+   private static final int END_LINE_SHIFT = COLUMN_BITS;
+
+   private static final int BEGIN_COLUMN_SHIFT = LINE_BITS + COLUMN_BITS;
+
+   private static final int BEGIN_LINE_SHIFT = BEGIN_COLUMN_SHIFT + COLUMN_BITS;
+
+   private static final long POSITION_MASK = (1L << (LINE_BITS + COLUMN_BITS)) - 1;
+
+   /**
+    * Value of {@link #position} when the positions do not fit in it.
+    */
+   private static final long OVERFLOW = -1L;
 
    /**
-    * This attribute can store additional information.
+    * The begin line, begin column, end line and end column of this node, packed from the highest
+    * to the lowest bits. The high half is the begin position and the low half is the end position,
+    * and each half compares like the line and column that it contains. When a position is
+    * negative, or it does not fit in its bits, this field is {@link #OVERFLOW} and the positions
+    * are kept in a {@link Positions} instance stored as the data of this node.
+    */
+   private long position;
+
+   /**
+    * This attribute can store additional information, or the {@link Positions} of this node.
     */
    private Object data;
 
    private Node parentNode;
 
+   /**
+    * Cached structural hash code. 0 means that it has not been computed yet.
+    */
+   private transient int hashCode;
+
    public Node() {
    }
 
    public Node(int beginLine, int beginColumn, int endLine, int endColumn) {
-      this.beginLine = beginLine;
-      this.beginColumn = beginColumn;
-      this.endLine = endLine;
-      this.endColumn = endColumn;
+      if (fits(beginLine, LINE_MASK) && fits(beginColumn, COLUMN_MASK) && fits(endLine, LINE_MASK)
+            && fits(endColumn, COLUMN_MASK)) {
+         position = ((long) beginLine << BEGIN_LINE_SHIFT) | ((long) beginColumn << BEGIN_COLUMN_SHIFT)
+               | ((long) endLine << END_LINE_SHIFT) | ((long) endColumn << END_COLUMN_SHIFT);
+      } else {
+         Positions positions = getPositions();
+         positions.beginLine = beginLine;
+         positions.beginColumn = beginColumn;
+         positions.endLine = endLine;
+         positions.endColumn = endColumn;
+      }
+   }
+
+   /**
+    * Positions of a node that do not fit in {@link Node#position}, together with the data of the
+    * node and, for the root of a parsed tree, the table of the lines of its code.
+    */
+   private static final class Positions implements Serializable {
+
+      private static final long serialVersionUID = 1L;
+
+      private Object data;
+
+      private LineTable lineTable;
+
+      private int beginLine;
+
+      private int beginColumn;
+
+      private int endLine;
+
+      private int endColumn;
+   }
+
+   /**
+    * Returns if a line or a column can be packed. The value with all the bits set is excluded, so
+    * {@link #OVERFLOW} is never a packed position.
+    */
+   private static boolean fits(int value, long mask) {
+      return value >= 0 && value < mask;
+   }
+
+   private int get(int shift, long mask) {
+      return (int) ((position >>> shift) & mask);
+   }
+
+   /**
+    * Returns the positions of this node, moving them out of {@link #position} if they are packed.
+    */
+   private Positions getPositions() {
+      if (position != OVERFLOW) {
+         Positions positions = new Positions();
+         positions.data = data;
+         positions.beginLine = get(BEGIN_LINE_SHIFT, LINE_MASK);
+         positions.beginColumn = get(BEGIN_COLUMN_SHIFT, COLUMN_MASK);
+         positions.endLine = get(END_LINE_SHIFT, LINE_MASK);
+         positions.endColumn = get(END_COLUMN_SHIFT, COLUMN_MASK);
+         data = positions;
+         position = OVERFLOW;
+      }
+      return (Positions) data;
+   }
+
+   /**
+    * Sets a line or a column, which is packed in {@link #position} if it fits.
+    */
+   private boolean set(int value, int shift, long mask) {
+      if (position != OVERFLOW && fits(value, mask)) {
+         position = (position & ~(mask << shift)) | ((long) value << shift);
+         return true;
+      }
+      return false;
    }
 
    /**
@@ -90,7 +188,10 @@ public abstract class Node implements Serializable {
     * @return the begin column of this node
     */
    public final int getBeginColumn() {
-      return beginColumn;
+      if (position != OVERFLOW) {
+         return get(BEGIN_COLUMN_SHIFT, COLUMN_MASK);
+      }
+      return ((Positions) data).beginColumn;
    }
 
    /**
@@ -99,7 +200,10 @@ public abstract class Node implements Serializable {
     * @return the begin line of this node
     */
    public final int getBeginLine() {
-      return beginLine;
+      if (position != OVERFLOW) {
+         return get(BEGIN_LINE_SHIFT, LINE_MASK);
+      }
+      return ((Positions) data).beginLine;
    }
 
    /**
@@ -108,7 +212,10 @@ public abstract class Node implements Serializable {
     * @return additional information associated to this node.
     */
    public final Object getData() {
-      return data;
+      if (position != OVERFLOW) {
+         return data;
+      }
+      return ((Positions) data).data;
    }
 
    /**
@@ -117,7 +224,10 @@ public abstract class Node implements Serializable {
     * @return the end column of this node
     */
    public final int getEndColumn() {
-      return endColumn;
+      if (position != OVERFLOW) {
+         return get(END_COLUMN_SHIFT, COLUMN_MASK);
+      }
+      return ((Positions) data).endColumn;
    }
 
    /**
@@ -126,7 +236,54 @@ public abstract class Node implements Serializable {
     * @return the end line of this node
     */
    public final int getEndLine() {
-      return endLine;
+      if (position != OVERFLOW) {
+         return get(END_LINE_SHIFT, LINE_MASK);
+      }
+      return ((Positions) data).endLine;
+   }
+
+   /**
+    * Return the offset of the first character of this node in the parsed code, which is computed
+    * from the location of the node with the {@link LineTable} of its tree. Then,
+    * <code>code.substring(n.getBeginOffset(), n.getEndOffset())</code> is the text of the node.
+    * Finding the table walks up to the root, so slicing many nodes is cheaper with the methods of
+    * the table.
+    * 
+    * @return the begin offset of this node, or -1 if it is unknown because the tree has not been
+    *         parsed with locations.
+    */
+   public final int getBeginOffset() {
+      LineTable lineTable = getLineTable();
+      return lineTable == null ? -1 : lineTable.getBeginOffset(this);
+   }
+
+   /**
+    * Return the offset after the last character of this node in the parsed code.
+    * 
+    * @return the end offset of this node, or -1 if it is unknown.
+    * @see #getBeginOffset()
+    */
+   public final int getEndOffset() {
+      LineTable lineTable = getLineTable();
+      return lineTable == null ? -1 : lineTable.getEndOffset(this);
+   }
+
+   /**
+    * Returns the table of the lines of the code that was parsed to build the tree of this node,
+    * which is kept by the root of the tree.
+    * 
+    * @return the table of the lines, or <code>null</code> if the tree has not been parsed with
+    *         locations.
+    */
+   public final LineTable getLineTable() {
+      Node root = this;
+      while (root.parentNode != null) {
+         root = root.parentNode;
+      }
+      if (root.position != OVERFLOW) {
+         return null;
+      }
+      return ((Positions) root.data).lineTable;
    }
 
    /**
@@ -136,7 +293,9 @@ public abstract class Node implements Serializable {
     *           the begin column of this node
     */
    public final void setBeginColumn(int beginColumn) {
-      this.beginColumn = beginColumn;
+      if (!set(beginColumn, BEGIN_COLUMN_SHIFT, COLUMN_MASK)) {
+         getPositions().beginColumn = beginColumn;
+      }
    }
 
    /**
@@ -146,7 +305,9 @@ public abstract class Node implements Serializable {
     *           the begin line of this node
     */
    public final void setBeginLine(int beginLine) {
-      this.beginLine = beginLine;
+      if (!set(beginLine, BEGIN_LINE_SHIFT, LINE_MASK)) {
+         getPositions().beginLine = beginLine;
+      }
    }
 
    /**
@@ -156,7 +317,11 @@ public abstract class Node implements Serializable {
     *           additional information to this node.
     */
    public final void setData(Object data) {
-      this.data = data;
+      if (position != OVERFLOW) {
+         this.data = data;
+      } else {
+         ((Positions) this.data).data = data;
+      }
    }
 
    /**
@@ -166,7 +331,9 @@ public abstract class Node implements Serializable {
     *           the end column of this node
     */
    public final void setEndColumn(int endColumn) {
-      this.endColumn = endColumn;
+      if (!set(endColumn, END_COLUMN_SHIFT, COLUMN_MASK)) {
+         getPositions().endColumn = endColumn;
+      }
    }
 
    /**
@@ -176,7 +343,23 @@ public abstract class Node implements Serializable {
     *           the end line of this node
     */
    public final void setEndLine(int endLine) {
-      this.endLine = endLine;
+      if (!set(endLine, END_LINE_SHIFT, LINE_MASK)) {
+         getPositions().endLine = endLine;
+      }
+   }
+
+   /**
+    * Sets the table of the lines of the code that was parsed to build this node. It is only used
+    * while this node is the root of its tree, and it is kept out of the packed positions, so only
+    * the root of a parsed tree pays for it.
+    *
+    * @param lineTable
+    *           the table of the lines or <code>null</code> if they are unknown
+    */
+   public final void setLineTable(LineTable lineTable) {
+      if (lineTable != null || position == OVERFLOW) {
+         getPositions().lineTable = lineTable;
+      }
    }
 
    /**
@@ -191,9 +374,61 @@ public abstract class Node implements Serializable {
       return visitor.getSource();
    }
 
+   /**
+    * Return the structural hash code of this node, which is consistent with {@link #equals(Object)}.
+    * The value is computed by {@link HashCodeVisitor} and it is cached until this node or any of its
+    * descendants are modified through their setters, {@link #replaceChildNode(Node, Node)} or their
+    * lists of child nodes. It is only cached when all these lists are {@link NodeList}s owned by
+    * their nodes, because other lists can be modified without notice.
+    * 
+    * @return the structural hash code of this node
+    */
    @Override
    public final int hashCode() {
-      return toString().hashCode();
+      return hashCode(0);
+   }
+
+   /**
+    * Returns the structural hash code of this node when it is computed as a descendant of a node
+    * whose hash code is being computed <code>depth</code> levels above. {@link HashCodeVisitor}
+    * uses the depth to stop recursing on deep trees.
+    * 
+    * @param depth
+    *           number of ancestors whose hash code is being computed.
+    * @return the structural hash code of this node
+    */
+   public final int hashCode(int depth) {
+      int h = hashCode;
+      if (h == 0) {
+         HashCodeVisitor visitor = HashCodeVisitor.compute(this, depth);
+         h = visitor.getHashCode();
+         if (visitor.isCacheable()) {
+            hashCode = h;
+         }
+      }
+      return h;
+   }
+
+   /**
+    * Returns the structural hash code of this node if it is already cached, without computing it.
+    * 
+    * @return the cached hash code or 0 if it has not been computed since the last modification.
+    */
+   public final int getCachedHashCode() {
+      return hashCode;
+   }
+
+   /**
+    * Discards the cached hash code of this node and its ancestors, because their structure has
+    * changed. The hash code of a node is only cached after the hash codes of its children, so the
+    * ancestors of a node without a cached hash code have none either.
+    */
+   public void invalidateHashCode() {
+      Node current = this;
+      while (current != null && current.hashCode != 0) {
+         current.hashCode = 0;
+         current = current.parentNode;
+      }
    }
 
    @Override
@@ -208,6 +443,9 @@ public abstract class Node implements Serializable {
     * @return if it is a new node.
     */
    public boolean isNewNode() {
+      if (position != OVERFLOW) {
+         return (position & ~(COLUMN_MASK << BEGIN_COLUMN_SHIFT)) == 0;
+      }
       return (0== getEndLine() && 0 == getEndColumn() && getBeginLine() == 0);
    }
 
@@ -219,6 +457,10 @@ public abstract class Node implements Serializable {
     * @return if this node contains the argument as a child node by its position.
     */
    public boolean contains(Node node2) {
+      if (position != OVERFLOW && node2.position != OVERFLOW) {
+         return (position >>> BEGIN_COLUMN_SHIFT) <= (node2.position >>> BEGIN_COLUMN_SHIFT)
+               && (position & POSITION_MASK) >= (node2.position & POSITION_MASK);
+      }
       if ((getBeginLine() < node2.getBeginLine())
             || ((getBeginLine() == node2.getBeginLine()) && getBeginColumn() <= node2.getBeginColumn())) {
          if (getEndLine() > node2.getEndLine()) {
@@ -239,6 +481,9 @@ public abstract class Node implements Serializable {
     */
    public boolean isInEqualLocation(Node node2) {
       if (!isNewNode() && !node2.isNewNode()) {
+         if (position != OVERFLOW && node2.position != OVERFLOW) {
+            return position == node2.position;
+         }
          return getBeginLine() == node2.getBeginLine() && getBeginColumn() == node2.getBeginColumn()
                && getEndLine() == node2.getEndLine() && getEndColumn() == node2.getEndColumn();
       }
@@ -253,6 +498,9 @@ public abstract class Node implements Serializable {
     * @return if this node is previous than another one according their line and
     */
    public boolean isPreviousThan(Node node) {
+      if (position != OVERFLOW && node.position != OVERFLOW) {
+         return (position & POSITION_MASK) <= (node.position >>> BEGIN_COLUMN_SHIFT);
+      }
       if (getEndLine() < node.getBeginLine()) {
          return true;
       } else if ((getEndLine() == node.getBeginLine()) && (getEndColumn() <= node.getBeginColumn())) {
@@ -273,12 +521,57 @@ public abstract class Node implements Serializable {
       visitor.setIndentationLevel(indentationLevel);
       visitor.setIndentationSize(indentationSize);
       if (comments != null) {
-         visitor.setComments(new LinkedList<Comment>(comments));
+         visitor.setComments(comments);
       }
       accept(visitor, null);
       return visitor.getSource();
    }
 
+   /**
+    * Writes the String representation of this node into the given output, without keeping it in
+    * memory.
+    * 
+    * @param out
+    *           output where the code is written
+    * @throws IOException
+    *            if the code could not be written
+    */
+   public void print(Appendable out) throws IOException {
+      DumpVisitor visitor = new DumpVisitor(out);
+      accept(visitor, null);
+      visitor.flush();
+   }
+
+   /**
+    * Writes the String representation of this node into the given output, with the given
+    * indentation, without keeping it in memory.
+    * 
+    * @param out
+    *           output where the code is written
+    * @param indentationChar
+    *           char used to indent the code
+    * @param indentationLevel
+    *           initial indentation level
+    * @param indentationSize
+    *           number of chars of each indentation level
+    * @param comments
+    *           comments to print, or null to print the comments of the compilation unit
+    * @throws IOException
+    *            if the code could not be written
+    */
+   public void printPrettySource(Appendable out, char indentationChar, int indentationLevel,
+         int indentationSize, List<Comment> comments) throws IOException {
+      DumpVisitor visitor = new DumpVisitor(out);
+      visitor.setIndentationChar(indentationChar);
+      visitor.setIndentationLevel(indentationLevel);
+      visitor.setIndentationSize(indentationSize);
+      if (comments != null) {
+         visitor.setComments(comments);
+      }
+      accept(visitor, null);
+      visitor.flush();
+   }
+
    public Node getParentNode() {
       return parentNode;
    }
@@ -316,6 +609,7 @@ public abstract class Node implements Serializable {
    }
 
    protected void setAsParentNodeOf(List<? extends Node> childNodes) {
+      setAsOwnerOf(childNodes);
       if (childNodes != null) {
          Iterator<? extends Node> it = childNodes.iterator();
          while (it.hasNext()) {
@@ -325,7 +619,23 @@ public abstract class Node implements Serializable {
       }
    }
 
+   /**
+    * Makes this node the owner of a list that it contains, so modifying the list discards the
+    * cached hash code of this node. Lists that are not {@link NodeList}s, or that already belong to
+    * another node, can not be owned.
+    * 
+    * @param list
+    *           list of child nodes, or of lists of child nodes, of this node.
+    */
+   protected void setAsOwnerOf(List<?> list) {
+      invalidateHashCode();
+      if (list instanceof NodeList) {
+         ((NodeList<?>) list).setOwner(this);
+      }
+   }
+
    protected void setAsParentNodeOf(Node childNode) {
+      invalidateHashCode();
       if (childNode != null) {
          childNode.setParentNode(this);
       }
@@ -386,6 +696,7 @@ public abstract class Node implements Serializable {
             }
          }
          if (updated) {
+            invalidateHashCode();
             Node parent = oldChild.getParentNode();
             if(parent != null){
                parent.setAsParentNodeOf(newChild);
@@ -0,0 +1,137 @@
+/*
+  Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang.ast;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * <p>
+ * Array list of child nodes that notifies the node that owns it when it is modified. The owner is
+ * the first node that receives the list through one of its setters. Then, adding, replacing or
+ * removing an element discards the cached hash code of the owner and its ancestors, and the owner
+ * becomes the parent of the added nodes.
+ * </p>
+ * <p>
+ * The parser and {@link org.walkmod.javalang.visitors.CloneVisitor} build their lists with this
+ * class. Any other list can be set into a node, but then {@link Node#hashCode()} is not cached for
+ * that node and its ancestors, because their structure can change without notice.
+ * </p>
+ */
+public class NodeList<E> extends AbstractList<E> implements RandomAccess, Serializable {
+
+   private static final long serialVersionUID = 1L;
+
+   private final ArrayList<E> elements;
+
+   private Node owner;
+
+   public NodeList() {
+      elements = new ArrayList<E>();
+   }
+
+   public NodeList(int initialCapacity) {
+      elements = new ArrayList<E>(initialCapacity);
+   }
+
+   public NodeList(Collection<? extends E> c) {
+      elements = new ArrayList<E>(c);
+   }
+
+   /**
+    * Returns the node that is notified when this list is modified.
+    *
+    * @return the owner node or <code>null</code> if the list has not been set into any node yet.
+    */
+   public Node getOwner() {
+      return owner;
+   }
+
+   void setOwner(Node owner) {
+      if (this.owner == null) {
+         this.owner = owner;
+      }
+   }
+
+   @Override
+   public E get(int index) {
+      return elements.get(index);
+   }
+
+   @Override
+   public int size() {
+      return elements.size();
+   }
+
+   @Override
+   public E set(int index, E element) {
+      E old = elements.set(index, element);
+      added(element);
+      return old;
+   }
+
+   @Override
+   public void add(int index, E element) {
+      elements.add(index, element);
+      modCount++;
+      added(element);
+   }
+
+   @Override
+   public E remove(int index) {
+      E old = elements.remove(index);
+      modCount++;
+      changed();
+      return old;
+   }
+
+   @Override
+   public void clear() {
+      if (!elements.isEmpty()) {
+         elements.clear();
+         modCount++;
+         changed();
+      }
+   }
+
+   @Override
+   protected void removeRange(int fromIndex, int toIndex) {
+      if (fromIndex < toIndex) {
+         elements.subList(fromIndex, toIndex).clear();
+         modCount++;
+         changed();
+      }
+   }
+
+   private void added(E element) {
+      if (owner != null) {
+         if (element instanceof Node) {
+            owner.setAsParentNodeOf((Node) element);
+         } else {
+            owner.invalidateHashCode();
+         }
+      }
+   }
+
+   private void changed() {
+      if (owner != null) {
+         owner.invalidateHashCode();
+      }
+   }
+}
@@ -0,0 +1,290 @@
+/*
+  Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang.ast;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.walkmod.javalang.visitors.CloneVisitor;
+
+/**
+ * <p>
+ * Copy-on-write snapshot of a tree that is going to be modified in place. The
+ * first time that a node is written (e.g. by a
+ * {@link org.walkmod.javalang.visitors.ModifierVisitorAdapter} or by
+ * {@link #replaceChildNode(Node, Node, Node)}), its fields and the contents of
+ * its lists are saved, so the original tree can be restored or cloned
+ * afterwards. Unchanged subtrees are never copied, so the cost is proportional
+ * to the number of modified nodes instead of to the size of the tree.
+ * </p>
+ * <p>
+ * It replaces cloning the whole tree before a speculative transformation:
+ * the transformation runs over the original tree and {@link #restore()}
+ * undoes it when it has to be discarded. The symbol references between nodes
+ * are not recorded.
+ * </p>
+ */
+public final class TreeSnapshot {
+
+   private static final Map<Class<?>, Slots> SLOTS = new ConcurrentHashMap<Class<?>, Slots>();
+
+   private final Node root;
+
+   private final Map<Node, Object[]> saved = new IdentityHashMap<Node, Object[]>();
+
+   public TreeSnapshot(Node root) {
+      if (root == null) {
+         throw new IllegalArgumentException("The root node cannot be null");
+      }
+      this.root = root;
+   }
+
+   public Node getRoot() {
+      return root;
+   }
+
+   /**
+    * Saves the current state of a node, unless it has already been recorded. It must be called
+    * before writing any field or list of the node.
+    *
+    * @param node
+    *           node that is going to be modified.
+    */
+   public void record(Node node) {
+      if (!saved.containsKey(node)) {
+         saved.put(node, capture(node));
+      }
+   }
+
+   /**
+    * Records the parent node and replaces one of its children.
+    *
+    * @return true if the old child has been found and replaced.
+    */
+   public boolean replaceChildNode(Node parent, Node oldChild, Node newChild) {
+      record(parent);
+      return parent.replaceChildNode(oldChild, newChild);
+   }
+
+   public boolean isModified() {
+      return !saved.isEmpty();
+   }
+
+   /**
+    * Returns the number of recorded nodes.
+    *
+    * @return the number of nodes that have been modified since the snapshot was taken.
+    */
+   public int size() {
+      return saved.size();
+   }
+
+   /**
+    * Undoes all the recorded modifications, so the tree becomes equal to the original one. Then,
+    * the snapshot starts recording again from this state.
+    */
+   public void restore() {
+      for (Map.Entry<Node, Object[]> entry : saved.entrySet()) {
+         apply(entry.getKey(), entry.getValue());
+      }
+      saved.clear();
+   }
+
+   /**
+    * Returns a deep copy of the original tree, while the modified tree remains as it is.
+    *
+    * @return the clone of the root node before the recorded modifications.
+    */
+   public Node cloneOriginal() {
+      Map<Node, Object[]> current = new IdentityHashMap<Node, Object[]>();
+      for (Node node : saved.keySet()) {
+         current.put(node, capture(node));
+      }
+      for (Map.Entry<Node, Object[]> entry : saved.entrySet()) {
+         apply(entry.getKey(), entry.getValue());
+      }
+      try {
+         return root.accept(new CloneVisitor(), null);
+      } finally {
+         for (Map.Entry<Node, Object[]> entry : current.entrySet()) {
+            apply(entry.getKey(), entry.getValue());
+         }
+      }
+   }
+
+   private static Object[] capture(Node node) {
+      Field[] fields = getSlots(node.getClass()).fields;
+      Object[] values = new Object[fields.length];
+      for (int i = 0; i < fields.length; i++) {
+         values[i] = save(read(fields[i], node));
+      }
+      return values;
+   }
+
+   private static void apply(Node node, Object[] values) {
+      Slots slots = getSlots(node.getClass());
+      Field[] fields = slots.fields;
+      for (int i = 0; i < fields.length; i++) {
+         Object value = load(values[i]);
+         try {
+            fields[i].set(node, value);
+         } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+         }
+         if (slots.children[i]) {
+            reparent(node, value);
+         }
+      }
+      node.invalidateHashCode();
+   }
+
+   private static Object save(Object value) {
+      if (value instanceof List) {
+         return new SavedList((List<?>) value);
+      }
+      return value;
+   }
+
+   private static Object load(Object value) {
+      if (value instanceof SavedList) {
+         return ((SavedList) value).restore();
+      }
+      return value;
+   }
+
+   private static void reparent(Node parent, Object value) {
+      if (value instanceof Node) {
+         parent.setAsParentNodeOf((Node) value);
+      } else if (value instanceof List) {
+         for (Object item : (List<?>) value) {
+            reparent(parent, item);
+         }
+      }
+   }
+
+   private static Object read(Field field, Node node) {
+      try {
+         return field.get(node);
+      } catch (IllegalAccessException e) {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   private static Slots getSlots(Class<?> clazz) {
+      Slots slots = SLOTS.get(clazz);
+      if (slots == null) {
+         slots = new Slots(clazz);
+         SLOTS.put(clazz, slots);
+      }
+      return slots;
+   }
+
+   /**
+    * Returns if a field declared with the given type contains child nodes, in contrast to
+    * symbol references or plain values.
+    */
+   private static boolean isChild(java.lang.reflect.Type type) {
+      if (type instanceof Class) {
+         return Node.class.isAssignableFrom((Class<?>) type);
+      }
+      if (type instanceof ParameterizedType) {
+         ParameterizedType parameterized = (ParameterizedType) type;
+         return parameterized.getRawType() == List.class
+               && isChild(parameterized.getActualTypeArguments()[0]);
+      }
+      return false;
+   }
+
+   /**
+    * Instance fields of a node class, except the ones declared by {@link Node}, and which of
+    * them contain child nodes.
+    */
+   private static final class Slots {
+
+      private final Field[] fields;
+
+      private final boolean[] children;
+
+      Slots(Class<?> clazz) {
+         List<Field> list = new ArrayList<Field>();
+         Class<?> current = clazz;
+         while (current != Node.class) {
+            for (Field field : current.getDeclaredFields()) {
+               int modifiers = field.getModifiers();
+               if (!Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers)
+                     && !Modifier.isTransient(modifiers)) {
+                  field.setAccessible(true);
+                  list.add(field);
+               }
+            }
+            current = current.getSuperclass();
+         }
+         fields = list.toArray(new Field[list.size()]);
+         children = new boolean[fields.length];
+         for (int i = 0; i < fields.length; i++) {
+            children[i] = isChild(fields[i].getGenericType());
+         }
+      }
+   }
+
+   /**
+    * List field and its contents when the node was recorded. Nested lists (e.g. the annotations
+    * of the array dimensions) are saved too, because they are modified in place.
+    */
+   private static final class SavedList {
+
+      private final List<?> list;
+
+      private final Object[] items;
+
+      SavedList(List<?> list) {
+         this.list = list;
+         items = list.toArray();
+         for (int i = 0; i < items.length; i++) {
+            items[i] = save(items[i]);
+         }
+      }
+
+      @SuppressWarnings("unchecked")
+      List<?> restore() {
+         List<Object> target = (List<Object>) list;
+         boolean same = target.size() == items.length;
+         Iterator<Object> it = target.iterator();
+         for (int i = 0; i < items.length && same; i++) {
+            Object item = items[i] instanceof SavedList ? ((SavedList) items[i]).list : items[i];
+            same = it.next() == item;
+         }
+         if (same) {
+            for (Object item : items) {
+               load(item);
+            }
+         } else {
+            target.clear();
+            for (Object item : items) {
+               target.add(load(item));
+            }
+         }
+         return list;
+      }
+   }
+}
@@ -122,6 +122,7 @@ public final class TypeParameter extends Node implements SymbolDefinition {
 	 */
 	public void setName(String name) {
 		this.name = name;
+		invalidateHashCode();
 	}
 
 	/**
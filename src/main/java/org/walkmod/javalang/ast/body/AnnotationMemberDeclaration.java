@@ -19,6 +19,7 @@ import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
 
+import org.walkmod.javalang.ast.Node;
 import org.walkmod.javalang.ast.SymbolDefinition;
 import org.walkmod.javalang.ast.SymbolReference;
 import org.walkmod.javalang.ast.expr.AnnotationExpr;
@@ -122,10 +123,12 @@ public final class AnnotationMemberDeclaration extends BodyDeclaration
 
 	public void setModifiers(int modifiers) {
 		this.modifiers = modifiers;
+		invalidateHashCode();
 	}
 
 	public void setName(String name) {
 		this.name = name;
+		invalidateHashCode();
 	}
 
 	public void setType(Type type) {
@@ -212,4 +215,18 @@ public final class AnnotationMemberDeclaration extends BodyDeclaration
 	public void setScopeLevel(int scopeLevel) {
 		this.scopeLevel = scopeLevel;
 	}
+
+	@Override
+	public boolean replaceChildNode(Node oldChild, Node newChild) {
+		boolean update = super.replaceChildNode(oldChild, newChild);
+		if (!update && type == oldChild) {
+			setType((Type) newChild);
+			update = true;
+		}
+		if (!update && defaultValue == oldChild) {
+			setDefaultValue((Expression) newChild);
+			update = true;
+		}
+		return update;
+	}
 }
@@ -100,6 +100,7 @@ public abstract class BaseParameter extends Node implements SymbolDataAware<Symb
 
    public void setModifiers(int modifiers) {
       this.modifiers = modifiers;
+      invalidateHashCode();
    }
 
    @Override
@@ -15,7 +15,7 @@
  along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
 package org.walkmod.javalang.ast.body;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.walkmod.javalang.ast.Node;
@@ -65,7 +65,7 @@ public abstract class BodyDeclaration extends Node {
    }
 
    public void merge(BodyDeclaration remoteBodyDeclaration, MergeEngine configuration) {
-      List<AnnotationExpr> resultAnnotations = new LinkedList<AnnotationExpr>();
+      List<AnnotationExpr> resultAnnotations = new ArrayList<AnnotationExpr>();
       configuration.apply(getAnnotations(), remoteBodyDeclaration.getAnnotations(), resultAnnotations,
             AnnotationExpr.class);
       setAnnotations(resultAnnotations);
@@ -16,7 +16,7 @@
 
 package org.walkmod.javalang.ast.body;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.walkmod.javalang.ast.Node;
@@ -119,6 +119,7 @@ public final class ClassOrInterfaceDeclaration extends TypeDeclaration {
 
 	public void setInterface(boolean interface_) {
 		this.interface_ = interface_;
+		invalidateHashCode();
 	}
 
 	public void setTypeParameters(List<TypeParameter> typeParameters) {
@@ -130,7 +131,7 @@ public final class ClassOrInterfaceDeclaration extends TypeDeclaration {
 	public void merge(TypeDeclaration remoteTypeDeclaration,
 			MergeEngine configuration) {
 		super.merge(remoteTypeDeclaration, configuration);
-		List<TypeParameter> typeParametersList = new LinkedList<TypeParameter>();
+		List<TypeParameter> typeParametersList = new ArrayList<TypeParameter>();
 		configuration.apply(getTypeParameters(),
 				((ClassOrInterfaceDeclaration) remoteTypeDeclaration)
 						.getTypeParameters(), typeParametersList,
@@ -140,7 +141,7 @@ public final class ClassOrInterfaceDeclaration extends TypeDeclaration {
 		} else {
 			setTypeParameters(null);
 		}
-		List<ClassOrInterfaceType> implementsList = new LinkedList<ClassOrInterfaceType>();
+		List<ClassOrInterfaceType> implementsList = new ArrayList<ClassOrInterfaceType>();
 		configuration.apply(getImplements(),
 				((ClassOrInterfaceDeclaration) remoteTypeDeclaration)
 						.getImplements(), implementsList,
@@ -150,7 +151,7 @@ public final class ClassOrInterfaceDeclaration extends TypeDeclaration {
 		} else {
 			setImplements(null);
 		}
-		List<ClassOrInterfaceType> extendsList = new LinkedList<ClassOrInterfaceType>();
+		List<ClassOrInterfaceType> extendsList = new ArrayList<ClassOrInterfaceType>();
 		configuration.apply(getExtends(),
 				((ClassOrInterfaceDeclaration) remoteTypeDeclaration)
 						.getExtends(), extendsList, ClassOrInterfaceType.class);
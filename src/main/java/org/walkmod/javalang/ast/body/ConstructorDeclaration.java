@@ -15,6 +15,7 @@
  along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
 package org.walkmod.javalang.ast.body;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
@@ -76,11 +77,11 @@ public final class ConstructorDeclaration extends BodyDeclaration implements
 			BlockStmt block) {
 		super(annotations, javaDoc);
 		this.modifiers = modifiers;
-		this.typeParameters = typeParameters;
+		setTypeParameters(typeParameters);
 		this.name = name;
-		this.parameters = parameters;
-		this.throws_ = throws_;
-		this.block = block;
+		setParameters(parameters);
+		setThrows(throws_);
+		setBlock(block);
 	}
 
 	public ConstructorDeclaration(int beginLine, int beginColumn, int endLine,
@@ -91,11 +92,11 @@ public final class ConstructorDeclaration extends BodyDeclaration implements
 			BlockStmt block) {
 		super(beginLine, beginColumn, endLine, endColumn, annotations, javaDoc);
 		this.modifiers = modifiers;
-		this.typeParameters = typeParameters;
+		setTypeParameters(typeParameters);
 		this.name = name;
-		this.parameters = parameters;
-		this.throws_ = throws_;
-		this.block = block;
+		setParameters(parameters);
+		setThrows(throws_);
+		setBlock(block);
 	}
 
 	@Override
@@ -139,27 +140,36 @@ public final class ConstructorDeclaration extends BodyDeclaration implements
 	}
 
 	public void setBlock(BlockStmt block) {
+		if (this.block != null) {
+			updateReferences(this.block);
+		}
 		this.block = block;
+		setAsParentNodeOf(block);
 	}
 
 	public void setModifiers(int modifiers) {
 		this.modifiers = modifiers;
+		invalidateHashCode();
 	}
 
 	public void setName(String name) {
 		this.name = name;
+		invalidateHashCode();
 	}
 
 	public void setParameters(List<Parameter> parameters) {
 		this.parameters = parameters;
+		setAsParentNodeOf(parameters);
 	}
 
 	public void setThrows(List<ClassOrInterfaceType> throws_) {
 		this.throws_ = throws_;
+		setAsParentNodeOf(throws_);
 	}
 
 	public void setTypeParameters(List<TypeParameter> typeParameters) {
 		this.typeParameters = typeParameters;
+		setAsParentNodeOf(typeParameters);
 	}
 
 	@Override
@@ -174,7 +184,7 @@ public final class ConstructorDeclaration extends BodyDeclaration implements
 		setBlock((BlockStmt) configuration.apply(getBlock(), remote.getBlock(),
 				BlockStmt.class));
 
-		List<Parameter> resultParams = new LinkedList<Parameter>();
+		List<Parameter> resultParams = new ArrayList<Parameter>();
 		configuration.apply(getParameters(), remote.getParameters(),
 				resultParams, Parameter.class);
 
@@ -184,7 +194,7 @@ public final class ConstructorDeclaration extends BodyDeclaration implements
 			setParameters(null);
 		}
 
-		List<TypeParameter> resultTypeParams = new LinkedList<TypeParameter>();
+		List<TypeParameter> resultTypeParams = new ArrayList<TypeParameter>();
 		configuration.apply(getTypeParameters(), remote.getTypeParameters(),
 				resultTypeParams, TypeParameter.class);
 
@@ -194,7 +204,7 @@ public final class ConstructorDeclaration extends BodyDeclaration implements
 			setTypeParameters(null);
 		}
 
-		List<ClassOrInterfaceType> resultThrows = new LinkedList<ClassOrInterfaceType>();
+		List<ClassOrInterfaceType> resultThrows = new ArrayList<ClassOrInterfaceType>();
 		configuration.apply(getThrows(), remote.getThrows(), resultThrows,
 				ClassOrInterfaceType.class);
 
@@ -289,6 +299,10 @@ public final class ConstructorDeclaration extends BodyDeclaration implements
 	         update = replaceChildNodeInList(oldChild, newChild, typeParameters);
 	         if(!update){
 	            update = replaceChildNodeInList(oldChild, newChild, throws_);
+	            if(!update && block == oldChild){
+	               setBlock((BlockStmt) newChild);
+	               update = true;
+	            }
 	         }
 	      }
 	   }
@@ -15,6 +15,7 @@
  along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
 package org.walkmod.javalang.ast.body;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
@@ -113,6 +114,7 @@ public final class EnumConstantDeclaration extends BodyDeclaration implements
 
 	public void setName(String name) {
 		this.name = name;
+		invalidateHashCode();
 	}
 
 	@Override
@@ -125,7 +127,7 @@ public final class EnumConstantDeclaration extends BodyDeclaration implements
 	public void merge(EnumConstantDeclaration remote, MergeEngine configuration) {
 		super.merge(remote, configuration);
 
-		List<BodyDeclaration> resultClassBody = new LinkedList<BodyDeclaration>();
+		List<BodyDeclaration> resultClassBody = new ArrayList<BodyDeclaration>();
 		configuration.apply(getClassBody(), remote.getClassBody(),
 				resultClassBody, BodyDeclaration.class);
 
@@ -135,7 +137,7 @@ public final class EnumConstantDeclaration extends BodyDeclaration implements
 			setClassBody(null);
 		}
 
-		List<Expression> resultArgs = new LinkedList<Expression>();
+		List<Expression> resultArgs = new ArrayList<Expression>();
 		configuration.apply(getArgs(), remote.getArgs(), resultArgs,
 				Expression.class);
 		if (!resultArgs.isEmpty()) {
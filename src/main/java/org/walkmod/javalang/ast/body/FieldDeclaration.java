@@ -116,6 +116,7 @@ public final class FieldDeclaration extends BodyDeclaration implements
 
 	public void setModifiers(int modifiers) {
 		this.modifiers = modifiers;
+		invalidateHashCode();
 	}
 
 	public void setType(Type type) {
@@ -141,7 +142,7 @@ public final class FieldDeclaration extends BodyDeclaration implements
 		super.merge(remote, configuration);
 		setType((Type) configuration.apply(getType(), remote.getType(),
 				Type.class));
-		List<VariableDeclarator> resultList = new LinkedList<VariableDeclarator>();
+		List<VariableDeclarator> resultList = new ArrayList<VariableDeclarator>();
 		configuration.apply(getVariables(), remote.getVariables(), resultList,
 				VariableDeclarator.class);
 		setVariables(resultList);
@@ -16,6 +16,7 @@
 
 package org.walkmod.javalang.ast.body;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
@@ -179,6 +180,7 @@ public final class MethodDeclaration extends BodyDeclaration
 
    public void setArrayCount(int arrayCount) {
       this.arrayCount = arrayCount;
+      invalidateHashCode();
    }
 
    public void setBody(BlockStmt body) {
@@ -191,10 +193,12 @@ public final class MethodDeclaration extends BodyDeclaration
 
    public void setModifiers(int modifiers) {
       this.modifiers = modifiers;
+      invalidateHashCode();
    }
 
    public void setName(String name) {
       this.name = name;
+      invalidateHashCode();
    }
 
    public void setParameters(List<Parameter> parameters) {
@@ -232,7 +236,7 @@ public final class MethodDeclaration extends BodyDeclaration
 
       setBody((BlockStmt) configuration.apply(getBody(), remote.getBody(), BlockStmt.class));
 
-      List<Parameter> resultParams = new LinkedList<Parameter>();
+      List<Parameter> resultParams = new ArrayList<Parameter>();
       configuration.apply(getParameters(), remote.getParameters(), resultParams, Parameter.class);
       if (!resultParams.isEmpty()) {
          setParameters(resultParams);
@@ -240,7 +244,7 @@ public final class MethodDeclaration extends BodyDeclaration
          setParameters(null);
       }
 
-      List<TypeParameter> resultTypeParams = new LinkedList<TypeParameter>();
+      List<TypeParameter> resultTypeParams = new ArrayList<TypeParameter>();
       configuration.apply(getTypeParameters(), remote.getTypeParameters(), resultTypeParams, TypeParameter.class);
       if (!resultTypeParams.isEmpty()) {
          setTypeParameters(resultTypeParams);
@@ -248,7 +252,7 @@ public final class MethodDeclaration extends BodyDeclaration
          setTypeParameters(null);
       }
 
-      List<ClassOrInterfaceType> resultThrows = new LinkedList<ClassOrInterfaceType>();
+      List<ClassOrInterfaceType> resultThrows = new ArrayList<ClassOrInterfaceType>();
       configuration.apply(getThrows(), remote.getThrows(), resultThrows, ClassOrInterfaceType.class);
       if (!resultThrows.isEmpty()) {
          setThrows(resultThrows);
@@ -264,6 +268,7 @@ public final class MethodDeclaration extends BodyDeclaration
 
    public void setDefault(boolean isDefault) {
       this.isDefault = isDefault;
+      invalidateHashCode();
    }
 
    @Override
@@ -17,6 +17,7 @@ package org.walkmod.javalang.ast.body;
 
 import java.util.List;
 
+import org.walkmod.javalang.ast.Node;
 import org.walkmod.javalang.ast.expr.AnnotationExpr;
 import org.walkmod.javalang.ast.type.Type;
 import org.walkmod.javalang.visitors.GenericVisitor;
@@ -61,4 +62,13 @@ public class MultiTypeParameter extends BaseParameter {
 		this.types = types;
 		setAsParentNodeOf(types);
 	}
+
+	@Override
+	public boolean replaceChildNode(Node oldChild, Node newChild) {
+		boolean update = super.replaceChildNode(oldChild, newChild);
+		if (!update) {
+			update = replaceChildNodeInList(oldChild, newChild, types);
+		}
+		return update;
+	}
 }
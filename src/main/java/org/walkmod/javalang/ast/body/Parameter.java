@@ -17,6 +17,7 @@ package org.walkmod.javalang.ast.body;
 
 import java.util.List;
 
+import org.walkmod.javalang.ast.Node;
 import org.walkmod.javalang.ast.expr.AnnotationExpr;
 import org.walkmod.javalang.ast.type.Type;
 import org.walkmod.javalang.visitors.GenericVisitor;
@@ -79,4 +80,14 @@ public final class Parameter extends BaseParameter {
 	public void setVarArgs(boolean isVarArgs) {
 		this.isVarArgs = isVarArgs;
 	}
+
+	@Override
+	public boolean replaceChildNode(Node oldChild, Node newChild) {
+		boolean update = super.replaceChildNode(oldChild, newChild);
+		if (!update && type == oldChild) {
+			setType((Type) newChild);
+			update = true;
+		}
+		return update;
+	}
 }
@@ -16,6 +16,7 @@
 
 package org.walkmod.javalang.ast.body;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
@@ -100,16 +101,18 @@ public abstract class TypeDeclaration extends BodyDeclaration
 
    public final void setModifiers(int modifiers) {
       this.modifiers = modifiers;
+      invalidateHashCode();
    }
 
    public final void setName(String name) {
       this.name = name;
+      invalidateHashCode();
    }
 
    @Override
    public void merge(TypeDeclaration remoteTypeDeclaration, MergeEngine configuration) {
       super.merge(remoteTypeDeclaration, configuration);
-      List<BodyDeclaration> resultList = new LinkedList<BodyDeclaration>();
+      List<BodyDeclaration> resultList = new ArrayList<BodyDeclaration>();
       configuration.apply(getMembers(), remoteTypeDeclaration.getMembers(), resultList, BodyDeclaration.class);
       if (!resultList.isEmpty()) {
          setMembers(resultList);
@@ -191,7 +194,10 @@ public abstract class TypeDeclaration extends BodyDeclaration
 
    @Override
    public boolean replaceChildNode(Node oldChild, Node newChild) {
-
-      return replaceChildNodeInList(oldChild, newChild, members);
+      boolean updated = super.replaceChildNode(oldChild, newChild);
+      if (!updated) {
+         updated = replaceChildNodeInList(oldChild, newChild, members);
+      }
+      return updated;
    }
 }
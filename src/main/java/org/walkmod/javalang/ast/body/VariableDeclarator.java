@@ -181,6 +181,7 @@ public final class VariableDeclarator extends Node implements Mergeable<Variable
       if(!update){
          if(init == oldChild){
             setInit((Expression) newChild);
+            update = true;
          }
       }
       return update;
@@ -62,10 +62,12 @@ public final class VariableDeclaratorId extends Node {
 
 	public void setArrayCount(int arrayCount) {
 		this.arrayCount = arrayCount;
+		invalidateHashCode();
 	}
 
 	public void setName(String name) {
 		this.name = name;
+		invalidateHashCode();
 	}
 
    @Override
@@ -87,6 +87,7 @@ public final class ArrayAccessExpr extends Expression {
       if(!updated){
          if(name == oldChild){
             setName((Expression) newChild);
+            updated = true;
          }
       }
       return updated;
@@ -128,6 +128,7 @@ public final class ArrayCreationExpr extends Expression {
 
    public void setArrayCount(int arrayCount) {
       this.arrayCount = arrayCount;
+      invalidateHashCode();
    }
 
    public void setDimensions(List<Expression> dimensions) {
@@ -148,6 +149,7 @@ public final class ArrayCreationExpr extends Expression {
          updateReferences(this.type);
       }
       this.type = type;
+      setAsParentNodeOf(type);
    }
 
    public List<List<AnnotationExpr>> getArraysAnnotations() {
@@ -156,6 +158,7 @@ public final class ArrayCreationExpr extends Expression {
 
    public void setArraysAnnotations(List<List<AnnotationExpr>> arraysAnnotations) {
       this.arraysAnnotations = arraysAnnotations;
+      setAsOwnerOf(arraysAnnotations);
       if (arraysAnnotations != null) {
          for (List<AnnotationExpr> ann : arraysAnnotations) {
             setAsParentNodeOf(ann);
@@ -76,6 +76,7 @@ public final class AssignExpr extends Expression {
 
 	public void setOperator(Operator op) {
 		this.op = op;
+		invalidateHashCode();
 	}
 
 	public void setTarget(Expression target) {
@@ -84,6 +84,7 @@ public final class BinaryExpr extends Expression {
 
 	public void setOperator(Operator op) {
 		this.op = op;
+		invalidateHashCode();
 	}
 
 	public void setRight(Expression right) {
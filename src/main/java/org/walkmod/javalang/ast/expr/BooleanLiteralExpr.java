@@ -54,6 +54,7 @@ public final class BooleanLiteralExpr extends LiteralExpr {
 
    public void setValue(boolean value) {
       this.value = value;
+      invalidateHashCode();
    }
 
    @Override
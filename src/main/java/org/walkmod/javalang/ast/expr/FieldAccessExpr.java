@@ -77,6 +77,7 @@ public final class FieldAccessExpr extends Expression implements SymbolReference
 
 	public void setField(String field) {
 		this.field = field;
+		invalidateHashCode();
 	}
 
 	public void setScope(Expression scope) {
@@ -111,6 +111,7 @@ public class LambdaExpr extends Expression implements SymbolReference {
 
    public void setParametersEnclosed(boolean parametersEnclosed) {
       this.parametersEnclosed = parametersEnclosed;
+      invalidateHashCode();
    }
 
    @Override
@@ -62,6 +62,7 @@ public final class MemberValuePair extends Node {
 
    public void setName(String name) {
       this.name = name;
+      invalidateHashCode();
    }
 
    public void setValue(Expression value) {
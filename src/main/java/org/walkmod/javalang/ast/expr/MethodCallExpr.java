@@ -96,6 +96,7 @@ public final class MethodCallExpr extends Expression implements SymbolReference
 
    public void setName(String name) {
       this.name = name;
+      invalidateHashCode();
    }
 
    public void setScope(Expression scope) {
@@ -101,6 +101,7 @@ public class MethodReferenceExpr extends Expression implements SymbolReference {
 
    public void setIdentifier(String identifier) {
       this.identifier = identifier;
+      invalidateHashCode();
    }
 
    @Override
@@ -58,6 +58,7 @@ public class NameExpr extends Expression implements SymbolReference {
 
    public final void setName(String name) {
       this.name = name;
+      invalidateHashCode();
    }
 
    @Override
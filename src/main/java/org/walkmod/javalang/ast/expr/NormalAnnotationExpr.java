@@ -15,7 +15,7 @@
  along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
 package org.walkmod.javalang.ast.expr;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.walkmod.javalang.ast.Node;
@@ -67,7 +67,7 @@ public final class NormalAnnotationExpr extends AnnotationExpr {
    @Override
    public void merge(AnnotationExpr t1, MergeEngine configuration) {
 
-      List<MemberValuePair> pairsList = new LinkedList<MemberValuePair>();
+      List<MemberValuePair> pairsList = new ArrayList<MemberValuePair>();
       configuration.apply(getPairs(), ((NormalAnnotationExpr) t1).getPairs(), pairsList, MemberValuePair.class);
       if (!pairsList.isEmpty()) {
          setPairs(pairsList);
@@ -79,7 +79,11 @@ public final class NormalAnnotationExpr extends AnnotationExpr {
 
    @Override
    public boolean replaceChildNode(Node oldChild, Node newChild) {
-      return replaceChildNodeInList(oldChild, newChild, pairs);
+      boolean updated = super.replaceChildNode(oldChild, newChild);
+      if (!updated) {
+         updated = replaceChildNodeInList(oldChild, newChild, pairs);
+      }
+      return updated;
    }
 
 }
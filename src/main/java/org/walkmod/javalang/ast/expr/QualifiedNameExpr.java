@@ -15,6 +15,7 @@
  along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
 package org.walkmod.javalang.ast.expr;
 
+import org.walkmod.javalang.ast.Node;
 import org.walkmod.javalang.visitors.GenericVisitor;
 import org.walkmod.javalang.visitors.VoidVisitor;
 
@@ -57,4 +58,13 @@ public final class QualifiedNameExpr extends NameExpr {
 		this.qualifier = qualifier;
 		setAsParentNodeOf(qualifier);
 	}
+
+	@Override
+	public boolean replaceChildNode(Node oldChild, Node newChild) {
+		if (qualifier == oldChild) {
+			setQualifier((NameExpr) newChild);
+			return true;
+		}
+		return false;
+	}
 }
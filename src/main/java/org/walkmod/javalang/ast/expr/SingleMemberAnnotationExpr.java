@@ -15,6 +15,7 @@
  along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
 package org.walkmod.javalang.ast.expr;
 
+import org.walkmod.javalang.ast.Node;
 import org.walkmod.javalang.visitors.GenericVisitor;
 import org.walkmod.javalang.visitors.VoidVisitor;
 import org.walkmod.merger.MergeEngine;
@@ -60,6 +61,16 @@ public final class SingleMemberAnnotationExpr extends AnnotationExpr {
 		setAsParentNodeOf(memberValue);
 	}
 
+	@Override
+	public boolean replaceChildNode(Node oldChild, Node newChild) {
+		boolean update = super.replaceChildNode(oldChild, newChild);
+		if (!update && memberValue == oldChild) {
+			setMemberValue((Expression) newChild);
+			update = true;
+		}
+		return update;
+	}
+
 	@Override
 	public void merge(AnnotationExpr t1, MergeEngine configuration) {
 		// nothing
@@ -55,6 +55,7 @@ public class StringLiteralExpr extends LiteralExpr {
 	}
 
 	public final void setValue(String value) {
+		invalidateHashCode();
 		this.value = escape(value);
 	}
 
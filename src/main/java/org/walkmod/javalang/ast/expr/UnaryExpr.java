@@ -76,6 +76,7 @@ public final class UnaryExpr extends Expression {
 
 	public void setOperator(Operator op) {
 		this.op = op;
+		invalidateHashCode();
 	}
 	
 	@Override
@@ -100,6 +100,7 @@ public final class VariableDeclarationExpr extends Expression {
 
 	public void setModifiers(int modifiers) {
 		this.modifiers = modifiers;
+		invalidateHashCode();
 	}
 
 	public void setType(Type type) {
@@ -116,7 +117,7 @@ public final class VariableDeclarationExpr extends Expression {
    public boolean replaceChildNode(Node oldChild, Node newChild) {
       boolean updated = false;
       if(oldChild == type){
-         type = (Type) newChild;
+         setType((Type) newChild);
          updated = true;
       }
       if(!updated){
@@ -55,6 +55,7 @@ public final class BreakStmt extends Statement {
 
 	public void setId(String id) {
 		this.id = id;
+		invalidateHashCode();
 	}
 
    @Override
@@ -100,6 +100,7 @@ public final class ClassOrInterfaceType extends Type implements IdentificableNod
 
    public void setName(String name) {
       this.name = name;
+      invalidateHashCode();
    }
 
    public void setScope(ClassOrInterfaceType scope) {
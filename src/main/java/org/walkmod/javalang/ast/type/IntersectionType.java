@@ -59,6 +59,10 @@ public class IntersectionType extends Type {
 
    @Override
    public boolean replaceChildNode(Node oldChild, Node newChild) {
-      return super.replaceChildNode(oldChild, newChild);
+      boolean updated = super.replaceChildNode(oldChild, newChild);
+      if (!updated) {
+         updated = replaceChildNodeInList(oldChild, newChild, bounds);
+      }
+      return updated;
    }
 }
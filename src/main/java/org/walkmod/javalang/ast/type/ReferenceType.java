@@ -85,6 +85,7 @@ public final class ReferenceType extends Type {
 
    public void setArrayCount(int arrayCount) {
       this.arrayCount = arrayCount;
+      invalidateHashCode();
    }
 
    public void setType(Type type) {
@@ -101,6 +102,7 @@ public final class ReferenceType extends Type {
 
    public void setArraysAnnotations(List<List<AnnotationExpr>> arraysAnnotations) {
       this.arraysAnnotations = arraysAnnotations;
+      setAsOwnerOf(arraysAnnotations);
       if (arraysAnnotations != null) {
          for (List<AnnotationExpr> ann : arraysAnnotations) {
             setAsParentNodeOf(ann);
@@ -111,8 +113,8 @@ public final class ReferenceType extends Type {
    @Override
    public boolean replaceChildNode(Node oldChild, Node newChild) {
       boolean updated = super.replaceChildNode(oldChild, newChild);
-      if (oldChild == type) {
-         setType((ClassOrInterfaceType) newChild);
+      if (!updated && oldChild == type) {
+         setType((Type) newChild);
          updated = true;
       }
 
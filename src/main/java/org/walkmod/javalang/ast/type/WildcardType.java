@@ -104,6 +104,7 @@ public final class WildcardType extends Type {
          if(!updated){
             if(sup == oldChild){
                setSuper((ReferenceType) newChild);
+               updated = true;
             }
          }
       }
@@ -21,11 +21,10 @@ import org.walkmod.javalang.ast.expr.AnnotationExpr;
 
 public class AnnotationExprComparator implements Comparator<AnnotationExpr> {
 
+	private final NameExprComparator nameComparator = new NameExprComparator();
+
 	@Override
 	public int compare(AnnotationExpr an1, AnnotationExpr an2) {
-		if (an1.getName().toString().equals(an2.getName().toString())) {
-			return 0;
-		}
-		return -1;
+		return nameComparator.compare(an1.getName(), an2.getName());
 	}
 }
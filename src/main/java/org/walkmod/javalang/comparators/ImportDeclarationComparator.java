@@ -22,8 +22,10 @@ import org.walkmod.javalang.ast.ImportDeclaration;
 public class ImportDeclarationComparator implements
 		Comparator<ImportDeclaration> {
 
+	private final NameExprComparator nameComparator = new NameExprComparator();
+
 	@Override
 	public int compare(ImportDeclaration id1, ImportDeclaration id2) {
-		return id1.getName().toString().compareTo(id2.getName().toString());
+		return nameComparator.compare(id1.getName(), id2.getName());
 	}
 }
@@ -0,0 +1,54 @@
+/* 
+  Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+ 
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang.comparators;
+
+import java.util.Comparator;
+
+import org.walkmod.javalang.ast.expr.NameExpr;
+import org.walkmod.javalang.ast.expr.QualifiedNameExpr;
+
+/**
+ * Compares simple and qualified names part by part, from the outermost
+ * qualifier to the name, without printing them. Two names are equal when
+ * their printed forms are equal.
+ */
+public class NameExprComparator implements Comparator<NameExpr> {
+
+	@Override
+	public int compare(NameExpr n1, NameExpr n2) {
+		if (n1 == n2) {
+			return 0;
+		}
+		if (n1 == null) {
+			return -1;
+		}
+		if (n2 == null) {
+			return 1;
+		}
+		int result = compare(getQualifier(n1), getQualifier(n2));
+		if (result == 0) {
+			result = n1.getName().compareTo(n2.getName());
+		}
+		return result;
+	}
+
+	private NameExpr getQualifier(NameExpr n) {
+		if (n instanceof QualifiedNameExpr) {
+			return ((QualifiedNameExpr) n).getQualifier();
+		}
+		return null;
+	}
+}
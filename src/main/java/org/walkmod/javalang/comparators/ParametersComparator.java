@@ -0,0 +1,54 @@
+/* 
+  Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+ 
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang.comparators;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import org.walkmod.javalang.ast.body.Parameter;
+
+/**
+ * Compares the signatures of two lists of parameters: first, by their
+ * number, and then, by the type of each parameter, in order. A missing list
+ * is equal to an empty one.
+ */
+public class ParametersComparator implements Comparator<List<Parameter>> {
+
+	private final TypeComparator typeComparator = new TypeComparator();
+
+	@Override
+	public int compare(List<Parameter> params1, List<Parameter> params2) {
+		int size1 = params1 == null ? 0 : params1.size();
+		int size2 = params2 == null ? 0 : params2.size();
+		if (size1 != size2) {
+			return size1 < size2 ? -1 : 1;
+		}
+		if (size1 == 0) {
+			return 0;
+		}
+		Iterator<Parameter> it1 = params1.iterator();
+		Iterator<Parameter> it2 = params2.iterator();
+		while (it1.hasNext()) {
+			int result = typeComparator.compare(it1.next().getType(), it2
+					.next().getType());
+			if (result != 0) {
+				return result;
+			}
+		}
+		return 0;
+	}
+}
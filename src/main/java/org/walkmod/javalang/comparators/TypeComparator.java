@@ -0,0 +1,152 @@
+/* 
+  Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+ 
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang.comparators;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import org.walkmod.javalang.ast.type.ClassOrInterfaceType;
+import org.walkmod.javalang.ast.type.IntersectionType;
+import org.walkmod.javalang.ast.type.PrimitiveType;
+import org.walkmod.javalang.ast.type.ReferenceType;
+import org.walkmod.javalang.ast.type.Type;
+import org.walkmod.javalang.ast.type.WildcardType;
+
+/**
+ * Compares types by their structure (array dimensions, kind, primitive,
+ * scopes, names and type arguments) without printing them. Annotations are
+ * not part of the comparison, so <code>@NonNull String</code> and
+ * <code>String</code> are equal types.
+ */
+public class TypeComparator implements Comparator<Type> {
+
+	@Override
+	public int compare(Type t1, Type t2) {
+		// a reference type without dimensions is printed as its element type
+		int result = getArrayCount(t1) - getArrayCount(t2);
+		if (result != 0) {
+			return result;
+		}
+		t1 = getElementType(t1);
+		t2 = getElementType(t2);
+		if (t1 == t2) {
+			return 0;
+		}
+		if (t1 == null) {
+			return -1;
+		}
+		if (t2 == null) {
+			return 1;
+		}
+		result = kind(t1) - kind(t2);
+		if (result != 0) {
+			return result;
+		}
+		if (t1 instanceof PrimitiveType) {
+			return ((PrimitiveType) t1).getType().compareTo(
+					((PrimitiveType) t2).getType());
+		}
+		if (t1 instanceof ClassOrInterfaceType) {
+			ClassOrInterfaceType c1 = (ClassOrInterfaceType) t1;
+			ClassOrInterfaceType c2 = (ClassOrInterfaceType) t2;
+			result = compare(c1.getScope(), c2.getScope());
+			if (result == 0) {
+				result = c1.getName().compareTo(c2.getName());
+				if (result == 0) {
+					result = compare(c1.getTypeArgs(), c2.getTypeArgs());
+				}
+			}
+			return result;
+		}
+		if (t1 instanceof WildcardType) {
+			WildcardType w1 = (WildcardType) t1;
+			WildcardType w2 = (WildcardType) t2;
+			result = compare(w1.getExtends(), w2.getExtends());
+			if (result == 0) {
+				result = compare(w1.getSuper(), w2.getSuper());
+			}
+			return result;
+		}
+		if (t1 instanceof IntersectionType) {
+			return compare(((IntersectionType) t1).getBounds(),
+					((IntersectionType) t2).getBounds());
+		}
+		// void
+		return 0;
+	}
+
+	/**
+	 * Compares two lists of types element by element. A missing list is
+	 * equal to an empty one, and a shorter list goes first.
+	 * 
+	 * @param types1
+	 *            the first list of types
+	 * @param types2
+	 *            the second list of types
+	 * @return a negative integer, zero, or a positive integer as the first
+	 *         list is less than, equal to, or greater than the second.
+	 */
+	public int compare(List<? extends Type> types1, List<? extends Type> types2) {
+		int size1 = types1 == null ? 0 : types1.size();
+		int size2 = types2 == null ? 0 : types2.size();
+		if (size1 != size2) {
+			return size1 < size2 ? -1 : 1;
+		}
+		if (size1 == 0) {
+			return 0;
+		}
+		Iterator<? extends Type> it1 = types1.iterator();
+		Iterator<? extends Type> it2 = types2.iterator();
+		while (it1.hasNext()) {
+			int result = compare(it1.next(), it2.next());
+			if (result != 0) {
+				return result;
+			}
+		}
+		return 0;
+	}
+
+	private int getArrayCount(Type type) {
+		if (type instanceof ReferenceType) {
+			return ((ReferenceType) type).getArrayCount();
+		}
+		return 0;
+	}
+
+	private Type getElementType(Type type) {
+		if (type instanceof ReferenceType) {
+			return ((ReferenceType) type).getType();
+		}
+		return type;
+	}
+
+	private int kind(Type type) {
+		if (type instanceof PrimitiveType) {
+			return 0;
+		}
+		if (type instanceof ClassOrInterfaceType) {
+			return 1;
+		}
+		if (type instanceof WildcardType) {
+			return 2;
+		}
+		if (type instanceof IntersectionType) {
+			return 3;
+		}
+		return 4;
+	}
+}
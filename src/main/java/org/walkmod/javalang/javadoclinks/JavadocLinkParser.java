@@ -4,7 +4,7 @@ import java.io.InputStream;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.util.List;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.io.ByteArrayInputStream;
 
 public class JavadocLinkParser implements JavadocLinkParserConstants {
@@ -60,7 +60,7 @@ public class JavadocLinkParser implements JavadocLinkParserConstants {
     String className = "";
     String methodName = "";
     String aux = "";
-    List<String> params = new LinkedList<String>();
+    List<String> params = new ArrayList<String>();
     switch ((jj_ntk==-1)?jj_ntk():jj_ntk) {
     case IDENTIFIER:
       className = type();
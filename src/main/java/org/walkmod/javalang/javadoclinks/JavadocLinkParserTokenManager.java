@@ -4,7 +4,7 @@ import java.io.InputStream;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.util.List;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.io.ByteArrayInputStream;
 
 /** Token Manager. */
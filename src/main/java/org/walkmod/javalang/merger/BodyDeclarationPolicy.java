@@ -0,0 +1,58 @@
+/* 
+  Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+ 
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang.merger;
+
+import java.util.Arrays;
+
+import org.walkmod.javalang.ast.body.BodyDeclaration;
+import org.walkmod.javalang.ast.body.ConstructorDeclaration;
+import org.walkmod.javalang.ast.body.FieldDeclaration;
+import org.walkmod.javalang.ast.body.MethodDeclaration;
+
+/**
+ * Merge policy for the members of a type, which are merged as
+ * {@link BodyDeclaration} nodes. Methods, constructors and fields are indexed
+ * with the keys of {@link MethodDeclarationPolicy},
+ * {@link ConstructorDeclarationPolicy} and {@link FieldDeclarationPolicy}, but
+ * fields are not split. The rest of members share the same key, so they are
+ * compared as the append merge policy does.
+ */
+public class BodyDeclarationPolicy extends IndexedMergePolicy<BodyDeclaration> {
+
+	private final MethodDeclarationPolicy methodPolicy = new MethodDeclarationPolicy();
+
+	private final ConstructorDeclarationPolicy constructorPolicy = new ConstructorDeclarationPolicy();
+
+	private final FieldDeclarationPolicy fieldPolicy = new FieldDeclarationPolicy();
+
+	@Override
+	protected Object getIdentityKey(BodyDeclaration node) {
+		if (node instanceof MethodDeclaration) {
+			return Arrays.asList(MethodDeclaration.class,
+					methodPolicy.getIdentityKey((MethodDeclaration) node));
+		}
+		if (node instanceof ConstructorDeclaration) {
+			return Arrays.asList(ConstructorDeclaration.class,
+					constructorPolicy
+							.getIdentityKey((ConstructorDeclaration) node));
+		}
+		if (node instanceof FieldDeclaration) {
+			return Arrays.asList(FieldDeclaration.class,
+					fieldPolicy.getIdentityKey((FieldDeclaration) node));
+		}
+		return null;
+	}
+}
@@ -0,0 +1,34 @@
+/* 
+  Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+ 
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang.merger;
+
+import org.walkmod.javalang.ast.body.ConstructorDeclaration;
+
+/**
+ * Merge policy for constructors that indexes the local constructors by their
+ * name and number of parameters, so each remote constructor is only compared
+ * with its overloads with the same arity.
+ */
+public class ConstructorDeclarationPolicy extends
+		IndexedMergePolicy<ConstructorDeclaration> {
+
+	@Override
+	protected Object getIdentityKey(ConstructorDeclaration node) {
+		int params = node.getParameters() == null ? 0 : node.getParameters()
+				.size();
+		return node.getName() + "/" + params;
+	}
+}
@@ -15,37 +15,62 @@
  along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
 package org.walkmod.javalang.merger;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.walkmod.javalang.ast.body.FieldDeclaration;
 import org.walkmod.javalang.ast.body.VariableDeclarator;
-import org.walkmod.merger.AppendMergePolicy;
 
-public class FieldDeclarationPolicy extends AppendMergePolicy<FieldDeclaration> {
+/**
+ * Merge policy for fields that declare several variables. Each variable is
+ * merged as a field on its own, and the local fields are indexed by the names
+ * of their variables.
+ */
+public class FieldDeclarationPolicy extends
+		IndexedMergePolicy<FieldDeclaration> {
+
+	@Override
+	protected Object getIdentityKey(FieldDeclaration node) {
+		List<VariableDeclarator> variables = node.getVariables();
+		if (variables == null || variables.isEmpty()) {
+			return null;
+		}
+		// the comparator ignores the order of the variables
+		Set<String> names = new HashSet<String>();
+		for (VariableDeclarator vd : variables) {
+			names.add(vd.getId().getName());
+		}
+		return names;
+	}
+
+	@Override
+	protected List<FieldDeclaration> getLocalNodes(
+			List<FieldDeclaration> localList) {
+		List<FieldDeclaration> localFields = new ArrayList<FieldDeclaration>();
+		for (FieldDeclaration localField : localList) {
+			localFields.addAll(split(localField));
+		}
+		return localFields;
+	}
 
 	@Override
 	public void apply(FieldDeclaration remoteObject,
 			List<FieldDeclaration> localList, List<FieldDeclaration> resultList) {
-		List<FieldDeclaration> localFields = new LinkedList<FieldDeclaration>();
-		if (localList != null) {
-			for (FieldDeclaration localField : localList) {
-				localFields.addAll(split(localField));
-			}
-		}
 		if (remoteObject.getVariables() != null
 				&& remoteObject.getVariables().size() > 1) {
 			List<FieldDeclaration> remoteFields = split(remoteObject);
 			for (FieldDeclaration remoteField : remoteFields) {
-				super.apply(remoteField, localFields, resultList);
+				super.apply(remoteField, localList, resultList);
 			}
 		} else {
-			super.apply(remoteObject, localFields, resultList);
+			super.apply(remoteObject, localList, resultList);
 		}
 	}
 
 	private List<FieldDeclaration> split(FieldDeclaration fieldDeclaration) {
-		List<FieldDeclaration> res = new LinkedList<FieldDeclaration>();
+		List<FieldDeclaration> res = new ArrayList<FieldDeclaration>();
 		if (fieldDeclaration.getVariables().size() > 1) {
 			for (VariableDeclarator vd : fieldDeclaration.getVariables()) {
 				FieldDeclaration fd = new FieldDeclaration();
@@ -57,7 +82,7 @@ public class FieldDeclarationPolicy extends AppendMergePolicy<FieldDeclaration>
 				fd.setBeginColumn(fieldDeclaration.getBeginColumn());
 				fd.setEndColumn(vd.getEndColumn());
 				fd.setEndLine(vd.getEndLine());
-				List<VariableDeclarator> vdList = new LinkedList<VariableDeclarator>();
+				List<VariableDeclarator> vdList = new ArrayList<VariableDeclarator>();
 				vdList.add(vd);
 				fd.setVariables(vdList);
 				res.add(fd);
@@ -75,14 +100,14 @@ public class FieldDeclarationPolicy extends AppendMergePolicy<FieldDeclaration>
 
 			@SuppressWarnings("rawtypes") List resultList) {
 
-		List<FieldDeclaration> localFields = new LinkedList<FieldDeclaration>();
+		List<FieldDeclaration> localFields = new ArrayList<FieldDeclaration>();
 		if (localList != null) {
 			for (FieldDeclaration localField : localList) {
 				localFields.addAll(split(localField));
 			}
 		}
 
-		List<FieldDeclaration> remoteFields = new LinkedList<FieldDeclaration>();
+		List<FieldDeclaration> remoteFields = new ArrayList<FieldDeclaration>();
 		if (remoteList != null) {
 			for (FieldDeclaration remoteField : remoteList) {
 				remoteFields.addAll(split(remoteField));
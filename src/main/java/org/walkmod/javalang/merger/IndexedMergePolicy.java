@@ -0,0 +1,129 @@
+/* 
+  Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+ 
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang.merger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.walkmod.merger.AppendMergePolicy;
+
+/**
+ * <p>
+ * Append merge policy that only offers to each remote node the local nodes
+ * that can be equivalent to it, instead of the whole local list. The local
+ * nodes are indexed in a hash map by an identity key, which must be equal for
+ * any pair of nodes that the identity comparator considers the same. Then,
+ * the comparator only checks the few nodes with the same key, so merging two
+ * lists is linear instead of quadratic.
+ * </p>
+ * <p>
+ * The index is built at the beginning of each {@link #apply(List, List, List)}
+ * and discarded at its end, so changes in the local list between two merges
+ * are always seen. Merging a single remote node out of a list merge indexes
+ * the local list just for that node.
+ * </p>
+ */
+public abstract class IndexedMergePolicy<T> extends AppendMergePolicy<T> {
+
+	private List<T> indexedList;
+
+	private Map<Object, List<T>> index;
+
+	/**
+	 * Returns the key that groups the nodes that can be equivalent.
+	 * 
+	 * @param node
+	 *            the node to classify
+	 * @return the identity key of the node, which can be <code>null</code>.
+	 */
+	protected abstract Object getIdentityKey(T node);
+
+	/**
+	 * Returns the nodes of the local list that are indexed. By default, the
+	 * list itself.
+	 * 
+	 * @param localList
+	 *            the local list
+	 * @return the nodes to index.
+	 */
+	protected List<T> getLocalNodes(List<T> localList) {
+		return localList;
+	}
+
+	@Override
+	public synchronized void apply(List<T> localList, List<T> remoteList,
+			@SuppressWarnings("rawtypes") List resultList) {
+		// merging a node can merge a nested list with this same policy
+		List<T> previousList = indexedList;
+		Map<Object, List<T>> previousIndex = index;
+		indexedList = localList;
+		index = localList == null ? null : buildIndex(localList);
+		try {
+			super.apply(localList, remoteList, resultList);
+		} finally {
+			indexedList = previousList;
+			index = previousIndex;
+		}
+	}
+
+	@Override
+	public void apply(T remoteObject, List<T> localList, List<T> resultList) {
+		super.apply(remoteObject, getCandidates(remoteObject, localList),
+				resultList);
+	}
+
+	/**
+	 * Returns the local nodes with the same identity key than the remote
+	 * node.
+	 * 
+	 * @param remoteObject
+	 *            the remote node
+	 * @param localList
+	 *            the local list
+	 * @return a new list with the candidates, which can be empty.
+	 */
+	protected synchronized List<T> getCandidates(T remoteObject,
+			List<T> localList) {
+		if (localList == null) {
+			return new ArrayList<T>(0);
+		}
+		Map<Object, List<T>> nodesByKey = index;
+		if (localList != indexedList) {
+			nodesByKey = buildIndex(localList);
+		}
+		List<T> candidates = nodesByKey.get(getIdentityKey(remoteObject));
+		if (candidates == null) {
+			return new ArrayList<T>(0);
+		}
+		return new ArrayList<T>(candidates);
+	}
+
+	private Map<Object, List<T>> buildIndex(List<T> localList) {
+		Map<Object, List<T>> nodesByKey = new HashMap<Object, List<T>>();
+		for (T node : getLocalNodes(localList)) {
+			Object key = getIdentityKey(node);
+			List<T> nodes = nodesByKey.get(key);
+			if (nodes == null) {
+				nodes = new ArrayList<T>(1);
+				nodesByKey.put(key, nodes);
+			}
+			nodes.add(node);
+		}
+		return nodesByKey;
+	}
+}
@@ -14,7 +14,18 @@
  You should have received a copy of the GNU Lesser General Public License
  along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
 /**
- * Specific merge policies for Java AST nodes. 
+ * <p>
+ * Specific merge policies for Java AST nodes.
+ * </p>
+ * <p>
+ * The merge engine chooses the policy of a list by the class that the merged
+ * node passes to it, so these policies are enabled by mapping that class to
+ * the policy in the merge configuration of walkmod. The members of a type are
+ * merged as {@link org.walkmod.javalang.ast.body.BodyDeclaration} nodes, so
+ * {@link org.walkmod.javalang.merger.BodyDeclarationPolicy} is the one that
+ * indexes methods, constructors and fields. The other policies apply to lists
+ * merged with the class of their nodes.
+ * </p>
  */
 package org.walkmod.javalang.merger;
 
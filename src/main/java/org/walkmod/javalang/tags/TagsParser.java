@@ -21,7 +21,7 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import org.walkmod.javalang.ast.body.JavadocTag;
 import java.util.List;
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 public class TagsParser implements TagsParserConstants {
    public static List<JavadocTag> parse(InputStream aInSt) throws ParseException {
@@ -36,7 +36,7 @@ public class TagsParser implements TagsParserConstants {
    }
 
    final public List<JavadocTag> javadoc() throws ParseException {
-      List<JavadocTag> result = new LinkedList();
+      List<JavadocTag> result = new ArrayList();
       switch ((jj_ntk == -1) ? jj_ntk() : jj_ntk) {
       case PARAM:
       case RETURN:
@@ -466,13 +466,13 @@ public class TagsParser implements TagsParserConstants {
       }
       jj_consume_token(CLOSEBRACE);
       if (ns != null) {
-         values = new LinkedList<String>();
+         values = new ArrayList<String>();
          values.add(ns);
          if (description != null) {
             values.add(description);
          }
       } else if (description != null) {
-         values = new LinkedList<String>();
+         values = new ArrayList<String>();
          values.add(description);
       }
       if (tag != null) {
@@ -523,7 +523,7 @@ public class TagsParser implements TagsParserConstants {
       JavadocTag tag = null;
       JavadocTag tag2 = null;
       List<String> values = null;
-      List<JavadocTag> postTags = new LinkedList<JavadocTag>();
+      List<JavadocTag> postTags = new ArrayList<JavadocTag>();
       switch ((jj_ntk == -1) ? jj_ntk() : jj_ntk) {
       case SERIALDATA:
       case DEPRECATED:
@@ -1536,7 +1536,7 @@ public class TagsParser implements TagsParserConstants {
          throw new ParseException();
       }
       if (arg1 != null || arg2 != null || arg3 != null) {
-         values = new LinkedList<String>();
+         values = new ArrayList<String>();
          if (arg1 != null) {
             values.add(arg1);
          }
@@ -21,7 +21,7 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import org.walkmod.javalang.ast.body.JavadocTag;
 import java.util.List;
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 /** Token Manager. */
 public class TagsParserTokenManager implements TagsParserConstants {
@@ -17,8 +17,13 @@ package org.walkmod.javalang.util;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.util.LinkedList;
 import java.util.List;
 import org.walkmod.javalang.JavaParser;
@@ -106,4 +111,45 @@ public class FileUtils {
 		}
 		return result.toString();
 	}
+
+	/**
+	 * Reads the whole contents of a file with a single channel read and
+	 * decodes them with the given encoding. Malformed or unmappable input is
+	 * reported as a {@link java.nio.charset.CharacterCodingException} instead
+	 * of being replaced, so the text can be safely written back.
+	 * 
+	 * @param file
+	 *            file to read
+	 * @param encoding
+	 *            encoding of the file
+	 * @return the contents of the file.
+	 * @throws IOException
+	 *             if the file can not be read or decoded, or the encoding is
+	 *             not supported.
+	 */
+	public static String fileToString(File file, String encoding)
+			throws IOException {
+		if (!Charset.isSupported(encoding)) {
+			throw new UnsupportedEncodingException(encoding);
+		}
+		Charset charset = Charset.forName(encoding);
+		FileInputStream in = new FileInputStream(file);
+		try {
+			FileChannel channel = in.getChannel();
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("The file " + file.getAbsolutePath()
+						+ " is too large: " + size + " bytes");
+			}
+			ByteBuffer buffer = ByteBuffer.allocate((int) size);
+			int read = 0;
+			while (read >= 0 && buffer.hasRemaining()) {
+				read = channel.read(buffer);
+			}
+			buffer.flip();
+			return charset.newDecoder().decode(buffer).toString();
+		} finally {
+			in.close();
+		}
+	}
 }
@@ -15,9 +15,9 @@
  along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
 package org.walkmod.javalang.visitors;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.walkmod.javalang.ast.BlockComment;
 import org.walkmod.javalang.ast.Comment;
@@ -25,6 +25,7 @@ import org.walkmod.javalang.ast.CompilationUnit;
 import org.walkmod.javalang.ast.ImportDeclaration;
 import org.walkmod.javalang.ast.LineComment;
 import org.walkmod.javalang.ast.Node;
+import org.walkmod.javalang.ast.NodeList;
 import org.walkmod.javalang.ast.PackageDeclaration;
 import org.walkmod.javalang.ast.TypeParameter;
 import org.walkmod.javalang.ast.body.AnnotationDeclaration;
@@ -114,15 +115,21 @@ import org.walkmod.javalang.ast.type.WildcardType;
 
 public class CloneVisitor implements GenericVisitor<Node, Object> {
 
+	private int depth;
+
+	private Map<Node, Node> clones;
+
 	@Override
 	public Node visit(CompilationUnit _n, Object _arg) {
 		PackageDeclaration package_ = cloneNodes(_n.getPackage(), _arg);
 		List<ImportDeclaration> imports = visit(_n.getImports(), _arg);
 		List<TypeDeclaration> types = visit(_n.getTypes(), _arg);
 		List<Comment> comments = visit(_n.getComments(), _arg);
-		return new CompilationUnit(_n.getBeginLine(), _n.getBeginColumn(),
-				_n.getEndLine(), _n.getEndColumn(), package_, imports, types,
-				comments);
+		CompilationUnit cu = new CompilationUnit(_n.getBeginLine(),
+				_n.getBeginColumn(), _n.getEndLine(), _n.getEndColumn(),
+				package_, imports, types, comments);
+		cu.setLineTable(_n.getLineTable());
+		return cu;
 	}
 
 	@Override
@@ -385,7 +392,7 @@ public class CloneVisitor implements GenericVisitor<Node, Object> {
 				.getArraysAnnotations();
 		List<List<AnnotationExpr>> _arraysAnnotations = null;
 		if (arraysAnnotations != null) {
-			_arraysAnnotations = new LinkedList<List<AnnotationExpr>>();
+			_arraysAnnotations = new NodeList<List<AnnotationExpr>>();
 			for (List<AnnotationExpr> aux : arraysAnnotations) {
 				_arraysAnnotations.add(visit(aux, _arg));
 			}
@@ -442,7 +449,7 @@ public class CloneVisitor implements GenericVisitor<Node, Object> {
 				.getArraysAnnotations();
 		List<List<AnnotationExpr>> _arraysAnnotations = null;
 		if (arraysAnnotations != null) {
-			_arraysAnnotations = new LinkedList<List<AnnotationExpr>>();
+			_arraysAnnotations = new NodeList<List<AnnotationExpr>>();
 			for (List<AnnotationExpr> aux : arraysAnnotations) {
 				_arraysAnnotations.add(visit(aux, _arg));
 			}
@@ -915,7 +922,7 @@ public class CloneVisitor implements GenericVisitor<Node, Object> {
 	public <T extends Node> List<T> visit(List<T> _nodes, Object _arg) {
 		if (_nodes == null)
 			return null;
-		List<T> r = new ArrayList<T>(_nodes.size());
+		List<T> r = new NodeList<T>(_nodes.size());
 		for (T n : _nodes) {
 			T rN = cloneNodes(n, _arg);
 			if (rN != null)
@@ -927,12 +934,48 @@ public class CloneVisitor implements GenericVisitor<Node, Object> {
 	protected <T extends Node> T cloneNodes(T _node, Object _arg) {
 		if (_node == null)
 			return null;
-		Node r = _node.accept(this, _arg);
+		Node r;
+		if (clones != null && clones.containsKey(_node)) {
+			r = clones.remove(_node);
+		} else if (depth >= TreeWalker.MAX_RECURSION_DEPTH) {
+			r = cloneIteratively(_node, _arg);
+		} else {
+			depth++;
+			try {
+				r = _node.accept(this, _arg);
+			} finally {
+				depth--;
+			}
+		}
 		if (r == null)
 			return null;
 		return (T) r;
 	}
 
+	/**
+	 * Clones a deep subtree from the leaves to the root, so each node is
+	 * cloned once its children are already cloned and the recursion does not
+	 * go further.
+	 */
+	private Node cloneIteratively(final Node _node, final Object _arg) {
+		Map<Node, Node> previousClones = clones;
+		int previousDepth = depth;
+		clones = new IdentityHashMap<Node, Node>();
+		depth = 0;
+		try {
+			new TreeWalker<Object>() {
+				@Override
+				protected void leave(Node n, Object arg) {
+					clones.put(n, n.accept(CloneVisitor.this, _arg));
+				}
+			}.walk(_node, _arg);
+			return clones.get(_node);
+		} finally {
+			clones = previousClones;
+			depth = previousDepth;
+		}
+	}
+
 	@Override
 	public Node visit(LambdaExpr _n, Object _arg) {
 
@@ -0,0 +1,194 @@
+/* 
+  Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+ 
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang.visitors;
+
+import java.util.List;
+
+import org.walkmod.javalang.ast.Comment;
+
+/**
+ * <p>
+ * Comments that remain to be printed by the {@link DumpVisitor}. Comments keep
+ * the order of the original list, and removed comments are skipped in
+ * amortized constant time.
+ * </p>
+ * <p>
+ * When all the comments have a location, and each one ends before the next
+ * one begins (as the parser produces them), the index is sorted. Then, the
+ * range of comments that can precede, follow or be contained in a node is
+ * found by binary search. Otherwise, every range is the whole list, so the
+ * comments are scanned linearly in their original order.
+ * </p>
+ */
+final class CommentIndex {
+
+   private final Comment[] comments;
+
+   /**
+    * next[i] is i when the comment i is not removed. Otherwise, it is an
+    * index after i, and the chain of indexes ends at the next comment that is
+    * not removed or at comments.length.
+    */
+   private final int[] next;
+
+   private final boolean sorted;
+
+   private int size;
+
+   CommentIndex(List<Comment> list) {
+      comments = list.toArray(new Comment[list.size()]);
+      next = new int[comments.length + 1];
+      for (int i = 0; i < next.length; i++) {
+         next[i] = i;
+      }
+      size = comments.length;
+      sorted = isSorted(comments);
+   }
+
+   private static boolean isSorted(Comment[] comments) {
+      for (int i = 0; i < comments.length; i++) {
+         Comment c = comments[i];
+         if (c.isNewNode() || compare(c.getBeginLine(), c.getBeginColumn(), c.getEndLine(), c.getEndColumn()) > 0) {
+            return false;
+         }
+         if (i > 0 && !comments[i - 1].isPreviousThan(c)) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   private static int compare(int line1, int column1, int line2, int column2) {
+      if (line1 != line2) {
+         return line1 < line2 ? -1 : 1;
+      }
+      if (column1 != column2) {
+         return column1 < column2 ? -1 : 1;
+      }
+      return 0;
+   }
+
+   boolean isEmpty() {
+      return size == 0;
+   }
+
+   /**
+    * Returns the position of the first comment that is not removed, or
+    * {@link #end()} if there is none.
+    */
+   int first() {
+      return find(0);
+   }
+
+   /**
+    * Returns the position of the first comment at the position i, or after
+    * it, that is not removed, or {@link #end()} if there is none.
+    */
+   int from(int i) {
+      return find(i);
+   }
+
+   /**
+    * Returns the position of the first comment after the position i that is
+    * not removed, or {@link #end()} if there is none.
+    */
+   int next(int i) {
+      return find(i + 1);
+   }
+
+   int end() {
+      return comments.length;
+   }
+
+   Comment get(int i) {
+      return comments[i];
+   }
+
+   void remove(int i) {
+      if (next[i] == i) {
+         next[i] = i + 1;
+         size--;
+      }
+   }
+
+   private int find(int i) {
+      int root = i;
+      while (next[root] != root) {
+         root = next[root];
+      }
+      while (next[i] != root) {
+         int aux = next[i];
+         next[i] = root;
+         i = aux;
+      }
+      return root;
+   }
+
+   /**
+    * Returns the position of the first comment that begins in the given line
+    * or after it. All the comments whose begin line is lower are before this
+    * position.
+    */
+   int firstBeginningAtLine(int line) {
+      return firstBeginningAt(line, Integer.MIN_VALUE);
+   }
+
+   /**
+    * Returns the position of the first comment that begins in the given
+    * location or after it. All the comments that begin before this location
+    * are before this position.
+    */
+   int firstBeginningAt(int line, int column) {
+      if (!sorted) {
+         return 0;
+      }
+      int low = 0;
+      int high = comments.length;
+      while (low < high) {
+         int mid = (low + high) >>> 1;
+         Comment c = comments[mid];
+         if (compare(c.getBeginLine(), c.getBeginColumn(), line, column) < 0) {
+            low = mid + 1;
+         } else {
+            high = mid;
+         }
+      }
+      return low;
+   }
+
+   /**
+    * Returns the position of the first comment that ends after the given
+    * location. All the comments that end before this location, or exactly in
+    * it, are before this position.
+    */
+   int firstEndingAfter(int line, int column) {
+      if (!sorted) {
+         return comments.length;
+      }
+      int low = 0;
+      int high = comments.length;
+      while (low < high) {
+         int mid = (low + high) >>> 1;
+         Comment c = comments[mid];
+         if (compare(c.getEndLine(), c.getEndColumn(), line, column) <= 0) {
+            low = mid + 1;
+         } else {
+            high = mid;
+         }
+      }
+      return low;
+   }
+}
@@ -29,8 +29,12 @@
  */
 package org.walkmod.javalang.visitors;
 
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 
 import org.walkmod.javalang.ast.BlockComment;
@@ -132,12 +136,24 @@ import org.walkmod.javalang.ast.type.WildcardType;
  */
 public final class DumpVisitor implements VoidVisitor<Object> {
 
-   private List<Comment> comments = new LinkedList<Comment>();
+   private CommentIndex comments = new CommentIndex(new ArrayList<Comment>());
 
    private boolean initializedComments = false;
 
+   private boolean searchedComments = false;
+
+   /**
+    * Sets the comments to print. The given list is not modified.
+    * 
+    * @param comments
+    *           comments to print, in the order in which they appear in the source code.
+    */
    public void setComments(List<Comment> comments) {
-      this.comments = comments;
+      if (comments != null) {
+         this.comments = new CommentIndex(comments);
+      } else {
+         this.comments = null;
+      }
       initializedComments = true;
    }
 
@@ -159,11 +175,31 @@ public final class DumpVisitor implements VoidVisitor<Object> {
 
       private String indentationString = "    ";
 
+      /**
+       * indentations[i] is the indentation string of the level i, or null if it has not been
+       * built yet.
+       */
+      private String[] indentations = new String[8];
+
       private char indentationChar = ' ';
 
       private boolean indented = false;
 
-      private final StringBuilder buf = new StringBuilder();
+      private final StringBuilder buf;
+
+      private final Appendable out;
+
+      private IOException error;
+
+      public SourcePrinter() {
+         buf = new StringBuilder();
+         out = buf;
+      }
+
+      public SourcePrinter(Appendable out) {
+         buf = null;
+         this.out = out;
+      }
 
       public void indent() {
          level++;
@@ -184,15 +220,46 @@ public final class DumpVisitor implements VoidVisitor<Object> {
             buffer.append(indentationChar);
          }
          indentationString = buffer.toString();
+         indentations = new String[8];
       }
 
       public void unindent() {
          level--;
       }
 
+      private String getIndentation(int level) {
+         if (level >= indentations.length) {
+            String[] aux = new String[Math.max(level + 1, indentations.length * 2)];
+            System.arraycopy(indentations, 0, aux, 0, indentations.length);
+            indentations = aux;
+         }
+         String indentation = indentations[level];
+         if (indentation == null) {
+            StringBuilder sb = new StringBuilder(indentationString.length() * level);
+            for (int i = 0; i < level; i++) {
+               sb.append(indentationString);
+            }
+            indentation = sb.toString();
+            indentations[level] = indentation;
+         }
+         return indentation;
+      }
+
       private void makeIndent() {
-         for (int i = 0; i < level; i++) {
-            buf.append(indentationString);
+         if (level > 0) {
+            append(getIndentation(level));
+         }
+      }
+
+      private void append(String arg) {
+         if (buf != null) {
+            buf.append(arg);
+         } else if (error == null) {
+            try {
+               out.append(arg);
+            } catch (IOException e) {
+               error = e;
+            }
          }
       }
 
@@ -201,7 +268,7 @@ public final class DumpVisitor implements VoidVisitor<Object> {
             makeIndent();
             indented = true;
          }
-         buf.append(arg);
+         append(arg);
       }
 
       public void printLn(String arg) {
@@ -210,26 +277,87 @@ public final class DumpVisitor implements VoidVisitor<Object> {
       }
 
       public void printLn() {
-         buf.append("\n");
+         append("\n");
          indented = false;
       }
 
       public String getSource() {
+         if (buf == null) {
+            return null;
+         }
          return buf.toString();
       }
 
+      public void flush() throws IOException {
+         if (error != null) {
+            throw error;
+         }
+         if (out instanceof Flushable) {
+            ((Flushable) out).flush();
+         }
+      }
+
       @Override
       public String toString() {
          return getSource();
       }
    }
 
-   private final SourcePrinter printer = new SourcePrinter();
-
+   private final SourcePrinter printer;
+
+   /**
+    * Creates a visitor that prints the code in memory. The result is returned by
+    * {@link #getSource()}.
+    */
+   public DumpVisitor() {
+      printer = new SourcePrinter();
+   }
+
+   /**
+    * Creates a visitor that streams the printed code into the given output instead of keeping it
+    * in memory. Writing errors are thrown by {@link #flush()}, which must be called once the
+    * nodes have been visited.
+    * 
+    * @param out
+    *           output where the code is printed
+    */
+   public DumpVisitor(Appendable out) {
+      printer = new SourcePrinter(out);
+   }
+
+   /**
+    * Creates a visitor that streams the printed code into the given channel with the given
+    * encoding. Writing errors are thrown by {@link #flush()}, which must be called once the nodes
+    * have been visited.
+    * 
+    * @param channel
+    *           channel where the code is written
+    * @param encoding
+    *           encoding of the written code
+    */
+   public DumpVisitor(WritableByteChannel channel, String encoding) {
+      this(Channels.newWriter(channel, encoding));
+   }
+
+   /**
+    * Returns the printed code.
+    * 
+    * @return the printed code, or null if the code has been streamed into an output.
+    */
    public String getSource() {
       return printer.getSource();
    }
 
+   /**
+    * Flushes the output where the code is streamed.
+    * 
+    * @throws IOException
+    *            if the code could not be written.
+    */
+   public void flush() throws IOException {
+      printer.flush();
+   }
+
    private void printModifiers(int modifiers) {
       if (ModifierSet.isPrivate(modifiers)) {
          printer.print("private ");
@@ -449,16 +577,15 @@ public final class DumpVisitor implements VoidVisitor<Object> {
    }
 
    private List<Node> printPreviousComments(Node n, Object arg) {
-      List<Node> printedComments = new LinkedList<Node>();
+      List<Node> printedComments = new ArrayList<Node>();
       if (comments != null) {
-         Iterator<Comment> it = comments.iterator();
          Node previous = null;
          if (n instanceof BodyDeclaration) {
             previous = ((BodyDeclaration) n).getJavaDoc();
          }
          boolean isPrevious = true;
-         while (it.hasNext() && isPrevious) {
-            Comment c = it.next();
+         for (int i = comments.first(); i < comments.end() && isPrevious; i = comments.next(i)) {
+            Comment c = comments.get(i);
             isPrevious = !n.isNewNode() && !c.isNewNode() && c.isPreviousThan(n);
             if (isPrevious) {
 
@@ -470,12 +597,12 @@ public final class DumpVisitor implements VoidVisitor<Object> {
                printedComments.add(c);
                previous = c;
 
-               it.remove();
+               comments.remove(i);
             }
             else if(c.isNewNode() && !(c instanceof JavadocComment)){
             	 c.accept(this, arg);
                  printedComments.add(c);
-                 it.remove();
+                 comments.remove(i);
             }
          }
          if (previous != null && !previous.isNewNode()) {
@@ -500,9 +627,8 @@ public final class DumpVisitor implements VoidVisitor<Object> {
    }
 
    private List<Node> printInnerComments(Node previousNode, Node nextNode, Object arg) {
-      List<Node> printedComments = new LinkedList<Node>();
+      List<Node> printedComments = new ArrayList<Node>();
       if (comments != null) {
-         Iterator<Comment> it = comments.iterator();
          Node previous = null;
          if (nextNode instanceof BodyDeclaration) {
             if (!nextNode.isNewNode()) {
@@ -512,8 +638,9 @@ public final class DumpVisitor implements VoidVisitor<Object> {
                }
             }
          }
-         while (it.hasNext()) {
-            Comment c = it.next();
+         int end = comments.firstEndingAfter(nextNode.getBeginLine(), nextNode.getBeginColumn());
+         for (int i = comments.first(); i < end; i = comments.next(i)) {
+            Comment c = comments.get(i);
             if (!nextNode.isNewNode() && !c.isNewNode() && c.isPreviousThan(nextNode)) {
 
                if (previous != null) {
@@ -527,7 +654,7 @@ public final class DumpVisitor implements VoidVisitor<Object> {
                printedComments.add(c);
                previous = c;
 
-               it.remove();
+               comments.remove(i);
             }
          }
          if (previous != null) {
@@ -538,11 +665,15 @@ public final class DumpVisitor implements VoidVisitor<Object> {
    }
 
    private List<Node> printSameLineComments(Node n, Object arg) {
-      List<Node> printedComments = new LinkedList<Node>();
+      List<Node> printedComments = new ArrayList<Node>();
       if (comments != null) {
-         Iterator<Comment> it = comments.iterator();
-         while (it.hasNext()) {
-            Comment c = it.next();
+         int line = n.getEndLine();
+         if (n instanceof BlockStmt || n instanceof SwitchEntryStmt) {
+            line = n.getBeginLine();
+         }
+         int end = comments.firstBeginningAtLine(line + 1);
+         for (int pos = comments.from(comments.firstBeginningAtLine(line)); pos < end; pos = comments.next(pos)) {
+            Comment c = comments.get(pos);
             if (!n.isNewNode() && !c.isNewNode()) {
                if (n instanceof BlockStmt) {
                   List<Statement> stmts = ((BlockStmt) n).getStmts();
@@ -551,7 +682,7 @@ public final class DumpVisitor implements VoidVisitor<Object> {
                      if (stmts == null || stmts.isEmpty()) {
                         c.accept(this, arg);
                         printedComments.add(c);
-                        it.remove();
+                        comments.remove(pos);
                      } else {
                         Statement stmt = stmts.iterator().next();
                         if (!stmt.isNewNode() && stmt.getBeginLine() > n.getBeginLine()) {
@@ -561,7 +692,7 @@ public final class DumpVisitor implements VoidVisitor<Object> {
                            c.accept(this, arg);
                            printedComments.add(c);
 
-                           it.remove();
+                           comments.remove(pos);
                         }
                      }
                   }
@@ -572,7 +703,7 @@ public final class DumpVisitor implements VoidVisitor<Object> {
                      if (stmts == null || stmts.isEmpty()) {
                         c.accept(this, arg);
                         printedComments.add(c);
-                        it.remove();
+                        comments.remove(pos);
                      } else {
                         Statement stmt = stmts.iterator().next();
                         if (!stmt.isNewNode() && stmt.getBeginLine() > n.getBeginLine()) {
@@ -582,7 +713,7 @@ public final class DumpVisitor implements VoidVisitor<Object> {
                            c.accept(this, arg);
                            printedComments.add(c);
 
-                           it.remove();
+                           comments.remove(pos);
                         }
                      }
                   }
@@ -592,7 +723,7 @@ public final class DumpVisitor implements VoidVisitor<Object> {
                      c.accept(this, arg);
                      printedComments.add(c);
 
-                     it.remove();
+                     comments.remove(pos);
                   }
                }
             }
@@ -604,17 +735,16 @@ public final class DumpVisitor implements VoidVisitor<Object> {
    }
 
    private List<Node> printMissingComments(Node n, Object arg) {
-      List<Node> printedComments = new LinkedList<Node>();
+      List<Node> printedComments = new ArrayList<Node>();
       if (comments != null) {
-         Iterator<Comment> it = comments.iterator();
-         while (it.hasNext()) {
-            Comment c = it.next();
+         for (int i = comments.first(); i < comments.end(); i = comments.next(i)) {
+            Comment c = comments.get(i);
             if (!n.isNewNode() && !c.isNewNode()) {
 
                c.accept(this, arg);
                printedComments.add(c);
 
-               it.remove();
+               comments.remove(i);
             }
          }
       }
@@ -647,9 +777,10 @@ public final class DumpVisitor implements VoidVisitor<Object> {
    private Node printContainingComments(Node n, int startingLine, Object arg) {
       Node lastNode = null;
       if (comments != null) {
-         Iterator<Comment> it = comments.iterator();
-         while (it.hasNext()) {
-            Comment c = it.next();
+         int end = comments.firstEndingAfter(n.getEndLine(), n.getEndColumn());
+         for (int pos = comments.from(comments.firstBeginningAt(n.getBeginLine(), n.getBeginColumn())); pos < end; pos = comments
+               .next(pos)) {
+            Comment c = comments.get(pos);
 
             if (!n.isNewNode() && !c.isNewNode() && n.contains(c)) {
 
@@ -665,7 +796,7 @@ public final class DumpVisitor implements VoidVisitor<Object> {
                }
                c.accept(this, arg);
 
-               it.remove();
+               comments.remove(pos);
                lastNode = c;
             }
          }
@@ -675,11 +806,12 @@ public final class DumpVisitor implements VoidVisitor<Object> {
    }
 
    private List<Node> getContainingComments(Node n) {
-      List<Node> result = new LinkedList<Node>();
+      List<Node> result = new ArrayList<Node>();
       if (comments != null) {
-         Iterator<Comment> it = comments.iterator();
-         while (it.hasNext()) {
-            Comment c = it.next();
+         int end = comments.firstEndingAfter(n.getEndLine(), n.getEndColumn());
+         for (int i = comments.from(comments.firstBeginningAt(n.getBeginLine(), n.getBeginColumn())); i < end; i = comments
+               .next(i)) {
+            Comment c = comments.get(i);
 
             if (!n.isNewNode() && !c.isNewNode() && n.contains(c)) {
                result.add(c);
@@ -690,27 +822,28 @@ public final class DumpVisitor implements VoidVisitor<Object> {
    }
 
    private void loadComments(Node n) {
-      if (!initializedComments) {
+      if (!initializedComments && !searchedComments) {
+         // the root is only searched once, because new nodes reset the
+         // initialization and it would be searched again for each node
+         searchedComments = true;
+         while (n != null && !(n instanceof CompilationUnit)) {
+            n = n.getParentNode();
+         }
          if (n == null) {
             return;
          }
-         if (n instanceof CompilationUnit) {
-            CompilationUnit unit = (CompilationUnit) n;
-            List<Comment> aux = unit.getComments();
-            if (aux != null) {
-               comments = new LinkedList<Comment>(aux);
-            }
-            initializedComments = true;
-            Iterator<Comment> it = comments.iterator();
-            while (it.hasNext()) {
-               Comment c = it.next();
-               if (c instanceof JavadocComment) {
-                  it.remove();
+         CompilationUnit unit = (CompilationUnit) n;
+         List<Comment> aux = unit.getComments();
+         if (aux != null) {
+            List<Comment> nonJavadocComments = new ArrayList<Comment>(aux.size());
+            for (Comment c : aux) {
+               if (!(c instanceof JavadocComment)) {
+                  nonJavadocComments.add(c);
                }
             }
-         } else {
-            loadComments(n.getParentNode());
+            comments = new CommentIndex(nonJavadocComments);
          }
+         initializedComments = true;
       }
    }
 
@@ -720,11 +853,9 @@ public final class DumpVisitor implements VoidVisitor<Object> {
             loadComments(n);
          }
          if (!n.isNewNode()) {
-            Iterator<Comment> it = comments.iterator();
-            while (it.hasNext()) {
-               Comment current = it.next();
-               if (!n.contains(current)) {
-                  it.remove();
+            for (int i = comments.first(); i < comments.end(); i = comments.next(i)) {
+               if (!n.contains(comments.get(i))) {
+                  comments.remove(i);
                }
             }
          } else {
@@ -1282,8 +1413,23 @@ public final class DumpVisitor implements VoidVisitor<Object> {
    }
 
    public void visit(BinaryExpr n, Object arg) {
-      prepareComments(n);
-      n.getLeft().accept(this, arg);
+      // left-deep chains (e.g. long string concatenations) are printed from
+      // the innermost operand without recursing for each operator
+      List<BinaryExpr> chain = new ArrayList<BinaryExpr>();
+      Expression left = n;
+      while (left instanceof BinaryExpr) {
+         BinaryExpr current = (BinaryExpr) left;
+         prepareComments(current);
+         chain.add(current);
+         left = current.getLeft();
+      }
+      left.accept(this, arg);
+      for (int i = chain.size() - 1; i >= 0; i--) {
+         printOperation(chain.get(i), arg);
+      }
+   }
+
+   private void printOperation(BinaryExpr n, Object arg) {
       printer.print(" ");
 
       Node lastNode = n.getLeft();
@@ -1515,15 +1661,30 @@ public final class DumpVisitor implements VoidVisitor<Object> {
    }
 
    public void visit(MethodCallExpr n, Object arg) {
-      prepareComments(n);
-      printPreviousComments(n, arg);
-      if (n.getScope() != null) {
-         n.getScope().accept(this, arg);
+      // chained calls (e.g. builders) are printed from the innermost scope
+      // without recursing for each call
+      List<MethodCallExpr> chain = new ArrayList<MethodCallExpr>();
+      Expression scope = n;
+      while (scope instanceof MethodCallExpr) {
+         MethodCallExpr current = (MethodCallExpr) scope;
+         prepareComments(current);
+         printPreviousComments(current, arg);
+         chain.add(current);
+         scope = current.getScope();
+      }
+      if (scope != null) {
+         scope.accept(this, arg);
          printer.print(".");
       }
-      printTypeArgs(n.getTypeArgs(), arg);
-      printer.print(n.getName());
-      printArguments(n.getArgs(), arg);
+      for (int i = chain.size() - 1; i >= 0; i--) {
+         MethodCallExpr current = chain.get(i);
+         printTypeArgs(current.getTypeArgs(), arg);
+         printer.print(current.getName());
+         printArguments(current.getArgs(), arg);
+         if (i > 0) {
+            printer.print(".");
+         }
+      }
    }
 
    private void printEntersAfterMembersAndBeforeComments(Node n, List<?> members) {
@@ -1799,10 +1960,10 @@ public final class DumpVisitor implements VoidVisitor<Object> {
          }
       }
       if (comments != null) {
-         Iterator<Comment> it = comments.iterator();
+         int end = comments.firstEndingAfter(n2.getBeginLine(), n2.getBeginColumn());
          boolean found = false;
-         while (it.hasNext() && !found) {
-            Comment c = it.next();
+         for (int i = comments.from(comments.firstBeginningAtLine(startLine)); i < end && !found; i = comments.next(i)) {
+            Comment c = comments.get(i);
             if (!c.isNewNode() && startLine <= c.getBeginLine()) {
                found = c.isPreviousThan(n2) && c.getBeginLine() < line;
                if (found) {
@@ -15,8 +15,11 @@
  along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
 package org.walkmod.javalang.visitors;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.walkmod.javalang.ast.BlockComment;
 import org.walkmod.javalang.ast.CompilationUnit;
@@ -108,33 +111,90 @@ import org.walkmod.javalang.ast.type.VoidType;
 import org.walkmod.javalang.ast.type.WildcardType;
 
 /**
+ * Compares the structure of two nodes, ignoring their positions, data and
+ * javadoc. Two nodes are different as soon as their classes, their
+ * attributes (names, modifiers, operators) or the sizes of their child lists
+ * differ, so their children are only compared when all of them match. Two
+ * nodes whose hash codes are both cached and differ are not equal, because
+ * every change of a compared attribute or child list discards the cached
+ * hash code of the node and its ancestors. Each node class is compared by a
+ * method that returns a primitive boolean, and the visit methods only adapt
+ * it to {@link GenericVisitor}. The descendants deeper than
+ * {@link TreeWalker#MAX_RECURSION_DEPTH} are compared bottom-up, so deep trees
+ * do not overflow the stack.
+ * 
  * @author Julio Vilmar Gesser
  */
 public class EqualsVisitor implements GenericVisitor<Boolean, Node> {
 
-	private static final EqualsVisitor SINGLETON = new EqualsVisitor();
+	/**
+	 * Visitors of each recursion depth. The children of the nodes compared by
+	 * a visitor are compared by the visitor of the next depth, so the
+	 * visitors have no mutable state and can be shared by any thread.
+	 */
+	private static final EqualsVisitor[] LEVELS = new EqualsVisitor[TreeWalker.MAX_RECURSION_DEPTH];
+
+	static {
+		for (int i = 0; i < LEVELS.length; i++) {
+			LEVELS[i] = new EqualsVisitor(i, null);
+		}
+	}
+
+	private static final EqualsVisitor SINGLETON = LEVELS[0];
+
+	private final int depth;
+
+	/**
+	 * State of a comparison that has reached the recursion limit, or null.
+	 */
+	private final IterativeComparison comparison;
 
 	public static boolean equals(Node n1, Node n2) {
 		return SINGLETON.nodeEquals(n1, n2);
 	}
 
-	private EqualsVisitor() {
+	private EqualsVisitor(int depth, IterativeComparison comparison) {
+		this.depth = depth;
+		this.comparison = comparison;
+	}
+
+	private boolean sizeEquals(List<?> nodes1, List<?> nodes2) {
+		if (nodes1 == null || nodes2 == null) {
+			return nodes1 == nodes2;
+		}
+		return nodes1.size() == nodes2.size();
 	}
 
 	private <T extends Node> boolean nodesEquals(List<T> nodes1, List<T> nodes2) {
-		if (nodes1 == null) {
-			if (nodes2 == null) {
-				return true;
-			}
-			return false;
-		} else if (nodes2 == null) {
+		if (nodes1 == nodes2) {
+			return true;
+		}
+		if (!sizeEquals(nodes1, nodes2)) {
 			return false;
 		}
-		if (nodes1.size() != nodes2.size()) {
+		// the lists can be linked lists
+		Iterator<T> it1 = nodes1.iterator();
+		Iterator<T> it2 = nodes2.iterator();
+		while (it1.hasNext()) {
+			if (!nodeEquals(it1.next(), it2.next())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean arraysAnnotationsEquals(List<List<AnnotationExpr>> annotations1,
+			List<List<AnnotationExpr>> annotations2) {
+		if (annotations1 == annotations2) {
+			return true;
+		}
+		if (!sizeEquals(annotations1, annotations2)) {
 			return false;
 		}
-		for (int i = 0; i < nodes1.size(); i++) {
-			if (!nodeEquals(nodes1.get(i), nodes2.get(i))) {
+		Iterator<List<AnnotationExpr>> it1 = annotations1.iterator();
+		Iterator<List<AnnotationExpr>> it2 = annotations2.iterator();
+		while (it1.hasNext()) {
+			if (!nodesEquals(it1.next(), it2.next())) {
 				return false;
 			}
 		}
@@ -156,7 +216,84 @@ public class EqualsVisitor implements GenericVisitor<Boolean, Node> {
 		if (n1.getClass() != n2.getClass()) {
 			return false;
 		}
-		return n1.accept(this, n2).booleanValue();
+		int hash1 = n1.getCachedHashCode();
+		int hash2 = n2.getCachedHashCode();
+		if (hash1 != 0 && hash2 != 0 && hash1 != hash2) {
+			return false;
+		}
+		if (comparison != null) {
+			return comparison.nodeEquals(n1, n2);
+		}
+		if (depth + 1 < LEVELS.length) {
+			return n1.accept(LEVELS[depth + 1], n2).booleanValue();
+		}
+		return new IterativeComparison().equals(n1, n2);
+	}
+
+	/**
+	 * Comparison of two deep subtrees from the leaves to the root. It is only
+	 * created when the recursion limit is reached, and it keeps the results
+	 * of the compared descendants and its own recursion depth.
+	 */
+	private static final class IterativeComparison {
+
+		private final EqualsVisitor visitor = new EqualsVisitor(0, this);
+
+		private final Map<Node, Node> partners = new IdentityHashMap<Node, Node>();
+
+		private final Map<Node, Boolean> results = new IdentityHashMap<Node, Boolean>();
+
+		private int depth;
+
+		private boolean nodeEquals(Node n1, Node n2) {
+			if (partners.get(n1) == n2) {
+				return results.get(n1).booleanValue();
+			}
+			if (depth >= TreeWalker.MAX_RECURSION_DEPTH) {
+				return new IterativeComparison().equals(n1, n2);
+			}
+			depth++;
+			try {
+				return n1.accept(visitor, n2).booleanValue();
+			} finally {
+				depth--;
+			}
+		}
+
+		/**
+		 * Compares two nodes of the same class. The children of both nodes
+		 * are paired by position, and the pairs are compared after their
+		 * descendants, so comparing each pair only looks up the results of
+		 * its children.
+		 */
+		private boolean equals(Node n1, Node n2) {
+			// parents are always before their children
+			List<Node[]> pairs = new ArrayList<Node[]>();
+			pairs.add(new Node[] { n1, n2 });
+			for (int i = 0; i < pairs.size(); i++) {
+				Node[] pair = pairs.get(i);
+				if (pair[0].getClass() == pair[1].getClass()) {
+					List<Node> children1 = TreeWalker.getChildren(pair[0]);
+					List<Node> children2 = TreeWalker.getChildren(pair[1]);
+					if (children1.size() == children2.size()) {
+						for (int j = 0; j < children1.size(); j++) {
+							Node child1 = children1.get(j);
+							Node child2 = children2.get(j);
+							if (child1 != child2) {
+								pairs.add(new Node[] { child1, child2 });
+							}
+						}
+					}
+				}
+			}
+			for (int i = pairs.size() - 1; i > 0; i--) {
+				Node[] pair = pairs.get(i);
+				boolean equal = visitor.nodeEquals(pair[0], pair[1]);
+				partners.put(pair[0], pair[1]);
+				results.put(pair[0], Boolean.valueOf(equal));
+			}
+			return n1.accept(visitor, n2).booleanValue();
+		}
 	}
 
 	private boolean objEquals(Object n1, Object n2) {
@@ -175,121 +312,190 @@ public class EqualsVisitor implements GenericVisitor<Boolean, Node> {
 	}
 
 	public Boolean visit(CompilationUnit n1, Node arg) {
-		CompilationUnit n2 = (CompilationUnit) arg;
+		return Boolean.valueOf(isEqual(n1, (CompilationUnit) arg));
+	}
+
+	private boolean isEqual(CompilationUnit n1, CompilationUnit n2) {
+		if (!sizeEquals(n1.getImports(), n2.getImports())) {
+			return false;
+		}
+		if (!sizeEquals(n1.getTypes(), n2.getTypes())) {
+			return false;
+		}
+		if (!sizeEquals(n1.getComments(), n2.getComments())) {
+			return false;
+		}
 		if (!nodeEquals(n1.getPackage(), n2.getPackage())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getImports(), n2.getImports())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getTypes(), n2.getTypes())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getComments(), n2.getComments())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(PackageDeclaration n1, Node arg) {
-		PackageDeclaration n2 = (PackageDeclaration) arg;
+		return Boolean.valueOf(isEqual(n1, (PackageDeclaration) arg));
+	}
+
+	private boolean isEqual(PackageDeclaration n1, PackageDeclaration n2) {
+		if (!sizeEquals(n1.getAnnotations(), n2.getAnnotations())) {
+			return false;
+		}
 		if (!nodeEquals(n1.getName(), n2.getName())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getAnnotations(), n2.getAnnotations())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(ImportDeclaration n1, Node arg) {
-		ImportDeclaration n2 = (ImportDeclaration) arg;
+		return Boolean.valueOf(isEqual(n1, (ImportDeclaration) arg));
+	}
+
+	private boolean isEqual(ImportDeclaration n1, ImportDeclaration n2) {
 		if (!nodeEquals(n1.getName(), n2.getName())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(TypeParameter n1, Node arg) {
-		TypeParameter n2 = (TypeParameter) arg;
+		return Boolean.valueOf(isEqual(n1, (TypeParameter) arg));
+	}
+
+	private boolean isEqual(TypeParameter n1, TypeParameter n2) {
 		if (!objEquals(n1.getName(), n2.getName())) {
-			return Boolean.FALSE;
+			return false;
+		}
+		if (!sizeEquals(n1.getTypeBound(), n2.getTypeBound())) {
+			return false;
+		}
+		if (!sizeEquals(n1.getAnnotations(), n2.getAnnotations())) {
+			return false;
 		}
 		if (!nodesEquals(n1.getTypeBound(), n2.getTypeBound())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getAnnotations(), n2.getAnnotations())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(LineComment n1, Node arg) {
-		LineComment n2 = (LineComment) arg;
+		return Boolean.valueOf(isEqual(n1, (LineComment) arg));
+	}
+
+	private boolean isEqual(LineComment n1, LineComment n2) {
 		if (!objEquals(n1.getContent(), n2.getContent())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(BlockComment n1, Node arg) {
-		BlockComment n2 = (BlockComment) arg;
+		return Boolean.valueOf(isEqual(n1, (BlockComment) arg));
+	}
+
+	private boolean isEqual(BlockComment n1, BlockComment n2) {
 		if (!objEquals(n1.getContent(), n2.getContent())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(ClassOrInterfaceDeclaration n1, Node arg) {
-		ClassOrInterfaceDeclaration n2 = (ClassOrInterfaceDeclaration) arg;
+		return Boolean.valueOf(isEqual(n1, (ClassOrInterfaceDeclaration) arg));
+	}
+
+	private boolean isEqual(ClassOrInterfaceDeclaration n1, ClassOrInterfaceDeclaration n2) {
 		if (n1.getModifiers() != n2.getModifiers()) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (n1.isInterface() != n2.isInterface()) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!objEquals(n1.getName(), n2.getName())) {
-			return Boolean.FALSE;
+			return false;
+		}
+		if (!sizeEquals(n1.getAnnotations(), n2.getAnnotations())) {
+			return false;
+		}
+		if (!sizeEquals(n1.getTypeParameters(), n2.getTypeParameters())) {
+			return false;
+		}
+		if (!sizeEquals(n1.getExtends(), n2.getExtends())) {
+			return false;
+		}
+		if (!sizeEquals(n1.getImplements(), n2.getImplements())) {
+			return false;
+		}
+		if (!sizeEquals(n1.getMembers(), n2.getMembers())) {
+			return false;
 		}
 		if (!nodesEquals(n1.getAnnotations(), n2.getAnnotations())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getTypeParameters(), n2.getTypeParameters())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getExtends(), n2.getExtends())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getImplements(), n2.getImplements())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getMembers(), n2.getMembers())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(EnumDeclaration n1, Node arg) {
-		EnumDeclaration n2 = (EnumDeclaration) arg;
+		return Boolean.valueOf(isEqual(n1, (EnumDeclaration) arg));
+	}
+
+	private boolean isEqual(EnumDeclaration n1, EnumDeclaration n2) {
 		if (n1.getModifiers() != n2.getModifiers()) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!objEquals(n1.getName(), n2.getName())) {
-			return Boolean.FALSE;
+			return false;
+		}
+		if (!sizeEquals(n1.getAnnotations(), n2.getAnnotations())) {
+			return false;
+		}
+		if (!sizeEquals(n1.getImplements(), n2.getImplements())) {
+			return false;
+		}
+		if (!sizeEquals(n1.getEntries(), n2.getEntries())) {
+			return false;
+		}
+		if (!sizeEquals(n1.getMembers(), n2.getMembers())) {
+			return false;
 		}
 		if (!nodesEquals(n1.getAnnotations(), n2.getAnnotations())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getImplements(), n2.getImplements())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getEntries(), n2.getEntries())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getMembers(), n2.getMembers())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(EmptyTypeDeclaration n1, Node arg) {
@@ -297,200 +503,286 @@ public class EqualsVisitor implements GenericVisitor<Boolean, Node> {
 	}
 
 	public Boolean visit(EnumConstantDeclaration n1, Node arg) {
-		EnumConstantDeclaration n2 = (EnumConstantDeclaration) arg;
+		return Boolean.valueOf(isEqual(n1, (EnumConstantDeclaration) arg));
+	}
+
+	private boolean isEqual(EnumConstantDeclaration n1, EnumConstantDeclaration n2) {
 		if (!objEquals(n1.getName(), n2.getName())) {
-			return Boolean.FALSE;
+			return false;
+		}
+		if (!sizeEquals(n1.getAnnotations(), n2.getAnnotations())) {
+			return false;
+		}
+		if (!sizeEquals(n1.getArgs(), n2.getArgs())) {
+			return false;
+		}
+		if (!sizeEquals(n1.getClassBody(), n2.getClassBody())) {
+			return false;
 		}
 		if (!nodesEquals(n1.getAnnotations(), n2.getAnnotations())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getArgs(), n2.getArgs())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getClassBody(), n2.getClassBody())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(AnnotationDeclaration n1, Node arg) {
-		AnnotationDeclaration n2 = (AnnotationDeclaration) arg;
+		return Boolean.valueOf(isEqual(n1, (AnnotationDeclaration) arg));
+	}
+
+	private boolean isEqual(AnnotationDeclaration n1, AnnotationDeclaration n2) {
 		if (n1.getModifiers() != n2.getModifiers()) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!objEquals(n1.getName(), n2.getName())) {
-			return Boolean.FALSE;
+			return false;
+		}
+		if (!sizeEquals(n1.getAnnotations(), n2.getAnnotations())) {
+			return false;
+		}
+		if (!sizeEquals(n1.getMembers(), n2.getMembers())) {
+			return false;
 		}
 		if (!nodesEquals(n1.getAnnotations(), n2.getAnnotations())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getMembers(), n2.getMembers())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(AnnotationMemberDeclaration n1, Node arg) {
-		AnnotationMemberDeclaration n2 = (AnnotationMemberDeclaration) arg;
+		return Boolean.valueOf(isEqual(n1, (AnnotationMemberDeclaration) arg));
+	}
+
+	private boolean isEqual(AnnotationMemberDeclaration n1, AnnotationMemberDeclaration n2) {
 		if (n1.getModifiers() != n2.getModifiers()) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!objEquals(n1.getName(), n2.getName())) {
-			return Boolean.FALSE;
+			return false;
+		}
+		if (!sizeEquals(n1.getAnnotations(), n2.getAnnotations())) {
+			return false;
 		}
 		if (!nodesEquals(n1.getAnnotations(), n2.getAnnotations())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getDefaultValue(), n2.getDefaultValue())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getType(), n2.getType())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(FieldDeclaration n1, Node arg) {
-		FieldDeclaration n2 = (FieldDeclaration) arg;
+		return Boolean.valueOf(isEqual(n1, (FieldDeclaration) arg));
+	}
+
+	private boolean isEqual(FieldDeclaration n1, FieldDeclaration n2) {
 		if (n1.getModifiers() != n2.getModifiers()) {
-			return Boolean.FALSE;
+			return false;
+		}
+		if (!sizeEquals(n1.getAnnotations(), n2.getAnnotations())) {
+			return false;
+		}
+		if (!sizeEquals(n1.getVariables(), n2.getVariables())) {
+			return false;
 		}
 		if (!nodesEquals(n1.getAnnotations(), n2.getAnnotations())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getType(), n2.getType())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getVariables(), n2.getVariables())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(VariableDeclarator n1, Node arg) {
-		VariableDeclarator n2 = (VariableDeclarator) arg;
+		return Boolean.valueOf(isEqual(n1, (VariableDeclarator) arg));
+	}
+
+	private boolean isEqual(VariableDeclarator n1, VariableDeclarator n2) {
 		if (!nodeEquals(n1.getId(), n2.getId())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getInit(), n2.getInit())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(VariableDeclaratorId n1, Node arg) {
-		VariableDeclaratorId n2 = (VariableDeclaratorId) arg;
+		return Boolean.valueOf(isEqual(n1, (VariableDeclaratorId) arg));
+	}
+
+	private boolean isEqual(VariableDeclaratorId n1, VariableDeclaratorId n2) {
 		if (n1.getArrayCount() != n2.getArrayCount()) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!objEquals(n1.getName(), n2.getName())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(ConstructorDeclaration n1, Node arg) {
-		ConstructorDeclaration n2 = (ConstructorDeclaration) arg;
+		return Boolean.valueOf(isEqual(n1, (ConstructorDeclaration) arg));
+	}
+
+	private boolean isEqual(ConstructorDeclaration n1, ConstructorDeclaration n2) {
 		if (n1.getModifiers() != n2.getModifiers()) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!objEquals(n1.getName(), n2.getName())) {
-			return Boolean.FALSE;
+			return false;
+		}
+		if (!sizeEquals(n1.getAnnotations(), n2.getAnnotations())) {
+			return false;
+		}
+		if (!sizeEquals(n1.getParameters(), n2.getParameters())) {
+			return false;
+		}
+		if (!sizeEquals(n1.getThrows(), n2.getThrows())) {
+			return false;
+		}
+		if (!sizeEquals(n1.getTypeParameters(), n2.getTypeParameters())) {
+			return false;
 		}
 		if (!nodesEquals(n1.getAnnotations(), n2.getAnnotations())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getBlock(), n2.getBlock())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getParameters(), n2.getParameters())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getThrows(), n2.getThrows())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getTypeParameters(), n2.getTypeParameters())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(MethodDeclaration n1, Node arg) {
-		MethodDeclaration n2 = (MethodDeclaration) arg;
+		return Boolean.valueOf(isEqual(n1, (MethodDeclaration) arg));
+	}
+
+	private boolean isEqual(MethodDeclaration n1, MethodDeclaration n2) {
 		if (n1.getModifiers() != n2.getModifiers()) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (n1.getArrayCount() != n2.getArrayCount()) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!objEquals(n1.getName(), n2.getName())) {
-			return Boolean.FALSE;
+			return false;
+		}
+		if (n1.isDefault() != n2.isDefault()) {
+			return false;
+		}
+		if (!sizeEquals(n1.getAnnotations(), n2.getAnnotations())) {
+			return false;
+		}
+		if (!sizeEquals(n1.getParameters(), n2.getParameters())) {
+			return false;
+		}
+		if (!sizeEquals(n1.getThrows(), n2.getThrows())) {
+			return false;
+		}
+		if (!sizeEquals(n1.getTypeParameters(), n2.getTypeParameters())) {
+			return false;
 		}
 		if (!nodeEquals(n1.getType(), n2.getType())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getAnnotations(), n2.getAnnotations())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getBody(), n2.getBody())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getParameters(), n2.getParameters())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getThrows(), n2.getThrows())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getTypeParameters(), n2.getTypeParameters())) {
-			return Boolean.FALSE;
-		}
-		if (n1.isDefault() != n2.isDefault()) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	@Override
 	public Boolean visit(final Parameter n1, final Node arg) {
-		final Parameter n2 = (Parameter) arg;
+		return Boolean.valueOf(isEqual(n1, (Parameter) arg));
+	}
+
+	private boolean isEqual(final Parameter n1, final Parameter n2) {
+		if (!isEqual((BaseParameter) n1, (BaseParameter) n2)) {
+			return false;
+		}
 		if (!nodeEquals(n1.getType(), n2.getType())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return visit((BaseParameter) n1, arg);
+		return true;
 	}
 
 	@Override
 	public Boolean visit(MultiTypeParameter n1, Node arg) {
-		MultiTypeParameter n2 = (MultiTypeParameter) arg;
-		if (n1.getTypes().size() != n2.getTypes().size()) {
-			return Boolean.FALSE;
+		return Boolean.valueOf(isEqual(n1, (MultiTypeParameter) arg));
+	}
+
+	private boolean isEqual(MultiTypeParameter n1, MultiTypeParameter n2) {
+		if (!sizeEquals(n1.getTypes(), n2.getTypes())) {
+			return false;
+		}
+		if (!isEqual((BaseParameter) n1, (BaseParameter) n2)) {
+			return false;
 		}
 		Iterator<Type> n1types = n1.getTypes().iterator();
 		Iterator<Type> n2types = n2.getTypes().iterator();
 		while (n1types.hasNext() && n2types.hasNext()) {
 			if (!nodeEquals(n1types.next(), n2types.next())) {
-				return Boolean.FALSE;
+				return false;
 			}
 		}
-		return visit((BaseParameter) n1, arg);
+		return true;
 	}
 
 	protected Boolean visit(final BaseParameter n1, final Node arg) {
-		final BaseParameter n2 = (BaseParameter) arg;
+		return Boolean.valueOf(isEqual(n1, (BaseParameter) arg));
+	}
 
+	private boolean isEqual(final BaseParameter n1, final BaseParameter n2) {
 		if (n1.getModifiers() != n2.getModifiers()) {
-			return Boolean.FALSE;
+			return false;
+		}
+		if (!sizeEquals(n1.getAnnotations(), n2.getAnnotations())) {
+			return false;
 		}
-
 		if (!nodeEquals(n1.getId(), n2.getId())) {
-			return Boolean.FALSE;
+			return false;
 		}
-
 		if (!nodesEquals(n1.getAnnotations(), n2.getAnnotations())) {
-			return Boolean.FALSE;
+			return false;
 		}
-
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(EmptyMemberDeclaration n1, Node arg) {
@@ -498,316 +790,385 @@ public class EqualsVisitor implements GenericVisitor<Boolean, Node> {
 	}
 
 	public Boolean visit(InitializerDeclaration n1, Node arg) {
-		InitializerDeclaration n2 = (InitializerDeclaration) arg;
+		return Boolean.valueOf(isEqual(n1, (InitializerDeclaration) arg));
+	}
+
+	private boolean isEqual(InitializerDeclaration n1, InitializerDeclaration n2) {
+		if (!sizeEquals(n1.getAnnotations(), n2.getAnnotations())) {
+			return false;
+		}
 		if (!nodeEquals(n1.getBlock(), n2.getBlock())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getAnnotations(), n2.getAnnotations())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(JavadocComment n1, Node arg) {
-		JavadocComment n2 = (JavadocComment) arg;
+		return Boolean.valueOf(isEqual(n1, (JavadocComment) arg));
+	}
+
+	private boolean isEqual(JavadocComment n1, JavadocComment n2) {
 		if (!objEquals(n1.getContent(), n2.getContent())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(ClassOrInterfaceType n1, Node arg) {
-		ClassOrInterfaceType n2 = (ClassOrInterfaceType) arg;
+		return Boolean.valueOf(isEqual(n1, (ClassOrInterfaceType) arg));
+	}
+
+	private boolean isEqual(ClassOrInterfaceType n1, ClassOrInterfaceType n2) {
 		if (!objEquals(n1.getName(), n2.getName())) {
-			return Boolean.FALSE;
+			return false;
+		}
+		if (!sizeEquals(n1.getTypeArgs(), n2.getTypeArgs())) {
+			return false;
+		}
+		if (!sizeEquals(n1.getAnnotations(), n2.getAnnotations())) {
+			return false;
 		}
 		if (!nodeEquals(n1.getScope(), n2.getScope())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getTypeArgs(), n2.getTypeArgs())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getAnnotations(), n2.getAnnotations())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(PrimitiveType n1, Node arg) {
-		PrimitiveType n2 = (PrimitiveType) arg;
+		return Boolean.valueOf(isEqual(n1, (PrimitiveType) arg));
+	}
+
+	private boolean isEqual(PrimitiveType n1, PrimitiveType n2) {
 		if (n1.getType() != n2.getType()) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getAnnotations(), n2.getAnnotations())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(ReferenceType n1, Node arg) {
-		ReferenceType n2 = (ReferenceType) arg;
+		return Boolean.valueOf(isEqual(n1, (ReferenceType) arg));
+	}
+
+	private boolean isEqual(ReferenceType n1, ReferenceType n2) {
 		if (n1.getArrayCount() != n2.getArrayCount()) {
-			return Boolean.FALSE;
+			return false;
+		}
+		if (!arraysAnnotationsEquals(n1.getArraysAnnotations(), n2.getArraysAnnotations())) {
+			return false;
+		}
+		if (!sizeEquals(n1.getAnnotations(), n2.getAnnotations())) {
+			return false;
 		}
 		if (!nodeEquals(n1.getType(), n2.getType())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getAnnotations(), n2.getAnnotations())) {
-			return Boolean.FALSE;
-		}
-		List<List<AnnotationExpr>> n1a = n1.getArraysAnnotations();
-		List<List<AnnotationExpr>> n2a = n2.getArraysAnnotations();
-
-		if (n1a != null && n2a != null) {
-			if (n1a.size() != n2a.size()) {
-				return Boolean.FALSE;
-			} else {
-				int i = 0;
-				for (List<AnnotationExpr> aux : n1a) {
-					if (!nodesEquals(aux, n2a.get(i))) {
-						return Boolean.FALSE;
-					}
-					i++;
-				}
-			}
-		} else if (n1a != n2a) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(VoidType n1, Node arg) {
-		VoidType n2 = (VoidType) arg;
+		return Boolean.valueOf(isEqual(n1, (VoidType) arg));
+	}
+
+	private boolean isEqual(VoidType n1, VoidType n2) {
 		if (!nodesEquals(n1.getAnnotations(), n2.getAnnotations())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(WildcardType n1, Node arg) {
-		WildcardType n2 = (WildcardType) arg;
+		return Boolean.valueOf(isEqual(n1, (WildcardType) arg));
+	}
+
+	private boolean isEqual(WildcardType n1, WildcardType n2) {
+		if (!sizeEquals(n1.getAnnotations(), n2.getAnnotations())) {
+			return false;
+		}
 		if (!nodeEquals(n1.getExtends(), n2.getExtends())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getSuper(), n2.getSuper())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getAnnotations(), n2.getAnnotations())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(ArrayAccessExpr n1, Node arg) {
-		ArrayAccessExpr n2 = (ArrayAccessExpr) arg;
+		return Boolean.valueOf(isEqual(n1, (ArrayAccessExpr) arg));
+	}
+
+	private boolean isEqual(ArrayAccessExpr n1, ArrayAccessExpr n2) {
 		if (!nodeEquals(n1.getName(), n2.getName())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getIndex(), n2.getIndex())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(ArrayCreationExpr n1, Node arg) {
-		ArrayCreationExpr n2 = (ArrayCreationExpr) arg;
+		return Boolean.valueOf(isEqual(n1, (ArrayCreationExpr) arg));
+	}
+
+	private boolean isEqual(ArrayCreationExpr n1, ArrayCreationExpr n2) {
 		if (n1.getArrayCount() != n2.getArrayCount()) {
-			return Boolean.FALSE;
+			return false;
+		}
+		if (!arraysAnnotationsEquals(n1.getArraysAnnotations(), n2.getArraysAnnotations())) {
+			return false;
+		}
+		if (!sizeEquals(n1.getDimensions(), n2.getDimensions())) {
+			return false;
 		}
 		if (!nodeEquals(n1.getType(), n2.getType())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getInitializer(), n2.getInitializer())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getDimensions(), n2.getDimensions())) {
-			return Boolean.FALSE;
-		}
-		List<List<AnnotationExpr>> n1a = n1.getArraysAnnotations();
-		List<List<AnnotationExpr>> n2a = n2.getArraysAnnotations();
-
-		if (n1a != null && n2a != null) {
-			if (n1a.size() != n2a.size()) {
-				return Boolean.FALSE;
-			} else {
-				int i = 0;
-				for (List<AnnotationExpr> aux : n1a) {
-					if (!nodesEquals(aux, n2a.get(i))) {
-						return Boolean.FALSE;
-					}
-					i++;
-				}
-			}
-		} else if (n1a != n2a) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(ArrayInitializerExpr n1, Node arg) {
-		ArrayInitializerExpr n2 = (ArrayInitializerExpr) arg;
+		return Boolean.valueOf(isEqual(n1, (ArrayInitializerExpr) arg));
+	}
+
+	private boolean isEqual(ArrayInitializerExpr n1, ArrayInitializerExpr n2) {
 		if (!nodesEquals(n1.getValues(), n2.getValues())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(AssignExpr n1, Node arg) {
-		AssignExpr n2 = (AssignExpr) arg;
+		return Boolean.valueOf(isEqual(n1, (AssignExpr) arg));
+	}
+
+	private boolean isEqual(AssignExpr n1, AssignExpr n2) {
 		if (n1.getOperator() != n2.getOperator()) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getTarget(), n2.getTarget())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getValue(), n2.getValue())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(BinaryExpr n1, Node arg) {
-		BinaryExpr n2 = (BinaryExpr) arg;
+		return Boolean.valueOf(isEqual(n1, (BinaryExpr) arg));
+	}
+
+	private boolean isEqual(BinaryExpr n1, BinaryExpr n2) {
 		if (n1.getOperator() != n2.getOperator()) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getLeft(), n2.getLeft())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getRight(), n2.getRight())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(CastExpr n1, Node arg) {
-		CastExpr n2 = (CastExpr) arg;
+		return Boolean.valueOf(isEqual(n1, (CastExpr) arg));
+	}
+
+	private boolean isEqual(CastExpr n1, CastExpr n2) {
 		if (!nodeEquals(n1.getType(), n2.getType())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getExpr(), n2.getExpr())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(ClassExpr n1, Node arg) {
-		ClassExpr n2 = (ClassExpr) arg;
+		return Boolean.valueOf(isEqual(n1, (ClassExpr) arg));
+	}
+
+	private boolean isEqual(ClassExpr n1, ClassExpr n2) {
 		if (!nodeEquals(n1.getType(), n2.getType())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(ConditionalExpr n1, Node arg) {
-		ConditionalExpr n2 = (ConditionalExpr) arg;
+		return Boolean.valueOf(isEqual(n1, (ConditionalExpr) arg));
+	}
+
+	private boolean isEqual(ConditionalExpr n1, ConditionalExpr n2) {
 		if (!nodeEquals(n1.getCondition(), n2.getCondition())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getThenExpr(), n2.getThenExpr())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getElseExpr(), n2.getElseExpr())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(EnclosedExpr n1, Node arg) {
-		EnclosedExpr n2 = (EnclosedExpr) arg;
+		return Boolean.valueOf(isEqual(n1, (EnclosedExpr) arg));
+	}
+
+	private boolean isEqual(EnclosedExpr n1, EnclosedExpr n2) {
 		if (!nodeEquals(n1.getInner(), n2.getInner())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(FieldAccessExpr n1, Node arg) {
-		FieldAccessExpr n2 = (FieldAccessExpr) arg;
-		if (!nodeEquals(n1.getScope(), n2.getScope())) {
-			return Boolean.FALSE;
-		}
+		return Boolean.valueOf(isEqual(n1, (FieldAccessExpr) arg));
+	}
+
+	private boolean isEqual(FieldAccessExpr n1, FieldAccessExpr n2) {
 		if (!objEquals(n1.getField(), n2.getField())) {
-			return Boolean.FALSE;
+			return false;
+		}
+		if (!sizeEquals(n1.getTypeArgs(), n2.getTypeArgs())) {
+			return false;
+		}
+		if (!nodeEquals(n1.getScope(), n2.getScope())) {
+			return false;
 		}
 		if (!nodesEquals(n1.getTypeArgs(), n2.getTypeArgs())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(InstanceOfExpr n1, Node arg) {
-		InstanceOfExpr n2 = (InstanceOfExpr) arg;
+		return Boolean.valueOf(isEqual(n1, (InstanceOfExpr) arg));
+	}
+
+	private boolean isEqual(InstanceOfExpr n1, InstanceOfExpr n2) {
 		if (!nodeEquals(n1.getExpr(), n2.getExpr())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getType(), n2.getType())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(StringLiteralExpr n1, Node arg) {
-		StringLiteralExpr n2 = (StringLiteralExpr) arg;
+		return Boolean.valueOf(isEqual(n1, (StringLiteralExpr) arg));
+	}
+
+	private boolean isEqual(StringLiteralExpr n1, StringLiteralExpr n2) {
 		if (!objEquals(n1.getValue(), n2.getValue())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(IntegerLiteralExpr n1, Node arg) {
-		IntegerLiteralExpr n2 = (IntegerLiteralExpr) arg;
+		return Boolean.valueOf(isEqual(n1, (IntegerLiteralExpr) arg));
+	}
+
+	private boolean isEqual(IntegerLiteralExpr n1, IntegerLiteralExpr n2) {
 		if (!objEquals(n1.getValue(), n2.getValue())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(LongLiteralExpr n1, Node arg) {
-		LongLiteralExpr n2 = (LongLiteralExpr) arg;
+		return Boolean.valueOf(isEqual(n1, (LongLiteralExpr) arg));
+	}
+
+	private boolean isEqual(LongLiteralExpr n1, LongLiteralExpr n2) {
 		if (!objEquals(n1.getValue(), n2.getValue())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(IntegerLiteralMinValueExpr n1, Node arg) {
-		IntegerLiteralMinValueExpr n2 = (IntegerLiteralMinValueExpr) arg;
+		return Boolean.valueOf(isEqual(n1, (IntegerLiteralMinValueExpr) arg));
+	}
+
+	private boolean isEqual(IntegerLiteralMinValueExpr n1, IntegerLiteralMinValueExpr n2) {
 		if (!objEquals(n1.getValue(), n2.getValue())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(LongLiteralMinValueExpr n1, Node arg) {
-		LongLiteralMinValueExpr n2 = (LongLiteralMinValueExpr) arg;
+		return Boolean.valueOf(isEqual(n1, (LongLiteralMinValueExpr) arg));
+	}
+
+	private boolean isEqual(LongLiteralMinValueExpr n1, LongLiteralMinValueExpr n2) {
 		if (!objEquals(n1.getValue(), n2.getValue())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(CharLiteralExpr n1, Node arg) {
-		CharLiteralExpr n2 = (CharLiteralExpr) arg;
+		return Boolean.valueOf(isEqual(n1, (CharLiteralExpr) arg));
+	}
+
+	private boolean isEqual(CharLiteralExpr n1, CharLiteralExpr n2) {
 		if (!objEquals(n1.getValue(), n2.getValue())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(DoubleLiteralExpr n1, Node arg) {
-		DoubleLiteralExpr n2 = (DoubleLiteralExpr) arg;
+		return Boolean.valueOf(isEqual(n1, (DoubleLiteralExpr) arg));
+	}
+
+	private boolean isEqual(DoubleLiteralExpr n1, DoubleLiteralExpr n2) {
 		if (!objEquals(n1.getValue(), n2.getValue())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(BooleanLiteralExpr n1, Node arg) {
-		BooleanLiteralExpr n2 = (BooleanLiteralExpr) arg;
+		return Boolean.valueOf(isEqual(n1, (BooleanLiteralExpr) arg));
+	}
+
+	private boolean isEqual(BooleanLiteralExpr n1, BooleanLiteralExpr n2) {
 		if (n1.getValue() != n2.getValue()) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(NullLiteralExpr n1, Node arg) {
@@ -815,193 +1176,274 @@ public class EqualsVisitor implements GenericVisitor<Boolean, Node> {
 	}
 
 	public Boolean visit(MethodCallExpr n1, Node arg) {
-		MethodCallExpr n2 = (MethodCallExpr) arg;
-		if (!nodeEquals(n1.getScope(), n2.getScope())) {
-			return Boolean.FALSE;
-		}
+		return Boolean.valueOf(isEqual(n1, (MethodCallExpr) arg));
+	}
+
+	private boolean isEqual(MethodCallExpr n1, MethodCallExpr n2) {
 		if (!objEquals(n1.getName(), n2.getName())) {
-			return Boolean.FALSE;
+			return false;
+		}
+		if (!sizeEquals(n1.getArgs(), n2.getArgs())) {
+			return false;
+		}
+		if (!sizeEquals(n1.getTypeArgs(), n2.getTypeArgs())) {
+			return false;
+		}
+		if (!nodeEquals(n1.getScope(), n2.getScope())) {
+			return false;
 		}
 		if (!nodesEquals(n1.getArgs(), n2.getArgs())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getTypeArgs(), n2.getTypeArgs())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(NameExpr n1, Node arg) {
-		NameExpr n2 = (NameExpr) arg;
+		return Boolean.valueOf(isEqual(n1, (NameExpr) arg));
+	}
+
+	private boolean isEqual(NameExpr n1, NameExpr n2) {
 		if (!objEquals(n1.getName(), n2.getName())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(ObjectCreationExpr n1, Node arg) {
-		ObjectCreationExpr n2 = (ObjectCreationExpr) arg;
+		return Boolean.valueOf(isEqual(n1, (ObjectCreationExpr) arg));
+	}
+
+	private boolean isEqual(ObjectCreationExpr n1, ObjectCreationExpr n2) {
+		if (!sizeEquals(n1.getAnonymousClassBody(), n2.getAnonymousClassBody())) {
+			return false;
+		}
+		if (!sizeEquals(n1.getArgs(), n2.getArgs())) {
+			return false;
+		}
+		if (!sizeEquals(n1.getTypeArgs(), n2.getTypeArgs())) {
+			return false;
+		}
 		if (!nodeEquals(n1.getScope(), n2.getScope())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getType(), n2.getType())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getAnonymousClassBody(), n2.getAnonymousClassBody())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getArgs(), n2.getArgs())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getTypeArgs(), n2.getTypeArgs())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(QualifiedNameExpr n1, Node arg) {
-		QualifiedNameExpr n2 = (QualifiedNameExpr) arg;
-		if (!nodeEquals(n1.getQualifier(), n2.getQualifier())) {
-			return Boolean.FALSE;
-		}
+		return Boolean.valueOf(isEqual(n1, (QualifiedNameExpr) arg));
+	}
+
+	private boolean isEqual(QualifiedNameExpr n1, QualifiedNameExpr n2) {
 		if (!objEquals(n1.getName(), n2.getName())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		if (!nodeEquals(n1.getQualifier(), n2.getQualifier())) {
+			return false;
+		}
+		return true;
 	}
 
 	public Boolean visit(ThisExpr n1, Node arg) {
-		ThisExpr n2 = (ThisExpr) arg;
+		return Boolean.valueOf(isEqual(n1, (ThisExpr) arg));
+	}
+
+	private boolean isEqual(ThisExpr n1, ThisExpr n2) {
 		if (!nodeEquals(n1.getClassExpr(), n2.getClassExpr())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(SuperExpr n1, Node arg) {
-		SuperExpr n2 = (SuperExpr) arg;
+		return Boolean.valueOf(isEqual(n1, (SuperExpr) arg));
+	}
+
+	private boolean isEqual(SuperExpr n1, SuperExpr n2) {
 		if (!nodeEquals(n1.getClassExpr(), n2.getClassExpr())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(UnaryExpr n1, Node arg) {
-		UnaryExpr n2 = (UnaryExpr) arg;
+		return Boolean.valueOf(isEqual(n1, (UnaryExpr) arg));
+	}
+
+	private boolean isEqual(UnaryExpr n1, UnaryExpr n2) {
 		if (n1.getOperator() != n2.getOperator()) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getExpr(), n2.getExpr())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(VariableDeclarationExpr n1, Node arg) {
-		VariableDeclarationExpr n2 = (VariableDeclarationExpr) arg;
+		return Boolean.valueOf(isEqual(n1, (VariableDeclarationExpr) arg));
+	}
+
+	private boolean isEqual(VariableDeclarationExpr n1, VariableDeclarationExpr n2) {
 		if (n1.getModifiers() != n2.getModifiers()) {
-			return Boolean.FALSE;
+			return false;
+		}
+		if (!sizeEquals(n1.getAnnotations(), n2.getAnnotations())) {
+			return false;
+		}
+		if (!sizeEquals(n1.getVars(), n2.getVars())) {
+			return false;
 		}
 		if (!nodesEquals(n1.getAnnotations(), n2.getAnnotations())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getType(), n2.getType())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getVars(), n2.getVars())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(MarkerAnnotationExpr n1, Node arg) {
-		MarkerAnnotationExpr n2 = (MarkerAnnotationExpr) arg;
+		return Boolean.valueOf(isEqual(n1, (MarkerAnnotationExpr) arg));
+	}
+
+	private boolean isEqual(MarkerAnnotationExpr n1, MarkerAnnotationExpr n2) {
 		if (!nodeEquals(n1.getName(), n2.getName())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(SingleMemberAnnotationExpr n1, Node arg) {
-		SingleMemberAnnotationExpr n2 = (SingleMemberAnnotationExpr) arg;
+		return Boolean.valueOf(isEqual(n1, (SingleMemberAnnotationExpr) arg));
+	}
+
+	private boolean isEqual(SingleMemberAnnotationExpr n1, SingleMemberAnnotationExpr n2) {
 		if (!nodeEquals(n1.getName(), n2.getName())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getMemberValue(), n2.getMemberValue())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(NormalAnnotationExpr n1, Node arg) {
-		NormalAnnotationExpr n2 = (NormalAnnotationExpr) arg;
+		return Boolean.valueOf(isEqual(n1, (NormalAnnotationExpr) arg));
+	}
+
+	private boolean isEqual(NormalAnnotationExpr n1, NormalAnnotationExpr n2) {
+		if (!sizeEquals(n1.getPairs(), n2.getPairs())) {
+			return false;
+		}
 		if (!nodeEquals(n1.getName(), n2.getName())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getPairs(), n2.getPairs())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(MemberValuePair n1, Node arg) {
-		MemberValuePair n2 = (MemberValuePair) arg;
+		return Boolean.valueOf(isEqual(n1, (MemberValuePair) arg));
+	}
+
+	private boolean isEqual(MemberValuePair n1, MemberValuePair n2) {
 		if (!objEquals(n1.getName(), n2.getName())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getValue(), n2.getValue())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(ExplicitConstructorInvocationStmt n1, Node arg) {
-		ExplicitConstructorInvocationStmt n2 = (ExplicitConstructorInvocationStmt) arg;
+		return Boolean.valueOf(isEqual(n1, (ExplicitConstructorInvocationStmt) arg));
+	}
+
+	private boolean isEqual(ExplicitConstructorInvocationStmt n1, ExplicitConstructorInvocationStmt n2) {
+		if (!sizeEquals(n1.getArgs(), n2.getArgs())) {
+			return false;
+		}
+		if (!sizeEquals(n1.getTypeArgs(), n2.getTypeArgs())) {
+			return false;
+		}
 		if (!nodeEquals(n1.getExpr(), n2.getExpr())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getArgs(), n2.getArgs())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getTypeArgs(), n2.getTypeArgs())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(TypeDeclarationStmt n1, Node arg) {
-		TypeDeclarationStmt n2 = (TypeDeclarationStmt) arg;
+		return Boolean.valueOf(isEqual(n1, (TypeDeclarationStmt) arg));
+	}
+
+	private boolean isEqual(TypeDeclarationStmt n1, TypeDeclarationStmt n2) {
 		if (!nodeEquals(n1.getTypeDeclaration(), n2.getTypeDeclaration())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(AssertStmt n1, Node arg) {
-		AssertStmt n2 = (AssertStmt) arg;
+		return Boolean.valueOf(isEqual(n1, (AssertStmt) arg));
+	}
+
+	private boolean isEqual(AssertStmt n1, AssertStmt n2) {
 		if (!nodeEquals(n1.getCheck(), n2.getCheck())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getMessage(), n2.getMessage())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(BlockStmt n1, Node arg) {
-		BlockStmt n2 = (BlockStmt) arg;
+		return Boolean.valueOf(isEqual(n1, (BlockStmt) arg));
+	}
+
+	private boolean isEqual(BlockStmt n1, BlockStmt n2) {
 		if (!nodesEquals(n1.getStmts(), n2.getStmts())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(LabeledStmt n1, Node arg) {
-		LabeledStmt n2 = (LabeledStmt) arg;
+		return Boolean.valueOf(isEqual(n1, (LabeledStmt) arg));
+	}
+
+	private boolean isEqual(LabeledStmt n1, LabeledStmt n2) {
 		if (!nodeEquals(n1.getStmt(), n2.getStmt())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(EmptyStmt n1, Node arg) {
@@ -1009,218 +1451,302 @@ public class EqualsVisitor implements GenericVisitor<Boolean, Node> {
 	}
 
 	public Boolean visit(ExpressionStmt n1, Node arg) {
-		ExpressionStmt n2 = (ExpressionStmt) arg;
+		return Boolean.valueOf(isEqual(n1, (ExpressionStmt) arg));
+	}
+
+	private boolean isEqual(ExpressionStmt n1, ExpressionStmt n2) {
 		if (!nodeEquals(n1.getExpression(), n2.getExpression())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(SwitchStmt n1, Node arg) {
-		SwitchStmt n2 = (SwitchStmt) arg;
+		return Boolean.valueOf(isEqual(n1, (SwitchStmt) arg));
+	}
+
+	private boolean isEqual(SwitchStmt n1, SwitchStmt n2) {
+		if (!sizeEquals(n1.getEntries(), n2.getEntries())) {
+			return false;
+		}
 		if (!nodeEquals(n1.getSelector(), n2.getSelector())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getEntries(), n2.getEntries())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(SwitchEntryStmt n1, Node arg) {
-		SwitchEntryStmt n2 = (SwitchEntryStmt) arg;
+		return Boolean.valueOf(isEqual(n1, (SwitchEntryStmt) arg));
+	}
+
+	private boolean isEqual(SwitchEntryStmt n1, SwitchEntryStmt n2) {
+		if (!sizeEquals(n1.getStmts(), n2.getStmts())) {
+			return false;
+		}
 		if (!nodeEquals(n1.getLabel(), n2.getLabel())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getStmts(), n2.getStmts())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(BreakStmt n1, Node arg) {
-		BreakStmt n2 = (BreakStmt) arg;
+		return Boolean.valueOf(isEqual(n1, (BreakStmt) arg));
+	}
+
+	private boolean isEqual(BreakStmt n1, BreakStmt n2) {
 		if (!objEquals(n1.getId(), n2.getId())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(ReturnStmt n1, Node arg) {
-		ReturnStmt n2 = (ReturnStmt) arg;
+		return Boolean.valueOf(isEqual(n1, (ReturnStmt) arg));
+	}
+
+	private boolean isEqual(ReturnStmt n1, ReturnStmt n2) {
 		if (!nodeEquals(n1.getExpr(), n2.getExpr())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(IfStmt n1, Node arg) {
-		IfStmt n2 = (IfStmt) arg;
+		return Boolean.valueOf(isEqual(n1, (IfStmt) arg));
+	}
+
+	private boolean isEqual(IfStmt n1, IfStmt n2) {
 		if (!nodeEquals(n1.getCondition(), n2.getCondition())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getThenStmt(), n2.getThenStmt())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getElseStmt(), n2.getElseStmt())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(WhileStmt n1, Node arg) {
-		WhileStmt n2 = (WhileStmt) arg;
+		return Boolean.valueOf(isEqual(n1, (WhileStmt) arg));
+	}
+
+	private boolean isEqual(WhileStmt n1, WhileStmt n2) {
 		if (!nodeEquals(n1.getCondition(), n2.getCondition())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getBody(), n2.getBody())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(ContinueStmt n1, Node arg) {
-		ContinueStmt n2 = (ContinueStmt) arg;
+		return Boolean.valueOf(isEqual(n1, (ContinueStmt) arg));
+	}
+
+	private boolean isEqual(ContinueStmt n1, ContinueStmt n2) {
 		if (!objEquals(n1.getId(), n2.getId())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(DoStmt n1, Node arg) {
-		DoStmt n2 = (DoStmt) arg;
+		return Boolean.valueOf(isEqual(n1, (DoStmt) arg));
+	}
+
+	private boolean isEqual(DoStmt n1, DoStmt n2) {
 		if (!nodeEquals(n1.getBody(), n2.getBody())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getCondition(), n2.getCondition())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(ForeachStmt n1, Node arg) {
-		ForeachStmt n2 = (ForeachStmt) arg;
+		return Boolean.valueOf(isEqual(n1, (ForeachStmt) arg));
+	}
+
+	private boolean isEqual(ForeachStmt n1, ForeachStmt n2) {
 		if (!nodeEquals(n1.getVariable(), n2.getVariable())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getIterable(), n2.getIterable())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getBody(), n2.getBody())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(ForStmt n1, Node arg) {
-		ForStmt n2 = (ForStmt) arg;
+		return Boolean.valueOf(isEqual(n1, (ForStmt) arg));
+	}
+
+	private boolean isEqual(ForStmt n1, ForStmt n2) {
+		if (!sizeEquals(n1.getInit(), n2.getInit())) {
+			return false;
+		}
+		if (!sizeEquals(n1.getUpdate(), n2.getUpdate())) {
+			return false;
+		}
 		if (!nodesEquals(n1.getInit(), n2.getInit())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getCompare(), n2.getCompare())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getUpdate(), n2.getUpdate())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getBody(), n2.getBody())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(ThrowStmt n1, Node arg) {
-		ThrowStmt n2 = (ThrowStmt) arg;
+		return Boolean.valueOf(isEqual(n1, (ThrowStmt) arg));
+	}
+
+	private boolean isEqual(ThrowStmt n1, ThrowStmt n2) {
 		if (!nodeEquals(n1.getExpr(), n2.getExpr())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(SynchronizedStmt n1, Node arg) {
-		SynchronizedStmt n2 = (SynchronizedStmt) arg;
+		return Boolean.valueOf(isEqual(n1, (SynchronizedStmt) arg));
+	}
+
+	private boolean isEqual(SynchronizedStmt n1, SynchronizedStmt n2) {
 		if (!nodeEquals(n1.getExpr(), n2.getExpr())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getBlock(), n2.getBlock())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(TryStmt n1, Node arg) {
-		TryStmt n2 = (TryStmt) arg;
+		return Boolean.valueOf(isEqual(n1, (TryStmt) arg));
+	}
+
+	private boolean isEqual(TryStmt n1, TryStmt n2) {
+		if (!sizeEquals(n1.getCatchs(), n2.getCatchs())) {
+			return false;
+		}
 		if (!nodeEquals(n1.getTryBlock(), n2.getTryBlock())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getCatchs(), n2.getCatchs())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getFinallyBlock(), n2.getFinallyBlock())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	public Boolean visit(CatchClause n1, Node arg) {
-		CatchClause n2 = (CatchClause) arg;
+		return Boolean.valueOf(isEqual(n1, (CatchClause) arg));
+	}
+
+	private boolean isEqual(CatchClause n1, CatchClause n2) {
 		if (!nodeEquals(n1.getExcept(), n2.getExcept())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodeEquals(n1.getCatchBlock(), n2.getCatchBlock())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	@Override
 	public Boolean visit(LambdaExpr n1, Node arg) {
-		LambdaExpr n2 = (LambdaExpr) arg;
-		if (!nodesEquals(n1.getParameters(), n2.getParameters())) {
-			return Boolean.FALSE;
-		}
+		return Boolean.valueOf(isEqual(n1, (LambdaExpr) arg));
+	}
+
+	private boolean isEqual(LambdaExpr n1, LambdaExpr n2) {
 		if (n1.isParametersEnclosed() != n2.isParametersEnclosed()) {
-			return Boolean.FALSE;
+			return false;
+		}
+		if (!sizeEquals(n1.getParameters(), n2.getParameters())) {
+			return false;
+		}
+		if (!nodesEquals(n1.getParameters(), n2.getParameters())) {
+			return false;
 		}
 		if (!nodeEquals(n1.getBody(), n2.getBody())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	@Override
 	public Boolean visit(MethodReferenceExpr n1, Node arg) {
-		MethodReferenceExpr n2 = (MethodReferenceExpr) arg;
+		return Boolean.valueOf(isEqual(n1, (MethodReferenceExpr) arg));
+	}
+
+	private boolean isEqual(MethodReferenceExpr n1, MethodReferenceExpr n2) {
+		if (!objEquals(n1.getIdentifier(), n2.getIdentifier())) {
+			return false;
+		}
+		if (!sizeEquals(n1.getTypeParameters(), n2.getTypeParameters())) {
+			return false;
+		}
 		if (!nodeEquals(n1.getScope(), n2.getScope())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getTypeParameters(), n2.getTypeParameters())) {
-			return Boolean.FALSE;
-		}
-		if (!objEquals(n1.getIdentifier(), n2.getIdentifier())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	@Override
-	public Boolean visit(TypeExpr n, Node arg) {
-		TypeExpr n2 = (TypeExpr) arg;
-		if (!nodeEquals(n.getType(), n2.getType())) {
-			return Boolean.FALSE;
+	public Boolean visit(TypeExpr n1, Node arg) {
+		return Boolean.valueOf(isEqual(n1, (TypeExpr) arg));
+	}
+
+	private boolean isEqual(TypeExpr n1, TypeExpr n2) {
+		if (!nodeEquals(n1.getType(), n2.getType())) {
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 
 	@Override
 	public Boolean visit(IntersectionType n1, Node arg) {
-		IntersectionType n2 = (IntersectionType) arg;
+		return Boolean.valueOf(isEqual(n1, (IntersectionType) arg));
+	}
+
+	private boolean isEqual(IntersectionType n1, IntersectionType n2) {
+		if (!sizeEquals(n1.getAnnotations(), n2.getAnnotations())) {
+			return false;
+		}
+		if (!sizeEquals(n1.getBounds(), n2.getBounds())) {
+			return false;
+		}
 		if (!nodesEquals(n1.getAnnotations(), n2.getAnnotations())) {
-			return Boolean.FALSE;
+			return false;
 		}
 		if (!nodesEquals(n1.getBounds(), n2.getBounds())) {
-			return Boolean.FALSE;
+			return false;
 		}
-		return Boolean.TRUE;
+		return true;
 	}
 }
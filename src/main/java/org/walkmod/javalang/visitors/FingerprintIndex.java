@@ -0,0 +1,277 @@
+/* 
+  Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+ 
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang.visitors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.walkmod.javalang.ast.Node;
+import org.walkmod.javalang.ast.body.MethodDeclaration;
+import org.walkmod.javalang.ast.stmt.Statement;
+
+/**
+ * <p>
+ * Index of the methods, blocks and statements of a set of trees by their
+ * structural fingerprint, to find duplicated code without comparing every
+ * pair of nodes. Nodes with equal structure have the same fingerprint, so the
+ * clone candidates of a node are found with a single lookup.
+ * </p>
+ * <p>
+ * The fingerprint is the hash code of the node, which ignores its location,
+ * comments and javadoc. When identifiers are normalized, the names of
+ * variables, fields, methods and labels are not combined either, so nodes
+ * that only differ in those names share the same fingerprint. Then, the
+ * fingerprints are computed bottom-up once per node of each added tree.
+ * </p>
+ * <p>
+ * Different nodes can share a fingerprint, so candidates should be confirmed
+ * with {@link EqualsVisitor} when identifiers are not normalized.
+ * </p>
+ */
+public class FingerprintIndex {
+
+	private final boolean normalizeIdentifiers;
+
+	private final Map<Integer, List<Node>> index = new HashMap<Integer, List<Node>>();
+
+	private int size = 0;
+
+	/**
+	 * Creates an index of nodes by their structure, names included.
+	 */
+	public FingerprintIndex() {
+		this(false);
+	}
+
+	/**
+	 * Creates an index of nodes by their structure.
+	 * 
+	 * @param normalizeIdentifiers
+	 *            if the names of variables, fields, methods and labels are
+	 *            ignored
+	 */
+	public FingerprintIndex(boolean normalizeIdentifiers) {
+		this.normalizeIdentifiers = normalizeIdentifiers;
+	}
+
+	/**
+	 * Returns if the names of variables, fields, methods and labels are
+	 * ignored.
+	 * 
+	 * @return if the identifiers are normalized.
+	 */
+	public boolean isNormalizeIdentifiers() {
+		return normalizeIdentifiers;
+	}
+
+	/**
+	 * Computes the fingerprint of a node.
+	 * 
+	 * @param n
+	 *            the node to compute its fingerprint
+	 * @return the fingerprint of the node or 0 if it is <code>null</code>.
+	 */
+	public int fingerprint(Node n) {
+		if (n == null) {
+			return 0;
+		}
+		if (normalizeIdentifiers) {
+			return new Fingerprinter().fingerprint(n);
+		}
+		return n.hashCode();
+	}
+
+	/**
+	 * Adds all the methods, blocks and statements of a tree, the root
+	 * included.
+	 * 
+	 * @param root
+	 *            the tree to index
+	 */
+	public void add(Node root) {
+		if (root != null) {
+			Fingerprinter fingerprinter = normalizeIdentifiers ? new Fingerprinter()
+					: null;
+			new Collector(fingerprinter).walk(root, null);
+		}
+	}
+
+	private void put(int fingerprint, Node n) {
+		List<Node> nodes = index.get(fingerprint);
+		if (nodes == null) {
+			nodes = new LinkedList<Node>();
+			index.put(fingerprint, nodes);
+		}
+		nodes.add(n);
+		size++;
+	}
+
+	/**
+	 * Returns the indexed nodes that have the given fingerprint.
+	 * 
+	 * @param fingerprint
+	 *            the fingerprint to look up
+	 * @return the nodes, in the order that they were added.
+	 */
+	public List<Node> getNodes(int fingerprint) {
+		List<Node> nodes = index.get(fingerprint);
+		if (nodes == null) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(nodes);
+	}
+
+	/**
+	 * Returns the indexed nodes that have the same fingerprint than the given
+	 * node, which is not included in the result.
+	 * 
+	 * @param n
+	 *            the node to find its clone candidates
+	 * @return the clone candidates of the node.
+	 */
+	public List<Node> getCandidates(Node n) {
+		List<Node> candidates = new ArrayList<Node>(getNodes(fingerprint(n)));
+		for (int i = 0; i < candidates.size(); i++) {
+			if (candidates.get(i) == n) {
+				candidates.remove(i);
+				break;
+			}
+		}
+		return candidates;
+	}
+
+	/**
+	 * Returns the groups of indexed nodes that share their fingerprint with
+	 * another indexed node.
+	 * 
+	 * @return the groups of clone candidates.
+	 */
+	public List<List<Node>> getDuplicates() {
+		List<List<Node>> result = new LinkedList<List<Node>>();
+		for (List<Node> nodes : index.values()) {
+			if (nodes.size() > 1) {
+				result.add(Collections.unmodifiableList(nodes));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of indexed nodes.
+	 * 
+	 * @return the number of indexed nodes.
+	 */
+	public int size() {
+		return size;
+	}
+
+	private class Collector extends TreeWalker<Object> {
+
+		private final Fingerprinter fingerprinter;
+
+		public Collector(Fingerprinter fingerprinter) {
+			this.fingerprinter = fingerprinter;
+		}
+
+		@Override
+		protected boolean enter(Node n, Object arg) {
+			if (n instanceof MethodDeclaration || n instanceof Statement) {
+				put(fingerprinter != null ? fingerprinter.fingerprint(n) : n
+						.hashCode(), n);
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Computes the fingerprints with normalized identifiers of a tree,
+	 * remembering the fingerprint of each visited node.
+	 */
+	private static class Fingerprinter {
+
+		private final Map<Node, Integer> fingerprints = new IdentityHashMap<Node, Integer>();
+
+		private int depth;
+
+		int fingerprint(Node n) {
+			Integer fingerprint = fingerprints.get(n);
+			if (fingerprint == null) {
+				if (depth >= TreeWalker.MAX_RECURSION_DEPTH) {
+					fingerprintDescendantsIteratively(n);
+				}
+				NormalizedHashCodeVisitor visitor = new NormalizedHashCodeVisitor(
+						n, this);
+				depth++;
+				try {
+					n.accept(visitor, null);
+				} finally {
+					depth--;
+				}
+				fingerprint = visitor.getHash();
+				fingerprints.put(n, fingerprint);
+			}
+			return fingerprint;
+		}
+
+		private void fingerprintDescendantsIteratively(final Node n) {
+			int previous = depth;
+			depth = 0;
+			try {
+				new TreeWalker<Object>() {
+					@Override
+					protected boolean enter(Node child, Object arg) {
+						return child == n || !fingerprints.containsKey(child);
+					}
+
+					@Override
+					protected void leave(Node child, Object arg) {
+						if (child != n) {
+							fingerprint(child);
+						}
+					}
+				}.walk(n, null);
+			} finally {
+				depth = previous;
+			}
+		}
+	}
+
+	private static class NormalizedHashCodeVisitor extends HashCodeVisitor {
+
+		private final Fingerprinter fingerprinter;
+
+		public NormalizedHashCodeVisitor(Node n, Fingerprinter fingerprinter) {
+			super(n.getClass().getName().hashCode());
+			this.fingerprinter = fingerprinter;
+		}
+
+		@Override
+		int childHashCode(Node n) {
+			return fingerprinter.fingerprint(n);
+		}
+
+		@Override
+		void combineIdentifier(String name) {
+			// all the identifiers are equivalent
+			super.combineIdentifier(null);
+		}
+	}
+}
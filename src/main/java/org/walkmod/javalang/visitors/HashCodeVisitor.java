@@ -0,0 +1,764 @@
+/* 
+  Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+ 
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang.visitors;
+
+import java.util.List;
+
+import org.walkmod.javalang.ast.BlockComment;
+import org.walkmod.javalang.ast.CompilationUnit;
+import org.walkmod.javalang.ast.ImportDeclaration;
+import org.walkmod.javalang.ast.LineComment;
+import org.walkmod.javalang.ast.Node;
+import org.walkmod.javalang.ast.NodeList;
+import org.walkmod.javalang.ast.PackageDeclaration;
+import org.walkmod.javalang.ast.TypeParameter;
+import org.walkmod.javalang.ast.body.AnnotationDeclaration;
+import org.walkmod.javalang.ast.body.AnnotationMemberDeclaration;
+import org.walkmod.javalang.ast.body.BaseParameter;
+import org.walkmod.javalang.ast.body.ClassOrInterfaceDeclaration;
+import org.walkmod.javalang.ast.body.ConstructorDeclaration;
+import org.walkmod.javalang.ast.body.EmptyMemberDeclaration;
+import org.walkmod.javalang.ast.body.EmptyTypeDeclaration;
+import org.walkmod.javalang.ast.body.EnumConstantDeclaration;
+import org.walkmod.javalang.ast.body.EnumDeclaration;
+import org.walkmod.javalang.ast.body.FieldDeclaration;
+import org.walkmod.javalang.ast.body.InitializerDeclaration;
+import org.walkmod.javalang.ast.body.JavadocComment;
+import org.walkmod.javalang.ast.body.MethodDeclaration;
+import org.walkmod.javalang.ast.body.MultiTypeParameter;
+import org.walkmod.javalang.ast.body.Parameter;
+import org.walkmod.javalang.ast.body.VariableDeclarator;
+import org.walkmod.javalang.ast.body.VariableDeclaratorId;
+import org.walkmod.javalang.ast.expr.AnnotationExpr;
+import org.walkmod.javalang.ast.expr.ArrayAccessExpr;
+import org.walkmod.javalang.ast.expr.ArrayCreationExpr;
+import org.walkmod.javalang.ast.expr.ArrayInitializerExpr;
+import org.walkmod.javalang.ast.expr.AssignExpr;
+import org.walkmod.javalang.ast.expr.BinaryExpr;
+import org.walkmod.javalang.ast.expr.BooleanLiteralExpr;
+import org.walkmod.javalang.ast.expr.CastExpr;
+import org.walkmod.javalang.ast.expr.CharLiteralExpr;
+import org.walkmod.javalang.ast.expr.ClassExpr;
+import org.walkmod.javalang.ast.expr.ConditionalExpr;
+import org.walkmod.javalang.ast.expr.DoubleLiteralExpr;
+import org.walkmod.javalang.ast.expr.EnclosedExpr;
+import org.walkmod.javalang.ast.expr.FieldAccessExpr;
+import org.walkmod.javalang.ast.expr.InstanceOfExpr;
+import org.walkmod.javalang.ast.expr.IntegerLiteralExpr;
+import org.walkmod.javalang.ast.expr.IntegerLiteralMinValueExpr;
+import org.walkmod.javalang.ast.expr.LambdaExpr;
+import org.walkmod.javalang.ast.expr.LongLiteralExpr;
+import org.walkmod.javalang.ast.expr.LongLiteralMinValueExpr;
+import org.walkmod.javalang.ast.expr.MarkerAnnotationExpr;
+import org.walkmod.javalang.ast.expr.MemberValuePair;
+import org.walkmod.javalang.ast.expr.MethodCallExpr;
+import org.walkmod.javalang.ast.expr.MethodReferenceExpr;
+import org.walkmod.javalang.ast.expr.NameExpr;
+import org.walkmod.javalang.ast.expr.NormalAnnotationExpr;
+import org.walkmod.javalang.ast.expr.NullLiteralExpr;
+import org.walkmod.javalang.ast.expr.ObjectCreationExpr;
+import org.walkmod.javalang.ast.expr.QualifiedNameExpr;
+import org.walkmod.javalang.ast.expr.SingleMemberAnnotationExpr;
+import org.walkmod.javalang.ast.expr.StringLiteralExpr;
+import org.walkmod.javalang.ast.expr.SuperExpr;
+import org.walkmod.javalang.ast.expr.ThisExpr;
+import org.walkmod.javalang.ast.expr.TypeExpr;
+import org.walkmod.javalang.ast.expr.UnaryExpr;
+import org.walkmod.javalang.ast.expr.VariableDeclarationExpr;
+import org.walkmod.javalang.ast.stmt.AssertStmt;
+import org.walkmod.javalang.ast.stmt.BlockStmt;
+import org.walkmod.javalang.ast.stmt.BreakStmt;
+import org.walkmod.javalang.ast.stmt.CatchClause;
+import org.walkmod.javalang.ast.stmt.ContinueStmt;
+import org.walkmod.javalang.ast.stmt.DoStmt;
+import org.walkmod.javalang.ast.stmt.EmptyStmt;
+import org.walkmod.javalang.ast.stmt.ExplicitConstructorInvocationStmt;
+import org.walkmod.javalang.ast.stmt.ExpressionStmt;
+import org.walkmod.javalang.ast.stmt.ForStmt;
+import org.walkmod.javalang.ast.stmt.ForeachStmt;
+import org.walkmod.javalang.ast.stmt.IfStmt;
+import org.walkmod.javalang.ast.stmt.LabeledStmt;
+import org.walkmod.javalang.ast.stmt.ReturnStmt;
+import org.walkmod.javalang.ast.stmt.SwitchEntryStmt;
+import org.walkmod.javalang.ast.stmt.SwitchStmt;
+import org.walkmod.javalang.ast.stmt.SynchronizedStmt;
+import org.walkmod.javalang.ast.stmt.ThrowStmt;
+import org.walkmod.javalang.ast.stmt.TryStmt;
+import org.walkmod.javalang.ast.stmt.TypeDeclarationStmt;
+import org.walkmod.javalang.ast.stmt.WhileStmt;
+import org.walkmod.javalang.ast.type.IntersectionType;
+import org.walkmod.javalang.ast.type.ClassOrInterfaceType;
+import org.walkmod.javalang.ast.type.PrimitiveType;
+import org.walkmod.javalang.ast.type.ReferenceType;
+import org.walkmod.javalang.ast.type.VoidType;
+import org.walkmod.javalang.ast.type.WildcardType;
+
+/**
+ * Computes the structural hash code of a node without printing its source
+ * code. The hash is consistent with {@link EqualsVisitor}: it only combines
+ * the attributes that are compared to decide if two nodes are equal, so the
+ * positions, the data and the javadoc of the nodes are ignored. The hash code
+ * of each child is obtained through {@link Node#hashCode(int)}, so it is
+ * computed only once per node. A hash code can only be cached when the hash
+ * codes of the children are cached and the lists of the node are
+ * {@link NodeList}s owned by it, which notify their changes. The descendants deeper than
+ * {@link TreeWalker#MAX_RECURSION_DEPTH} are hashed bottom-up, so deep trees
+ * do not overflow the stack.
+ */
+public class HashCodeVisitor implements VoidVisitor<Object> {
+
+	/**
+	 * Hash code of the nodes whose computed hash code is 0, because 0 means
+	 * that the hash code of a node is not cached.
+	 */
+	private static final int ZERO_HASH = 0x9e3779b9;
+
+	private int hash;
+
+	private int depth;
+
+	private Node node;
+
+	private boolean cacheable = true;
+
+	/**
+	 * Computes the structural hash code of a node.
+	 * 
+	 * @param n
+	 *            the node to compute its hash code
+	 * @return the hash code of the node, which is never 0, or 0 if it is
+	 *         <code>null</code>.
+	 */
+	public static int hashCode(Node n) {
+		return hashCode(n, 0);
+	}
+
+	/**
+	 * Computes the structural hash code of a node that is a descendant of a
+	 * node whose hash code is being computed.
+	 * 
+	 * @param n
+	 *            the node to compute its hash code
+	 * @param depth
+	 *            number of ancestors whose hash code is being computed.
+	 * @return the hash code of the node or 0 if it is <code>null</code>.
+	 */
+	public static int hashCode(Node n, int depth) {
+		if (n == null) {
+			return 0;
+		}
+		return compute(n, depth).getHashCode();
+	}
+
+	/**
+	 * Computes the structural hash code of a node that is a descendant of a
+	 * node whose hash code is being computed, and if it can be cached.
+	 * 
+	 * @param n
+	 *            the node to compute its hash code
+	 * @param depth
+	 *            number of ancestors whose hash code is being computed.
+	 * @return the visitor that has computed the hash code of the node.
+	 */
+	public static HashCodeVisitor compute(Node n, int depth) {
+		if (depth >= TreeWalker.MAX_RECURSION_DEPTH) {
+			hashDescendantsIteratively(n);
+			depth = 0;
+		}
+		HashCodeVisitor visitor = new HashCodeVisitor(n.getClass().getName()
+				.hashCode());
+		visitor.depth = depth;
+		visitor.node = n;
+		n.accept(visitor, null);
+		return visitor;
+	}
+
+	/**
+	 * Caches the hash codes of the descendants of a node from the leaves to
+	 * the root, so computing each one does not recurse any further.
+	 */
+	private static void hashDescendantsIteratively(final Node n) {
+		new TreeWalker<Object>() {
+			@Override
+			protected boolean enter(Node child, Object arg) {
+				return child == n || child.getCachedHashCode() == 0;
+			}
+
+			@Override
+			protected void leave(Node child, Object arg) {
+				if (child != n) {
+					child.hashCode();
+				}
+			}
+		}.walk(n, null);
+	}
+
+	HashCodeVisitor(int seed) {
+		this.hash = seed;
+	}
+
+	int getHash() {
+		return hash;
+	}
+
+	/**
+	 * Returns the computed hash code.
+	 * 
+	 * @return the hash code of the visited node, which is never 0.
+	 */
+	public int getHashCode() {
+		return hash == 0 ? ZERO_HASH : hash;
+	}
+
+	/**
+	 * Returns if the computed hash code can be cached, because any change in
+	 * the visited node or its descendants discards it.
+	 * 
+	 * @return if the hash codes of the children are cached and the lists of
+	 *         the visited node are owned by it.
+	 */
+	public boolean isCacheable() {
+		return cacheable;
+	}
+
+	/**
+	 * Returns the hash code of a child node that is combined into the hash
+	 * code of its parent.
+	 */
+	int childHashCode(Node n) {
+		return n.hashCode(depth + 1);
+	}
+
+	/**
+	 * Combines the name of a variable, a field, a method or a label.
+	 */
+	void combineIdentifier(String name) {
+		combine(name);
+	}
+
+	private void combine(Node n) {
+		if (n == null) {
+			hash = 31 * hash;
+		} else {
+			hash = 31 * hash + childHashCode(n);
+			if (n.getCachedHashCode() == 0) {
+				cacheable = false;
+			}
+		}
+	}
+
+	private void combine(List<? extends Node> nodes) {
+		if (nodes == null) {
+			hash = 31 * hash;
+		} else {
+			checkOwner(nodes);
+			for (Node n : nodes) {
+				combine(n);
+			}
+		}
+	}
+
+	private void checkOwner(List<?> list) {
+		if (!(list instanceof NodeList)
+				|| ((NodeList<?>) list).getOwner() != node) {
+			cacheable = false;
+		}
+	}
+
+	private void combine(String value) {
+		hash = 31 * hash + (value == null ? 0 : value.hashCode());
+	}
+
+	private void combine(int value) {
+		hash = 31 * hash + value;
+	}
+
+	private void combine(boolean value) {
+		hash = 31 * hash + (value ? 1231 : 1237);
+	}
+
+	private void combine(Enum<?> value) {
+		hash = 31 * hash + (value == null ? 0 : value.ordinal() + 1);
+	}
+
+	private void combineArraysAnnotations(List<List<AnnotationExpr>> annotations) {
+		if (annotations == null) {
+			hash = 31 * hash;
+		} else {
+			checkOwner(annotations);
+			for (List<AnnotationExpr> aux : annotations) {
+				combine(aux);
+			}
+		}
+	}
+
+	public void visit(CompilationUnit n, Object arg) {
+		combine(n.getPackage());
+		combine(n.getImports());
+		combine(n.getTypes());
+		combine(n.getComments());
+	}
+
+	public void visit(PackageDeclaration n, Object arg) {
+		combine(n.getName());
+		combine(n.getAnnotations());
+	}
+
+	public void visit(ImportDeclaration n, Object arg) {
+		combine(n.getName());
+	}
+
+	public void visit(TypeParameter n, Object arg) {
+		combine(n.getName());
+		combine(n.getTypeBound());
+		combine(n.getAnnotations());
+	}
+
+	public void visit(LineComment n, Object arg) {
+		combine(n.getContent());
+	}
+
+	public void visit(BlockComment n, Object arg) {
+		combine(n.getContent());
+	}
+
+	public void visit(ClassOrInterfaceDeclaration n, Object arg) {
+		combine(n.getModifiers());
+		combine(n.isInterface());
+		combine(n.getName());
+		combine(n.getAnnotations());
+		combine(n.getTypeParameters());
+		combine(n.getExtends());
+		combine(n.getImplements());
+		combine(n.getMembers());
+	}
+
+	public void visit(EnumDeclaration n, Object arg) {
+		combine(n.getModifiers());
+		combine(n.getName());
+		combine(n.getAnnotations());
+		combine(n.getImplements());
+		combine(n.getEntries());
+		combine(n.getMembers());
+	}
+
+	public void visit(EmptyTypeDeclaration n, Object arg) {
+	}
+
+	public void visit(EnumConstantDeclaration n, Object arg) {
+		combine(n.getName());
+		combine(n.getAnnotations());
+		combine(n.getArgs());
+		combine(n.getClassBody());
+	}
+
+	public void visit(AnnotationDeclaration n, Object arg) {
+		combine(n.getModifiers());
+		combine(n.getName());
+		combine(n.getAnnotations());
+		combine(n.getMembers());
+	}
+
+	public void visit(AnnotationMemberDeclaration n, Object arg) {
+		combine(n.getModifiers());
+		combine(n.getName());
+		combine(n.getAnnotations());
+		combine(n.getDefaultValue());
+		combine(n.getType());
+	}
+
+	public void visit(FieldDeclaration n, Object arg) {
+		combine(n.getModifiers());
+		combine(n.getAnnotations());
+		combine(n.getType());
+		combine(n.getVariables());
+	}
+
+	public void visit(VariableDeclarator n, Object arg) {
+		combine(n.getId());
+		combine(n.getInit());
+	}
+
+	public void visit(VariableDeclaratorId n, Object arg) {
+		combine(n.getArrayCount());
+		combineIdentifier(n.getName());
+	}
+
+	public void visit(ConstructorDeclaration n, Object arg) {
+		combine(n.getModifiers());
+		combine(n.getName());
+		combine(n.getAnnotations());
+		combine(n.getBlock());
+		combine(n.getParameters());
+		combine(n.getThrows());
+		combine(n.getTypeParameters());
+	}
+
+	public void visit(MethodDeclaration n, Object arg) {
+		combine(n.getModifiers());
+		combine(n.getArrayCount());
+		combineIdentifier(n.getName());
+		combine(n.getType());
+		combine(n.getAnnotations());
+		combine(n.getBody());
+		combine(n.getParameters());
+		combine(n.getThrows());
+		combine(n.getTypeParameters());
+		combine(n.isDefault());
+	}
+
+	@Override
+	public void visit(Parameter n, Object arg) {
+		combine(n.getType());
+		visit((BaseParameter) n, arg);
+	}
+
+	@Override
+	public void visit(MultiTypeParameter n, Object arg) {
+		combine(n.getTypes());
+		visit((BaseParameter) n, arg);
+	}
+
+	protected void visit(BaseParameter n, Object arg) {
+		combine(n.getModifiers());
+		combine(n.getId());
+		combine(n.getAnnotations());
+	}
+
+	public void visit(EmptyMemberDeclaration n, Object arg) {
+	}
+
+	public void visit(InitializerDeclaration n, Object arg) {
+		combine(n.getBlock());
+		combine(n.getAnnotations());
+	}
+
+	public void visit(JavadocComment n, Object arg) {
+		combine(n.getContent());
+	}
+
+	public void visit(ClassOrInterfaceType n, Object arg) {
+		combine(n.getName());
+		combine(n.getScope());
+		combine(n.getTypeArgs());
+		combine(n.getAnnotations());
+	}
+
+	public void visit(PrimitiveType n, Object arg) {
+		combine(n.getType());
+		combine(n.getAnnotations());
+	}
+
+	public void visit(ReferenceType n, Object arg) {
+		combine(n.getArrayCount());
+		combine(n.getType());
+		combine(n.getAnnotations());
+		combineArraysAnnotations(n.getArraysAnnotations());
+	}
+
+	public void visit(VoidType n, Object arg) {
+		combine(n.getAnnotations());
+	}
+
+	public void visit(WildcardType n, Object arg) {
+		combine(n.getExtends());
+		combine(n.getSuper());
+		combine(n.getAnnotations());
+	}
+
+	public void visit(ArrayAccessExpr n, Object arg) {
+		combine(n.getName());
+		combine(n.getIndex());
+	}
+
+	public void visit(ArrayCreationExpr n, Object arg) {
+		combine(n.getArrayCount());
+		combine(n.getType());
+		combine(n.getInitializer());
+		combine(n.getDimensions());
+		combineArraysAnnotations(n.getArraysAnnotations());
+	}
+
+	public void visit(ArrayInitializerExpr n, Object arg) {
+		combine(n.getValues());
+	}
+
+	public void visit(AssignExpr n, Object arg) {
+		combine(n.getOperator());
+		combine(n.getTarget());
+		combine(n.getValue());
+	}
+
+	public void visit(BinaryExpr n, Object arg) {
+		combine(n.getOperator());
+		combine(n.getLeft());
+		combine(n.getRight());
+	}
+
+	public void visit(CastExpr n, Object arg) {
+		combine(n.getType());
+		combine(n.getExpr());
+	}
+
+	public void visit(ClassExpr n, Object arg) {
+		combine(n.getType());
+	}
+
+	public void visit(ConditionalExpr n, Object arg) {
+		combine(n.getCondition());
+		combine(n.getThenExpr());
+		combine(n.getElseExpr());
+	}
+
+	public void visit(EnclosedExpr n, Object arg) {
+		combine(n.getInner());
+	}
+
+	public void visit(FieldAccessExpr n, Object arg) {
+		combine(n.getScope());
+		combineIdentifier(n.getField());
+		combine(n.getTypeArgs());
+	}
+
+	public void visit(InstanceOfExpr n, Object arg) {
+		combine(n.getExpr());
+		combine(n.getType());
+	}
+
+	public void visit(StringLiteralExpr n, Object arg) {
+		combine(n.getValue());
+	}
+
+	public void visit(IntegerLiteralExpr n, Object arg) {
+		combine(n.getValue());
+	}
+
+	public void visit(LongLiteralExpr n, Object arg) {
+		combine(n.getValue());
+	}
+
+	public void visit(IntegerLiteralMinValueExpr n, Object arg) {
+		combine(n.getValue());
+	}
+
+	public void visit(LongLiteralMinValueExpr n, Object arg) {
+		combine(n.getValue());
+	}
+
+	public void visit(CharLiteralExpr n, Object arg) {
+		combine(n.getValue());
+	}
+
+	public void visit(DoubleLiteralExpr n, Object arg) {
+		combine(n.getValue());
+	}
+
+	public void visit(BooleanLiteralExpr n, Object arg) {
+		combine(n.getValue());
+	}
+
+	public void visit(NullLiteralExpr n, Object arg) {
+	}
+
+	public void visit(MethodCallExpr n, Object arg) {
+		combine(n.getScope());
+		combineIdentifier(n.getName());
+		combine(n.getArgs());
+		combine(n.getTypeArgs());
+	}
+
+	public void visit(NameExpr n, Object arg) {
+		combineIdentifier(n.getName());
+	}
+
+	public void visit(ObjectCreationExpr n, Object arg) {
+		combine(n.getScope());
+		combine(n.getType());
+		combine(n.getAnonymousClassBody());
+		combine(n.getArgs());
+		combine(n.getTypeArgs());
+	}
+
+	public void visit(QualifiedNameExpr n, Object arg) {
+		combine(n.getQualifier());
+		combine(n.getName());
+	}
+
+	public void visit(ThisExpr n, Object arg) {
+		combine(n.getClassExpr());
+	}
+
+	public void visit(SuperExpr n, Object arg) {
+		combine(n.getClassExpr());
+	}
+
+	public void visit(UnaryExpr n, Object arg) {
+		combine(n.getOperator());
+		combine(n.getExpr());
+	}
+
+	public void visit(VariableDeclarationExpr n, Object arg) {
+		combine(n.getModifiers());
+		combine(n.getAnnotations());
+		combine(n.getType());
+		combine(n.getVars());
+	}
+
+	public void visit(MarkerAnnotationExpr n, Object arg) {
+		combine(n.getName());
+	}
+
+	public void visit(SingleMemberAnnotationExpr n, Object arg) {
+		combine(n.getName());
+		combine(n.getMemberValue());
+	}
+
+	public void visit(NormalAnnotationExpr n, Object arg) {
+		combine(n.getName());
+		combine(n.getPairs());
+	}
+
+	public void visit(MemberValuePair n, Object arg) {
+		combine(n.getName());
+		combine(n.getValue());
+	}
+
+	public void visit(ExplicitConstructorInvocationStmt n, Object arg) {
+		combine(n.getExpr());
+		combine(n.getArgs());
+		combine(n.getTypeArgs());
+	}
+
+	public void visit(TypeDeclarationStmt n, Object arg) {
+		combine(n.getTypeDeclaration());
+	}
+
+	public void visit(AssertStmt n, Object arg) {
+		combine(n.getCheck());
+		combine(n.getMessage());
+	}
+
+	public void visit(BlockStmt n, Object arg) {
+		combine(n.getStmts());
+	}
+
+	public void visit(LabeledStmt n, Object arg) {
+		combine(n.getStmt());
+	}
+
+	public void visit(EmptyStmt n, Object arg) {
+	}
+
+	public void visit(ExpressionStmt n, Object arg) {
+		combine(n.getExpression());
+	}
+
+	public void visit(SwitchStmt n, Object arg) {
+		combine(n.getSelector());
+		combine(n.getEntries());
+	}
+
+	public void visit(SwitchEntryStmt n, Object arg) {
+		combine(n.getLabel());
+		combine(n.getStmts());
+	}
+
+	public void visit(BreakStmt n, Object arg) {
+		combineIdentifier(n.getId());
+	}
+
+	public void visit(ReturnStmt n, Object arg) {
+		combine(n.getExpr());
+	}
+
+	public void visit(IfStmt n, Object arg) {
+		combine(n.getCondition());
+		combine(n.getThenStmt());
+		combine(n.getElseStmt());
+	}
+
+	public void visit(WhileStmt n, Object arg) {
+		combine(n.getCondition());
+		combine(n.getBody());
+	}
+
+	public void visit(ContinueStmt n, Object arg) {
+		combineIdentifier(n.getId());
+	}
+
+	public void visit(DoStmt n, Object arg) {
+		combine(n.getBody());
+		combine(n.getCondition());
+	}
+
+	public void visit(ForeachStmt n, Object arg) {
+		combine(n.getVariable());
+		combine(n.getIterable());
+		combine(n.getBody());
+	}
+
+	public void visit(ForStmt n, Object arg) {
+		combine(n.getInit());
+		combine(n.getCompare());
+		combine(n.getUpdate());
+		combine(n.getBody());
+	}
+
+	public void visit(ThrowStmt n, Object arg) {
+		combine(n.getExpr());
+	}
+
+	public void visit(SynchronizedStmt n, Object arg) {
+		combine(n.getExpr());
+		combine(n.getBlock());
+	}
+
+	public void visit(TryStmt n, Object arg) {
+		combine(n.getTryBlock());
+		combine(n.getCatchs());
+		combine(n.getFinallyBlock());
+	}
+
+	public void visit(CatchClause n, Object arg) {
+		combine(n.getExcept());
+		combine(n.getCatchBlock());
+	}
+
+	@Override
+	public void visit(LambdaExpr n, Object arg) {
+		combine(n.getParameters());
+		combine(n.isParametersEnclosed());
+		combine(n.getBody());
+	}
+
+	@Override
+	public void visit(MethodReferenceExpr n, Object arg) {
+		combine(n.getScope());
+		combine(n.getTypeParameters());
+		combineIdentifier(n.getIdentifier());
+	}
+
+	@Override
+	public void visit(TypeExpr n, Object arg) {
+		combine(n.getType());
+	}
+
+	@Override
+	public void visit(IntersectionType n, Object arg) {
+		combine(n.getAnnotations());
+		combine(n.getBounds());
+	}
+}
@@ -16,6 +16,8 @@
 package org.walkmod.javalang.visitors;
 
 import java.util.List;
+import java.util.ListIterator;
+import java.util.RandomAccess;
 
 import org.walkmod.javalang.ast.BlockComment;
 import org.walkmod.javalang.ast.CompilationUnit;
@@ -23,6 +25,7 @@ import org.walkmod.javalang.ast.ImportDeclaration;
 import org.walkmod.javalang.ast.LineComment;
 import org.walkmod.javalang.ast.Node;
 import org.walkmod.javalang.ast.PackageDeclaration;
+import org.walkmod.javalang.ast.TreeSnapshot;
 import org.walkmod.javalang.ast.TypeParameter;
 import org.walkmod.javalang.ast.body.AnnotationDeclaration;
 import org.walkmod.javalang.ast.body.AnnotationMemberDeclaration;
@@ -117,93 +120,169 @@ import org.walkmod.javalang.ast.type.WildcardType;
 public abstract class ModifierVisitorAdapter<A> implements
 		GenericVisitor<Node, A> {
 
-	private void removeNulls(List<?> list) {
-		for (int i = list.size() - 1; i >= 0; i--) {
-			if (list.get(i) == null) {
-				list.remove(i);
+	private TreeSnapshot snapshot;
+
+	/**
+	 * Sets the snapshot that records the original state of each node before
+	 * this visitor changes it for the first time, in order to be able to
+	 * restore the tree later.
+	 * 
+	 * @param snapshot
+	 *            the snapshot of the visited tree or null to modify it
+	 *            without recording anything.
+	 */
+	public void setSnapshot(TreeSnapshot snapshot) {
+		this.snapshot = snapshot;
+	}
+
+	public TreeSnapshot getSnapshot() {
+		return snapshot;
+	}
+
+	private void record(Node parent) {
+		if (snapshot != null) {
+			snapshot.record(parent);
+		}
+	}
+
+	/**
+	 * Visits a child node and, if it is going to be replaced, records its
+	 * parent into the snapshot before the setter writes the new child.
+	 */
+	private Node visitChild(Node parent, Node child, A arg) {
+		Node result = child.accept(this, arg);
+		if (result != child) {
+			record(parent);
+		}
+		return result;
+	}
+
+	/**
+	 * Replaces each node of a list by the result of visiting it and removes
+	 * the nodes whose result is null. The list is rewritten in a single pass,
+	 * by compacting it when it supports a fast random access, or through its
+	 * list iterator otherwise (e.g. linked lists).
+	 * 
+	 * @return true if some node has been replaced or removed. Then, the list
+	 *         must be set again into its parent node, which becomes the parent
+	 *         of the new nodes.
+	 */
+	@SuppressWarnings("unchecked")
+	private <T extends Node> boolean visitList(Node parent, List<T> list,
+			A arg) {
+		boolean changed = false;
+		if (list instanceof RandomAccess) {
+			int size = list.size();
+			int last = 0;
+			for (int i = 0; i < size; i++) {
+				T current = list.get(i);
+				T result = (T) current.accept(this, arg);
+				if (result != current && !changed) {
+					record(parent);
+					changed = true;
+				}
+				if (result != null) {
+					if (changed) {
+						list.set(last, result);
+					}
+					last++;
+				}
+			}
+			if (last < size) {
+				list.subList(last, size).clear();
+			}
+		} else {
+			ListIterator<T> it = list.listIterator();
+			while (it.hasNext()) {
+				T current = it.next();
+				T result = (T) current.accept(this, arg);
+				if (result != current && !changed) {
+					record(parent);
+					changed = true;
+				}
+				if (result == null) {
+					it.remove();
+				} else if (result != current) {
+					it.set(result);
+				}
 			}
 		}
+		return changed;
+	}
+
+	private boolean visitArraysAnnotations(Node parent,
+			List<List<AnnotationExpr>> arraysAnnotations, A arg) {
+		boolean changed = false;
+		for (List<AnnotationExpr> annotations : arraysAnnotations) {
+			// a null list is a dimension without annotations, so it remains
+			if (annotations != null && visitList(parent, annotations, arg)) {
+				changed = true;
+			}
+		}
+		return changed;
 	}
 
 	public Node visit(AnnotationDeclaration n, A arg) {
 		if (n.getJavaDoc() != null) {
-			n.setJavaDoc((JavadocComment) n.getJavaDoc().accept(this, arg));
+			n.setJavaDoc((JavadocComment) visitChild(n, n.getJavaDoc(), arg));
 		}
 		List<AnnotationExpr> annotations = n.getAnnotations();
 		if (annotations != null) {
-			for (int i = 0; i < annotations.size(); i++) {
-				annotations.set(i,
-						(AnnotationExpr) annotations.get(i).accept(this, arg));
+			if (visitList(n, annotations, arg)) {
+				n.setAnnotations(annotations);
 			}
-			removeNulls(annotations);
 		}
 		List<BodyDeclaration> members = n.getMembers();
 		if (members != null) {
-			for (int i = 0; i < members.size(); i++) {
-				members.set(i,
-						(BodyDeclaration) members.get(i).accept(this, arg));
+			if (visitList(n, members, arg)) {
+				n.setMembers(members);
 			}
-			removeNulls(members);
 		}
 		return n;
 	}
 
 	public Node visit(AnnotationMemberDeclaration n, A arg) {
 		if (n.getJavaDoc() != null) {
-			n.setJavaDoc((JavadocComment) n.getJavaDoc().accept(this, arg));
+			n.setJavaDoc((JavadocComment) visitChild(n, n.getJavaDoc(), arg));
 		}
 		List<AnnotationExpr> annotations = n.getAnnotations();
 		if (annotations != null) {
-			for (int i = 0; i < annotations.size(); i++) {
-				annotations.set(i,
-						(AnnotationExpr) annotations.get(i).accept(this, arg));
+			if (visitList(n, annotations, arg)) {
+				n.setAnnotations(annotations);
 			}
-			removeNulls(annotations);
 		}
-		n.setType((Type) n.getType().accept(this, arg));
+		n.setType((Type) visitChild(n, n.getType(), arg));
 		if (n.getDefaultValue() != null) {
-			n.setDefaultValue((Expression) n.getDefaultValue()
-					.accept(this, arg));
+			n.setDefaultValue((Expression) visitChild(n, n.getDefaultValue(),
+					arg));
 		}
 		return n;
 	}
 
 	public Node visit(ArrayAccessExpr n, A arg) {
-		n.setName((Expression) n.getName().accept(this, arg));
-		n.setIndex((Expression) n.getIndex().accept(this, arg));
+		n.setName((Expression) visitChild(n, n.getName(), arg));
+		n.setIndex((Expression) visitChild(n, n.getIndex(), arg));
 		return n;
 	}
 
 	public Node visit(ArrayCreationExpr n, A arg) {
-		n.setType((Type) n.getType().accept(this, arg));
+		n.setType((Type) visitChild(n, n.getType(), arg));
 		if (n.getDimensions() != null) {
 			List<Expression> dimensions = n.getDimensions();
 			if (dimensions != null) {
-				for (int i = 0; i < dimensions.size(); i++) {
-					dimensions.set(i,
-							(Expression) dimensions.get(i).accept(this, arg));
+				if (visitList(n, dimensions, arg)) {
+					n.setDimensions(dimensions);
 				}
-				removeNulls(dimensions);
 			}
 		} else {
-			n.setInitializer((ArrayInitializerExpr) n.getInitializer().accept(
-					this, arg));
+			n.setInitializer((ArrayInitializerExpr) visitChild(n,
+					n.getInitializer(), arg));
 		}
 		List<List<AnnotationExpr>> arrayAnnotations = n.getArraysAnnotations();
 		if (arrayAnnotations != null) {
-			for (int i = 0; i < arrayAnnotations.size(); i++) {
-				final List<AnnotationExpr> annotationsA = (List<AnnotationExpr>) arrayAnnotations
-						.get(i);
-				if (annotationsA != null) {
-					for (int j = 0; j < annotationsA.size(); j++) {
-						annotationsA.set(i, (AnnotationExpr) annotationsA
-								.get(j).accept(this, arg));
-					}
-					removeNulls(annotationsA);
-				}
-				arrayAnnotations.set(i, annotationsA);
+			if (visitArraysAnnotations(n, arrayAnnotations, arg)) {
+				n.setArraysAnnotations(arrayAnnotations);
 			}
-			removeNulls(arrayAnnotations);
 		}
 		return n;
 	}
@@ -212,42 +291,40 @@ public abstract class ModifierVisitorAdapter<A> implements
 		if (n.getValues() != null) {
 			List<Expression> values = n.getValues();
 			if (values != null) {
-				for (int i = 0; i < values.size(); i++) {
-					values.set(i, (Expression) values.get(i).accept(this, arg));
+				if (visitList(n, values, arg)) {
+					n.setValues(values);
 				}
-				removeNulls(values);
 			}
 		}
 		return n;
 	}
 
 	public Node visit(AssertStmt n, A arg) {
-		n.setCheck((Expression) n.getCheck().accept(this, arg));
+		n.setCheck((Expression) visitChild(n, n.getCheck(), arg));
 		if (n.getMessage() != null) {
-			n.setMessage((Expression) n.getMessage().accept(this, arg));
+			n.setMessage((Expression) visitChild(n, n.getMessage(), arg));
 		}
 		return n;
 	}
 
 	public Node visit(AssignExpr n, A arg) {
-		n.setTarget((Expression) n.getTarget().accept(this, arg));
-		n.setValue((Expression) n.getValue().accept(this, arg));
+		n.setTarget((Expression) visitChild(n, n.getTarget(), arg));
+		n.setValue((Expression) visitChild(n, n.getValue(), arg));
 		return n;
 	}
 
 	public Node visit(BinaryExpr n, A arg) {
-		n.setLeft((Expression) n.getLeft().accept(this, arg));
-		n.setRight((Expression) n.getRight().accept(this, arg));
+		n.setLeft((Expression) visitChild(n, n.getLeft(), arg));
+		n.setRight((Expression) visitChild(n, n.getRight(), arg));
 		return n;
 	}
 
 	public Node visit(BlockStmt n, A arg) {
 		List<Statement> stmts = n.getStmts();
 		if (stmts != null) {
-			for (int i = 0; i < stmts.size(); i++) {
-				stmts.set(i, (Statement) stmts.get(i).accept(this, arg));
+			if (visitList(n, stmts, arg)) {
+				n.setStmts(stmts);
 			}
-			removeNulls(stmts);
 		}
 		return n;
 	}
@@ -261,15 +338,15 @@ public abstract class ModifierVisitorAdapter<A> implements
 	}
 
 	public Node visit(CastExpr n, A arg) {
-		n.setType((Type) n.getType().accept(this, arg));
-		n.setExpr((Expression) n.getExpr().accept(this, arg));
+		n.setType((Type) visitChild(n, n.getType(), arg));
+		n.setExpr((Expression) visitChild(n, n.getExpr(), arg));
 		return n;
 	}
 
 	@Override
 	public Node visit(final CatchClause n, final A arg) {
-		n.setExcept((MultiTypeParameter) n.getExcept().accept(this, arg));
-		n.setCatchBlock((BlockStmt) n.getCatchBlock().accept(this, arg));
+		n.setExcept((MultiTypeParameter) visitChild(n, n.getExcept(), arg));
+		n.setCatchBlock((BlockStmt) visitChild(n, n.getCatchBlock(), arg));
 		return n;
 
 	}
@@ -279,145 +356,122 @@ public abstract class ModifierVisitorAdapter<A> implements
 	}
 
 	public Node visit(ClassExpr n, A arg) {
-		n.setType((Type) n.getType().accept(this, arg));
+		n.setType((Type) visitChild(n, n.getType(), arg));
 		return n;
 	}
 
 	public Node visit(ClassOrInterfaceDeclaration n, A arg) {
 		if (n.getJavaDoc() != null) {
-			n.setJavaDoc((JavadocComment) n.getJavaDoc().accept(this, arg));
+			n.setJavaDoc((JavadocComment) visitChild(n, n.getJavaDoc(), arg));
 		}
 		List<AnnotationExpr> annotations = n.getAnnotations();
 		if (annotations != null) {
-			for (int i = 0; i < annotations.size(); i++) {
-				annotations.set(i,
-						(AnnotationExpr) annotations.get(i).accept(this, arg));
+			if (visitList(n, annotations, arg)) {
+				n.setAnnotations(annotations);
 			}
-			removeNulls(annotations);
 		}
 		List<TypeParameter> typeParameters = n.getTypeParameters();
 		if (typeParameters != null) {
-			for (int i = 0; i < typeParameters.size(); i++) {
-				typeParameters.set(i, (TypeParameter) typeParameters.get(i)
-						.accept(this, arg));
+			if (visitList(n, typeParameters, arg)) {
+				n.setTypeParameters(typeParameters);
 			}
-			removeNulls(typeParameters);
 		}
 		List<ClassOrInterfaceType> extendz = n.getExtends();
 		if (extendz != null) {
-			for (int i = 0; i < extendz.size(); i++) {
-				extendz.set(i,
-						(ClassOrInterfaceType) extendz.get(i).accept(this, arg));
+			if (visitList(n, extendz, arg)) {
+				n.setExtends(extendz);
 			}
-			removeNulls(extendz);
 		}
 		List<ClassOrInterfaceType> implementz = n.getImplements();
 		if (implementz != null) {
-			for (int i = 0; i < implementz.size(); i++) {
-				implementz.set(i, (ClassOrInterfaceType) implementz.get(i)
-						.accept(this, arg));
+			if (visitList(n, implementz, arg)) {
+				n.setImplements(implementz);
 			}
-			removeNulls(implementz);
 		}
 		List<BodyDeclaration> members = n.getMembers();
 		if (members != null) {
-			for (int i = 0; i < members.size(); i++) {
-				members.set(i,
-						(BodyDeclaration) members.get(i).accept(this, arg));
+			if (visitList(n, members, arg)) {
+				n.setMembers(members);
 			}
-			removeNulls(members);
 		}
 		return n;
 	}
 
 	public Node visit(ClassOrInterfaceType n, A arg) {
 		if (n.getScope() != null) {
-			n.setScope((ClassOrInterfaceType) n.getScope().accept(this, arg));
+			n.setScope((ClassOrInterfaceType) visitChild(n, n.getScope(), arg));
 		}
 		List<Type> typeArgs = n.getTypeArgs();
 		if (typeArgs != null) {
-			for (int i = 0; i < typeArgs.size(); i++) {
-				typeArgs.set(i, (Type) typeArgs.get(i).accept(this, arg));
+			if (visitList(n, typeArgs, arg)) {
+				n.setTypeArgs(typeArgs);
 			}
-			removeNulls(typeArgs);
 		}
 		final List<AnnotationExpr> annotations = n.getAnnotations();
 		if (annotations != null) {
-			for (int i = 0; i < annotations.size(); i++) {
-				annotations.set(i,
-						(AnnotationExpr) annotations.get(i).accept(this, arg));
+			if (visitList(n, annotations, arg)) {
+				n.setAnnotations(annotations);
 			}
-			removeNulls(annotations);
 		}
 		return n;
 	}
 
 	public Node visit(CompilationUnit n, A arg) {
 		if (n.getPackage() != null) {
-			n.setPackage((PackageDeclaration) n.getPackage().accept(this, arg));
+			n.setPackage((PackageDeclaration) visitChild(n, n.getPackage(),
+					arg));
 		}
 		List<ImportDeclaration> imports = n.getImports();
 		if (imports != null) {
-			for (int i = 0; i < imports.size(); i++) {
-				imports.set(i,
-						(ImportDeclaration) imports.get(i).accept(this, arg));
+			if (visitList(n, imports, arg)) {
+				n.setImports(imports);
 			}
-			removeNulls(imports);
 		}
 		List<TypeDeclaration> types = n.getTypes();
 		if (types != null) {
-			for (int i = 0; i < types.size(); i++) {
-				types.set(i, (TypeDeclaration) types.get(i).accept(this, arg));
+			if (visitList(n, types, arg)) {
+				n.setTypes(types);
 			}
-			removeNulls(types);
 		}
 		return n;
 	}
 
 	public Node visit(ConditionalExpr n, A arg) {
-		n.setCondition((Expression) n.getCondition().accept(this, arg));
-		n.setThenExpr((Expression) n.getThenExpr().accept(this, arg));
-		n.setElseExpr((Expression) n.getElseExpr().accept(this, arg));
+		n.setCondition((Expression) visitChild(n, n.getCondition(), arg));
+		n.setThenExpr((Expression) visitChild(n, n.getThenExpr(), arg));
+		n.setElseExpr((Expression) visitChild(n, n.getElseExpr(), arg));
 		return n;
 	}
 
 	public Node visit(ConstructorDeclaration n, A arg) {
 		if (n.getJavaDoc() != null) {
-			n.setJavaDoc((JavadocComment) n.getJavaDoc().accept(this, arg));
+			n.setJavaDoc((JavadocComment) visitChild(n, n.getJavaDoc(), arg));
 		}
 		List<AnnotationExpr> annotations = n.getAnnotations();
 		if (annotations != null) {
-			for (int i = 0; i < annotations.size(); i++) {
-				annotations.set(i,
-						(AnnotationExpr) annotations.get(i).accept(this, arg));
+			if (visitList(n, annotations, arg)) {
+				n.setAnnotations(annotations);
 			}
-			removeNulls(annotations);
 		}
 		List<TypeParameter> typeParameters = n.getTypeParameters();
 		if (typeParameters != null) {
-			for (int i = 0; i < typeParameters.size(); i++) {
-				typeParameters.set(i, (TypeParameter) typeParameters.get(i)
-						.accept(this, arg));
+			if (visitList(n, typeParameters, arg)) {
+				n.setTypeParameters(typeParameters);
 			}
-			removeNulls(typeParameters);
 		}
 		List<Parameter> parameters = n.getParameters();
 		if (parameters != null) {
-			for (int i = 0; i < parameters.size(); i++) {
-				parameters.set(i,
-						(Parameter) parameters.get(i).accept(this, arg));
+			if (visitList(n, parameters, arg)) {
+				n.setParameters(parameters);
 			}
-			removeNulls(parameters);
 		}
 		List<ClassOrInterfaceType> throwz = n.getThrows();
 		if (throwz != null) {
-			for (int i = 0; i < throwz.size(); i++) {
-				throwz.set(i,
-						(ClassOrInterfaceType) throwz.get(i).accept(this, arg));
+			if (visitList(n, throwz, arg)) {
+				n.setThrows(throwz);
 			}
-			removeNulls(throwz);
 		}
-		n.setBlock((BlockStmt) n.getBlock().accept(this, arg));
+		n.setBlock((BlockStmt) visitChild(n, n.getBlock(), arg));
 		return n;
 	}
 
@@ -426,8 +480,8 @@ public abstract class ModifierVisitorAdapter<A> implements
 	}
 
 	public Node visit(DoStmt n, A arg) {
-		n.setBody((Statement) n.getBody().accept(this, arg));
-		n.setCondition((Expression) n.getCondition().accept(this, arg));
+		n.setBody((Statement) visitChild(n, n.getBody(), arg));
+		n.setCondition((Expression) visitChild(n, n.getCondition(), arg));
 		return n;
 	}
 
@@ -437,7 +491,7 @@ public abstract class ModifierVisitorAdapter<A> implements
 
 	public Node visit(EmptyMemberDeclaration n, A arg) {
 		if (n.getJavaDoc() != null) {
-			n.setJavaDoc((JavadocComment) n.getJavaDoc().accept(this, arg));
+			n.setJavaDoc((JavadocComment) visitChild(n, n.getJavaDoc(), arg));
 		}
 		return n;
 	}
@@ -448,83 +502,68 @@ public abstract class ModifierVisitorAdapter<A> implements
 
 	public Node visit(EmptyTypeDeclaration n, A arg) {
 		if (n.getJavaDoc() != null) {
-			n.setJavaDoc((JavadocComment) n.getJavaDoc().accept(this, arg));
+			n.setJavaDoc((JavadocComment) visitChild(n, n.getJavaDoc(), arg));
 		}
 		return n;
 	}
 
 	public Node visit(EnclosedExpr n, A arg) {
-		n.setInner((Expression) n.getInner().accept(this, arg));
+		n.setInner((Expression) visitChild(n, n.getInner(), arg));
 		return n;
 	}
 
 	public Node visit(EnumConstantDeclaration n, A arg) {
 		if (n.getJavaDoc() != null) {
-			n.setJavaDoc((JavadocComment) n.getJavaDoc().accept(this, arg));
+			n.setJavaDoc((JavadocComment) visitChild(n, n.getJavaDoc(), arg));
 		}
 		List<AnnotationExpr> annotations = n.getAnnotations();
 		if (annotations != null) {
-			for (int i = 0; i < annotations.size(); i++) {
-				annotations.set(i,
-						(AnnotationExpr) annotations.get(i).accept(this, arg));
+			if (visitList(n, annotations, arg)) {
+				n.setAnnotations(annotations);
 			}
-			removeNulls(annotations);
 		}
 		List<Expression> args = n.getArgs();
 		if (args != null) {
-			for (int i = 0; i < args.size(); i++) {
-				args.set(i, (Expression) args.get(i).accept(this, arg));
+			if (visitList(n, args, arg)) {
+				n.setArgs(args);
 			}
-			removeNulls(args);
 		}
 		List<BodyDeclaration> classBody = n.getClassBody();
 		if (classBody != null) {
-			for (int i = 0; i < classBody.size(); i++) {
-				classBody.set(i,
-						(BodyDeclaration) classBody.get(i).accept(this, arg));
+			if (visitList(n, classBody, arg)) {
+				n.setClassBody(classBody);
 			}
-			removeNulls(classBody);
 		}
 		return n;
 	}
 
 	public Node visit(EnumDeclaration n, A arg) {
 		if (n.getJavaDoc() != null) {
-			n.setJavaDoc((JavadocComment) n.getJavaDoc().accept(this, arg));
+			n.setJavaDoc((JavadocComment) visitChild(n, n.getJavaDoc(), arg));
 		}
 		List<AnnotationExpr> annotations = n.getAnnotations();
 		if (annotations != null) {
-			for (int i = 0; i < annotations.size(); i++) {
-				annotations.set(i,
-						(AnnotationExpr) annotations.get(i).accept(this, arg));
+			if (visitList(n, annotations, arg)) {
+				n.setAnnotations(annotations);
 			}
-			removeNulls(annotations);
 		}
 		List<ClassOrInterfaceType> implementz = n.getImplements();
 		if (implementz != null) {
-			for (int i = 0; i < implementz.size(); i++) {
-				implementz.set(i, (ClassOrInterfaceType) implementz.get(i)
-						.accept(this, arg));
+			if (visitList(n, implementz, arg)) {
+				n.setImplements(implementz);
 			}
-			removeNulls(implementz);
 		}
 		List<EnumConstantDeclaration> entries = n.getEntries();
 		if (entries != null) {
-			for (int i = 0; i < entries.size(); i++) {
-				entries.set(
-						i,
-						(EnumConstantDeclaration) entries.get(i).accept(this,
-								arg));
+			if (visitList(n, entries, arg)) {
+				n.setEntries(entries);
 			}
-			removeNulls(entries);
 		}
 		List<BodyDeclaration> members = n.getMembers();
 		if (members != null) {
-			for (int i = 0; i < members.size(); i++) {
-				members.set(i,
-						(BodyDeclaration) members.get(i).accept(this, arg));
+			if (visitList(n, members, arg)) {
+				n.setMembers(members);
 			}
-			removeNulls(members);
 		}
 		return n;
 	}
@@ -532,113 +571,105 @@ public abstract class ModifierVisitorAdapter<A> implements
 	public Node visit(ExplicitConstructorInvocationStmt n, A arg) {
 		if (!n.isThis()) {
 			if (n.getExpr() != null) {
-				n.setExpr((Expression) n.getExpr().accept(this, arg));
+				n.setExpr((Expression) visitChild(n, n.getExpr(), arg));
 			}
 		}
 		List<Type> typeArgs = n.getTypeArgs();
 		if (typeArgs != null) {
-			for (int i = 0; i < typeArgs.size(); i++) {
-				typeArgs.set(i, (Type) typeArgs.get(i).accept(this, arg));
+			if (visitList(n, typeArgs, arg)) {
+				n.setTypeArgs(typeArgs);
 			}
-			removeNulls(typeArgs);
 		}
 		List<Expression> args = n.getArgs();
 		if (args != null) {
-			for (int i = 0; i < args.size(); i++) {
-				args.set(i, (Expression) args.get(i).accept(this, arg));
+			if (visitList(n, args, arg)) {
+				n.setArgs(args);
 			}
-			removeNulls(args);
 		}
 		return n;
 	}
 
 	public Node visit(ExpressionStmt n, A arg) {
-		n.setExpression((Expression) n.getExpression().accept(this, arg));
+		n.setExpression((Expression) visitChild(n, n.getExpression(), arg));
 		return n;
 	}
 
 	public Node visit(FieldAccessExpr n, A arg) {
-		n.setScope((Expression) n.getScope().accept(this, arg));
+		n.setScope((Expression) visitChild(n, n.getScope(), arg));
 		return n;
 	}
 
 	public Node visit(FieldDeclaration n, A arg) {
 		if (n.getJavaDoc() != null) {
-			n.setJavaDoc((JavadocComment) n.getJavaDoc().accept(this, arg));
+			n.setJavaDoc((JavadocComment) visitChild(n, n.getJavaDoc(), arg));
 		}
 		List<AnnotationExpr> annotations = n.getAnnotations();
 		if (annotations != null) {
-			for (int i = 0; i < annotations.size(); i++) {
-				annotations.set(i,
-						(AnnotationExpr) annotations.get(i).accept(this, arg));
+			if (visitList(n, annotations, arg)) {
+				n.setAnnotations(annotations);
 			}
-			removeNulls(annotations);
 		}
-		n.setType((Type) n.getType().accept(this, arg));
+		n.setType((Type) visitChild(n, n.getType(), arg));
 		List<VariableDeclarator> variables = n.getVariables();
-		for (int i = 0; i < variables.size(); i++) {
-			variables.set(i,
-					(VariableDeclarator) variables.get(i).accept(this, arg));
+		if (visitList(n, variables, arg)) {
+			n.setVariables(variables);
 		}
-		removeNulls(variables);
 		return n;
 	}
 
 	public Node visit(ForeachStmt n, A arg) {
-		n.setVariable((VariableDeclarationExpr) n.getVariable().accept(this,
+		n.setVariable((VariableDeclarationExpr) visitChild(n, n.getVariable(),
 				arg));
-		n.setIterable((Expression) n.getIterable().accept(this, arg));
-		n.setBody((Statement) n.getBody().accept(this, arg));
+		n.setIterable((Expression) visitChild(n, n.getIterable(), arg));
+		n.setBody((Statement) visitChild(n, n.getBody(), arg));
 		return n;
 	}
 
 	public Node visit(ForStmt n, A arg) {
 		List<Expression> init = n.getInit();
 		if (init != null) {
-			for (int i = 0; i < init.size(); i++) {
-				init.set(i, (Expression) init.get(i).accept(this, arg));
+			if (visitList(n, init, arg)) {
+				n.setInit(init);
 			}
-			removeNulls(init);
 		}
 		if (n.getCompare() != null) {
-			n.setCompare((Expression) n.getCompare().accept(this, arg));
+			n.setCompare((Expression) visitChild(n, n.getCompare(), arg));
 		}
 		List<Expression> update = n.getUpdate();
 		if (update != null) {
-			for (int i = 0; i < update.size(); i++) {
-				update.set(i, (Expression) update.get(i).accept(this, arg));
+			if (visitList(n, update, arg)) {
+				n.setUpdate(update);
 			}
-			removeNulls(update);
 		}
-		n.setBody((Statement) n.getBody().accept(this, arg));
+		n.setBody((Statement) visitChild(n, n.getBody(), arg));
 		return n;
 	}
 
 	public Node visit(IfStmt n, A arg) {
-		n.setCondition((Expression) n.getCondition().accept(this, arg));
-		n.setThenStmt((Statement) n.getThenStmt().accept(this, arg));
+		n.setCondition((Expression) visitChild(n, n.getCondition(), arg));
+		n.setThenStmt((Statement) visitChild(n, n.getThenStmt(), arg));
 		if (n.getElseStmt() != null) {
-			n.setElseStmt((Statement) n.getElseStmt().accept(this, arg));
+			n.setElseStmt((Statement) visitChild(n, n.getElseStmt(), arg));
 		}
 		return n;
 	}
 
 	public Node visit(ImportDeclaration n, A arg) {
-		n.setName((NameExpr) n.getName().accept(this, arg));
+		n.setName((NameExpr) visitChild(n, n.getName(), arg));
 		return n;
 	}
 
 	public Node visit(InitializerDeclaration n, A arg) {
 		if (n.getJavaDoc() != null) {
-			n.setJavaDoc((JavadocComment) n.getJavaDoc().accept(this, arg));
+			n.setJavaDoc((JavadocComment) visitChild(n, n.getJavaDoc(), arg));
 		}
-		n.setBlock((BlockStmt) n.getBlock().accept(this, arg));
+		n.setBlock((BlockStmt) visitChild(n, n.getBlock(), arg));
 		return n;
 	}
 
 	public Node visit(InstanceOfExpr n, A arg) {
-		n.setExpr((Expression) n.getExpr().accept(this, arg));
-		n.setType((Type) n.getType().accept(this, arg));
+		n.setExpr((Expression) visitChild(n, n.getExpr(), arg));
+		n.setType((Type) visitChild(n, n.getType(), arg));
 		return n;
 	}
 
@@ -655,7 +686,7 @@ public abstract class ModifierVisitorAdapter<A> implements
 	}
 
 	public Node visit(LabeledStmt n, A arg) {
-		n.setStmt((Statement) n.getStmt().accept(this, arg));
+		n.setStmt((Statement) visitChild(n, n.getStmt(), arg));
 		return n;
 	}
 
@@ -668,75 +699,65 @@ public abstract class ModifierVisitorAdapter<A> implements
 	}
 
 	public Node visit(MarkerAnnotationExpr n, A arg) {
-		n.setName((NameExpr) n.getName().accept(this, arg));
+		n.setName((NameExpr) visitChild(n, n.getName(), arg));
 		return n;
 	}
 
 	public Node visit(MemberValuePair n, A arg) {
-		n.setValue((Expression) n.getValue().accept(this, arg));
+		n.setValue((Expression) visitChild(n, n.getValue(), arg));
 		return n;
 	}
 
 	public Node visit(MethodCallExpr n, A arg) {
 		if (n.getScope() != null) {
-			n.setScope((Expression) n.getScope().accept(this, arg));
+			n.setScope((Expression) visitChild(n, n.getScope(), arg));
 		}
 		List<Type> typeArgs = n.getTypeArgs();
 		if (typeArgs != null) {
-			for (int i = 0; i < typeArgs.size(); i++) {
-				typeArgs.set(i, (Type) typeArgs.get(i).accept(this, arg));
+			if (visitList(n, typeArgs, arg)) {
+				n.setTypeArgs(typeArgs);
 			}
-			removeNulls(typeArgs);
 		}
 		List<Expression> args = n.getArgs();
 		if (args != null) {
-			for (int i = 0; i < args.size(); i++) {
-				args.set(i, (Expression) args.get(i).accept(this, arg));
+			if (visitList(n, args, arg)) {
+				n.setArgs(args);
 			}
-			removeNulls(args);
 		}
 		return n;
 	}
 
 	public Node visit(MethodDeclaration n, A arg) {
 		if (n.getJavaDoc() != null) {
-			n.setJavaDoc((JavadocComment) n.getJavaDoc().accept(this, arg));
+			n.setJavaDoc((JavadocComment) visitChild(n, n.getJavaDoc(), arg));
 		}
 		List<AnnotationExpr> annotations = n.getAnnotations();
 		if (annotations != null) {
-			for (int i = 0; i < annotations.size(); i++) {
-				annotations.set(i,
-						(AnnotationExpr) annotations.get(i).accept(this, arg));
+			if (visitList(n, annotations, arg)) {
+				n.setAnnotations(annotations);
 			}
-			removeNulls(annotations);
 		}
 		List<TypeParameter> typeParameters = n.getTypeParameters();
 		if (typeParameters != null) {
-			for (int i = 0; i < typeParameters.size(); i++) {
-				typeParameters.set(i, (TypeParameter) typeParameters.get(i)
-						.accept(this, arg));
+			if (visitList(n, typeParameters, arg)) {
+				n.setTypeParameters(typeParameters);
 			}
-			removeNulls(typeParameters);
 		}
-		n.setType((Type) n.getType().accept(this, arg));
+		n.setType((Type) visitChild(n, n.getType(), arg));
 		List<Parameter> parameters = n.getParameters();
 		if (parameters != null) {
-			for (int i = 0; i < parameters.size(); i++) {
-				parameters.set(i,
-						(Parameter) parameters.get(i).accept(this, arg));
+			if (visitList(n, parameters, arg)) {
+				n.setParameters(parameters);
 			}
-			removeNulls(parameters);
 		}
 		List<ClassOrInterfaceType> throwz = n.getThrows();
 		if (throwz != null) {
-			for (int i = 0; i < throwz.size(); i++) {
-				throwz.set(i,
-						(ClassOrInterfaceType) throwz.get(i).accept(this, arg));
+			if (visitList(n, throwz, arg)) {
+				n.setThrows(throwz);
 			}
-			removeNulls(throwz);
 		}
 		if (n.getBody() != null) {
-			n.setBody((BlockStmt) n.getBody().accept(this, arg));
+			n.setBody((BlockStmt) visitChild(n, n.getBody(), arg));
 		}
 		return n;
 	}
@@ -746,13 +767,12 @@ public abstract class ModifierVisitorAdapter<A> implements
 	}
 
 	public Node visit(NormalAnnotationExpr n, A arg) {
-		n.setName((NameExpr) n.getName().accept(this, arg));
+		n.setName((NameExpr) visitChild(n, n.getName(), arg));
 		List<MemberValuePair> pairs = n.getPairs();
 		if (pairs != null) {
-			for (int i = 0; i < pairs.size(); i++) {
-				pairs.set(i, (MemberValuePair) pairs.get(i).accept(this, arg));
+			if (visitList(n, pairs, arg)) {
+				n.setPairs(pairs);
 			}
-			removeNulls(pairs);
 		}
 		return n;
 	}
@@ -763,30 +783,26 @@ public abstract class ModifierVisitorAdapter<A> implements
 
 	public Node visit(ObjectCreationExpr n, A arg) {
 		if (n.getScope() != null) {
-			n.setScope((Expression) n.getScope().accept(this, arg));
+			n.setScope((Expression) visitChild(n, n.getScope(), arg));
 		}
 		List<Type> typeArgs = n.getTypeArgs();
 		if (typeArgs != null) {
-			for (int i = 0; i < typeArgs.size(); i++) {
-				typeArgs.set(i, (Type) typeArgs.get(i).accept(this, arg));
+			if (visitList(n, typeArgs, arg)) {
+				n.setTypeArgs(typeArgs);
 			}
-			removeNulls(typeArgs);
 		}
-		n.setType((ClassOrInterfaceType) n.getType().accept(this, arg));
+		n.setType((ClassOrInterfaceType) visitChild(n, n.getType(), arg));
 		List<Expression> args = n.getArgs();
 		if (args != null) {
-			for (int i = 0; i < args.size(); i++) {
-				args.set(i, (Expression) args.get(i).accept(this, arg));
+			if (visitList(n, args, arg)) {
+				n.setArgs(args);
 			}
-			removeNulls(args);
 		}
 		List<BodyDeclaration> anonymousClassBody = n.getAnonymousClassBody();
 		if (anonymousClassBody != null) {
-			for (int i = 0; i < anonymousClassBody.size(); i++) {
-				anonymousClassBody.set(i, (BodyDeclaration) anonymousClassBody
-						.get(i).accept(this, arg));
+			if (visitList(n, anonymousClassBody, arg)) {
+				n.setAnonymousClassBody(anonymousClassBody);
 			}
-			removeNulls(anonymousClassBody);
 		}
 		return n;
 	}
@@ -794,102 +810,82 @@ public abstract class ModifierVisitorAdapter<A> implements
 	public Node visit(PackageDeclaration n, A arg) {
 		List<AnnotationExpr> annotations = n.getAnnotations();
 		if (annotations != null) {
-			for (int i = 0; i < annotations.size(); i++) {
-				annotations.set(i,
-						(AnnotationExpr) annotations.get(i).accept(this, arg));
+			if (visitList(n, annotations, arg)) {
+				n.setAnnotations(annotations);
 			}
-			removeNulls(annotations);
 		}
-		n.setName((NameExpr) n.getName().accept(this, arg));
+		n.setName((NameExpr) visitChild(n, n.getName(), arg));
 		return n;
 	}
 
 	public Node visit(Parameter n, A arg) {
 		List<AnnotationExpr> annotations = n.getAnnotations();
 		if (annotations != null) {
-			for (int i = 0; i < annotations.size(); i++) {
-				annotations.set(i,
-						(AnnotationExpr) annotations.get(i).accept(this, arg));
+			if (visitList(n, annotations, arg)) {
+				n.setAnnotations(annotations);
 			}
-			removeNulls(annotations);
 		}
 		if (n.getType() != null) {
-			n.setType((Type) n.getType().accept(this, arg));
+			n.setType((Type) visitChild(n, n.getType(), arg));
 		}
-		n.setId((VariableDeclaratorId) n.getId().accept(this, arg));
+		n.setId((VariableDeclaratorId) visitChild(n, n.getId(), arg));
 		return n;
 	}
 
 	protected Node visit(final BaseParameter n, final A arg) {
 		final List<AnnotationExpr> annotations = n.getAnnotations();
 		if (annotations != null) {
-			for (int i = 0; i < annotations.size(); i++) {
-				annotations.set(i,
-						(AnnotationExpr) annotations.get(i).accept(this, arg));
+			if (visitList(n, annotations, arg)) {
+				n.setAnnotations(annotations);
 			}
-			removeNulls(annotations);
 		}
 
-		n.setId((VariableDeclaratorId) n.getId().accept(this, arg));
+		n.setId((VariableDeclaratorId) visitChild(n, n.getId(), arg));
 		return n;
 	}
 
 	public Node visit(PrimitiveType n, A arg) {
 		final List<AnnotationExpr> annotations = n.getAnnotations();
 		if (annotations != null) {
-			for (int i = 0; i < annotations.size(); i++) {
-				annotations.set(i,
-						(AnnotationExpr) annotations.get(i).accept(this, arg));
+			if (visitList(n, annotations, arg)) {
+				n.setAnnotations(annotations);
 			}
-			removeNulls(annotations);
 		}
 		return n;
 	}
 
 	public Node visit(QualifiedNameExpr n, A arg) {
-		n.setQualifier((NameExpr) n.getQualifier().accept(this, arg));
+		n.setQualifier((NameExpr) visitChild(n, n.getQualifier(), arg));
 		return n;
 	}
 
 	public Node visit(ReferenceType n, A arg) {
-		n.setType((Type) n.getType().accept(this, arg));
+		n.setType((Type) visitChild(n, n.getType(), arg));
 		final List<AnnotationExpr> annotations = n.getAnnotations();
 		if (annotations != null) {
-			for (int i = 0; i < annotations.size(); i++) {
-				annotations.set(i,
-						(AnnotationExpr) annotations.get(i).accept(this, arg));
+			if (visitList(n, annotations, arg)) {
+				n.setAnnotations(annotations);
 			}
-			removeNulls(annotations);
 		}
 		List<List<AnnotationExpr>> arrayAnnotations = n.getArraysAnnotations();
 		if (arrayAnnotations != null) {
-			for (int i = 0; i < arrayAnnotations.size(); i++) {
-				final List<AnnotationExpr> annotationsA = (List<AnnotationExpr>) arrayAnnotations
-						.get(i);
-				if (annotationsA != null) {
-					for (int j = 0; j < annotationsA.size(); j++) {
-						annotationsA.set(i, (AnnotationExpr) annotationsA
-								.get(j).accept(this, arg));
-					}
-					removeNulls(annotationsA);
-				}
-				arrayAnnotations.set(i, annotationsA);
+			if (visitArraysAnnotations(n, arrayAnnotations, arg)) {
+				n.setArraysAnnotations(arrayAnnotations);
 			}
-			removeNulls(arrayAnnotations);
 		}
 		return n;
 	}
 
 	public Node visit(ReturnStmt n, A arg) {
 		if (n.getExpr() != null) {
-			n.setExpr((Expression) n.getExpr().accept(this, arg));
+			n.setExpr((Expression) visitChild(n, n.getExpr(), arg));
 		}
 		return n;
 	}
 
 	public Node visit(SingleMemberAnnotationExpr n, A arg) {
-		n.setName((NameExpr) n.getName().accept(this, arg));
-		n.setMemberValue((Expression) n.getMemberValue().accept(this, arg));
+		n.setName((NameExpr) visitChild(n, n.getName(), arg));
+		n.setMemberValue((Expression) visitChild(n, n.getMemberValue(), arg));
 		return n;
 	}
 
@@ -899,124 +895,114 @@ public abstract class ModifierVisitorAdapter<A> implements
 
 	public Node visit(SuperExpr n, A arg) {
 		if (n.getClassExpr() != null) {
-			n.setClassExpr((Expression) n.getClassExpr().accept(this, arg));
+			n.setClassExpr((Expression) visitChild(n, n.getClassExpr(), arg));
 		}
 		return n;
 	}
 
 	public Node visit(SwitchEntryStmt n, A arg) {
 		if (n.getLabel() != null) {
-			n.setLabel((Expression) n.getLabel().accept(this, arg));
+			n.setLabel((Expression) visitChild(n, n.getLabel(), arg));
 		}
 		List<Statement> stmts = n.getStmts();
 		if (stmts != null) {
-			for (int i = 0; i < stmts.size(); i++) {
-				stmts.set(i, (Statement) stmts.get(i).accept(this, arg));
+			if (visitList(n, stmts, arg)) {
+				n.setStmts(stmts);
 			}
-			removeNulls(stmts);
 		}
 		return n;
 	}
 
 	public Node visit(SwitchStmt n, A arg) {
-		n.setSelector((Expression) n.getSelector().accept(this, arg));
+		n.setSelector((Expression) visitChild(n, n.getSelector(), arg));
 		List<SwitchEntryStmt> entries = n.getEntries();
 		if (entries != null) {
-			for (int i = 0; i < entries.size(); i++) {
-				entries.set(i,
-						(SwitchEntryStmt) entries.get(i).accept(this, arg));
+			if (visitList(n, entries, arg)) {
+				n.setEntries(entries);
 			}
-			removeNulls(entries);
 		}
 		return n;
 	}
 
 	public Node visit(SynchronizedStmt n, A arg) {
-		n.setExpr((Expression) n.getExpr().accept(this, arg));
-		n.setBlock((BlockStmt) n.getBlock().accept(this, arg));
+		n.setExpr((Expression) visitChild(n, n.getExpr(), arg));
+		n.setBlock((BlockStmt) visitChild(n, n.getBlock(), arg));
 		return n;
 	}
 
 	public Node visit(ThisExpr n, A arg) {
 		if (n.getClassExpr() != null) {
-			n.setClassExpr((Expression) n.getClassExpr().accept(this, arg));
+			n.setClassExpr((Expression) visitChild(n, n.getClassExpr(), arg));
 		}
 		return n;
 	}
 
 	public Node visit(ThrowStmt n, A arg) {
-		n.setExpr((Expression) n.getExpr().accept(this, arg));
+		n.setExpr((Expression) visitChild(n, n.getExpr(), arg));
 		return n;
 	}
 
 	public Node visit(TryStmt n, A arg) {
-		n.setTryBlock((BlockStmt) n.getTryBlock().accept(this, arg));
+		n.setTryBlock((BlockStmt) visitChild(n, n.getTryBlock(), arg));
 		List<CatchClause> catchs = n.getCatchs();
 		if (catchs != null) {
-			for (int i = 0; i < catchs.size(); i++) {
-				catchs.set(i, (CatchClause) catchs.get(i).accept(this, arg));
+			if (visitList(n, catchs, arg)) {
+				n.setCatchs(catchs);
 			}
-			removeNulls(catchs);
 		}
 		if (n.getFinallyBlock() != null) {
-			n.setFinallyBlock((BlockStmt) n.getFinallyBlock().accept(this, arg));
+			n.setFinallyBlock((BlockStmt) visitChild(n, n.getFinallyBlock(),
+					arg));
 		}
 		return n;
 	}
 
 	public Node visit(TypeDeclarationStmt n, A arg) {
-		n.setTypeDeclaration((TypeDeclaration) n.getTypeDeclaration().accept(
-				this, arg));
+		n.setTypeDeclaration((TypeDeclaration) visitChild(n,
+				n.getTypeDeclaration(), arg));
 		return n;
 	}
 
 	public Node visit(TypeParameter n, A arg) {
 		List<ClassOrInterfaceType> typeBound = n.getTypeBound();
 		if (typeBound != null) {
-			for (int i = 0; i < typeBound.size(); i++) {
-				typeBound.set(i, (ClassOrInterfaceType) typeBound.get(i)
-						.accept(this, arg));
+			if (visitList(n, typeBound, arg)) {
+				n.setTypeBound(typeBound);
 			}
-			removeNulls(typeBound);
 		}
 		List<AnnotationExpr> annotations = n.getAnnotations();
 		if (annotations != null) {
-			for (int i = 0; i < annotations.size(); i++) {
-				annotations.set(i,
-						(AnnotationExpr) annotations.get(i).accept(this, arg));
+			if (visitList(n, annotations, arg)) {
+				n.setAnnotations(annotations);
 			}
-			removeNulls(annotations);
 		}
 		return n;
 	}
 
 	public Node visit(UnaryExpr n, A arg) {
-		n.setExpr((Expression) n.getExpr().accept(this, arg));
+		n.setExpr((Expression) visitChild(n, n.getExpr(), arg));
 		return n;
 	}
 
 	public Node visit(VariableDeclarationExpr n, A arg) {
 		List<AnnotationExpr> annotations = n.getAnnotations();
 		if (annotations != null) {
-			for (int i = 0; i < annotations.size(); i++) {
-				annotations.set(i,
-						(AnnotationExpr) annotations.get(i).accept(this, arg));
+			if (visitList(n, annotations, arg)) {
+				n.setAnnotations(annotations);
 			}
-			removeNulls(annotations);
 		}
-		n.setType((Type) n.getType().accept(this, arg));
+		n.setType((Type) visitChild(n, n.getType(), arg));
 		List<VariableDeclarator> vars = n.getVars();
-		for (int i = 0; i < vars.size(); i++) {
-			vars.set(i, (VariableDeclarator) vars.get(i).accept(this, arg));
+		if (visitList(n, vars, arg)) {
+			n.setVars(vars);
 		}
-		removeNulls(vars);
 		return n;
 	}
 
 	public Node visit(VariableDeclarator n, A arg) {
-		n.setId((VariableDeclaratorId) n.getId().accept(this, arg));
+		n.setId((VariableDeclaratorId) visitChild(n, n.getId(), arg));
 		if (n.getInit() != null) {
-			n.setInit((Expression) n.getInit().accept(this, arg));
+			n.setInit((Expression) visitChild(n, n.getInit(), arg));
 		}
 		return n;
 	}
@@ -1028,35 +1014,31 @@ public abstract class ModifierVisitorAdapter<A> implements
 	public Node visit(VoidType n, A arg) {
 		final List<AnnotationExpr> annotations = n.getAnnotations();
 		if (annotations != null) {
-			for (int i = 0; i < annotations.size(); i++) {
-				annotations.set(i,
-						(AnnotationExpr) annotations.get(i).accept(this, arg));
+			if (visitList(n, annotations, arg)) {
+				n.setAnnotations(annotations);
 			}
-			removeNulls(annotations);
 		}
 		return n;
 	}
 
 	public Node visit(WhileStmt n, A arg) {
-		n.setCondition((Expression) n.getCondition().accept(this, arg));
-		n.setBody((Statement) n.getBody().accept(this, arg));
+		n.setCondition((Expression) visitChild(n, n.getCondition(), arg));
+		n.setBody((Statement) visitChild(n, n.getBody(), arg));
 		return n;
 	}
 
 	public Node visit(WildcardType n, A arg) {
 		if (n.getExtends() != null) {
-			n.setExtends((ReferenceType) n.getExtends().accept(this, arg));
+			n.setExtends((ReferenceType) visitChild(n, n.getExtends(), arg));
 		}
 		if (n.getSuper() != null) {
-			n.setSuper((ReferenceType) n.getSuper().accept(this, arg));
+			n.setSuper((ReferenceType) visitChild(n, n.getSuper(), arg));
 		}
 		final List<AnnotationExpr> annotations = n.getAnnotations();
 		if (annotations != null) {
-			for (int i = 0; i < annotations.size(); i++) {
-				annotations.set(i,
-						(AnnotationExpr) annotations.get(i).accept(this, arg));
+			if (visitList(n, annotations, arg)) {
+				n.setAnnotations(annotations);
 			}
-			removeNulls(annotations);
 		}
 		return n;
 	}
@@ -1065,10 +1047,9 @@ public abstract class ModifierVisitorAdapter<A> implements
 	public Node visit(IntersectionType n, A arg) {
 		if (n.getBounds() != null) {
 			List<ReferenceType> bounds = n.getBounds();
-			for (int i = 0; i < bounds.size(); i++) {
-				bounds.set(i, (ReferenceType)bounds.get(i).accept(this, arg));
+			if (visitList(n, bounds, arg)) {
+				n.setBounds(bounds);
 			}
-
 		}
 		return n;
 	}
@@ -0,0 +1,219 @@
+/*
+  Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang.visitors;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.walkmod.javalang.ast.Node;
+
+/**
+ * <p>
+ * Traverses a tree whose depth (e.g. thousands of chained string
+ * concatenations or method calls) is not limited by the thread stack size.
+ * The nodes are visited in the same order as {@link VoidVisitorAdapter} does,
+ * and, like {@link CompositeVisitor}, each node is passed to a pre-visitor
+ * before its descendants and to a post-visitor after them. These visitors
+ * must only process the given node, without visiting its children.
+ * </p>
+ * <p>
+ * The walker recurses like the visitor adapters, which is faster, until
+ * {@link #MAX_RECURSION_DEPTH} nested nodes. Deeper subtrees are traversed
+ * with an explicit stack.
+ * </p>
+ * <p>
+ * The recursive visitors ({@link CloneVisitor}, {@link EqualsVisitor} and
+ * {@link HashCodeVisitor}) use it to process the descendants that are deeper
+ * than {@link #MAX_RECURSION_DEPTH} bottom-up, so they never recurse more than
+ * that.
+ * </p>
+ */
+public class TreeWalker<A> {
+
+	/**
+	 * Depth of the recursive visits after which the core visitors continue
+	 * iteratively.
+	 */
+	public static final int MAX_RECURSION_DEPTH = 256;
+
+	private final VoidVisitor<A> preVisitor;
+
+	private final VoidVisitor<A> postVisitor;
+
+	private final Recursion recursion = new Recursion();
+
+	private final ChildCollector collector = new ChildCollector();
+
+	/**
+	 * Creates a walker that only calls {@link #enter(Node, Object)} and
+	 * {@link #leave(Node, Object)}, which must be overridden.
+	 */
+	protected TreeWalker() {
+		this(null, null);
+	}
+
+	/**
+	 * Creates a walker.
+	 *
+	 * @param preVisitor
+	 *            visitor called before visiting the descendants of each node,
+	 *            or null.
+	 * @param postVisitor
+	 *            visitor called after visiting the descendants of each node,
+	 *            or null.
+	 */
+	public TreeWalker(VoidVisitor<A> preVisitor, VoidVisitor<A> postVisitor) {
+		this.preVisitor = preVisitor;
+		this.postVisitor = postVisitor;
+	}
+
+	/**
+	 * Visits a node and all its descendants.
+	 *
+	 * @param n
+	 *            the root node
+	 * @param arg
+	 *            the visitor argument
+	 */
+	public void walk(Node n, A arg) {
+		if (n != null) {
+			n.accept(recursion, arg);
+		}
+	}
+
+	private void walkIteratively(Node n, A arg) {
+		// each entered node is followed by a null mark and its children in
+		// reverse order, so it is left when the mark is popped
+		List<Node> stack = new ArrayList<Node>();
+		List<Node> children = new ArrayList<Node>();
+		stack.add(n);
+		while (!stack.isEmpty()) {
+			Node top = stack.remove(stack.size() - 1);
+			if (top == null) {
+				leave(stack.remove(stack.size() - 1), arg);
+			} else if (enter(top, arg)) {
+				stack.add(top);
+				stack.add(null);
+				collector.collect(top, children);
+				for (int i = children.size() - 1; i >= 0; i--) {
+					stack.add(children.get(i));
+				}
+				children.clear();
+			}
+		}
+	}
+
+	/**
+	 * Called before visiting the descendants of a node.
+	 *
+	 * @param n
+	 *            the visited node
+	 * @param arg
+	 *            the visitor argument
+	 * @return true to visit the descendants of the node and to call
+	 *         {@link #leave(Node, Object)} afterwards.
+	 */
+	protected boolean enter(Node n, A arg) {
+		if (preVisitor != null) {
+			n.accept(preVisitor, arg);
+		}
+		return true;
+	}
+
+	/**
+	 * Called after visiting the descendants of a node.
+	 *
+	 * @param n
+	 *            the visited node
+	 * @param arg
+	 *            the visitor argument
+	 */
+	protected void leave(Node n, A arg) {
+		if (postVisitor != null) {
+			n.accept(postVisitor, arg);
+		}
+	}
+
+	/**
+	 * Returns the children of a node in the order that
+	 * {@link VoidVisitorAdapter} visits them.
+	 *
+	 * @param n
+	 *            the parent node
+	 * @return the list of its children, which is empty for leaves.
+	 */
+	public static List<Node> getChildren(Node n) {
+		List<Node> children = new ArrayList<Node>();
+		new ChildCollector().collect(n, children);
+		return children;
+	}
+
+	/**
+	 * Recursive traversal of the nodes that are not too deep.
+	 */
+	private final class Recursion extends SelectiveVisitorAdapter<A> {
+
+		private int depth;
+
+		@Override
+		protected boolean enter(Node n, A arg) {
+			if (depth >= MAX_RECURSION_DEPTH) {
+				walkIteratively(n, arg);
+				return false;
+			}
+			if (TreeWalker.this.enter(n, arg)) {
+				depth++;
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		protected void leave(Node n, A arg) {
+			depth--;
+			TreeWalker.this.leave(n, arg);
+		}
+	}
+
+	/**
+	 * Visits a node with a {@link VoidVisitorAdapter} that rejects any other
+	 * node, so each child is collected instead of being visited.
+	 */
+	private static final class ChildCollector extends
+			SelectiveVisitorAdapter<Object> {
+
+		private Node parent;
+
+		private List<Node> children;
+
+		void collect(Node n, List<Node> children) {
+			parent = n;
+			this.children = children;
+			n.accept(this, null);
+			parent = null;
+			this.children = null;
+		}
+
+		@Override
+		protected boolean enter(Node n, Object arg) {
+			if (n == parent) {
+				return true;
+			}
+			children.add(n);
+			return false;
+		}
+	}
+}
@@ -351,7 +351,9 @@ public abstract class VoidVisitorAdapter<A> implements VoidVisitor<A> {
 	}
 
 	public void visit(EnclosedExpr n, A arg) {
-		n.getInner().accept(this, arg);
+		if (n.getInner() != null) {
+			n.getInner().accept(this, arg);
+		}
 	}
 
 	public void visit(EnumConstantDeclaration n, A arg) {
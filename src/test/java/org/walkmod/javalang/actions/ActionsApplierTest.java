@@ -0,0 +1,298 @@
+/* 
+  Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+ 
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang.actions;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.CharacterCodingException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.walkmod.javalang.ASTManager;
+import org.walkmod.javalang.ast.Comment;
+import org.walkmod.javalang.ast.Node;
+import org.walkmod.javalang.ast.body.BodyDeclaration;
+import org.walkmod.javalang.ast.body.MethodDeclaration;
+import org.walkmod.javalang.util.FileUtils;
+
+public class ActionsApplierTest {
+
+	private static final String CODE = "public class A {\r\n\r\n\tprivate int a;\r\n\r\n\t/** foo */\r\n\tpublic void foo() {\r\n\t\ta++;\r\n\t}\r\n\r\n"
+			+ "\tpublic int bar() {\r\n\t\treturn a;\r\n\t}\r\n}";
+
+	private static final String EXPECTED = "public class A {\r\n\r\n\t\r\n\r\n\t\tpublic void qux() {\n\t\ta--;\n\t}  \n      \n  \r\n\r\n"
+			+ "\tpublic int bar() {\r\n\t\treturn a;\r\n\t}\r\n\tpublic int baz() {\n\t\treturn 1;\n\t}\n}";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private List<BodyDeclaration> members;
+
+	private List<Action> createActions() throws Exception {
+		members = ASTManager.parse(CODE).getTypes().get(0).getMembers();
+		BodyDeclaration field = members.get(0);
+		MethodDeclaration foo = (MethodDeclaration) members.get(1);
+		MethodDeclaration bar = (MethodDeclaration) members.get(2);
+		MethodDeclaration baz = (MethodDeclaration) ASTManager.parse(MethodDeclaration.class,
+				"public int baz() { return 1; }");
+		MethodDeclaration renamed = (MethodDeclaration) ASTManager.parse(MethodDeclaration.class,
+				"public void qux() { a--; }");
+
+		List<Action> actions = new ArrayList<Action>();
+		actions.add(new RemoveAction(field.getBeginLine(), field.getBeginColumn(), field.getEndLine(),
+				field.getEndColumn(), field));
+		actions.add(new ReplaceAction(foo.getBeginLine(), foo.getBeginColumn(), foo, renamed, 1, 1,
+				new ArrayList<Comment>()));
+		actions.add(new AppendAction(bar.getEndLine() + 1, 1, baz, 1, 1));
+		return actions;
+	}
+
+	@Test
+	public void testExecute() throws Exception {
+		ActionsApplier applier = new ActionsApplier();
+		applier.setText(CODE);
+		applier.setActionList(createActions());
+		applier.execute();
+		Assert.assertEquals(EXPECTED, applier.getModifiedText());
+	}
+
+	@Test
+	public void testLazyActionTexts() throws Exception {
+		List<BodyDeclaration> members = ASTManager.parse(
+				"public class A {\n\n\tprivate int a;\n\n\t/** foo */\n\tpublic void foo() {\n\t\ta++;\n\t}\n}")
+				.getTypes().get(0).getMembers();
+		BodyDeclaration field = members.get(0);
+		MethodDeclaration foo = (MethodDeclaration) members.get(1);
+
+		MethodDeclaration baz = (MethodDeclaration) ASTManager.parse(MethodDeclaration.class,
+				"public int bar() { return 1; }");
+		AppendAction append = new AppendAction(9, 1, baz, 1, 4);
+		// the text is rendered when it is requested for the first time
+		baz.setName("baz");
+		Assert.assertEquals("    public int baz() {\n        return 1;\n    }\n", append.getText());
+		Assert.assertEquals(11, append.getEndLine());
+		Assert.assertEquals(5, append.getEndColumn());
+		append.setIndentationChar('\t');
+		Assert.assertEquals("\t\t\t\tpublic int baz() {\n\t\t\t\t\t\t\t\treturn 1;\n\t\t\t\t}\n", append.getText());
+		Assert.assertEquals(11, append.getEndLine());
+		Assert.assertEquals(5, append.getEndColumn());
+
+		MethodDeclaration qux = (MethodDeclaration) ASTManager.parse(MethodDeclaration.class,
+				"public void qux() { a--; }");
+		ReplaceAction replace = new ReplaceAction(foo.getBeginLine(), foo.getBeginColumn(), foo, qux, 1, 4,
+				new ArrayList<Comment>());
+		Assert.assertEquals(5, replace.getBeginLine());
+		Assert.assertEquals(2, replace.getBeginColumn());
+		Assert.assertEquals("    /** foo */\n    public void foo() {\n        a++;\n    }", replace.getOldText());
+		Assert.assertEquals("    public void qux() {\n        a--;\n    }         \n     ", replace.getNewText());
+		Assert.assertEquals(8, replace.getEndLine());
+		Assert.assertEquals(5, replace.getEndColumn());
+		replace.setIndentationChar('\t');
+		Assert.assertEquals("\t\t\t\tpublic void qux() {\n\t\t\t\t\t\t\t\ta--;\n\t\t\t\t}         \n     ",
+				replace.getNewText());
+		Assert.assertEquals(8, replace.getEndLine());
+		Assert.assertEquals(5, replace.getEndColumn());
+		replace.setIndentationChar(' ');
+		Assert.assertEquals("    public void qux() {\n        a--;\n    }         \n     ", replace.getNewText());
+
+		RemoveAction remove = new RemoveAction(field.getBeginLine(), field.getBeginColumn(), field.getEndLine(),
+				field.getEndColumn(), field);
+		Assert.assertEquals("private int a;", remove.getText());
+		Assert.assertEquals(3, remove.getEndLine());
+		Assert.assertEquals(15, remove.getEndColumn());
+	}
+
+	@Test
+	public void testActionPlan() throws Exception {
+		List<Action> actions = createActions();
+		BodyDeclaration field = members.get(0);
+		ActionPlan plan = new ActionPlan();
+		plan.add(actions.get(2));
+		plan.add(actions.get(1));
+		plan.add(new RemoveAction(field.getBeginLine(), field.getBeginColumn(), field.getEndLine(),
+				field.getEndColumn(), field));
+		plan.add(actions.get(0));
+		Assert.assertEquals(4, plan.size());
+		Assert.assertEquals(3, plan.getActions().size());
+
+		ActionsApplier applier = new ActionsApplier();
+		applier.setText(CODE);
+		applier.setActionPlan(plan);
+		applier.execute();
+		Assert.assertEquals(EXPECTED, applier.getModifiedText());
+
+		MethodDeclaration foo = (MethodDeclaration) members.get(1);
+		Node stmt = foo.getBody().getStmts().get(0);
+		Action remove = new RemoveAction(stmt.getBeginLine(), stmt.getBeginColumn(), stmt.getEndLine(),
+				stmt.getEndColumn(), stmt);
+		plan.add(remove);
+		try {
+			plan.getActions();
+			Assert.fail("The removal of a replaced statement must be rejected");
+		} catch (ActionConflictException e) {
+			Assert.assertEquals("REMOVE [7:3 - 7:6] overlaps REPLACE [5:2 - 8:2]", e.getMessage());
+			Assert.assertSame(remove, e.getAction());
+			Assert.assertSame(actions.get(1), e.getConflictingAction());
+		}
+
+		// the removals of "return " and "a;" touch, so they are joined
+		plan = new ActionPlan();
+		plan.add(new RemoveAction(11, 10, 11, 11, null));
+		plan.add(new RemoveAction(11, 3, 11, 9, null));
+		List<Action> joined = plan.getActions();
+		Assert.assertEquals(1, joined.size());
+		Assert.assertEquals(3, joined.get(0).getBeginColumn());
+		Assert.assertEquals(11, joined.get(0).getEndColumn());
+		applier.setText(CODE);
+		applier.setActionPlan(plan);
+		applier.execute();
+		Assert.assertEquals(CODE.replace("return a;", ""), applier.getModifiedText());
+	}
+
+	private File write(String name, String code, String encoding)
+			throws Exception {
+		File file = folder.newFile(name);
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(code.getBytes(encoding));
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+
+	@Test
+	public void testSetTextFromFile() throws Exception {
+		File file = folder.newFile("A.java");
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write("class A {}".getBytes("UTF-8"));
+			out.write(0xff);
+		} finally {
+			out.close();
+		}
+		ActionsApplier applier = new ActionsApplier();
+		// the platform encoding replaces malformed input
+		applier.setText(file);
+		try {
+			applier.setText(file, "UTF-8");
+			Assert.fail("Malformed input must be rejected when the encoding is given");
+		} catch (RuntimeException e) {
+			Assert.assertTrue(e.getCause() instanceof CharacterCodingException);
+		}
+	}
+
+	@Test
+	public void testRewriteEngine() throws Exception {
+		File utf8 = write("A.java", CODE, "UTF-8");
+		File utf16 = write("B.java", CODE, "UTF-16");
+		Map<File, List<Action>> actions = new LinkedHashMap<File, List<Action>>();
+		actions.put(utf8, createActions());
+		actions.put(utf16, createActions());
+
+		RewriteEngine engine = new RewriteEngine(2);
+		List<RewriteResult> results = engine.rewrite(actions,
+				Collections.singletonMap(utf16, "UTF-16"), "UTF-8");
+		Assert.assertEquals(2, results.size());
+		for (RewriteResult result : results) {
+			Assert.assertTrue(result.isSuccessful());
+			Assert.assertTrue(result.isCommitted());
+			Assert.assertTrue(result.getTotalTime() > 0);
+		}
+		Assert.assertSame(utf8, results.get(0).getFile());
+		Assert.assertEquals(EXPECTED, FileUtils.fileToString(utf8, "UTF-8"));
+		Assert.assertEquals(EXPECTED, FileUtils.fileToString(utf16, "UTF-16"));
+		Assert.assertEquals(2, folder.getRoot().list().length);
+
+		// no file is modified when any of them fails
+		File c = write("C.java", CODE, "UTF-8");
+		actions.clear();
+		actions.put(c, createActions());
+		actions.put(new File(folder.getRoot(), "D.java"), createActions());
+		results = engine.rewrite(actions, "UTF-8");
+		Assert.assertTrue(results.get(0).isSuccessful());
+		Assert.assertFalse(results.get(0).isCommitted());
+		Assert.assertFalse(results.get(1).isSuccessful());
+		Assert.assertFalse(results.get(1).isCommitted());
+		Assert.assertEquals(CODE, FileUtils.fileToString(c, "UTF-8"));
+		Assert.assertEquals(3, folder.getRoot().list().length);
+	}
+
+	@Test
+	public void testRewriteEngineRestoresTheBatchWhenAMoveFails() throws Exception {
+		File e = write("E.java", CODE, "UTF-8");
+		File f = write("F.java", CODE, "UTF-8");
+		File g = write("G.java", CODE, "UTF-8");
+		Map<File, List<Action>> actions = new LinkedHashMap<File, List<Action>>();
+		actions.put(e, createActions());
+		actions.put(f, createActions());
+		actions.put(g, createActions());
+
+		RewriteEngine engine = new RewriteEngine(2) {
+			@Override
+			protected boolean rename(File source, File target) {
+				// the new contents of G.java can not take its place
+				if (source.getName().endsWith(".tmp") && target.getName().equals("G.java")) {
+					return false;
+				}
+				return super.rename(source, target);
+			}
+		};
+		List<RewriteResult> results = engine.rewrite(actions, "UTF-8");
+		Assert.assertTrue(results.get(0).isSuccessful());
+		Assert.assertTrue(results.get(1).isSuccessful());
+		Assert.assertFalse(results.get(2).isSuccessful());
+		for (RewriteResult result : results) {
+			Assert.assertFalse(result.isCommitted());
+		}
+		Assert.assertEquals(CODE, FileUtils.fileToString(e, "UTF-8"));
+		Assert.assertEquals(CODE, FileUtils.fileToString(f, "UTF-8"));
+		Assert.assertEquals(CODE, FileUtils.fileToString(g, "UTF-8"));
+		// neither the temporary files nor the backups remain
+		Assert.assertEquals(3, folder.getRoot().list().length);
+	}
+
+	@Test
+	public void testRewriteEngineReportsTheBackupThatCanNotBeRestored() throws Exception {
+		File h = write("H.java", CODE, "UTF-8");
+		RewriteEngine engine = new RewriteEngine(1) {
+			@Override
+			protected boolean rename(File source, File target) {
+				// neither the new contents nor the backup can take the place of H.java
+				if (target.getName().equals("H.java")) {
+					return false;
+				}
+				return super.rename(source, target);
+			}
+		};
+		RewriteResult result = engine.rewrite(Collections.singletonMap(h, createActions()), "UTF-8").get(0);
+		Assert.assertFalse(result.isSuccessful());
+		Assert.assertFalse(result.isCommitted());
+		Assert.assertFalse(h.exists());
+		String[] names = folder.getRoot().list();
+		Assert.assertEquals(1, names.length);
+		File backup = new File(folder.getRoot(), names[0]);
+		Assert.assertTrue(result.getError().getMessage().endsWith(backup.getAbsolutePath()));
+		Assert.assertEquals(CODE, FileUtils.fileToString(backup, "UTF-8"));
+	}
+}
@@ -15,19 +15,53 @@
  along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
 package org.walkmod.javalang.ast;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.walkmod.javalang.ASTManager;
+import org.walkmod.javalang.ASTParserTokenManager;
+import org.walkmod.javalang.JavaCharStream;
+import org.walkmod.javalang.JavaParser;
+import org.walkmod.javalang.ParseException;
+import org.walkmod.javalang.ParseResult;
+import org.walkmod.javalang.ParseResults;
+import org.walkmod.javalang.Token;
+import org.walkmod.javalang.ast.body.FieldDeclaration;
+import org.walkmod.javalang.ast.body.BodyDeclaration;
 import org.walkmod.javalang.ast.body.MethodDeclaration;
+import org.walkmod.javalang.ast.body.TypeDeclaration;
+import org.walkmod.javalang.ast.body.VariableDeclaratorId;
+import org.walkmod.javalang.ast.expr.AssignExpr;
+import org.walkmod.javalang.ast.expr.ConditionalExpr;
 import org.walkmod.javalang.ast.expr.Expression;
 import org.walkmod.javalang.ast.expr.MethodCallExpr;
+import org.walkmod.javalang.ast.expr.NameExpr;
+import org.walkmod.javalang.ast.stmt.ExpressionStmt;
 import org.walkmod.javalang.ast.stmt.ReturnStmt;
+import org.walkmod.javalang.ast.stmt.Statement;
+import org.walkmod.javalang.visitors.CloneVisitor;
 
 public class ASTParserTest {
 
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
 	@Test
 	public void testParsing() throws Exception {
 		File f = new File("src/test/resources/source1.8.txt");
@@ -160,4 +194,397 @@ public class ASTParserTest {
 			pos = arg.getBeginColumn();
 		}
 	}
+
+	@Test
+	public void testConcurrentCachedParsing() throws Exception {
+		final File f = new File("src/test/resources/source1.8.txt");
+		String expected = JavaParser.parse(f, "UTF-8").toString();
+		JavaParser.setParserPoolSize(2);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<String>> results = new LinkedList<Future<String>>();
+			for (int i = 0; i < 16; i++) {
+				results.add(executor.submit(new Callable<String>() {
+					@Override
+					public String call() throws Exception {
+						return JavaParser.parse(f, "UTF-8").toString();
+					}
+				}));
+			}
+			for (Future<String> result : results) {
+				Assert.assertEquals(expected, result.get());
+			}
+		} finally {
+			executor.shutdown();
+			JavaParser.setParserPoolSize(Runtime.getRuntime().availableProcessors());
+		}
+	}
+
+	private File writeSource(File dir, String name, String code) throws Exception {
+		File file = new File(dir, name);
+		FileWriter writer = new FileWriter(file);
+		try {
+			writer.write(code);
+		} finally {
+			writer.close();
+		}
+		return file;
+	}
+
+	@Test
+	public void testParseAll() throws Exception {
+		File root = folder.newFolder("src");
+		File pkg = new File(root, "foo");
+		pkg.mkdirs();
+		for (int i = 0; i < 10; i++) {
+			writeSource(pkg, "A" + i + ".java", "package foo; public class A" + i + " { void m(){ int x = " + i
+					+ "; } }");
+		}
+		writeSource(pkg, "Broken.java", "package foo; public class Broken {");
+		writeSource(root, "README.txt", "not java");
+
+		ParseResults results = ASTManager.parseAll(root, "UTF-8", 3, 2, true);
+		List<File> files = results.getFiles();
+		Assert.assertEquals(11, files.size());
+		int i = 0;
+		while (results.hasNext()) {
+			ParseResult result = results.next();
+			Assert.assertEquals(files.get(i), result.getFile());
+			if (result.getFile().getName().equals("Broken.java")) {
+				Assert.assertFalse(result.isSuccessful());
+				Assert.assertTrue(result.getError() instanceof ParseException);
+			} else {
+				Assert.assertTrue(result.isSuccessful());
+				String name = result.getFile().getName();
+				Assert.assertEquals(name.substring(0, name.length() - 5),
+						result.getCompilationUnit().getTypes().get(0).getName());
+			}
+			i++;
+		}
+		Assert.assertEquals(11, i);
+
+		results = ASTManager.parseAll(root);
+		int parsed = 0;
+		while (results.hasNext()) {
+			if (results.next().isSuccessful()) {
+				parsed++;
+			}
+		}
+		Assert.assertEquals(10, parsed);
+	}
+
+	@Test
+	public void testParseAllKeepsParsingAfterAStackOverflow() throws Exception {
+		File root = folder.newFolder("deep");
+		StringBuilder code = new StringBuilder("class Deep { int x = ");
+		for (int i = 0; i < 100000; i++) {
+			code.append('(');
+		}
+		code.append('1');
+		for (int i = 0; i < 100000; i++) {
+			code.append(')');
+		}
+		code.append("; }");
+		writeSource(root, "A.java", "class A { }");
+		writeSource(root, "Deep.java", code.toString());
+		writeSource(root, "Z.java", "class Z { }");
+
+		ParseResults results = ASTManager.parseAll(root, "UTF-8", 2, 2, true);
+		int parsed = 0;
+		int failed = 0;
+		while (results.hasNext()) {
+			ParseResult result = results.next();
+			if (result.isSuccessful()) {
+				parsed++;
+			} else {
+				Assert.assertEquals("Deep.java", result.getFile().getName());
+				Assert.assertTrue(result.getError() instanceof ParseException);
+				Assert.assertTrue(result.getError().getCause() instanceof StackOverflowError);
+				failed++;
+			}
+		}
+		Assert.assertEquals(2, parsed);
+		Assert.assertEquals(1, failed);
+	}
+
+	@Test
+	public void testParseMappedFile() throws Exception {
+		StringBuilder code = new StringBuilder("package foo;\n/**\n");
+		for (int i = 0; i < 500; i++) {
+			code.append(" * long javadoc line ").append(i).append('\n');
+		}
+		code.append(" */\npublic class Big {\n");
+		for (int i = 0; i < 3000; i++) {
+			code.append("\tprivate String f").append(i)
+					.append(" = \"\u00f1and\u00fa \\u0041 ").append(i).append("\";\n");
+		}
+		code.append("}\n");
+		File file = new File(folder.getRoot(), "Big.java");
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try {
+			writer.write(code.toString());
+		} finally {
+			writer.close();
+		}
+		Assert.assertTrue(file.length() > 64 * 1024);
+
+		CompilationUnit mapped = ASTManager.parse(file, "UTF-8");
+		CompilationUnit read = ASTManager.parse(code.toString());
+		Assert.assertEquals(read.toString(), mapped.toString());
+		BodyDeclaration last = mapped.getTypes().get(0).getMembers().get(2999);
+		Assert.assertEquals(3504, last.getBeginLine());
+		Assert.assertEquals(2, last.getBeginColumn());
+		Assert.assertEquals(read.getTypes().get(0).getMembers().get(2999).getEndColumn(), last.getEndColumn());
+		Assert.assertEquals(3505, mapped.getEndLine());
+		// the file is not kept open nor mapped after the parse
+		Assert.assertTrue(file.delete());
+	}
+
+	@Test
+	public void testParsedListsAreArrays() throws Exception {
+		String code = "package foo;\nimport java.util.List;\nimport java.util.Map;\n"
+				+ "public class A {\n\t// comment\n\t@Deprecated public void foo(int a, int b) {\n\t\tbar(a, b);\n\t\ta++;\n\t}\n"
+				+ "\tint x;\n}\n";
+		CompilationUnit cu = ASTManager.parse(code);
+		TypeDeclaration type = cu.getTypes().get(0);
+		MethodDeclaration method = (MethodDeclaration) type.getMembers().get(0);
+		ExpressionStmt call = (ExpressionStmt) method.getBody().getStmts().get(0);
+		List<?>[] lists = { cu.getImports(), cu.getTypes(), cu.getComments(), type.getMembers(),
+				method.getAnnotations(), method.getParameters(), method.getBody().getStmts(),
+				((MethodCallExpr) call.getExpression()).getArgs() };
+		for (List<?> list : lists) {
+			Assert.assertTrue(list instanceof RandomAccess);
+		}
+
+		List<BodyDeclaration> members = type.getMembers();
+		BodyDeclaration added = (BodyDeclaration) ASTManager.parse(BodyDeclaration.class, "int y;");
+		members.add(1, added);
+		Assert.assertEquals(3, members.size());
+		for (BodyDeclaration member : members) {
+			Assert.assertSame(type, member.getParentNode());
+		}
+		Assert.assertSame(method, method.getBody().getParentNode());
+		Assert.assertSame(method.getBody(), call.getParentNode());
+		Assert.assertTrue(type.toString().contains("int y;"));
+	}
+
+	@Test
+	public void testParseWithoutLocation() throws Exception {
+		StringBuilder code = new StringBuilder("/**\n");
+		for (int i = 0; i < 500; i++) {
+			code.append(" * long javadoc line ").append(i).append('\n');
+		}
+		code.append(" */\npublic int foo(String s) {\n\treturn s.length() + 1;\n}");
+		Node located = ASTManager.parse(MethodDeclaration.class, code.toString(), false);
+		Node fast = ASTManager.parse(MethodDeclaration.class, code.toString(), true);
+		Assert.assertEquals(located.toString(), fast.toString());
+		Assert.assertEquals(503, located.getBeginLine());
+		Assert.assertEquals(0, fast.getBeginLine());
+		Assert.assertEquals(0, fast.getEndLine());
+		Assert.assertEquals(0, fast.getEndColumn());
+	}
+
+	@Test
+	public void testParseWithoutComments() throws Exception {
+		String code = "package foo;\n// line\n/** class doc */\npublic class A {\n\t/* block */ int a = 1; // end\n"
+				+ "\t/** method doc */\n\tpublic void foo() {\n\t\tfoo(); /* call */\n\t}\n}\n";
+		CompilationUnit withComments = ASTManager.parse(code);
+		CompilationUnit cu = ASTManager.parse(code, false, true);
+		Assert.assertEquals(6, withComments.getComments().size());
+		Assert.assertNull(cu.getComments());
+		Assert.assertNull(cu.getTypes().get(0).getJavaDoc());
+		List<BodyDeclaration> members = cu.getTypes().get(0).getMembers();
+		Assert.assertNull(members.get(1).getJavaDoc());
+		Assert.assertEquals(ASTManager.parse(code.replaceAll("//.*|/\\*.*?\\*/", "")).toString(), cu.toString());
+
+		// the comments are skipped like whitespace, so the locations do not change
+		List<BodyDeclaration> expected = withComments.getTypes().get(0).getMembers();
+		for (int i = 0; i < members.size(); i++) {
+			Assert.assertEquals(expected.get(i).getBeginLine(), members.get(i).getBeginLine());
+			Assert.assertEquals(expected.get(i).getBeginColumn(), members.get(i).getBeginColumn());
+			Assert.assertEquals(expected.get(i).getEndOffset(), members.get(i).getEndOffset());
+		}
+
+		File file = writeSource(folder.getRoot(), "A.java", code);
+		Assert.assertEquals(cu.toString(), ASTManager.parse(file, "UTF-8", true).toString());
+		Assert.assertEquals(withComments.toString(), ASTManager.parse(file, "UTF-8", false).toString());
+	}
+
+	@Test
+	public void testIncrementalReparse() throws Exception {
+		String code = "public class A {\n\n\tpublic int foo(int a) {\n\t\t// increment\n\t\treturn a + 1;\n\t}\n\n"
+				+ "\t/** bar */\n\tpublic void bar() {\n\t\tfoo(2); /* call */\n\t}\n}\n";
+		CompilationUnit cu = ASTManager.parse(code);
+		MethodDeclaration foo = (MethodDeclaration) cu.getTypes().get(0).getMembers().get(0);
+		int offset = code.indexOf("1;");
+		String replacement = "b;\n\t\tint b = 2";
+
+		CompilationUnit result = ASTManager.reparse(cu, code, offset, 1, replacement);
+		String newCode = code.substring(0, offset) + replacement + code.substring(offset + 1);
+		CompilationUnit expected = ASTManager.parse(newCode);
+
+		Assert.assertSame(cu, result);
+		Assert.assertSame(foo, cu.getTypes().get(0).getMembers().get(0));
+		Assert.assertEquals(expected, result);
+		Assert.assertEquals(expected.toString(), result.toString());
+		BodyDeclaration bar = result.getTypes().get(0).getMembers().get(1);
+		Assert.assertEquals(10, bar.getBeginLine());
+		Assert.assertEquals(9, bar.getJavaDoc().getEndLine());
+		Assert.assertEquals(13, result.getEndLine());
+		Assert.assertEquals(3, result.getComments().size());
+		Assert.assertEquals(" call ", result.getComments().get(2).getContent());
+		Assert.assertEquals(11, result.getComments().get(2).getBeginLine());
+
+		// an edit outside the type declarations parses the whole code again
+		result = ASTManager.reparse(result, newCode, 0, 0, "package foo;\n");
+		Assert.assertNotSame(cu, result);
+		Assert.assertEquals("foo", result.getPackage().getName().toString());
+
+		// the body of a constructor is parsed again with the constructor
+		code = "class A extends B {\n\tA(int x) {\n\t\tsuper(x);\n\t\tfoo();\n\t}\n}\n";
+		cu = ASTManager.parse(code);
+		offset = code.indexOf("foo();");
+		replacement = "bar();\n\t\t";
+		result = ASTManager.reparse(cu, code, offset, 0, replacement);
+		expected = ASTManager.parse(code.substring(0, offset) + replacement + code.substring(offset));
+		Assert.assertSame(cu, result);
+		Assert.assertEquals(expected, result);
+		Assert.assertEquals(expected.toString(), result.toString());
+	}
+
+	@Test
+	public void testIncrementalReparseWithoutLineOffsets() throws Exception {
+		String code = "class A {\n\tint x;\n\tvoid m() { int y = 1; }\n\tvoid n() { int z = 2; } }";
+		int offset = code.indexOf('2');
+		CompilationUnit expected = ASTManager.parse(code.replace('2', '3'));
+
+		CompilationUnit cu = JavaParser.parse(new ByteArrayInputStream(code.getBytes("UTF-8")), "UTF-8");
+		CompilationUnit result = ASTManager.reparse(cu, code, offset, 1, "3");
+		Assert.assertEquals(expected, result);
+		Assert.assertEquals(expected.toString(), result.toString());
+
+		// without the table of the lines, the columns can not be mapped
+		cu = ASTManager.parse(code);
+		cu.setLineTable(null);
+		result = ASTManager.reparse(cu, code, offset, 1, "3");
+		Assert.assertNotSame(cu, result);
+		Assert.assertEquals(expected, result);
+		Assert.assertNotNull(result.getLineTable());
+	}
+
+	@Test
+	public void testOffsets() throws Exception {
+		String code = "public class A {\r\n\tint a = 1;\r\n\r\n\tString s = \"\\u0041\";\r\n"
+				+ "\tpublic int foo() {\n\t\treturn a;\n\t}\n}\n";
+		CompilationUnit cu = ASTManager.parse(code);
+		List<BodyDeclaration> members = cu.getTypes().get(0).getMembers();
+		FieldDeclaration a = (FieldDeclaration) members.get(0);
+		FieldDeclaration s = (FieldDeclaration) members.get(1);
+		MethodDeclaration foo = (MethodDeclaration) members.get(2);
+		Assert.assertEquals(0, cu.getBeginOffset());
+		Assert.assertEquals(code.length() - 1, cu.getTypes().get(0).getEndOffset());
+		Assert.assertEquals("int a = 1;", code.substring(a.getBeginOffset(), a.getEndOffset()));
+		Assert.assertEquals("\"\\u0041\"", code.substring(s.getVariables().get(0).getInit().getBeginOffset(),
+				s.getVariables().get(0).getInit().getEndOffset()));
+		Assert.assertEquals("public int foo() {\n\t\treturn a;\n\t}",
+				code.substring(foo.getBeginOffset(), foo.getEndOffset()));
+		Assert.assertEquals(-1, new NameExpr("b").getBeginOffset());
+
+		JavaCharStream stream = new JavaCharStream(new StringReader(code));
+		ASTParserTokenManager tokens = new ASTParserTokenManager(stream);
+		for (Token token = tokens.getNextToken(); token.kind != 0; token = tokens.getNextToken()) {
+			String text = code.substring(token.beginOffset, token.endOffset);
+			if (text.startsWith("\"")) {
+				Assert.assertEquals("\"\\u0041\"", text);
+				Assert.assertEquals("\"A\"", token.image);
+			} else {
+				Assert.assertEquals(token.image, text);
+			}
+		}
+
+		// the offsets follow the edits of the incremental reparser
+		code = code.replace("\\u0041", "A");
+		cu = ASTManager.parse(code);
+		int offset = code.indexOf("a;");
+		String replacement = "a\n\t\t\t+ 1;";
+		Assert.assertSame(cu, ASTManager.reparse(cu, code, offset, 2, replacement));
+		code = code.substring(0, offset) + replacement + code.substring(offset + 2);
+		foo = (MethodDeclaration) cu.getTypes().get(0).getMembers().get(2);
+		Assert.assertEquals("public int foo() {\n\t\treturn a\n\t\t\t+ 1;\n\t}",
+				code.substring(foo.getBeginOffset(), foo.getEndOffset()));
+		Assert.assertEquals(code.length() - 1, cu.getTypes().get(0).getEndOffset());
+	}
+
+	@Test
+	public void testOffsetsOfOtherParses() throws Exception {
+		String code = "public class A {\n\tint b\\u0062 = 1;\n\tpublic int foo() {\n\t\treturn bb;\n\t}\n}\n";
+		CompilationUnit cu = JavaParser.parse(new ByteArrayInputStream(code.getBytes("UTF-8")), "UTF-8");
+		List<BodyDeclaration> members = cu.getTypes().get(0).getMembers();
+		FieldDeclaration field = (FieldDeclaration) members.get(0);
+		MethodDeclaration foo = (MethodDeclaration) members.get(1);
+		// the columns keep the default tab size
+		Assert.assertEquals(9, foo.getBeginColumn());
+		// a node that ends with a unicode escape ends after the whole escape
+		VariableDeclaratorId id = field.getVariables().get(0).getId();
+		Assert.assertEquals("bb", id.getName());
+		Assert.assertEquals("b\\u0062", code.substring(id.getBeginOffset(), id.getEndOffset()));
+		Assert.assertEquals("int b\\u0062 = 1;", code.substring(field.getBeginOffset(), field.getEndOffset()));
+		Assert.assertEquals("public int foo() {\n\t\treturn bb;\n\t}",
+				code.substring(foo.getBeginOffset(), foo.getEndOffset()));
+
+		CompilationUnit clone = (CompilationUnit) cu.accept(new CloneVisitor(), null);
+		foo = (MethodDeclaration) clone.getTypes().get(0).getMembers().get(1);
+		Assert.assertEquals("public int foo() {\n\t\treturn bb;\n\t}",
+				code.substring(foo.getBeginOffset(), foo.getEndOffset()));
+
+		String fragment = "public int foo() {\n\t\treturn bb;\n\t}";
+		foo = (MethodDeclaration) ASTManager.parse(MethodDeclaration.class, fragment, false);
+		Assert.assertEquals(0, foo.getBeginOffset());
+		Assert.assertEquals(fragment.length(), foo.getEndOffset());
+		Statement stmt = foo.getBody().getStmts().get(0);
+		Assert.assertEquals("return bb;", fragment.substring(stmt.getBeginOffset(), stmt.getEndOffset()));
+		foo = (MethodDeclaration) ASTManager.parse(MethodDeclaration.class, fragment);
+		Assert.assertEquals(-1, foo.getBeginOffset());
+	}
+
+	@Test
+	public void testLongRightAssociativeChains() throws Exception {
+		ConditionalExpr conditional = (ConditionalExpr) ASTManager.parse(Expression.class, "a ? b : c ? d : e", false);
+		Assert.assertEquals("a", conditional.getCondition().toString());
+		Assert.assertEquals("c ? d : e", conditional.getElseExpr().toString());
+		Assert.assertEquals(17, conditional.getElseExpr().getEndColumn());
+		AssignExpr assign = (AssignExpr) ASTManager.parse(Expression.class, "a = b += c", false);
+		Assert.assertEquals(AssignExpr.Operator.assign, assign.getOperator());
+		Assert.assertEquals(AssignExpr.Operator.plus, ((AssignExpr) assign.getValue()).getOperator());
+		Assert.assertEquals(5, assign.getValue().getBeginColumn());
+
+		// machine generated chains are parsed without overflowing the stack
+		int length = 50000;
+		StringBuilder code = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			code.append("c").append(i).append(" ? ").append(i).append(" : ");
+		}
+		code.append("-1");
+		Expression expr = (Expression) ASTManager.parse(Expression.class, code.toString(), false);
+		for (int i = 0; i < length; i++) {
+			conditional = (ConditionalExpr) expr;
+			Assert.assertEquals("c" + i, conditional.getCondition().toString());
+			Assert.assertEquals(code.length(), conditional.getEndColumn());
+			expr = conditional.getElseExpr();
+		}
+		Assert.assertEquals("-1", expr.toString());
+
+		code = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			code.append("a").append(i).append(" = ");
+		}
+		code.append("0");
+		expr = (Expression) ASTManager.parse(Expression.class, code.toString());
+		for (int i = 0; i < length; i++) {
+			assign = (AssignExpr) expr;
+			Assert.assertEquals("a" + i, assign.getTarget().toString());
+			expr = assign.getValue();
+		}
+		Assert.assertEquals("0", expr.toString());
+	}
 }
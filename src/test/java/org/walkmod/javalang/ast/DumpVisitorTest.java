@@ -1,5 +1,11 @@
 package org.walkmod.javalang.ast;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+
 import junit.framework.Assert;
 
 import org.junit.Test;
@@ -9,6 +15,7 @@ import org.walkmod.javalang.ast.body.Parameter;
 import org.walkmod.javalang.ast.body.VariableDeclaratorId;
 import org.walkmod.javalang.ast.type.PrimitiveType;
 import org.walkmod.javalang.ast.type.PrimitiveType.Primitive;
+import org.walkmod.javalang.visitors.DumpVisitor;
 
 public class DumpVisitorTest {
 
@@ -29,4 +36,66 @@ public class DumpVisitorTest {
 		Assert.assertTrue(true);
 	}
 
+	@Test
+	public void testComments() throws Exception {
+		String code = "public class A {\n\n"
+				+ "    // before foo\n"
+				+ "    public void foo(int x) { // same line\n"
+				+ "        /* inner */\n"
+				+ "        int y = x;\n"
+				+ "        // between\n"
+				+ "        y++;\n"
+				+ "    }\n\n"
+				+ "    // before bar\n"
+				+ "    public void bar() {\n"
+				+ "    }\n"
+				+ "}\n";
+		CompilationUnit cu = ASTManager.parse(code);
+		Assert.assertEquals(code, cu.toString());
+		Assert.assertEquals(5, cu.getComments().size());
+		MethodDeclaration md = (MethodDeclaration) cu.getTypes().get(0).getMembers().get(0);
+		Assert.assertTrue(md.toString().contains("// between"));
+		Assert.assertFalse(md.toString().contains("// before bar"));
+	}
+
+	@Test
+	public void testStreaming() throws Exception {
+		CompilationUnit cu = ASTManager.parse(new File("src/test/resources/comments.txt"));
+		StringWriter writer = new StringWriter();
+		cu.print(writer);
+		Assert.assertEquals(cu.toString(), writer.toString());
+
+		writer = new StringWriter();
+		cu.printPrettySource(writer, '\t', 1, 1, null);
+		Assert.assertEquals(cu.getPrettySource('\t', 1, 1), writer.toString());
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DumpVisitor visitor = new DumpVisitor(Channels.newChannel(bytes), "UTF-8");
+		cu.accept(visitor, null);
+		visitor.flush();
+		Assert.assertNull(visitor.getSource());
+		Assert.assertEquals(cu.toString(), bytes.toString("UTF-8"));
+
+		visitor = new DumpVisitor(new Appendable() {
+
+			public Appendable append(CharSequence csq) throws IOException {
+				throw new IOException("disk full");
+			}
+
+			public Appendable append(CharSequence csq, int start, int end) throws IOException {
+				throw new IOException("disk full");
+			}
+
+			public Appendable append(char c) throws IOException {
+				throw new IOException("disk full");
+			}
+		});
+		cu.accept(visitor, null);
+		try {
+			visitor.flush();
+			Assert.fail();
+		} catch (IOException e) {
+			Assert.assertEquals("disk full", e.getMessage());
+		}
+	}
 }
@@ -0,0 +1,467 @@
+/* 
+  Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+ 
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang.ast;
+
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.walkmod.javalang.ASTManager;
+import org.walkmod.javalang.ast.body.BodyDeclaration;
+import org.walkmod.javalang.ast.body.MethodDeclaration;
+import org.walkmod.javalang.ast.body.MultiTypeParameter;
+import org.walkmod.javalang.ast.expr.BinaryExpr;
+import org.walkmod.javalang.ast.expr.Expression;
+import org.walkmod.javalang.ast.expr.LambdaExpr;
+import org.walkmod.javalang.ast.expr.MethodCallExpr;
+import org.walkmod.javalang.ast.expr.MethodReferenceExpr;
+import org.walkmod.javalang.ast.expr.NameExpr;
+import org.walkmod.javalang.ast.expr.StringLiteralExpr;
+import org.walkmod.javalang.ast.expr.TypeExpr;
+import org.walkmod.javalang.ast.stmt.BlockStmt;
+import org.walkmod.javalang.ast.stmt.ExpressionStmt;
+import org.walkmod.javalang.ast.stmt.Statement;
+import org.walkmod.javalang.comparators.MethodDeclarationComparator;
+import org.walkmod.javalang.visitors.CloneVisitor;
+import org.walkmod.javalang.visitors.EqualsVisitor;
+import org.walkmod.javalang.visitors.FingerprintIndex;
+import org.walkmod.javalang.visitors.GenericVisitor;
+import org.walkmod.javalang.visitors.ModifierVisitorAdapter;
+import org.walkmod.javalang.visitors.TreeWalker;
+
+public class NodeTest {
+
+	@Test
+	public void testHashCodeIsConsistentWithEquals() throws Exception {
+		CompilationUnit cu1 = ASTManager.parse("public class A {\n /** doc */\n public void foo(int x){ x++; }}");
+		CompilationUnit cu2 = ASTManager.parse("public class A { public void foo(int x){\n\n x++;\n}\n}");
+		MethodDeclaration md1 = (MethodDeclaration) cu1.getTypes().get(0).getMembers().get(0);
+		MethodDeclaration md2 = (MethodDeclaration) cu2.getTypes().get(0).getMembers().get(0);
+		Assert.assertEquals(md1, md2);
+		Assert.assertEquals(md1.hashCode(), md2.hashCode());
+	}
+
+	@Test
+	public void testHashCodeIsInvalidated() throws Exception {
+		CompilationUnit cu = ASTManager.parse("public class A { public void foo(int x){ x++; } }");
+		CompilationUnit other = ASTManager.parse("public class A { public void foo(int x){ x++; } }");
+		MethodDeclaration md = (MethodDeclaration) cu.getTypes().get(0).getMembers().get(0);
+		int hash = cu.hashCode();
+		Assert.assertEquals(other.hashCode(), hash);
+
+		md.setName("bar");
+		Assert.assertNotEquals(hash, cu.hashCode());
+		md.setName("foo");
+		Assert.assertEquals(hash, cu.hashCode());
+
+		BlockStmt body = md.getBody();
+		Statement stmt = body.getStmts().get(0);
+		Statement newStmt = (Statement) ASTManager.parse(Statement.class, "x--;");
+		Assert.assertTrue(body.replaceChildNode(stmt, newStmt));
+		Assert.assertNotEquals(hash, cu.hashCode());
+		Assert.assertNotEquals(other, cu);
+
+		// the second change stops invalidating at the method, whose hash
+		// code is no longer cached
+		md.setName("bar");
+		md.setName("baz");
+		CompilationUnit expected = ASTManager.parse("public class A { public void baz(int x){ x--; } }");
+		Assert.assertEquals(expected.hashCode(), cu.hashCode());
+	}
+
+	@Test
+	public void testHashCodeIsInvalidatedByListChanges() throws Exception {
+		String code = "public class A { public void foo(int x){ x++; } }";
+		CompilationUnit c1 = ASTManager.parse(code);
+		CompilationUnit c2 = ASTManager.parse(code);
+		Set<Node> units = new HashSet<Node>();
+		units.add(c1);
+		Assert.assertTrue(c1.getCachedHashCode() != 0);
+
+		BlockStmt body1 = ((MethodDeclaration) c1.getTypes().get(0).getMembers().get(0)).getBody();
+		BlockStmt body2 = ((MethodDeclaration) c2.getTypes().get(0).getMembers().get(0)).getBody();
+		Statement stmt = new ExpressionStmt(new MethodCallExpr(null, "bar"));
+		body1.getStmts().add(stmt);
+		Assert.assertSame(body1, stmt.getParentNode());
+		Assert.assertNotEquals(c1, c2);
+		Assert.assertFalse(units.contains(c2));
+
+		body2.getStmts().add(new ExpressionStmt(new MethodCallExpr(null, "bar")));
+		Assert.assertEquals(c1, c2);
+		Assert.assertEquals(c1.hashCode(), c2.hashCode());
+		units.clear();
+		units.add(c1);
+		Assert.assertTrue(units.contains(c2));
+
+		body1.getStmts().set(1, new ExpressionStmt(new MethodCallExpr(null, "baz")));
+		Assert.assertNotEquals(c1.hashCode(), c2.hashCode());
+		body1.getStmts().remove(1);
+		body2.getStmts().subList(1, 2).clear();
+		Assert.assertEquals(c1, c2);
+		Assert.assertEquals(c1.hashCode(), c2.hashCode());
+
+		// the nodes whose lists are not owned never cache their hash codes
+		List<Statement> stmts = new LinkedList<Statement>(body1.getStmts());
+		body1.setStmts(stmts);
+		Assert.assertEquals(c1.hashCode(), c2.hashCode());
+		Assert.assertEquals(0, c1.getCachedHashCode());
+		stmts.add(new ExpressionStmt(new MethodCallExpr(null, "bar")));
+		Assert.assertNotEquals(c1, c2);
+		Assert.assertNotEquals(c1.hashCode(), c2.hashCode());
+	}
+
+	@Test
+	public void testHashCodeIsInvalidatedByCommentChanges() throws Exception {
+		String code = "public class A { public void foo(int x){ x++; } }";
+		CompilationUnit c1 = ASTManager.parse(code);
+		CompilationUnit c2 = ASTManager.parse(code);
+		Assert.assertNull(c1.getComments());
+		Set<Node> units = new HashSet<Node>();
+		units.add(c1);
+		Assert.assertTrue(c1.getCachedHashCode() != 0);
+
+		List<Comment> comments = new NodeList<Comment>();
+		comments.add(new BlockComment(" bar "));
+		c1.setComments(comments);
+		Assert.assertSame(c1, comments.get(0).getParentNode());
+		Assert.assertFalse(units.contains(c2));
+		comments = new NodeList<Comment>();
+		comments.add(new BlockComment(" bar "));
+		c2.setComments(comments);
+		Assert.assertEquals(c1, c2);
+		Assert.assertEquals(c1.hashCode(), c2.hashCode());
+		units.clear();
+		units.add(c1);
+		Assert.assertTrue(units.contains(c2));
+
+		c1.getComments().get(0).setContent(" baz ");
+		Assert.assertNotEquals(c1.hashCode(), c2.hashCode());
+		Assert.assertFalse(units.contains(c2));
+		c2.getComments().get(0).setContent(" baz ");
+		Assert.assertEquals(c1.hashCode(), c2.hashCode());
+	}
+
+	@Test
+	public void testFingerprintIndex() throws Exception {
+		String code = "public class A {\n"
+				+ " public int foo(int x){ int y = x * 2; return y + 1; }\n"
+				+ " public int bar(int x){\n  int y = x * 2;\n  return y + 1;\n }\n"
+				+ " public int baz(int a){ int b = a * 2; return b + 1; }\n}";
+		CompilationUnit cu = ASTManager.parse(code);
+		MethodDeclaration foo = (MethodDeclaration) cu.getTypes().get(0).getMembers().get(0);
+		MethodDeclaration bar = (MethodDeclaration) cu.getTypes().get(0).getMembers().get(1);
+		MethodDeclaration baz = (MethodDeclaration) cu.getTypes().get(0).getMembers().get(2);
+
+		FingerprintIndex index = new FingerprintIndex();
+		index.add(cu);
+		// 3 methods, 3 blocks and 6 statements
+		Assert.assertEquals(12, index.size());
+		Assert.assertTrue(index.getCandidates(foo).isEmpty());
+		Assert.assertEquals(1, index.getCandidates(foo.getBody()).size());
+		Assert.assertSame(bar.getBody(), index.getCandidates(foo.getBody()).get(0));
+		Assert.assertTrue(index.getCandidates(baz.getBody()).isEmpty());
+		Assert.assertEquals(3, index.getDuplicates().size());
+
+		FingerprintIndex normalized = new FingerprintIndex(true);
+		normalized.add(cu);
+		Assert.assertEquals(12, normalized.size());
+		Assert.assertEquals(2, normalized.getCandidates(baz).size());
+		Assert.assertEquals(normalized.fingerprint(foo.getBody()), normalized.fingerprint(baz.getBody()));
+		Assert.assertEquals(4, normalized.getDuplicates().size());
+	}
+
+	@Test
+	public void testMethodIdentityComparator() throws Exception {
+		CompilationUnit cu = ASTManager.parse("public class A {\n"
+				+ " void foo(String a, int b) {}\n"
+				+ " void foo(String a, long b) {}\n"
+				+ " void foo(java.lang.String x, int y) { y++; }\n"
+				+ " void foo(String a, int[] b) {}\n"
+				+ " void foo() {}\n"
+				+ " void bar(String a, int b) {}\n}");
+		List<BodyDeclaration> members = cu.getTypes().get(0).getMembers();
+		MethodDeclarationComparator comparator = new MethodDeclarationComparator();
+		MethodDeclaration foo = (MethodDeclaration) members.get(0);
+		MethodDeclaration other = (MethodDeclaration) ASTManager.parse(MethodDeclaration.class,
+				"public void foo(String c, int d) { return; }");
+		Assert.assertEquals(0, comparator.compare(foo, other));
+		for (int i = 1; i < members.size(); i++) {
+			MethodDeclaration md = (MethodDeclaration) members.get(i);
+			int result = comparator.compare(foo, md);
+			Assert.assertTrue(result != 0);
+			Assert.assertEquals(-Integer.signum(result), Integer.signum(comparator.compare(md, foo)));
+		}
+	}
+
+	@Test
+	public void testPositions() throws Exception {
+		NameExpr a = new NameExpr(3, 5, 3, 6, "a");
+		NameExpr b = new NameExpr(3, 5, 300000, 20000, "b");
+		b.setData("data");
+		Assert.assertEquals(300000, b.getEndLine());
+		Assert.assertEquals(20000, b.getEndColumn());
+		Assert.assertEquals("data", b.getData());
+		Assert.assertTrue(b.contains(a));
+		Assert.assertFalse(a.contains(b));
+
+		a.setData("other");
+		a.setEndColumn(-1);
+		a.setBeginColumn(7);
+		Assert.assertEquals(3, a.getBeginLine());
+		Assert.assertEquals(7, a.getBeginColumn());
+		Assert.assertEquals(-1, a.getEndColumn());
+		Assert.assertEquals("other", a.getData());
+
+		NameExpr c = new NameExpr(1, 1, 3, 5, "c");
+		Assert.assertTrue(c.isPreviousThan(b));
+		Assert.assertFalse(b.isPreviousThan(c));
+		c.setBeginLine(3);
+		c.setBeginColumn(5);
+		c.setEndLine(300000);
+		c.setEndColumn(20000);
+		Assert.assertTrue(c.isInEqualLocation(b));
+		Assert.assertFalse(new NameExpr("d").isInEqualLocation(new NameExpr("d")));
+	}
+
+	@Test
+	public void testModifierVisitorAdapter() throws Exception {
+		CompilationUnit cu = ASTManager.parse("public class A { void foo() { a(); b(); c(); d(); b(); } }");
+		BlockStmt body = ((MethodDeclaration) cu.getTypes().get(0).getMembers().get(0)).getBody();
+		ModifierVisitorAdapter<Object> visitor = new ModifierVisitorAdapter<Object>() {
+			@Override
+			public Node visit(ExpressionStmt n, Object arg) {
+				String name = ((MethodCallExpr) n.getExpression()).getName();
+				if (name.equals("b")) {
+					return null;
+				}
+				if (name.equals("c")) {
+					return new ExpressionStmt(new MethodCallExpr(null, "e"));
+				}
+				return n;
+			}
+
+			public Node visit(MultiTypeParameter n, Object arg) {
+				return n;
+			}
+
+			public Node visit(LambdaExpr n, Object arg) {
+				return n;
+			}
+
+			public Node visit(MethodReferenceExpr n, Object arg) {
+				return n;
+			}
+
+			public Node visit(TypeExpr n, Object arg) {
+				return n;
+			}
+		};
+		int hash = cu.hashCode();
+		cu.accept(visitor, null);
+		Assert.assertEquals("{\n    a();\n    e();\n    d();\n}", body.toString());
+		Assert.assertSame(body, body.getStmts().get(1).getParentNode());
+		Assert.assertNotEquals(hash, cu.hashCode());
+
+		body.setStmts(new LinkedList<Statement>(body.getStmts()));
+		body.getStmts().add(0, new ExpressionStmt(new MethodCallExpr(null, "b")));
+		body.getStmts().add(new ExpressionStmt(new MethodCallExpr(null, "c")));
+		cu.accept(visitor, null);
+		Assert.assertEquals("{\n    a();\n    e();\n    d();\n    e();\n}", body.toString());
+		Assert.assertSame(body, body.getStmts().get(3).getParentNode());
+	}
+
+	@Test
+	public void testTreeSnapshot() throws Exception {
+		String code = "public class A { void foo() { a(); b(); c(); } }";
+		CompilationUnit cu = ASTManager.parse(code);
+		CompilationUnit original = ASTManager.parse(code);
+		MethodDeclaration md = (MethodDeclaration) cu.getTypes().get(0).getMembers().get(0);
+		BlockStmt body = md.getBody();
+		Statement b = body.getStmts().get(1);
+		TreeSnapshot snapshot = new TreeSnapshot(cu);
+		ModifierVisitorAdapter<Object> visitor = new ModifierVisitorAdapter<Object>() {
+			@Override
+			public Node visit(ExpressionStmt n, Object arg) {
+				String name = ((MethodCallExpr) n.getExpression()).getName();
+				if (name.equals("b")) {
+					return null;
+				}
+				return n;
+			}
+
+			public Node visit(MultiTypeParameter n, Object arg) {
+				return n;
+			}
+
+			public Node visit(LambdaExpr n, Object arg) {
+				return n;
+			}
+
+			public Node visit(MethodReferenceExpr n, Object arg) {
+				return n;
+			}
+
+			public Node visit(TypeExpr n, Object arg) {
+				return n;
+			}
+		};
+		visitor.setSnapshot(snapshot);
+		cu.accept(visitor, null);
+		snapshot.replaceChildNode(md, body, new BlockStmt(new LinkedList<Statement>(body.getStmts())));
+		Assert.assertEquals(2, snapshot.size());
+		Assert.assertEquals(2, md.getBody().getStmts().size());
+
+		Node clone = snapshot.cloneOriginal();
+		Assert.assertEquals(original, clone);
+		Assert.assertEquals(2, md.getBody().getStmts().size());
+
+		snapshot.restore();
+		Assert.assertFalse(snapshot.isModified());
+		Assert.assertEquals(original, cu);
+		Assert.assertSame(body, md.getBody());
+		Assert.assertSame(md, body.getParentNode());
+		Assert.assertSame(body, b.getParentNode());
+		Assert.assertEquals(original.toString(), cu.toString());
+	}
+
+	@Test
+	public void testDeepTrees() throws Exception {
+		Expression concat = new StringLiteralExpr("s");
+		Expression call = new NameExpr("builder");
+		for (int i = 0; i < 50000; i++) {
+			concat = new BinaryExpr(concat, new NameExpr("v"), BinaryExpr.Operator.plus);
+			call = new MethodCallExpr(call, "m");
+		}
+		for (Expression e : new Expression[] { concat, call }) {
+			Node clone = e.accept(new CloneVisitor(), null);
+			Assert.assertEquals(e, clone);
+			Assert.assertEquals(e.hashCode(), clone.hashCode());
+			Assert.assertEquals(e.toString(), clone.toString());
+		}
+		Assert.assertTrue(concat.toString().startsWith("\"s\" + v + v"));
+		Assert.assertTrue(call.toString().startsWith("builder.m().m()"));
+
+		final int[] count = new int[1];
+		new TreeWalker<Object>() {
+			@Override
+			protected boolean enter(Node n, Object arg) {
+				count[0]++;
+				return true;
+			}
+		}.walk(concat, null);
+		Assert.assertEquals(100001, count[0]);
+	}
+
+	@Test
+	public void testTreeWalkerOrder() throws Exception {
+		Expression e = (Expression) ASTManager.parse(Expression.class, "a + b * c");
+		final StringBuilder order = new StringBuilder();
+		new TreeWalker<Object>() {
+			@Override
+			protected boolean enter(Node n, Object arg) {
+				order.append("<").append(n instanceof NameExpr ? n.toString() : "op");
+				return !(n instanceof NameExpr);
+			}
+
+			@Override
+			protected void leave(Node n, Object arg) {
+				order.append(">");
+			}
+		}.walk(e, null);
+		Assert.assertEquals("<op<a<op<b<c>>", order.toString());
+	}
+
+	@Test
+	public void testEqualsChecksAttributesFirst() throws Exception {
+		ComparedNameExpr arg1 = new ComparedNameExpr("x");
+		ComparedNameExpr arg2 = new ComparedNameExpr("x");
+		MethodCallExpr call1 = callWith("foo(x)", arg1);
+		MethodCallExpr call2 = callWith("bar(x)", arg2);
+		Assert.assertNotEquals(call1, call2);
+		Assert.assertFalse(arg1.compared);
+
+		call2.setName("foo");
+		Assert.assertEquals(call1, call2);
+		Assert.assertTrue(arg1.compared);
+	}
+
+	@Test
+	public void testEqualsChecksSizesFirst() throws Exception {
+		ComparedNameExpr arg1 = new ComparedNameExpr("x");
+		ComparedNameExpr arg2 = new ComparedNameExpr("x");
+		MethodCallExpr call1 = callWith("foo(x)", arg1);
+		MethodCallExpr call2 = callWith("foo(x, y)", arg2);
+		Assert.assertNotEquals(call1, call2);
+		Assert.assertFalse(arg1.compared);
+
+		call2.getArgs().remove(1);
+		Assert.assertEquals(call1, call2);
+		Assert.assertTrue(arg1.compared);
+	}
+
+	@Test
+	public void testEqualsChecksCachedHashCodesFirst() throws Exception {
+		ComparedNameExpr arg1 = new ComparedNameExpr("x");
+		ComparedNameExpr arg2 = new ComparedNameExpr("y");
+		MethodCallExpr call1 = callWith("foo(x)", arg1);
+		MethodCallExpr call2 = callWith("foo(y)", arg2);
+		Assert.assertNotEquals(call1.hashCode(), call2.hashCode());
+		Assert.assertNotEquals(call1, call2);
+		Assert.assertFalse(arg1.compared);
+
+		// the hash codes are cached again after the change
+		call2.getArgs().set(0, new ComparedNameExpr("x"));
+		Assert.assertEquals(call1.hashCode(), call2.hashCode());
+		Assert.assertEquals(call1, call2);
+		Assert.assertTrue(arg1.compared);
+
+		// without cached hash codes, the children are compared
+		arg1.compared = false;
+		call2.getArgs().set(0, new ComparedNameExpr("y"));
+		Assert.assertEquals(0, call2.getCachedHashCode());
+		Assert.assertNotEquals(call1, call2);
+		Assert.assertTrue(arg1.compared);
+	}
+
+	private MethodCallExpr callWith(String code, Expression firstArg) throws Exception {
+		MethodCallExpr call = (MethodCallExpr) ASTManager.parse(Expression.class, code);
+		call.getArgs().set(0, firstArg);
+		return call;
+	}
+
+	/**
+	 * Name that records whether it has been compared by {@link EqualsVisitor}.
+	 */
+	private static class ComparedNameExpr extends NameExpr {
+
+		private boolean compared = false;
+
+		public ComparedNameExpr(String name) {
+			super(name);
+		}
+
+		@Override
+		public <R, A> R accept(GenericVisitor<R, A> v, A arg) {
+			if (v instanceof EqualsVisitor) {
+				compared = true;
+			}
+			return super.accept(v, arg);
+		}
+	}
+}
@@ -0,0 +1,139 @@
+/* 
+  Copyright (C) 2013 Raquel Pau and Albert Coroleu.
+ 
+ Walkmod is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+ 
+ Walkmod is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+ 
+ You should have received a copy of the GNU Lesser General Public License
+ along with Walkmod.  If not, see <http://www.gnu.org/licenses/>.*/
+package org.walkmod.javalang.merger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.walkmod.javalang.ASTManager;
+import org.walkmod.javalang.ast.body.BodyDeclaration;
+import org.walkmod.javalang.ast.body.ConstructorDeclaration;
+import org.walkmod.javalang.ast.body.FieldDeclaration;
+import org.walkmod.javalang.ast.body.MethodDeclaration;
+
+public class MergePoliciesTest {
+
+	private List<BodyDeclaration> members(String code) throws Exception {
+		return ASTManager.parse(code).getTypes().get(0).getMembers();
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> List<T> members(String code, Class<T> type) throws Exception {
+		List<T> result = new ArrayList<T>();
+		for (BodyDeclaration member : members(code)) {
+			if (type.isInstance(member)) {
+				result.add((T) member);
+			}
+		}
+		return result;
+	}
+
+	@Test
+	public void testOverloadsAreIndexedByArity() throws Exception {
+		List<MethodDeclaration> local = members(
+				"public class A { void foo(int a){} void foo(String a){} void foo(int a, int b){} void bar(){} }",
+				MethodDeclaration.class);
+		List<MethodDeclaration> remote = members(
+				"public class A { void foo(long x){} void foo(int a, int b){} void baz(){} }",
+				MethodDeclaration.class);
+		MethodDeclarationPolicy policy = new MethodDeclarationPolicy();
+
+		List<MethodDeclaration> candidates = policy.getCandidates(remote.get(0), local);
+		Assert.assertEquals(2, candidates.size());
+		Assert.assertSame(local.get(0), candidates.get(0));
+		Assert.assertSame(local.get(1), candidates.get(1));
+
+		candidates = policy.getCandidates(remote.get(1), local);
+		Assert.assertEquals(1, candidates.size());
+		Assert.assertSame(local.get(2), candidates.get(0));
+
+		Assert.assertTrue(policy.getCandidates(remote.get(2), local).isEmpty());
+	}
+
+	@Test
+	public void testConstructorOverloadsAreIndexedByArity() throws Exception {
+		List<ConstructorDeclaration> local = members("public class A { A(){} A(int a){} A(String a){} }",
+				ConstructorDeclaration.class);
+		List<ConstructorDeclaration> remote = members("public class A { A(long a){} A(int a, int b){} }",
+				ConstructorDeclaration.class);
+		ConstructorDeclarationPolicy policy = new ConstructorDeclarationPolicy();
+
+		List<ConstructorDeclaration> candidates = policy.getCandidates(remote.get(0), local);
+		Assert.assertEquals(2, candidates.size());
+		Assert.assertSame(local.get(1), candidates.get(0));
+		Assert.assertSame(local.get(2), candidates.get(1));
+		Assert.assertTrue(policy.getCandidates(remote.get(1), local).isEmpty());
+	}
+
+	@Test
+	public void testMultiVariableFieldsAreSplit() throws Exception {
+		List<FieldDeclaration> local = members("public class A { int a, b; String c; }", FieldDeclaration.class);
+		List<FieldDeclaration> remote = members("public class A { int b; int d, e; }", FieldDeclaration.class);
+		FieldDeclarationPolicy policy = new FieldDeclarationPolicy();
+
+		List<FieldDeclaration> candidates = policy.getCandidates(remote.get(0), local);
+		Assert.assertEquals(1, candidates.size());
+		Assert.assertEquals(1, candidates.get(0).getVariables().size());
+		Assert.assertEquals("b", candidates.get(0).getVariables().get(0).getId().getName());
+
+		List<FieldDeclaration> result = new ArrayList<FieldDeclaration>();
+		policy.apply(local, remote.subList(1, 2), result);
+		Assert.assertEquals(5, result.size());
+		String[] names = { "a", "b", "c", "d", "e" };
+		for (int i = 0; i < names.length; i++) {
+			Assert.assertEquals(1, result.get(i).getVariables().size());
+			Assert.assertEquals(names[i], result.get(i).getVariables().get(0).getId().getName());
+		}
+	}
+
+	@Test
+	public void testMembersAreIndexedByKind() throws Exception {
+		List<BodyDeclaration> local = members(
+				"public class A { int foo, bar; A(int foo){} void foo(int a){} void foo(){} class B {} }");
+		List<BodyDeclaration> remote = members("public class A { int bar, foo; void foo(long a){} class C {} }");
+		BodyDeclarationPolicy policy = new BodyDeclarationPolicy();
+
+		List<BodyDeclaration> candidates = policy.getCandidates(remote.get(0), local);
+		Assert.assertEquals(1, candidates.size());
+		Assert.assertSame(local.get(0), candidates.get(0));
+
+		candidates = policy.getCandidates(remote.get(1), local);
+		Assert.assertEquals(1, candidates.size());
+		Assert.assertSame(local.get(2), candidates.get(0));
+
+		candidates = policy.getCandidates(remote.get(2), local);
+		Assert.assertEquals(1, candidates.size());
+		Assert.assertSame(local.get(4), candidates.get(0));
+	}
+
+	@Test
+	public void testIndexIsRebuiltForEachMerge() throws Exception {
+		List<MethodDeclaration> local = members("public class A { void foo(){} void bar(){} }",
+				MethodDeclaration.class);
+		List<MethodDeclaration> remote = members("public class A { void bar(){} void baz(){} }",
+				MethodDeclaration.class);
+		MethodDeclarationPolicy policy = new MethodDeclarationPolicy();
+
+		Assert.assertEquals(1, policy.getCandidates(remote.get(0), local).size());
+		Assert.assertTrue(policy.getCandidates(remote.get(1), local).isEmpty());
+
+		local.set(1, remote.get(1));
+		Assert.assertTrue(policy.getCandidates(remote.get(0), local).isEmpty());
+		Assert.assertEquals(1, policy.getCandidates(remote.get(1), local).size());
+	}
+}